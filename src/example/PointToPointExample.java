@@ -9,7 +9,6 @@ import model.network.MacHeader;
 import model.network.Packet;
 import model.node.EndDevice;
 import model.node.Interface;
-import model.simulator.SchedulableMethod;
 import model.simulator.Simulator;
 import model.simulator.Time;
 import model.utils.Pair;
@@ -62,7 +61,7 @@ public class PointToPointExample {
         Packet packet;
         for (int i = 0; i < 5; i++) {
             packet = new Packet("Packet " + (i + 1), 1000 - new MacHeader().getSize() - new IpHeader().getSize());
-            Simulator.getInstance().schedule(new Time(), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet,
+            Simulator.getInstance().schedule(new Time(), nodeSrc::send, packet,
                     interfaceDst.getIpAddress());
         }
 
@@ -0,0 +1,82 @@
+package example;
+
+import helper.PointToPointHelper;
+import helper.SweepRun;
+import helper.SweepRunner;
+import model.network.IpAddress;
+import model.network.IpHeader;
+import model.network.MacHeader;
+import model.network.Packet;
+import model.node.EndDevice;
+import model.node.Interface;
+import model.simulator.Simulator;
+import model.simulator.Time;
+import model.utils.Pair;
+import model.utils.RandomGenerator;
+
+/**
+ * Sweep over the point to point example: the same topology is run for each
+ * combination of bandwidth, delay, queue size and seed, the seed giving the
+ * sending times of the packets.
+ * Each run writes its trace in out/simulation/PointToPointSweepExample/runN,
+ * and the summary of all runs is written in
+ * out/simulation/PointToPointSweepExample/summary.csv.
+ * 
+ * <pre>
+ * 192.168.0.1/24                            192.168.0.2/24
+ * +----------+                              +----------+
+ * |  Node 1  |------------------------------|  Node 2  |
+ * +----------+      bandwidth, delay        +----------+
+ * </pre>
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ */
+public class PointToPointSweepExample {
+
+    /**
+     * Run the point to point example for one combination of parameters
+     * 
+     * @param run The run of the sweep
+     */
+    private static void runScenario(SweepRun run) {
+        RandomGenerator.getInstance().setSeed(run.getLong("seed"));
+        EndDevice nodeSrc = new EndDevice("src");
+        EndDevice nodeDst = new EndDevice("dst");
+
+        PointToPointHelper p2pHelper = new PointToPointHelper(run.getInt("bandwidth"), run.getTime("delay"));
+        Pair<Interface, Interface> interfaces = p2pHelper.install(nodeSrc, nodeDst, new IpAddress("192.168.0.0/24"));
+
+        Interface interfaceSrc = interfaces.first;
+        Interface interfaceDst = interfaces.second;
+        interfaceSrc.setQueueSizeMaxPackets(run.getInt("queueSize"));
+
+        nodeSrc.getRoutingTable().addEntry(new IpAddress("192.168.0.0/24"), interfaceSrc, new IpAddress("192.168.0.2"));
+        nodeDst.getRoutingTable().addEntry(new IpAddress("192.168.0.0/24"), interfaceDst, new IpAddress("192.168.0.1"));
+
+        nodeSrc.getArpTable().addEntry(new IpAddress("192.168.0.2"), interfaceDst.getMacAddress());
+        nodeDst.getArpTable().addEntry(new IpAddress("192.168.0.1"), interfaceSrc.getMacAddress());
+
+        Simulator.getInstance().setStopTime(new Time(1000, 0));
+
+        int numberPackets = 20;
+        for (int i = 0; i < numberPackets; i++) {
+            Packet packet = new Packet("Packet " + (i + 1), 1000 - new MacHeader().getSize() - new IpHeader().getSize());
+            Time time = Time.milliSeconds(nodeSrc.getRandom().nextInt(10000));
+            Simulator.getInstance().schedule(time, nodeSrc::send, packet, interfaceDst.getIpAddress());
+        }
+        run.addMetric("packets", numberPackets);
+
+        Simulator.getInstance().run();
+    }
+
+    public static void main(String[] args) {
+        SweepRunner sweep = new SweepRunner("PointToPointSweepExample", PointToPointSweepExample::runScenario);
+        sweep.addParameter("bandwidth", 1000, 10000, 100000);
+        sweep.addParameter("delay", Time.milliSeconds(10), Time.milliSeconds(100), new Time(1, 0));
+        sweep.addParameter("queueSize", 5, 100);
+        sweep.addParameter("seed", 1L, 2L, 3L, 4L);
+        sweep.run();
+        System.out.println("Summary written to " + sweep.getSummaryPath());
+    }
+}
@@ -0,0 +1,197 @@
+package helper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.simulator.Time;
+
+/**
+ * One run of a parameter sweep: a combination of parameters, and the summary
+ * metrics recorded by the scenario
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see SweepRunner
+ */
+public class SweepRun {
+
+    /**
+     * Index of this run in the sweep
+     */
+    private final int index;
+
+    /**
+     * Name of the scenario of this run, giving its output directory
+     */
+    private final String scenarioName;
+
+    /**
+     * Value of each parameter, in the order of the grid
+     */
+    private final LinkedHashMap<String, Object> parameters;
+
+    /**
+     * Value of each metric, in the order they were recorded
+     */
+    private final LinkedHashMap<String, Object> metrics;
+
+    /**
+     * Error raised by the scenario, or null if it succeeded
+     */
+    private Throwable failure;
+
+    /**
+     * Create a new run
+     * 
+     * @param index        Index of this run in the sweep
+     * @param scenarioName Name of the scenario of this run
+     * @param parameters   Value of each parameter
+     */
+    SweepRun(int index, String scenarioName, LinkedHashMap<String, Object> parameters) {
+        this.index = index;
+        this.scenarioName = scenarioName;
+        this.parameters = parameters;
+        this.metrics = new LinkedHashMap<String, Object>();
+        this.failure = null;
+    }
+
+    /**
+     * Get the index of this run in the sweep
+     * 
+     * @return The index
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Get the name of the scenario of this run. Its outputs are written in
+     * out/simulation/ followed by this name
+     * 
+     * @return The scenario name
+     */
+    public String getScenarioName() {
+        return this.scenarioName;
+    }
+
+    /**
+     * Get the value of a parameter
+     * 
+     * @param name Name of the parameter
+     * @return The value
+     */
+    public Object getParameter(String name) {
+        if (!this.parameters.containsKey(name)) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Unknown sweep parameter " + name);
+        }
+        return this.parameters.get(name);
+    }
+
+    /**
+     * Get the value of an integer parameter
+     * 
+     * @param name Name of the parameter
+     * @return The value
+     */
+    public int getInt(String name) {
+        return ((Number) this.getParameter(name)).intValue();
+    }
+
+    /**
+     * Get the value of a long parameter, like a seed
+     * 
+     * @param name Name of the parameter
+     * @return The value
+     */
+    public long getLong(String name) {
+        return ((Number) this.getParameter(name)).longValue();
+    }
+
+    /**
+     * Get the value of a decimal parameter
+     * 
+     * @param name Name of the parameter
+     * @return The value
+     */
+    public double getDouble(String name) {
+        return ((Number) this.getParameter(name)).doubleValue();
+    }
+
+    /**
+     * Get the value of a time parameter
+     * 
+     * @param name Name of the parameter
+     * @return The value
+     */
+    public Time getTime(String name) {
+        return (Time) this.getParameter(name);
+    }
+
+    /**
+     * Get the value of each parameter
+     * 
+     * @return The parameters, in the order of the grid
+     */
+    public Map<String, Object> getParameters() {
+        return this.parameters;
+    }
+
+    /**
+     * Record a summary metric of this run. Recording a metric again replaces its
+     * value
+     * 
+     * @param name  Name of the metric
+     * @param value Value of the metric
+     */
+    public void addMetric(String name, Object value) {
+        this.metrics.put(name, value);
+    }
+
+    /**
+     * Get the value of a metric
+     * 
+     * @param name Name of the metric
+     * @return The value, or null if not recorded
+     */
+    public Object getMetric(String name) {
+        return this.metrics.get(name);
+    }
+
+    /**
+     * Get the value of each metric
+     * 
+     * @return The metrics, in the order they were recorded
+     */
+    public Map<String, Object> getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Indicates if the scenario raised an error
+     * 
+     * @return True if the run failed
+     */
+    public boolean isFailed() {
+        return this.failure != null;
+    }
+
+    /**
+     * Get the error raised by the scenario
+     * 
+     * @return The error, or null if the run succeeded
+     */
+    public Throwable getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Set the error raised by the scenario
+     * 
+     * @param failure The error
+     */
+    void setFailure(Throwable failure) {
+        this.failure = failure;
+    }
+}
@@ -0,0 +1,272 @@
+package helper;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.simulator.SimulationContext;
+import model.simulator.Simulator;
+
+/**
+ * Runner of a parameter sweep: the same scenario is run once for each
+ * combination of values of a grid of parameters.
+ * Runs are independent, each one having its own simulation context, so they
+ * are run in parallel on a ForkJoinPool, one run per thread. Each run has its
+ * own output directory, out/simulation/name/runN, and the summary metrics of
+ * all runs are merged in out/simulation/name/summary.csv, one line per run.
+ * 
+ * <pre>
+ * SweepRunner sweep = new SweepRunner("Sweep", run -&gt; { ... });
+ * sweep.addParameter("bandwidth", 1000, 10000);
+ * sweep.addParameter("queueSize", 10, 100);
+ * sweep.run();
+ * </pre>
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see SweepRun
+ * @see SweepScenario
+ */
+public class SweepRunner {
+
+    /**
+     * Name of the sweep, giving its output directory
+     */
+    private final String name;
+
+    /**
+     * Scenario run for each combination of parameters
+     */
+    private final SweepScenario scenario;
+
+    /**
+     * Values of each parameter of the grid
+     */
+    private final LinkedHashMap<String, List<Object>> grid;
+
+    /**
+     * Number of runs executed at the same time
+     */
+    private int parallelism;
+
+    /**
+     * Create a new sweep, running as many runs at the same time as there are
+     * cores
+     * 
+     * @param name     Name of the sweep
+     * @param scenario Scenario run for each combination of parameters
+     */
+    public SweepRunner(String name, SweepScenario scenario) {
+        this.name = name;
+        this.scenario = scenario;
+        this.grid = new LinkedHashMap<String, List<Object>>();
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Add a parameter to the grid. Each of its values is combined with all the
+     * values of the other parameters
+     * 
+     * @param name   Name of the parameter
+     * @param values Values of the parameter
+     */
+    public void addParameter(String name, Object... values) {
+        if (values.length == 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Sweep parameter " + name + " has no value");
+        }
+        if (this.grid.containsKey(name)) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Sweep parameter " + name + " already added");
+        }
+        this.grid.put(name, Arrays.asList(values));
+    }
+
+    /**
+     * Set the number of runs executed at the same time
+     * 
+     * @param parallelism Number of threads running the sweep
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Parallelism must be strictly positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the path of the CSV file merging the metrics of all runs
+     * 
+     * @return The path
+     */
+    public String getSummaryPath() {
+        return "out/simulation/" + this.name + "/summary.csv";
+    }
+
+    /**
+     * Build the runs of the sweep, one for each combination of parameters. The
+     * last parameter added varies first
+     * 
+     * @return The runs
+     */
+    public List<SweepRun> getRuns() {
+        List<SweepRun> runs = new ArrayList<SweepRun>();
+        List<String> names = new ArrayList<String>(this.grid.keySet());
+        int[] positions = new int[names.size()];
+        while (true) {
+            LinkedHashMap<String, Object> parameters = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < names.size(); i++) {
+                parameters.put(names.get(i), this.grid.get(names.get(i)).get(positions[i]));
+            }
+            int index = runs.size();
+            runs.add(new SweepRun(index, this.name + "/run" + index, parameters));
+
+            int i = names.size() - 1;
+            while (i >= 0 && positions[i] == this.grid.get(names.get(i)).size() - 1) {
+                positions[i] = 0;
+                i--;
+            }
+            if (i < 0) {
+                return runs;
+            }
+            positions[i]++;
+        }
+    }
+
+    /**
+     * Execute all the runs of the sweep, then write the summary of their
+     * metrics. A run raising an error is marked as failed, the other runs are
+     * not stopped
+     * 
+     * @return The runs, with their metrics
+     */
+    public List<SweepRun> run() {
+        List<SweepRun> runs = this.getRuns();
+        Logger.getInstance().log(LogSeverity.INFO, "Launch sweep " + this.name + " with " + runs.size()
+                + " runs on " + this.parallelism + " threads");
+
+        List<Callable<SweepRun>> tasks = new ArrayList<Callable<SweepRun>>();
+        for (SweepRun run : runs) {
+            tasks.add(() -> this.execute(run));
+        }
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            for (Future<SweepRun> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Sweep " + this.name + " interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        this.writeSummary(runs);
+        return runs;
+    }
+
+    /**
+     * Execute a run in a new simulation context, bound to the current thread
+     * during the run. Besides the metrics of the scenario, the end time of the
+     * simulation, the number of events scheduled, and the wall-clock duration
+     * of the run are recorded
+     * 
+     * @param run The run
+     * @return The run, with its metrics
+     */
+    private SweepRun execute(SweepRun run) {
+        SimulationContext previous = SimulationContext.getCurrent();
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            Simulator.getInstance().setScenarioName(run.getScenarioName());
+            long start = System.nanoTime();
+            this.scenario.run(run);
+            run.addMetric("endTimeSeconds", Simulator.getInstance().getCurrentTime().getSeconds());
+            run.addMetric("eventsScheduled", Simulator.getInstance().getEventsScheduled());
+            run.addMetric("wallTimeMilliSeconds", (System.nanoTime() - start) / 1000000);
+        } catch (RuntimeException e) {
+            run.setFailure(e);
+        } finally {
+            SimulationContext.setCurrent(previous);
+        }
+        if (run.isFailed()) {
+            Logger.getInstance().log(LogSeverity.WARNING,
+                    "Run " + run.getIndex() + " of sweep " + this.name + " failed: " + run.getFailure());
+        }
+        return run;
+    }
+
+    /**
+     * Write the parameters and metrics of all runs to the summary file. Metrics
+     * missing for a run are left empty
+     * 
+     * @param runs The runs
+     */
+    private void writeSummary(List<SweepRun> runs) {
+        LinkedHashSet<String> metrics = new LinkedHashSet<String>();
+        for (SweepRun run : runs) {
+            metrics.addAll(run.getMetrics().keySet());
+        }
+
+        String path = this.getSummaryPath();
+        File file = new File(path);
+        file.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            List<String> header = new ArrayList<String>();
+            header.add("run");
+            header.addAll(this.grid.keySet());
+            header.add("status");
+            header.addAll(metrics);
+            writer.write(String.join(",", header) + "\n");
+
+            for (SweepRun run : runs) {
+                List<String> line = new ArrayList<String>();
+                line.add(Integer.toString(run.getIndex()));
+                for (Object value : run.getParameters().values()) {
+                    line.add(SweepRunner.formatValue(value));
+                }
+                line.add(run.isFailed() ? "failed" : "ok");
+                Map<String, Object> values = run.getMetrics();
+                for (String metric : metrics) {
+                    line.add(SweepRunner.formatValue(values.get(metric)));
+                }
+                writer.write(String.join(",", line) + "\n");
+            }
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot open " + path + " for sweep summary");
+        }
+    }
+
+    /**
+     * Format a value for a CSV file, quoting it if needed
+     * 
+     * @param value The value, or null
+     * @return The formatted value, empty if null
+     */
+    private static String formatValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
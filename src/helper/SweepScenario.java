@@ -0,0 +1,24 @@
+package helper;
+
+/**
+ * Scenario run for each combination of parameters of a sweep.
+ * It builds the topology, schedules the events and runs the simulator of the
+ * current simulation context, reading its parameters from the run and
+ * recording its summary metrics on it. The context is new, and the scenario
+ * name of its simulator is already set to the one of the run, so the simulator
+ * must not be reset.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see SweepRunner
+ */
+@FunctionalInterface
+public interface SweepScenario {
+
+    /**
+     * Run the scenario for a combination of parameters
+     * 
+     * @param run The run, giving the parameters and recording the metrics
+     */
+    public void run(SweepRun run);
+}
@@ -0,0 +1,409 @@
+package model.io;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.network.Packet;
+
+/**
+ * Writer of the text packet trace on a background thread.
+ * The simulation thread encodes raw records, in the layout of the binary
+ * trace, in one of two segments, while the thread formats the records of the
+ * other one and writes them. Segments are swapped when the one being filled
+ * is full: the simulation thread only waits if the previous segment is not
+ * written yet, which is counted as a stall. Texts already formatted, such as
+ * the header or the records of a parallel simulation, are kept as text
+ * records.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see BinaryTraceWriter
+ * @see PacketTracer
+ */
+public class AsyncTraceWriter implements Appendable {
+
+    /**
+     * Default size of a segment, in bytes
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+    /**
+     * Type of a text record, holding the index of its text
+     */
+    private static final byte RECORD_TEXT = 2;
+
+    /**
+     * Size of a text record, in bytes
+     */
+    private static final int TEXT_RECORD_SIZE = 5;
+
+    /**
+     * Destination of the trace
+     */
+    private final Writer output;
+
+    /**
+     * Segment filled by the simulation thread
+     */
+    private Segment active;
+
+    /**
+     * Segment handed to the thread, or null if the thread is waiting
+     */
+    private Segment pending;
+
+    /**
+     * Segment written by the thread, to fill next, or null if not written yet
+     */
+    private Segment free;
+
+    /**
+     * Lock protecting the segments exchanged
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Signaled when a segment is handed to the thread
+     */
+    private final Condition filled;
+
+    /**
+     * Signaled when a segment is written
+     */
+    private final Condition drained;
+
+    /**
+     * Indicates if the writer is closed
+     */
+    private boolean closed;
+
+    /**
+     * Number of records traced
+     */
+    private long records;
+
+    /**
+     * Highest number of records buffered and not written yet
+     */
+    private int highWaterMark;
+
+    /**
+     * Number of times the simulation thread waited for the thread
+     */
+    private int stalls;
+
+    /**
+     * Total duration the simulation thread waited for the thread, in
+     * nanoseconds
+     */
+    private long stallTime;
+
+    /**
+     * Indicates if the thread failed to write to the destination
+     */
+    private volatile boolean failed;
+
+    /**
+     * Thread writing the records
+     */
+    private final Thread thread;
+
+    /**
+     * Create a new writer with segments of default size and start its thread
+     * 
+     * @param output Destination of the trace
+     */
+    public AsyncTraceWriter(Writer output) {
+        this(output, AsyncTraceWriter.DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Create a new writer and start its thread
+     * 
+     * @param output      Destination of the trace
+     * @param segmentSize Size of a segment, in bytes. It must hold the largest
+     *                    record
+     */
+    public AsyncTraceWriter(Writer output, int segmentSize) {
+        this.output = output;
+        this.active = new Segment(segmentSize);
+        this.pending = null;
+        this.free = new Segment(segmentSize);
+        this.lock = new ReentrantLock();
+        this.filled = this.lock.newCondition();
+        this.drained = this.lock.newCondition();
+        this.closed = false;
+        this.records = 0;
+        this.highWaterMark = 0;
+        this.stalls = 0;
+        this.stallTime = 0;
+        this.failed = false;
+        this.thread = new Thread(this::run, "AsyncTraceWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Add the record of a traced packet, formatted by the thread
+     * 
+     * @param time   Simulation time, in nanoseconds
+     * @param nodeId ID of the node tracing the packet
+     * @param layer  Layer of the node that calls the trace
+     * @param event  Event on the packet
+     * @param packet The packet to trace
+     */
+    public void writePacket(long time, int nodeId, Layer layer, PacketEvent event, Packet packet) {
+        Segment segment = this.reserve(BinaryTraceWriter.PACKET_RECORD_SIZE + packet.getTraceSizeBytes());
+        // Empty payloads are compared by reference, as in the text trace
+        String payload = packet.getPayload();
+        int index = payload == "" ? BinaryTraceWriter.NO_PAYLOAD : segment.addText(payload);
+        BinaryTraceWriter.encode(segment.buffer, time, nodeId, layer, event, index, packet);
+        segment.records++;
+    }
+
+    @Override
+    public Appendable append(CharSequence text) {
+        Segment segment = this.reserve(AsyncTraceWriter.TEXT_RECORD_SIZE);
+        segment.buffer.put(AsyncTraceWriter.RECORD_TEXT);
+        segment.buffer.putInt(segment.addText(text.toString()));
+        segment.records++;
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence text, int start, int end) {
+        return this.append(text.subSequence(start, end));
+    }
+
+    @Override
+    public Appendable append(char c) {
+        return this.append(String.valueOf(c));
+    }
+
+    /**
+     * Write all the records added, then stop the thread. The destination is
+     * not closed, but it is checked for errors
+     */
+    public void close() {
+        this.swap();
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.filled.signal();
+        } finally {
+            this.lock.unlock();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.failed || (this.output instanceof PrintWriter && ((PrintWriter) this.output).checkError())) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write packet trace");
+        }
+    }
+
+    /**
+     * Get the number of records traced
+     * 
+     * @return The number of records
+     */
+    public long getRecords() {
+        return this.records + this.active.records;
+    }
+
+    /**
+     * Get the highest number of records buffered and not written yet
+     * 
+     * @return The high-water mark, in records
+     */
+    public int getHighWaterMark() {
+        return this.highWaterMark;
+    }
+
+    /**
+     * Get the number of times the simulation waited for the thread to write a
+     * segment
+     * 
+     * @return The number of stalls
+     */
+    public int getStalls() {
+        return this.stalls;
+    }
+
+    /**
+     * Get the total duration the simulation waited for the thread to write a
+     * segment
+     * 
+     * @return The stall time, in nanoseconds
+     */
+    public long getStallTime() {
+        return this.stallTime;
+    }
+
+    /**
+     * Get the segment to fill, with room for a record. Segments are swapped
+     * if needed
+     * 
+     * @param size Size of the record, in bytes
+     * @return The segment
+     */
+    private Segment reserve(int size) {
+        if (this.active.buffer.remaining() < size) {
+            this.swap();
+        }
+        return this.active;
+    }
+
+    /**
+     * Hand the segment filled to the thread, after the previous one is
+     * written, and fill the segment written
+     */
+    private void swap() {
+        this.lock.lock();
+        try {
+            int buffered = this.active.records + (this.pending != null ? this.pending.records : 0);
+            this.highWaterMark = Math.max(this.highWaterMark, buffered);
+            if (this.pending != null) {
+                long start = System.nanoTime();
+                while (this.pending != null) {
+                    this.drained.awaitUninterruptibly();
+                }
+                this.stalls++;
+                this.stallTime += System.nanoTime() - start;
+            }
+            this.records += this.active.records;
+            this.pending = this.active;
+            this.active = this.free;
+            this.free = null;
+            this.filled.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Format and write the segments handed until closed
+     */
+    private void run() {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            Segment segment;
+            this.lock.lock();
+            try {
+                while (this.pending == null && !this.closed) {
+                    this.filled.awaitUninterruptibly();
+                }
+                if (this.pending == null) {
+                    return;
+                }
+                segment = this.pending;
+            } finally {
+                this.lock.unlock();
+            }
+
+            ByteBuffer buffer = segment.buffer;
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    if (buffer.get() == AsyncTraceWriter.RECORD_TEXT) {
+                        this.output.write(segment.texts[buffer.getInt()]);
+                        continue;
+                    }
+                    line.setLength(0);
+                    BinaryTraceWriter.decodePacket(buffer, segment.texts, line);
+                    line.append('\n');
+                    this.output.append(line);
+                }
+            } catch (IOException e) {
+                // Reported by the simulation thread when the writer is closed
+                this.failed = true;
+            }
+            this.lock.lock();
+            try {
+                segment.clear();
+                this.free = segment;
+                this.pending = null;
+                this.drained.signal();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Buffer of raw records, with the texts they reference
+     */
+    private static class Segment {
+
+        /**
+         * Records encoded
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Texts and payloads referenced by the records, by index
+         */
+        private String[] texts;
+
+        /**
+         * Number of texts referenced
+         */
+        private int numberTexts;
+
+        /**
+         * Number of records encoded
+         */
+        private int records;
+
+        /**
+         * Create an empty segment
+         * 
+         * @param size Size of the segment, in bytes
+         */
+        Segment(int size) {
+            this.buffer = ByteBuffer.allocate(size);
+            this.texts = new String[1024];
+            this.numberTexts = 0;
+            this.records = 0;
+        }
+
+        /**
+         * Reference a text
+         * 
+         * @param text The text
+         * @return Its index
+         */
+        int addText(String text) {
+            if (this.numberTexts == this.texts.length) {
+                this.texts = Arrays.copyOf(this.texts, 2 * this.texts.length);
+            }
+            this.texts[this.numberTexts] = text;
+            return this.numberTexts++;
+        }
+
+        /**
+         * Remove all the records
+         */
+        void clear() {
+            this.buffer.clear();
+            Arrays.fill(this.texts, 0, this.numberTexts, null);
+            this.numberTexts = 0;
+            this.records = 0;
+        }
+    }
+}
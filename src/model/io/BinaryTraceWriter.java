@@ -0,0 +1,304 @@
+package model.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import model.network.HeaderType;
+import model.network.IpHeader;
+import model.network.MacHeader;
+import model.network.Packet;
+import model.simulator.Time;
+
+/**
+ * Writer of a packet trace in a compact binary format.
+ * Records are encoded in a large direct buffer, written to a file channel when
+ * full, so tracing a packet formats no text. The text trace is regenerated
+ * from the binary one with {@code tools.TraceDecoder}.
+ * 
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, as ints, followed
+ * by records, in big-endian order. Each record starts with its type:
+ * <ul>
+ * <li>{@link #RECORD_PACKET}: time in nanoseconds (long), node ID (int), layer
+ * and event ordinals (bytes), payload index (int), packet ID (int), number of
+ * headers (byte), then for each header its type ordinal (byte) followed by its
+ * addresses, see {@link model.network.Header#writeToTrace(ByteBuffer)}</li>
+ * <li>{@link #RECORD_PAYLOAD}: payload index (int), length (int) and UTF-8
+ * bytes of a payload, written before the first packet using it</li>
+ * </ul>
+ * Payloads are written once and then referenced by their index, or by
+ * {@link #NO_PAYLOAD} for packets without payload. Indexes restart from zero
+ * once {@link #MAX_PAYLOADS} payloads are defined, a new definition replacing
+ * the previous one.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see PacketTracer
+ */
+public class BinaryTraceWriter extends TraceFileWriter {
+
+    /**
+     * First int of a binary trace
+     */
+    public static final int MAGIC = 0x4E545243;
+
+    /**
+     * Version of the format of the binary trace
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Type of the record of a traced packet
+     */
+    public static final byte RECORD_PACKET = 0;
+
+    /**
+     * Type of the record defining a payload
+     */
+    public static final byte RECORD_PAYLOAD = 1;
+
+    /**
+     * Payload index of the packets without payload
+     */
+    public static final int NO_PAYLOAD = -1;
+
+    /**
+     * Maximal number of payloads defined at a time
+     */
+    public static final int MAX_PAYLOADS = 1 << 16;
+
+    /**
+     * Number of bytes of a packet record before the packet ID
+     */
+    public static final int PACKET_RECORD_SIZE = 19;
+
+    /**
+     * Position of the payload index in a packet record
+     */
+    private static final int PAYLOAD_INDEX_OFFSET = 15;
+
+    /**
+     * Size of the buffer, in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    /**
+     * Layers, by ordinal
+     */
+    private static final Layer[] LAYERS = Layer.values();
+
+    /**
+     * Packet events, by ordinal
+     */
+    private static final PacketEvent[] EVENTS = PacketEvent.values();
+
+    /**
+     * Header types, by ordinal
+     */
+    private static final HeaderType[] HEADER_TYPES = HeaderType.values();
+
+    /**
+     * Index of each payload defined
+     */
+    private HashMap<String, Integer> payloads;
+
+    /**
+     * Open a binary trace
+     * 
+     * @param path Path of the trace
+     */
+    public BinaryTraceWriter(String path) {
+        super(path, BinaryTraceWriter.BUFFER_SIZE);
+        this.payloads = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Write the header of the trace
+     */
+    public void writeHeader() {
+        this.reserve(8);
+        this.buffer.putInt(BinaryTraceWriter.MAGIC);
+        this.buffer.putInt(BinaryTraceWriter.VERSION);
+    }
+
+    /**
+     * Write the record of a traced packet
+     * 
+     * @param time   Simulation time, in nanoseconds
+     * @param nodeId ID of the node tracing the packet
+     * @param layer  Layer of the node that calls the trace
+     * @param event  Event on the packet
+     * @param packet The packet to trace
+     */
+    public void writePacket(long time, int nodeId, Layer layer, PacketEvent event, Packet packet) {
+        int payload = this.getPayloadIndex(packet.getPayload());
+        this.reserve(BinaryTraceWriter.PACKET_RECORD_SIZE + packet.getTraceSizeBytes());
+        BinaryTraceWriter.encode(this.buffer, time, nodeId, layer, event, payload, packet);
+    }
+
+    /**
+     * Encode the record of a traced packet, to write once its order is known
+     * during a parallel simulation. Its payload index is given when written,
+     * so the payloads are defined in the order of the trace, as well as the
+     * packet ID if not given yet, see {@link Packet#hasPacketId()}
+     * 
+     * @param time   Simulation time, in nanoseconds
+     * @param nodeId ID of the node tracing the packet
+     * @param layer  Layer of the node that calls the trace
+     * @param event  Event on the packet
+     * @param packet The packet to trace
+     * @return The write of the record
+     * @see model.simulator.Simulator#defer(Runnable)
+     */
+    public Runnable encodePacket(long time, int nodeId, Layer layer, PacketEvent event, Packet packet) {
+        ByteBuffer record = ByteBuffer.allocate(BinaryTraceWriter.PACKET_RECORD_SIZE + packet.getTraceSizeBytes());
+        BinaryTraceWriter.encode(record, time, nodeId, layer, event, BinaryTraceWriter.NO_PAYLOAD, packet);
+        return new PendingRecord(record.array(), packet.hasPacketId() ? null : packet, packet.getPayload());
+    }
+
+    /**
+     * Encode the record of a traced packet
+     * 
+     * @param buffer  Destination of the record
+     * @param time    Simulation time, in nanoseconds
+     * @param nodeId  ID of the node tracing the packet
+     * @param layer   Layer of the node that calls the trace
+     * @param event   Event on the packet
+     * @param payload Index of the payload
+     * @param packet  The packet to trace
+     */
+    static void encode(ByteBuffer buffer, long time, int nodeId, Layer layer, PacketEvent event,
+            int payload, Packet packet) {
+        buffer.put(BinaryTraceWriter.RECORD_PACKET);
+        buffer.putLong(time);
+        buffer.putInt(nodeId);
+        buffer.put((byte) layer.ordinal());
+        buffer.put((byte) event.ordinal());
+        buffer.putInt(payload);
+        packet.writeToTrace(buffer);
+    }
+
+    /**
+     * Decode a packet record as a line of the text trace, see
+     * {@link PacketTracer#tracePacket(int, Layer, PacketEvent, Packet)}
+     * 
+     * @param buffer   Buffer holding the whole record, positioned after its
+     *                 type
+     * @param payloads Payloads, by index
+     * @param line     Destination of the line, without line separator
+     */
+    public static void decodePacket(ByteBuffer buffer, String[] payloads, StringBuilder line) {
+        line.append(Time.nanoSeconds(buffer.getLong()).toStringWithPrecision(6));
+        line.append(' ').append(buffer.getInt());
+        line.append(' ').append(BinaryTraceWriter.LAYERS[buffer.get()]);
+        line.append(' ').append(BinaryTraceWriter.EVENTS[buffer.get()]);
+        int payload = buffer.getInt();
+        line.append(' ').append(buffer.getInt());
+
+        int numberHeaders = buffer.get() & 0xff;
+        for (int i = 0; i < numberHeaders; i++) {
+            line.append(' ');
+            if (BinaryTraceWriter.HEADER_TYPES[buffer.get()] == HeaderType.MAC_HEADER) {
+                MacHeader.formatFromTrace(buffer, line);
+            } else {
+                IpHeader.formatFromTrace(buffer, line);
+            }
+        }
+        line.append(' ').append(payload == BinaryTraceWriter.NO_PAYLOAD ? "NoPayload" : payloads[payload]);
+    }
+
+    /**
+     * Write a record encoded by
+     * {@link #encodePacket(long, int, Layer, PacketEvent, Packet)}
+     * 
+     * @param record  The record
+     * @param payload Payload of the packet
+     */
+    private void writeRecord(byte[] record, String payload) {
+        int index = this.getPayloadIndex(payload);
+        this.reserve(record.length);
+        int start = this.buffer.position();
+        this.buffer.put(record);
+        this.buffer.putInt(start + BinaryTraceWriter.PAYLOAD_INDEX_OFFSET, index);
+    }
+
+    /**
+     * Get the index of a payload, defining it first if needed
+     * 
+     * @param payload The payload
+     * @return Its index
+     */
+    private int getPayloadIndex(String payload) {
+        // Empty payloads are compared by reference, as in the text trace
+        if (payload == "") {
+            return BinaryTraceWriter.NO_PAYLOAD;
+        }
+        Integer index = this.payloads.get(payload);
+        if (index != null) {
+            return index;
+        }
+
+        if (this.payloads.size() == BinaryTraceWriter.MAX_PAYLOADS) {
+            this.payloads.clear();
+        }
+        index = this.payloads.size();
+        this.payloads.put(payload, index);
+
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        this.reserve(9);
+        this.buffer.put(BinaryTraceWriter.RECORD_PAYLOAD);
+        this.buffer.putInt(index);
+        this.buffer.putInt(bytes.length);
+        if (bytes.length > this.buffer.remaining()) {
+            this.flush();
+            this.write(ByteBuffer.wrap(bytes));
+        } else {
+            this.buffer.put(bytes);
+        }
+        return index;
+    }
+
+    /**
+     * Record of a traced packet encoded during a parallel simulation, written
+     * to the trace when run
+     */
+    private class PendingRecord implements Runnable {
+
+        /**
+         * The record encoded, without its payload index
+         */
+        private byte[] record;
+
+        /**
+         * Packet whose ID is written with the record, or null if encoded in
+         * the record
+         */
+        private Packet packet;
+
+        /**
+         * Payload of the packet
+         */
+        private String payload;
+
+        /**
+         * Create a record to write
+         * 
+         * @param record  The record encoded
+         * @param packet  Packet whose ID is not given yet, or null
+         * @param payload Payload of the packet
+         */
+        PendingRecord(byte[] record, Packet packet, String payload) {
+            this.record = record;
+            this.packet = packet;
+            this.payload = payload;
+        }
+
+        @Override
+        public void run() {
+            if (this.packet != null) {
+                ByteBuffer.wrap(this.record).putInt(BinaryTraceWriter.PACKET_RECORD_SIZE, this.packet.getPacketId());
+            }
+            BinaryTraceWriter.this.writeRecord(this.record, this.payload);
+        }
+    }
+}
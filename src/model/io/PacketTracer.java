@@ -8,11 +8,20 @@ import java.io.PrintWriter;
 import model.logger.LogSeverity;
 import model.logger.Logger;
 import model.network.Packet;
+import model.node.Interface;
+import model.simulator.SimulationContext;
 import model.simulator.Simulator;
+import model.simulator.Time;
 
 /**
  * Class used to trace all packets transmissions
- * It uses Singleton design pattern.
+ * Each simulation context has its own tracer, see {@link SimulationContext}.
+ * The trace is written as text, or in a compact binary format if enabled by
+ * {@link Simulator#enableBinaryTrace()}, see {@link BinaryTraceWriter}. The
+ * text trace is formatted and written on a background thread if enabled by
+ * {@link Simulator#enableAsyncTrace()}, see {@link AsyncTraceWriter}. The
+ * packets sent on the wire are also captured in pcapng format if enabled by
+ * {@link Simulator#enablePcapTrace(int)}, see {@link PcapngWriter}.
  * 
  * @author Bastien Tauran
  * @version 1.0
@@ -22,9 +31,10 @@ import model.simulator.Simulator;
 public class PacketTracer {
 
     /**
-     * Instance of PacketTracer
+     * Header of the text trace
      */
-    private static PacketTracer instance;
+    public static final String HEADER = "Packet trace\n============\n"
+            + "Format: Time NodeId Layer Event PacketId HeadersDetails Payload\n\n";
 
     /**
      * Instance writing logs to file
@@ -32,35 +42,70 @@ public class PacketTracer {
     private PrintWriter writer;
 
     /**
-     * Private constructor
+     * Instance writing the binary trace, or null if traced as text
      */
-    private PacketTracer() {
-        String scenarioName = Simulator.getInstance().getScenarioName();
+    private BinaryTraceWriter binaryWriter;
+
+    /**
+     * Instance writing the text trace on a background thread, or null if
+     * written by the simulation thread
+     */
+    private AsyncTraceWriter asyncWriter;
+
+    /**
+     * Instance writing the pcapng capture, or null if not captured
+     */
+    private PcapngWriter pcapWriter;
+
+    /**
+     * Create a new tracer. Use {@link #getInstance()} to get the one of the
+     * current simulation context
+     * 
+     * @param scenarioName Name of the scenario traced. If empty, nothing is
+     *                     traced
+     * @param binary       Write the trace PacketTrace.bin in binary format if
+     *                     set to true, else the trace PacketTrace.log as text
+     * @param async        Format and write the text trace on a background
+     *                     thread if set to true
+     * @param snapLength   Maximal number of bytes of each frame captured in
+     *                     PacketTrace.pcapng, or 0 if not captured
+     */
+    public PacketTracer(String scenarioName, boolean binary, boolean async, int snapLength) {
+        this.writer = null;
+        this.binaryWriter = null;
+        this.asyncWriter = null;
+        this.pcapWriter = null;
         if (scenarioName != "") {
-            String path = "out/simulation" + "/" + scenarioName + "/PacketTrace.log";
+            String path = "out/simulation" + "/" + scenarioName + (binary ? "/PacketTrace.bin" : "/PacketTrace.log");
             Logger.getInstance().log(LogSeverity.INFO, "Create PacketTracer on file " + path);
+            File file = new File(path);
+            file.getParentFile().mkdirs();
+            if (snapLength > 0) {
+                this.pcapWriter = new PcapngWriter(file.getParent() + "/PacketTrace.pcapng", snapLength);
+            }
+            if (binary) {
+                this.binaryWriter = new BinaryTraceWriter(path);
+                return;
+            }
             try {
-                File file = new File(path);
-                file.getParentFile().mkdirs();
                 this.writer = new PrintWriter(new FileWriter(file));
             } catch (IOException e) {
                 Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot open " + path + " for PacketTracer");
             }
-        } else {
-            this.writer = null;
+            if (async) {
+                this.asyncWriter = new AsyncTraceWriter(this.writer);
+            }
         }
     }
 
     /**
-     * Get the instance of PacketTracer. Construct it if not already created.
+     * Get the instance of PacketTracer of the current simulation context.
+     * Construct it if not already created.
      * 
      * @return The instance of PacketTracer
      */
     public static PacketTracer getInstance() {
-        if (instance == null) {
-            instance = new PacketTracer();
-        }
-        return instance;
+        return SimulationContext.getCurrent().getPacketTracer();
     }
 
     /**
@@ -74,10 +119,63 @@ public class PacketTracer {
      * @param packet The packet to trace
      */
     public void tracePacket(int nodeId, Layer layer, PacketEvent event, Packet packet) {
-        if (this.writer != null) {
-            this.writer.write(Simulator.getInstance().getCurrentTime().toStringWithPrecision(6) + " ");
-            this.writer.write(nodeId + " " + layer + " " + event + " ");
-            this.writer.write(packet.formatToTrace() + "\n");
+        if (this.binaryWriter != null) {
+            Simulator simulator = Simulator.getInstance();
+            long time = simulator.getCurrentTimeNanoSeconds();
+            if (simulator.isOutputDeferred()) {
+                simulator.defer(this.binaryWriter.encodePacket(time, nodeId, layer, event, packet));
+            } else {
+                this.binaryWriter.writePacket(time, nodeId, layer, event, packet);
+            }
+        } else if (this.asyncWriter != null && !Simulator.getInstance().isOutputDeferred()) {
+            this.asyncWriter.writePacket(Simulator.getInstance().getCurrentTimeNanoSeconds(), nodeId, layer, event,
+                    packet);
+        } else if (this.writer != null) {
+            Simulator simulator = Simulator.getInstance();
+            Appendable target = this.asyncWriter != null ? this.asyncWriter : this.writer;
+            String prefix = simulator.getCurrentTime().toStringWithPrecision(6) + " " + nodeId + " " + layer + " "
+                    + event + " ";
+            if (packet.hasPacketId()) {
+                simulator.print(target, prefix + packet.formatToTrace() + "\n");
+            } else {
+                // The ID is given when the event is committed, just before this output
+                String content = packet.formatContentToTrace();
+                simulator.defer(() -> PacketTracer.append(target,
+                        prefix + packet.getPacketId() + " " + content + "\n"));
+            }
+        }
+    }
+
+    /**
+     * Append a line to the text trace
+     * 
+     * @param target The trace
+     * @param text   The line to append
+     */
+    private static void append(Appendable target, String text) {
+        try {
+            target.append(text);
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write simulation output");
+        }
+    }
+
+    /**
+     * Capture a packet sent on the wire by an interface, if a pcapng capture is
+     * enabled
+     * 
+     * @param interf Interface sending the packet
+     * @param packet The packet sent
+     */
+    public void capturePacket(Interface interf, Packet packet) {
+        if (this.pcapWriter != null) {
+            Simulator simulator = Simulator.getInstance();
+            long time = simulator.getCurrentTimeNanoSeconds();
+            if (simulator.isOutputDeferred()) {
+                simulator.defer(this.pcapWriter.encodePacket(time, interf, packet));
+            } else {
+                this.pcapWriter.writePacket(time, interf, packet);
+            }
         }
     }
 
@@ -85,24 +183,54 @@ public class PacketTracer {
      * Write header of the trace
      */
     public void initTrace() {
-        this.writer.write("Packet trace\n");
-        this.writer.write("============\n");
-        this.writer.write("Format: Time NodeId Layer Event PacketId HeadersDetails Payload\n\n");
+        if (this.pcapWriter != null) {
+            this.pcapWriter.writeHeader();
+        }
+        if (this.binaryWriter != null) {
+            this.binaryWriter.writeHeader();
+            return;
+        }
+        if (this.asyncWriter != null) {
+            this.asyncWriter.append(PacketTracer.HEADER);
+            return;
+        }
+        this.writer.write(PacketTracer.HEADER);
     }
 
     /**
-     * Close the PrinteWriter writing to file
+     * Close the PrinteWriter writing to file. When written on a background
+     * thread, the records buffered are written first, and the high-water mark
+     * of the buffers and the time the simulation waited for the thread are
+     * logged
      */
     public void closeTrace() {
+        if (this.pcapWriter != null) {
+            this.pcapWriter.close();
+            this.pcapWriter = null;
+        }
+        if (this.binaryWriter != null) {
+            this.binaryWriter.close();
+            this.binaryWriter = null;
+            return;
+        }
+        if (this.asyncWriter != null) {
+            this.asyncWriter.close();
+            Logger.getInstance().log(LogSeverity.INFO, "PacketTracer.closeTrace",
+                    this.asyncWriter.getRecords() + " records traced, high-water mark "
+                            + this.asyncWriter.getHighWaterMark() + " records, writer stalled "
+                            + this.asyncWriter.getStalls() + " times for "
+                            + Time.nanoSeconds(this.asyncWriter.getStallTime()).toStringWithPrecision(6));
+            this.asyncWriter = null;
+        }
         this.writer.close();
         this.writer = null;
     }
 
     /**
-     * Destroy the instance of PacketTracer
+     * Destroy the instance of PacketTracer of the current simulation context
      */
     public static void destroy() {
-        instance = null;
+        SimulationContext.getCurrent().removePacketTracer();
     }
 
 }
@@ -0,0 +1,330 @@
+package model.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import model.network.Packet;
+import model.node.Interface;
+
+/**
+ * Writer of the packets sent on the wire in a pcapng capture, readable by the
+ * standard network analysis tools.
+ * Each interface sending a packet gets an Interface Description Block, named
+ * after its node and itself, the first time it sends. Each packet is written
+ * as an Enhanced Packet Block, with a nanosecond timestamp and a frame built
+ * from its headers and payload, see {@link Packet#writeToWire(ByteBuffer, int)}.
+ * Blocks are encoded in a direct buffer reused for the whole capture, see
+ * {@link TraceFileWriter}.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see PacketTracer
+ */
+public class PcapngWriter extends TraceFileWriter {
+
+    /**
+     * Highest snap length, in bytes
+     */
+    public static final int MAX_SNAP_LENGTH = 262144;
+
+    /**
+     * Type of a Section Header Block
+     */
+    private static final int SECTION_HEADER_BLOCK = 0x0A0D0D0A;
+
+    /**
+     * Type of an Interface Description Block
+     */
+    private static final int INTERFACE_DESCRIPTION_BLOCK = 1;
+
+    /**
+     * Type of an Enhanced Packet Block
+     */
+    private static final int ENHANCED_PACKET_BLOCK = 6;
+
+    /**
+     * Magic number giving the byte order of the section
+     */
+    private static final int BYTE_ORDER_MAGIC = 0x1A2B3C4D;
+
+    /**
+     * Link type of the interfaces, Ethernet
+     */
+    private static final short LINKTYPE_ETHERNET = 1;
+
+    /**
+     * Code of the option giving the name of an interface
+     */
+    private static final short OPTION_IF_NAME = 2;
+
+    /**
+     * Code of the option giving the MAC address of an interface
+     */
+    private static final short OPTION_IF_MACADDR = 6;
+
+    /**
+     * Code of the option giving the resolution of the timestamps
+     */
+    private static final short OPTION_IF_TSRESOL = 9;
+
+    /**
+     * Resolution of the timestamps, 10^-9 second
+     */
+    private static final byte NANOSECOND_RESOLUTION = 9;
+
+    /**
+     * Size of an Enhanced Packet Block without its frame, in bytes
+     */
+    private static final int PACKET_BLOCK_SIZE = 32;
+
+    /**
+     * Size of the buffer, in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    /**
+     * Maximal number of bytes of a frame captured
+     */
+    private int snapLength;
+
+    /**
+     * ID of each interface described
+     */
+    private IdentityHashMap<Interface, Integer> interfaces;
+
+    /**
+     * Open a capture
+     * 
+     * @param path       Path of the capture
+     * @param snapLength Maximal number of bytes of a frame captured. The
+     *                   frame is truncated beyond it, headers included
+     */
+    public PcapngWriter(String path, int snapLength) {
+        super(path, PcapngWriter.BUFFER_SIZE);
+        this.snapLength = snapLength;
+        this.interfaces = new IdentityHashMap<Interface, Integer>();
+    }
+
+    /**
+     * Write the Section Header Block of the capture
+     */
+    public void writeHeader() {
+        this.reserve(28);
+        this.buffer.putInt(PcapngWriter.SECTION_HEADER_BLOCK);
+        this.buffer.putInt(28);
+        this.buffer.putInt(PcapngWriter.BYTE_ORDER_MAGIC);
+        this.buffer.putShort((short) 1);
+        this.buffer.putShort((short) 0);
+        // Length of the section not known
+        this.buffer.putLong(-1);
+        this.buffer.putInt(28);
+    }
+
+    /**
+     * Write a packet sent on the wire
+     * 
+     * @param time   Simulation time, in nanoseconds
+     * @param interf Interface sending the packet
+     * @param packet The packet
+     */
+    public void writePacket(long time, Interface interf, Packet packet) {
+        int id = this.getInterfaceId(interf);
+        int wireSize = packet.getWireSizeBytes();
+        int captured = Math.min(wireSize, this.snapLength);
+        if (wireSize - packet.getPayloadSizeBytes() > captured) {
+            // Headers truncated, so the frame is encoded apart
+            byte[] frame = this.encodeFrame(packet, wireSize);
+            this.startPacketBlock(time, id, frame.length, wireSize);
+            this.buffer.put(frame);
+        } else {
+            this.startPacketBlock(time, id, captured, wireSize);
+            packet.writeToWire(this.buffer, captured);
+        }
+        this.endPacketBlock(captured);
+    }
+
+    /**
+     * Encode the frame of a packet sent on the wire, to write once its order
+     * is known during a parallel simulation. Its interface is described when
+     * written, so the interfaces are numbered in the order of the capture
+     * 
+     * @param time   Simulation time, in nanoseconds
+     * @param interf Interface sending the packet
+     * @param packet The packet
+     * @return The write of the packet
+     * @see model.simulator.Simulator#defer(Runnable)
+     */
+    public Runnable encodePacket(long time, Interface interf, Packet packet) {
+        int wireSize = packet.getWireSizeBytes();
+        return new PendingPacket(time, interf, this.encodeFrame(packet, wireSize), wireSize);
+    }
+
+    /**
+     * Encode the frame of a packet, truncated to the snap length
+     * 
+     * @param packet   The packet
+     * @param wireSize Size of the packet on the wire, in bytes
+     * @return The bytes of the frame captured
+     */
+    private byte[] encodeFrame(Packet packet, int wireSize) {
+        int captured = Math.min(wireSize, this.snapLength);
+        ByteBuffer frame = ByteBuffer.allocate(Math.max(captured, wireSize - packet.getPayloadSizeBytes()));
+        packet.writeToWire(frame, captured);
+        return frame.capacity() == captured ? frame.array() : Arrays.copyOf(frame.array(), captured);
+    }
+
+    /**
+     * Write the beginning of an Enhanced Packet Block, up to its frame
+     * 
+     * @param time     Simulation time, in nanoseconds
+     * @param id       ID of the interface
+     * @param captured Number of bytes of the frame captured
+     * @param wireSize Size of the packet on the wire, in bytes
+     */
+    private void startPacketBlock(long time, int id, int captured, int wireSize) {
+        int length = PcapngWriter.PACKET_BLOCK_SIZE + PcapngWriter.pad(captured);
+        this.reserve(length);
+        this.buffer.putInt(PcapngWriter.ENHANCED_PACKET_BLOCK);
+        this.buffer.putInt(length);
+        this.buffer.putInt(id);
+        this.buffer.putInt((int) (time >>> 32));
+        this.buffer.putInt((int) time);
+        this.buffer.putInt(captured);
+        this.buffer.putInt(wireSize);
+    }
+
+    /**
+     * Write the end of an Enhanced Packet Block, after its frame
+     * 
+     * @param captured Number of bytes of the frame captured
+     */
+    private void endPacketBlock(int captured) {
+        for (int i = captured; i < PcapngWriter.pad(captured); i++) {
+            this.buffer.put((byte) 0);
+        }
+        this.buffer.putInt(PcapngWriter.PACKET_BLOCK_SIZE + PcapngWriter.pad(captured));
+    }
+
+    /**
+     * Get the ID of an interface, describing it first if needed
+     * 
+     * @param interf The interface
+     * @return Its ID
+     */
+    private int getInterfaceId(Interface interf) {
+        Integer id = this.interfaces.get(interf);
+        if (id != null) {
+            return id;
+        }
+        id = this.interfaces.size();
+        this.interfaces.put(interf, id);
+
+        byte[] name = (interf.getNode().getName() + "/" + interf.getName()).getBytes(StandardCharsets.UTF_8);
+        int length = 20 + (4 + PcapngWriter.pad(name.length)) + (4 + 8) + (4 + 4) + 4;
+        this.reserve(length);
+        this.buffer.putInt(PcapngWriter.INTERFACE_DESCRIPTION_BLOCK);
+        this.buffer.putInt(length);
+        this.buffer.putShort(PcapngWriter.LINKTYPE_ETHERNET);
+        this.buffer.putShort((short) 0);
+        this.buffer.putInt(this.snapLength);
+
+        this.startOption(PcapngWriter.OPTION_IF_NAME, name.length);
+        this.buffer.put(name);
+        this.endOption(name.length);
+        this.startOption(PcapngWriter.OPTION_IF_MACADDR, 6);
+        interf.getMacAddress().writeToTrace(this.buffer);
+        this.endOption(6);
+        this.startOption(PcapngWriter.OPTION_IF_TSRESOL, 1);
+        this.buffer.put(PcapngWriter.NANOSECOND_RESOLUTION);
+        this.endOption(1);
+        // End of the options
+        this.startOption((short) 0, 0);
+
+        this.buffer.putInt(length);
+        return id;
+    }
+
+    /**
+     * Write the code and the length of an option
+     * 
+     * @param code   Code of the option
+     * @param length Length of the value of the option, in bytes
+     */
+    private void startOption(short code, int length) {
+        this.buffer.putShort(code);
+        this.buffer.putShort((short) length);
+    }
+
+    /**
+     * Pad the value of an option to 32 bits
+     * 
+     * @param length Length of the value of the option, in bytes
+     */
+    private void endOption(int length) {
+        for (int i = length; i < PcapngWriter.pad(length); i++) {
+            this.buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * Round a length up to a multiple of 32 bits
+     * 
+     * @param length The length, in bytes
+     * @return The length padded
+     */
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+
+    /**
+     * Packet encoded during a parallel simulation, written to the capture when
+     * run
+     */
+    private class PendingPacket implements Runnable {
+
+        /**
+         * Simulation time, in nanoseconds
+         */
+        private long time;
+
+        /**
+         * Interface sending the packet
+         */
+        private Interface interf;
+
+        /**
+         * Bytes of the frame captured
+         */
+        private byte[] frame;
+
+        /**
+         * Size of the packet on the wire, in bytes
+         */
+        private int wireSize;
+
+        /**
+         * Create a packet to write
+         * 
+         * @param time     Simulation time, in nanoseconds
+         * @param interf   Interface sending the packet
+         * @param frame    Bytes of the frame captured
+         * @param wireSize Size of the packet on the wire, in bytes
+         */
+        PendingPacket(long time, Interface interf, byte[] frame, int wireSize) {
+            this.time = time;
+            this.interf = interf;
+            this.frame = frame;
+            this.wireSize = wireSize;
+        }
+
+        @Override
+        public void run() {
+            PcapngWriter writer = PcapngWriter.this;
+            writer.startPacketBlock(this.time, writer.getInterfaceId(this.interf), this.frame.length, this.wireSize);
+            writer.buffer.put(this.frame);
+            writer.endPacketBlock(this.frame.length);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package model.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Writer of a binary trace file. Records are encoded in a large direct buffer,
+ * reused for the whole trace and written to a file channel when full
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see BinaryTraceWriter
+ * @see PcapngWriter
+ */
+abstract class TraceFileWriter {
+
+    /**
+     * Path of the trace
+     */
+    private String path;
+
+    /**
+     * Channel of the trace file
+     */
+    private FileChannel channel;
+
+    /**
+     * Buffer of the records not written yet
+     */
+    protected ByteBuffer buffer;
+
+    /**
+     * Open a trace file
+     * 
+     * @param path       Path of the trace
+     * @param bufferSize Size of the buffer, in bytes
+     */
+    protected TraceFileWriter(String path, int bufferSize) {
+        this.path = path;
+        try {
+            this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot open " + path + " for PacketTracer");
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Write the records buffered and close the trace
+     */
+    public void close() {
+        this.flush();
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot close " + this.path);
+        }
+    }
+
+    /**
+     * Make room in the buffer for a record
+     * 
+     * @param size Size of the record, in bytes
+     */
+    protected void reserve(int size) {
+        if (this.buffer.remaining() < size) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Write the records buffered to the file
+     */
+    protected void flush() {
+        this.buffer.flip();
+        this.write(this.buffer);
+        this.buffer.clear();
+    }
+
+    /**
+     * Write all the bytes of a buffer to the file
+     * 
+     * @param source The buffer
+     */
+    protected void write(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                this.channel.write(source);
+            }
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write to " + this.path);
+        }
+    }
+}
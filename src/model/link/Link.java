@@ -1,7 +1,13 @@
 package model.link;
 
+import java.util.Map;
+
 import model.network.Packet;
 import model.node.Interface;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.SimulationContext;
+import model.utils.RandomStream;
 
 /**
  * Abstract class representing a link
@@ -12,6 +18,63 @@ import model.node.Interface;
  */
 public abstract class Link {
 
+    /**
+     * ID of the link, generated automatically
+     */
+    protected int linkId;
+
+    /**
+     * Context of the simulation this link belongs to
+     */
+    protected final SimulationContext context;
+
+    /**
+     * Random stream of this link, created on first use
+     */
+    private RandomStream random;
+
+    /**
+     * Link constructor. The link gets a new ID from the current simulation
+     * context, and is added to it
+     */
+    protected Link() {
+        this.context = SimulationContext.getCurrent();
+        this.linkId = this.context.getIdGenerator().getNextLinkId();
+        this.random = null;
+        this.context.addLink(this);
+    }
+
+    /**
+     * Get link ID
+     * 
+     * @return Link ID
+     */
+    public int getLinkId() {
+        return this.linkId;
+    }
+
+    /**
+     * Get the context of the simulation this link belongs to
+     * 
+     * @return The simulation context
+     */
+    public SimulationContext getContext() {
+        return this.context;
+    }
+
+    /**
+     * Get the random stream of this link, for instance to draw losses. It only
+     * depends on the seed of the simulation and on the ID of the link
+     * 
+     * @return The random stream
+     */
+    public RandomStream getRandom() {
+        if (this.random == null) {
+            this.random = this.context.getRandomGenerator().getStream("link", this.linkId);
+        }
+        return this.random;
+    }
+
     /**
      * Start transmission of a packet
      * 
@@ -20,10 +83,42 @@ public abstract class Link {
      */
     public abstract void startTx(Packet packet, Interface src);
 
+    /**
+     * Get the minimal delay between an event of this link and the events it
+     * schedules on the partition of another node, giving the lookahead of a
+     * parallel simulation
+     * 
+     * @return The delay in nanoseconds, or Long.MAX_VALUE if the nodes of this
+     *         link are in the same partition
+     */
+    public abstract long getPartitionDelay();
+
     /**
      * Attach an interface to this link
      * 
      * @param interf The interface to attach
      */
     public abstract void attachInterface(Interface interf);
+
+    /**
+     * Get the actions of the events scheduled by this link, so they can be
+     * saved in a checkpoint
+     * 
+     * @return The actions, by name
+     */
+    public abstract Map<String, Object> getActions();
+
+    /**
+     * Write the state of this link to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public abstract void saveState(CheckpointWriter writer);
+
+    /**
+     * Read the state of this link from a checkpoint
+     * 
+     * @param reader The checkpoint reader
+     */
+    public abstract void restoreState(CheckpointReader reader);
 }
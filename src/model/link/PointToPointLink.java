@@ -1,16 +1,21 @@
 package model.link;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
 import model.io.Layer;
-import model.io.PacketEvent;
 import model.io.PacketTracer;
+import model.io.PacketEvent;
 import model.logger.LogSeverity;
-import model.logger.Logger;
 import model.network.Packet;
 import model.node.Interface;
-import model.simulator.Schedulable;
-import model.simulator.SchedulableMethod;
+import model.node.Node;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
 import model.simulator.Simulator;
 import model.simulator.Time;
+import model.simulator.ValidationLevel;
 
 /**
  * Class representing a point to point link
@@ -19,7 +24,7 @@ import model.simulator.Time;
  * @version 1.0
  * @see Link
  */
-public class PointToPointLink extends Link implements Schedulable {
+public class PointToPointLink extends Link {
 
     private class DirectionStruct {
         public Interface src;
@@ -37,9 +42,9 @@ public class PointToPointLink extends Link implements Schedulable {
     }
 
     /**
-     * Propagation delay of this link
+     * Propagation delay of this link, in nanoseconds
      */
-    private Time delay;
+    private long delay;
 
     /**
      * Bandwidth of this link in bytes per second
@@ -61,19 +66,37 @@ public class PointToPointLink extends Link implements Schedulable {
      */
     private int interfacesConnected;
 
+    /**
+     * Action ending a transmission, created once to be scheduled for each packet
+     */
+    private final ObjIntConsumer<Packet> endTxAction;
+
+    /**
+     * Action starting a reception, created once to be scheduled for each packet
+     */
+    private final ObjIntConsumer<Packet> startRxAction;
+
+    /**
+     * Action ending a reception, created once to be scheduled for each packet
+     */
+    private final ObjIntConsumer<Packet> endRxAction;
+
     /**
      * Create a new PointToPointLink
      */
     public PointToPointLink() {
-        this.delay = new Time(1, 0);
+        this.delay = Time.NANOSECONDS_IN_SECOND;
         this.bandwidthBytesPerSecond = 1000000L;
         this.directions = new DirectionStruct[] { new DirectionStruct(), new DirectionStruct() };
         this.interfacesConnected = 0;
+        this.endTxAction = this::endTx;
+        this.startRxAction = this::startRx;
+        this.endRxAction = this::endRx;
     }
 
     public void attachInterface(Interface interf) {
-        if (this.interfacesConnected >= PointToPointLink.NB_INTERFACES) {
-            Logger.getInstance().log(LogSeverity.CRITICAL, "Too many interfaces connected to this link");
+        if (ValidationLevel.CHECK_TOPOLOGY && this.interfacesConnected >= PointToPointLink.NB_INTERFACES) {
+            this.context.getLogger().log(LogSeverity.CRITICAL, "Too many interfaces connected to this link");
         }
         this.directions[this.interfacesConnected].src = interf;
         this.interfacesConnected++;
@@ -94,35 +117,54 @@ public class PointToPointLink extends Link implements Schedulable {
      */
     @Override
     public void startTx(Packet packet, Interface src) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "Start TX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "PointToPointLink.startTx",
+                "Start TX packet {}", packet);
 
-        if (this.interfacesConnected != 2) {
-            Logger.getInstance().log(LogSeverity.CRITICAL,
+        if (ValidationLevel.CHECK_HOT_PATH && this.interfacesConnected != 2) {
+            this.context.getLogger().log(LogSeverity.CRITICAL,
                     "Point to point link does not have both interfaces connected");
         }
 
-        PacketTracer.getInstance().tracePacket(src.getNode().getNodeId(), Layer.PHYSICAL, PacketEvent.SEND, packet);
+        Node srcNode = src.getNode();
+        PacketTracer tracer = srcNode.getContext().getPacketTracer();
+        tracer.tracePacket(srcNode.getNodeId(), Layer.PHYSICAL, PacketEvent.SEND, packet);
+        tracer.capturePacket(src, packet);
 
         int direction = this.directions[0].src == src ? 0 : 1;
 
-        Time transmissionDelay = this.getTransmissionDelay(packet);
+        long transmissionDelay = this.getTransmissionDelay(packet);
 
-        if (this.directions[direction].isTransmitting) {
-            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot start TX while a packet is already being transmitted");
+        if (ValidationLevel.CHECK_HOT_PATH && this.directions[direction].isTransmitting) {
+            this.context.getLogger().log(LogSeverity.CRITICAL,
+                    "Cannot start TX while a packet is already being transmitted");
         }
-        this.directions[direction].isTransmitting = true;
+        this.setTransmitting(direction, true);
         
-        Logger.getInstance().log(LogSeverity.DEBUG, "Transmission delay is " + transmissionDelay);
+        this.context.getLogger().log(LogSeverity.DEBUG, "PointToPointLink.startTx",
+                "Transmission delay is {}ns", transmissionDelay);
+
+        // Reception is run by the partition of the destination node. It gets
+        // its own copy of the packet, as the source may still use or, in an
+        // optimistic simulation, undo its changes of the packet at the same time
+        Simulator simulator = srcNode.getSimulator();
+        Simulator dstSimulator = this.directions[direction].dst.getNode().getSimulator();
+        Packet received = packet;
+        if (dstSimulator != simulator) {
+            received = packet.copy();
+        }
+        long now = simulator.getCurrentTimeNanoSeconds();
+        simulator.schedule(now + transmissionDelay, this.endTxAction, packet, direction);
+        dstSimulator.schedule(now + this.delay, this.startRxAction, received, direction);
+        dstSimulator.schedule(now + transmissionDelay + this.delay, this.endRxAction, received, direction);
+    }
 
-        Simulator.getInstance().schedule(Simulator.getInstance().getCurrentTime().add(transmissionDelay), this,
-                SchedulableMethod.POINT_TO_POINT_LINK__END_TX,
-                packet, direction);
-        Simulator.getInstance().schedule(Simulator.getInstance().getCurrentTime().add(this.delay), this,
-                SchedulableMethod.POINT_TO_POINT_LINK__START_RX,
-                packet, direction);
-        Simulator.getInstance().schedule(
-                Simulator.getInstance().getCurrentTime().add(transmissionDelay).add(this.delay), this,
-                SchedulableMethod.POINT_TO_POINT_LINK__END_RX, packet, direction);
+    @Override
+    public long getPartitionDelay() {
+        if (this.interfacesConnected < PointToPointLink.NB_INTERFACES || this.directions[0].src.getNode()
+                .getPartition() == this.directions[1].src.getNode().getPartition()) {
+            return Long.MAX_VALUE;
+        }
+        return this.delay;
     }
 
     /**
@@ -132,9 +174,9 @@ public class PointToPointLink extends Link implements Schedulable {
      * @param direction The direction of the link used
      */
     public void endTx(Packet packet, int direction) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "End TX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "PointToPointLink.endTx", "End TX packet {}", packet);
 
-        this.directions[direction].isTransmitting = false;
+        this.setTransmitting(direction, false);
         this.directions[direction].src.endTx(packet);
     }
 
@@ -145,7 +187,8 @@ public class PointToPointLink extends Link implements Schedulable {
      * @param direction The direction of the link used
      */
     public void startRx(Packet packet, int direction) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "Start RX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "PointToPointLink.startRx",
+                "Start RX packet {}", packet);
 
         this.directions[direction].dst.startRx(packet);
     }
@@ -157,21 +200,66 @@ public class PointToPointLink extends Link implements Schedulable {
      * @param direction The direction of the link used
      */
     public void endRx(Packet packet, int direction) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "End RX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "PointToPointLink.endRx", "End RX packet {}", packet);
 
-        PacketTracer.getInstance().tracePacket(this.directions[direction].dst.getNode().getNodeId(), Layer.PHYSICAL,
-                PacketEvent.RECEIVE, packet);
+        Node dstNode = this.directions[direction].dst.getNode();
+        dstNode.getContext().getPacketTracer().tracePacket(dstNode.getNodeId(), Layer.PHYSICAL, PacketEvent.RECEIVE,
+                packet);
 
         this.directions[direction].dst.endRx(packet);
     }
 
+    /**
+     * Set the flag indicating if a direction of this link is transmitting a
+     * packet. The change is recorded if it may be rolled back
+     * 
+     * @param direction      The direction of the link
+     * @param isTransmitting The new value of the flag
+     */
+    private void setTransmitting(int direction, boolean isTransmitting) {
+        DirectionStruct directionStruct = this.directions[direction];
+        Simulator simulator = directionStruct.src.getNode().getSimulator();
+        if (simulator.isRollbackEnabled()) {
+            boolean previous = directionStruct.isTransmitting;
+            simulator.addUndo(() -> directionStruct.isTransmitting = previous);
+        }
+        directionStruct.isTransmitting = isTransmitting;
+    }
+
+    @Override
+    public Map<String, Object> getActions() {
+        Map<String, Object> actions = new HashMap<String, Object>();
+        actions.put("endTx", this.endTxAction);
+        actions.put("startRx", this.startRxAction);
+        actions.put("endRx", this.endRxAction);
+        return actions;
+    }
+
+    @Override
+    public void saveState(CheckpointWriter writer) {
+        writer.putLong(this.delay);
+        writer.putLong(this.bandwidthBytesPerSecond);
+        for (DirectionStruct direction : this.directions) {
+            writer.putBoolean(direction.isTransmitting);
+        }
+    }
+
+    @Override
+    public void restoreState(CheckpointReader reader) {
+        this.delay = reader.getLong();
+        this.bandwidthBytesPerSecond = reader.getLong();
+        for (DirectionStruct direction : this.directions) {
+            direction.isTransmitting = reader.getBoolean();
+        }
+    }
+
     /**
      * Get propagation delay
      * 
      * @return The propagation delay
      */
     public Time getDelay() {
-        return this.delay;
+        return Time.nanoSeconds(this.delay);
     }
 
     /**
@@ -180,7 +268,7 @@ public class PointToPointLink extends Link implements Schedulable {
      * @param delay The propagation delay to set
      */
     public void setDelay(Time delay) {
-        this.delay = delay;
+        this.delay = delay.toNanoSeconds();
     }
 
     /**
@@ -205,38 +293,12 @@ public class PointToPointLink extends Link implements Schedulable {
      * Compute the transmission delay of a packet
      * 
      * @param packet The packet to send
-     * @return The transmission delay
+     * @return The transmission delay in nanoseconds
      */
-    private Time getTransmissionDelay(Packet packet) {
+    private long getTransmissionDelay(Packet packet) {
         int packetTotalSize = packet.getTotalSizeBytes();
 
-        double timeSeconds = 1.0 * packetTotalSize / this.bandwidthBytesPerSecond;
-
-        int seconds = (int) timeSeconds;
-        int nanoSeconds = (int) (1000000000 * (timeSeconds - seconds));
-
-        return new Time(seconds, nanoSeconds);
-    }
-
-    @Override
-    public void run(SchedulableMethod method, Object[] arguments) {
-        switch (method) {
-            case POINT_TO_POINT_LINK__END_TX: {
-                this.endTx((Packet) arguments[0], (int) arguments[1]);
-                break;
-            }
-            case POINT_TO_POINT_LINK__START_RX: {
-                this.startRx((Packet) arguments[0], (int) arguments[1]);
-                break;
-            }
-            case POINT_TO_POINT_LINK__END_RX: {
-                this.endRx((Packet) arguments[0], (int) arguments[1]);
-                break;
-            }
-            default: {
-                Logger.getInstance().log(LogSeverity.CRITICAL, "Unknow method for class PointToPointLink: " + method);
-            }
-        }
+        return 1L * Time.NANOSECONDS_IN_SECOND * packetTotalSize / this.bandwidthBytesPerSecond;
     }
 
 }
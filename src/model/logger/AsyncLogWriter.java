@@ -0,0 +1,455 @@
+package model.logger;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writer of the log records on a background thread.
+ * Records are stored unformatted in a ring buffer allocated once, then the
+ * thread formats all the records available and writes them in a single batch,
+ * so the simulation does not wait for the output. When the buffer is full, the
+ * record is handled according to the overflow policy: the simulation waits for
+ * room, the record is dropped and counted, or it is written at once to a spill
+ * file.
+ * 
+ * Records written by a parallel simulation are formatted texts appended to
+ * this writer once their order is known, see
+ * {@link model.simulator.Simulator#print(Appendable, String)}.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Logger#enableAsync(int, OverflowPolicy)
+ */
+public class AsyncLogWriter implements Appendable {
+
+    /**
+     * Maximal duration a record waits before being written, in milliseconds
+     */
+    private static final long FLUSH_INTERVAL = 100;
+
+    /**
+     * Number of records waking up the thread, so records are written in large
+     * batches
+     */
+    private final int batchSize;
+
+    /**
+     * Simulation time of each record, in nanoseconds
+     */
+    private final long[] times;
+
+    /**
+     * Severity of each record, or null if the record is an already formatted
+     * text
+     */
+    private final LogSeverity[] severities;
+
+    /**
+     * Caller of each record
+     */
+    private final String[] callers;
+
+    /**
+     * Message of each record
+     */
+    private final String[] messages;
+
+    /**
+     * Policy when the buffer is full
+     */
+    private final OverflowPolicy policy;
+
+    /**
+     * Destination of the records
+     */
+    private final Appendable output;
+
+    /**
+     * Line separator written after each record
+     */
+    private final String lineSeparator;
+
+    /**
+     * Path of the file of the records spilled
+     */
+    private final String spillPath;
+
+    /**
+     * Writer of the records spilled, or null if not opened yet
+     */
+    private PrintWriter spill;
+
+    /**
+     * Indicates if the records spilled are written to the standard error, as
+     * the spill file cannot be opened
+     */
+    private boolean spillToStandardError;
+
+    /**
+     * Lock protecting the indexes of the buffer
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Signaled when records are added
+     */
+    private final Condition notEmpty;
+
+    /**
+     * Signaled when records are removed from the buffer
+     */
+    private final Condition notFull;
+
+    /**
+     * Signaled when records are written
+     */
+    private final Condition written;
+
+    /**
+     * Number of records read from the buffer
+     */
+    private long head;
+
+    /**
+     * Number of records added to the buffer
+     */
+    private long tail;
+
+    /**
+     * Number of records written to the output
+     */
+    private long writtenRecords;
+
+    /**
+     * Number of records dropped as the buffer was full
+     */
+    private long droppedRecords;
+
+    /**
+     * Number of records written to the spill file as the buffer was full
+     */
+    private long spilledRecords;
+
+    /**
+     * Number of threads waiting for the records to be written
+     */
+    private int flushing;
+
+    /**
+     * Indicates if the writer is closed
+     */
+    private boolean closed;
+
+    /**
+     * Thread writing the records
+     */
+    private final Thread thread;
+
+    /**
+     * Create a new writer and start its thread
+     * 
+     * @param capacity      Number of records of the buffer
+     * @param policy        Policy when the buffer is full
+     * @param output        Destination of the records
+     * @param lineSeparator Line separator written after each record
+     * @param spillPath     Path of the file of the records spilled
+     */
+    AsyncLogWriter(int capacity, OverflowPolicy policy, Appendable output, String lineSeparator,
+            String spillPath) {
+        if (capacity < 1) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Log buffer capacity must be strictly positive");
+        }
+        this.times = new long[capacity];
+        this.severities = new LogSeverity[capacity];
+        this.callers = new String[capacity];
+        this.messages = new String[capacity];
+        this.batchSize = Math.max(1, capacity / 2);
+        this.policy = policy;
+        this.output = output;
+        this.lineSeparator = lineSeparator;
+        this.spillPath = spillPath;
+        this.spill = null;
+        this.spillToStandardError = false;
+        this.lock = new ReentrantLock();
+        this.notEmpty = this.lock.newCondition();
+        this.notFull = this.lock.newCondition();
+        this.written = this.lock.newCondition();
+        this.head = 0;
+        this.tail = 0;
+        this.writtenRecords = 0;
+        this.droppedRecords = 0;
+        this.spilledRecords = 0;
+        this.flushing = 0;
+        this.closed = false;
+        this.thread = new Thread(this::run, "AsyncLogWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Get the policy when the buffer is full
+     * 
+     * @return The policy
+     */
+    public OverflowPolicy getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Get the number of records dropped as the buffer was full
+     * 
+     * @return The number of records dropped
+     */
+    public long getDroppedRecords() {
+        this.lock.lock();
+        try {
+            return this.droppedRecords;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of records written to the spill file as the buffer was
+     * full
+     * 
+     * @return The number of records spilled
+     */
+    public long getSpilledRecords() {
+        this.lock.lock();
+        try {
+            return this.spilledRecords;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Add a record, formatted by the thread
+     * 
+     * @param time     Simulation time, in nanoseconds
+     * @param severity Severity of the record
+     * @param caller   Caller of the log
+     * @param message  The message
+     */
+    void publish(long time, LogSeverity severity, String caller, String message) {
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            if (this.tail - this.head == this.times.length) {
+                switch (this.policy) {
+                    case DROP:
+                        this.droppedRecords++;
+                        return;
+                    case SPILL:
+                        this.spilledRecords++;
+                        this.spill(severity == null ? message
+                                : Logger.format(time, severity, caller, message) + this.lineSeparator);
+                        return;
+                    case BLOCK:
+                    default:
+                        while (this.tail - this.head == this.times.length) {
+                            this.notFull.awaitUninterruptibly();
+                        }
+                }
+            }
+            int index = (int) (this.tail % this.times.length);
+            this.times[index] = time;
+            this.severities[index] = severity;
+            this.callers[index] = caller;
+            this.messages[index] = message;
+            this.tail++;
+            if (this.tail - this.head == this.batchSize) {
+                this.notEmpty.signal();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public Appendable append(CharSequence text) {
+        this.publish(0, null, null, text.toString());
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence text, int start, int end) {
+        return this.append(text.subSequence(start, end));
+    }
+
+    @Override
+    public Appendable append(char c) {
+        return this.append(String.valueOf(c));
+    }
+
+    /**
+     * Wait until all the records added are written to the output
+     */
+    void flush() {
+        this.lock.lock();
+        try {
+            long target = this.tail;
+            this.flushing++;
+            this.notEmpty.signal();
+            while (this.writtenRecords < target) {
+                this.written.awaitUninterruptibly();
+            }
+            this.flushing--;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Write all the records added, then stop the thread. Records added later
+     * are ignored. The numbers of records dropped and spilled are written
+     * last, if any
+     */
+    void close() {
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.notEmpty.signal();
+        } finally {
+            this.lock.unlock();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (this.droppedRecords > 0) {
+            this.write(this.droppedRecords + " log records dropped as the log buffer was full"
+                    + this.lineSeparator);
+        }
+        if (this.spill != null) {
+            // The standard error is only flushed, as it stays in use
+            if (this.spillToStandardError) {
+                this.spill.flush();
+            } else {
+                this.spill.close();
+            }
+            this.write(this.spilledRecords + " log records written to "
+                    + (this.spillToStandardError ? "the standard error" : this.spillPath)
+                    + " as the log buffer was full" + this.lineSeparator);
+        }
+    }
+
+    /**
+     * Write the records in batches until closed and all written
+     */
+    private void run() {
+        StringBuilder batch = new StringBuilder();
+        while (true) {
+            long start;
+            long end;
+            this.lock.lock();
+            try {
+                // Wait for a full batch, a flush or the end of the interval
+                while (this.tail - this.head < this.batchSize && this.flushing == 0 && !this.closed) {
+                    if (!this.notEmpty.await(AsyncLogWriter.FLUSH_INTERVAL, TimeUnit.MILLISECONDS)
+                            && this.head != this.tail) {
+                        break;
+                    }
+                }
+                if (this.head == this.tail) {
+                    if (this.closed) {
+                        return;
+                    }
+                    continue;
+                }
+                start = this.head;
+                end = this.tail;
+            } catch (InterruptedException e) {
+                continue;
+            } finally {
+                this.lock.unlock();
+            }
+
+            // Records between head and tail are not overwritten until head moves
+            batch.setLength(0);
+            for (long i = start; i < end; i++) {
+                int index = (int) (i % this.times.length);
+                if (this.severities[index] == null) {
+                    batch.append(this.messages[index]);
+                } else {
+                    batch.append(Logger.format(this.times[index], this.severities[index], this.callers[index],
+                            this.messages[index])).append(this.lineSeparator);
+                }
+                this.callers[index] = null;
+                this.messages[index] = null;
+            }
+
+            this.lock.lock();
+            try {
+                this.head = end;
+                this.notFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+
+            this.write(batch);
+
+            this.lock.lock();
+            try {
+                this.writtenRecords = end;
+                this.written.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write a text to the output and flush it
+     * 
+     * @param text The text
+     */
+    private void write(CharSequence text) {
+        try {
+            this.output.append(text);
+        } catch (IOException e) {
+            // Nothing can be logged from the log writer
+        }
+        if (this.output instanceof PrintWriter) {
+            ((PrintWriter) this.output).flush();
+        }
+    }
+
+    /**
+     * Write a record to the spill file, opening it first if needed. The
+     * records are written to the standard error if it cannot be opened.
+     * Called with the lock held
+     * 
+     * @param text The formatted record
+     */
+    private void spill(String text) {
+        if (this.spill == null) {
+            try {
+                this.spill = new PrintWriter(new FileWriter(this.spillPath));
+            } catch (IOException e) {
+                this.spill = new PrintWriter(System.err);
+                this.spillToStandardError = true;
+            }
+        }
+        this.spill.write(text);
+    }
+}
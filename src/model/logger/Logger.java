@@ -3,12 +3,17 @@ package model.logger;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.function.Supplier;
 
+import model.network.Packet;
+import model.simulator.SimulationContext;
 import model.simulator.Simulator;
+import model.simulator.Time;
 
 /**
  * Class used to trace all packets transmissions
- * It uses Singleton design pattern.
+ * Each simulation context has its own logger, see
+ * {@link model.simulator.SimulationContext}.
  * 
  * @author Bastien Tauran
  * @version 1.0
@@ -16,9 +21,9 @@ import model.simulator.Simulator;
 public class Logger {
 
     /**
-     * Instance of Logger
+     * Walker of the stack finding the caller of a message logged without tag
      */
-    private static Logger instance;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
 
     /**
      * Boolean indicating if the logger is enabled or not
@@ -30,40 +35,68 @@ public class Logger {
      */
     private PrintWriter writer;
 
+    /**
+     * Path of the file logs are written to, or null if printed to the console
+     */
+    private String path;
+
     /**
      * Minimum severity level to record
      */
     private LogSeverity minSeverityLevel;
 
     /**
-     * Create the instance of Logger an initializes attributes to default values
+     * Writer of the logs on a background thread, or null if logs are written
+     * by the simulation thread
+     */
+    private AsyncLogWriter asyncWriter;
+
+    /**
+     * Number of records of the buffer of the asynchronous writer
      */
-    private Logger() {
+    private int asyncCapacity;
+
+    /**
+     * Policy of the asynchronous writer when its buffer is full
+     */
+    private OverflowPolicy asyncPolicy;
+
+    /**
+     * Create a new Logger an initializes attributes to default values. Use
+     * {@link #getInstance()} to get the one of the current simulation context
+     */
+    public Logger() {
         this.enableLog = false;
         this.writer = null;
+        this.path = null;
         this.minSeverityLevel = LogSeverity.WARNING;
+        this.asyncWriter = null;
+        this.asyncCapacity = 0;
+        this.asyncPolicy = null;
     }
 
     /**
-     * Get the instance of Logger. Construct it if not already created.
+     * Get the instance of Logger of the current simulation context. Construct it
+     * if not already created.
      * 
      * @return The instance of Logger
      */
     public static Logger getInstance() {
-        if (instance == null) {
-            instance = new Logger();
-        }
-        return instance;
+        return SimulationContext.getCurrent().getLogger();
     }
 
     /**
-     * Destroy the instance of Logger
+     * Destroy the instance of Logger of the current simulation context. Logs
+     * still buffered by the asynchronous writer are written first
      */
     public static void destroy() {
-        if (instance.writer != null) {
-            instance.writer.close();
+        Logger logger = SimulationContext.getCurrent().removeLogger();
+        if (logger != null) {
+            logger.closeAsyncWriter();
+            if (logger.writer != null) {
+                logger.writer.close();
+            }
         }
-        instance = null;
     }
 
     /**
@@ -78,6 +111,8 @@ public class Logger {
      */
     public void disableLogger() {
         this.enableLog = false;
+        this.closeAsyncWriter();
+        this.asyncPolicy = null;
         if (this.writer != null) {
             this.writer.close();
         }
@@ -89,18 +124,86 @@ public class Logger {
      * @param path Output path. If empty, print to the console
      */
     public void setOutputPath(String path) {
+        this.closeAsyncWriter();
         try {
             this.writer = new PrintWriter(new FileWriter(path));
+            this.path = path;
         } catch (IOException e) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot open " + path + " for log");
         }
+        this.openAsyncWriter();
     }
 
     /**
      * Print this trace in the console instead of a file
      */
     public void printToConsole() {
+        this.closeAsyncWriter();
         this.writer = null;
+        this.path = null;
+        this.openAsyncWriter();
+    }
+
+    /**
+     * Write the logs on a background thread. Records are stored in a buffer
+     * allocated once, then formatted and written in batches by the thread.
+     * Records spilled are written to the output path followed by .spill, or to
+     * log.spill when printing to the console
+     * 
+     * @param capacity Number of records of the buffer
+     * @param policy   Policy when the buffer is full
+     */
+    public void enableAsync(int capacity, OverflowPolicy policy) {
+        this.closeAsyncWriter();
+        this.asyncCapacity = capacity;
+        this.asyncPolicy = policy;
+        this.openAsyncWriter();
+    }
+
+    /**
+     * Write the logs on the simulation thread, after writing the ones still
+     * buffered
+     */
+    public void disableAsync() {
+        this.closeAsyncWriter();
+        this.asyncPolicy = null;
+    }
+
+    /**
+     * Get the writer of the logs on a background thread
+     * 
+     * @return The asynchronous writer, or null if logs are written by the
+     *         simulation thread
+     */
+    public AsyncLogWriter getAsyncWriter() {
+        return this.asyncWriter;
+    }
+
+    /**
+     * Start the asynchronous writer to the current output, if enabled
+     */
+    private void openAsyncWriter() {
+        if (this.asyncPolicy == null) {
+            return;
+        }
+        if (this.writer != null) {
+            this.asyncWriter = new AsyncLogWriter(this.asyncCapacity, this.asyncPolicy, this.writer, "\n",
+                    this.path + ".spill");
+        } else {
+            this.asyncWriter = new AsyncLogWriter(this.asyncCapacity, this.asyncPolicy, System.out,
+                    System.lineSeparator(), "log.spill");
+        }
+    }
+
+    /**
+     * Write the logs still buffered and stop the asynchronous writer, if
+     * started
+     */
+    private void closeAsyncWriter() {
+        if (this.asyncWriter != null) {
+            this.asyncWriter.close();
+            this.asyncWriter = null;
+        }
     }
 
     /**
@@ -112,29 +215,308 @@ public class Logger {
         this.minSeverityLevel = minSeverityLevel;
     }
 
+    /**
+     * Indicates if messages of given severity are logged, so a call site can
+     * skip building a costly message
+     * 
+     * @param logSeverity Log severity level
+     * @return True if the messages are logged
+     */
+    public boolean isEnabled(LogSeverity logSeverity) {
+        return this.enableLog && logSeverity.compareTo(this.minSeverityLevel) >= 0;
+    }
+
     /**
      * Log a new message. It is logged only if severity is equal or higher than
-     * minimum severity
+     * minimum severity. The caller is found by walking the stack, prefer the
+     * methods taking a tag on hot paths
      * 
      * @param logSeverity Log severity level
      * @param message     Optional message to add
      */
     public void log(LogSeverity logSeverity, String message) {
-        if (!this.enableLog || logSeverity.compareTo(minSeverityLevel) < 0) {
+        if (!this.isEnabled(logSeverity)) {
             return;
         }
 
-        StackTraceElement[] stes = Thread.currentThread().getStackTrace();
-        if (stes.length < 3) {
+        StackWalker.StackFrame frame = Logger.STACK_WALKER.walk(frames -> frames.skip(1).findFirst()).orElse(null);
+        if (frame == null) {
             return;
         }
-        StackTraceElement ste = stes[2];
-        String output = "[" + Simulator.getInstance().getCurrentTime().toStringWithPrecision(6) + "]";
-        output += "[" + logSeverity + "]";
-        output += "[" + ste.getClassName() + "." + ste.getMethodName() + ":" + ste.getLineNumber() + "] ";
-        output += message;
+        this.write(logSeverity, frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber(),
+                message);
+    }
 
-        if (this.writer != null) {
+    /**
+     * Log a new message from a caller identified by a tag. It is logged only if
+     * severity is equal or higher than minimum severity
+     * 
+     * @param logSeverity Log severity level
+     * @param tag         Tag of the caller, usually its class and method
+     * @param message     The message
+     */
+    public void log(LogSeverity logSeverity, String tag, String message) {
+        if (!this.isEnabled(logSeverity)) {
+            return;
+        }
+        this.write(logSeverity, tag, message);
+    }
+
+    /**
+     * Log a new message from a caller identified by a tag, the message being
+     * only built if it is logged
+     * 
+     * @param logSeverity Log severity level
+     * @param tag         Tag of the caller, usually its class and method
+     * @param message     Supplier of the message
+     */
+    public void log(LogSeverity logSeverity, String tag, Supplier<String> message) {
+        if (!this.isEnabled(logSeverity)) {
+            return;
+        }
+        this.write(logSeverity, tag, message.get());
+    }
+
+    /**
+     * Log a new message from a caller identified by a tag, built from a
+     * template whose placeholder {} is replaced by an argument. The message is
+     * only built if it is logged
+     * 
+     * @param logSeverity Log severity level
+     * @param tag         Tag of the caller, usually its class and method
+     * @param template    Template of the message
+     * @param arg         The argument
+     */
+    public void log(LogSeverity logSeverity, String tag, String template, long arg) {
+        if (!this.isEnabled(logSeverity)) {
+            return;
+        }
+        this.write(logSeverity, tag, Logger.fill(template, arg));
+    }
+
+    /**
+     * Log a new message from a caller identified by a tag, built from a
+     * template whose placeholders {} are replaced by the arguments in order.
+     * The message is only built if it is logged
+     * 
+     * @param logSeverity Log severity level
+     * @param tag         Tag of the caller, usually its class and method
+     * @param template    Template of the message
+     * @param arg1        The first argument
+     * @param arg2        The second argument
+     */
+    public void log(LogSeverity logSeverity, String tag, String template, long arg1, long arg2) {
+        if (!this.isEnabled(logSeverity)) {
+            return;
+        }
+        StringBuilder message = new StringBuilder(template.length() + 40);
+        int position = Logger.appendUntilPlaceholder(message, template, 0);
+        if (position >= 0) {
+            message.append(arg1);
+        }
+        position = Logger.appendUntilPlaceholder(message, template, position);
+        if (position >= 0) {
+            message.append(arg2);
+        }
+        Logger.appendUntilPlaceholder(message, template, position);
+        this.write(logSeverity, tag, message.toString());
+    }
+
+    /**
+     * Log a new message from a caller identified by a tag, built from a
+     * template whose placeholders {} are replaced by the arguments in order.
+     * The message is only built if it is logged
+     * 
+     * @param logSeverity Log severity level
+     * @param tag         Tag of the caller, usually its class and method
+     * @param template    Template of the message
+     * @param arg1        The first argument
+     * @param arg2        The second argument
+     */
+    public void log(LogSeverity logSeverity, String tag, String template, long arg1, Object arg2) {
+        if (!this.isEnabled(logSeverity)) {
+            return;
+        }
+        this.write(logSeverity, tag, Logger.fill(template, arg1, arg2));
+    }
+
+    /**
+     * Log a new message about a packet from a caller identified by a tag,
+     * built from a template whose placeholder {} is replaced by the packet ID.
+     * The message is only built if it is logged, and written once the ID is
+     * given if the packet does not have it yet, see {@link Packet#hasPacketId()}
+     * 
+     * @param logSeverity Log severity level
+     * @param tag         Tag of the caller, usually its class and method
+     * @param template    Template of the message
+     * @param packet      The packet
+     */
+    public void log(LogSeverity logSeverity, String tag, String template, Packet packet) {
+        if (!this.isEnabled(logSeverity)) {
+            return;
+        }
+        if (packet.hasPacketId() || logSeverity == LogSeverity.CRITICAL) {
+            this.write(logSeverity, tag, Logger.fill(template, packet.getPacketId()));
+        } else {
+            this.writeLater(logSeverity, tag, () -> Logger.fill(template, packet.getPacketId()));
+        }
+    }
+
+    /**
+     * Log a new message about a packet from a caller identified by a tag,
+     * built from a template whose placeholders {} are replaced by the packet
+     * ID and the argument in order. The message is only built if it is
+     * logged, and written once the ID is given if the packet does not have it
+     * yet, see {@link Packet#hasPacketId()}
+     * 
+     * @param logSeverity Log severity level
+     * @param tag         Tag of the caller, usually its class and method
+     * @param template    Template of the message
+     * @param packet      The packet
+     * @param arg         The argument
+     */
+    public void log(LogSeverity logSeverity, String tag, String template, Packet packet, Object arg) {
+        if (!this.isEnabled(logSeverity)) {
+            return;
+        }
+        if (packet.hasPacketId() || logSeverity == LogSeverity.CRITICAL) {
+            this.write(logSeverity, tag, Logger.fill(template, packet.getPacketId(), arg));
+        } else {
+            this.writeLater(logSeverity, tag, () -> Logger.fill(template, packet.getPacketId(), arg));
+        }
+    }
+
+    /**
+     * Build a message from a template whose placeholder {} is replaced by an
+     * argument
+     * 
+     * @param template Template of the message
+     * @param arg      The argument
+     * @return The message
+     */
+    private static String fill(String template, long arg) {
+        StringBuilder message = new StringBuilder(template.length() + 20);
+        int position = Logger.appendUntilPlaceholder(message, template, 0);
+        if (position >= 0) {
+            message.append(arg);
+        }
+        Logger.appendUntilPlaceholder(message, template, position);
+        return message.toString();
+    }
+
+    /**
+     * Build a message from a template whose placeholders {} are replaced by
+     * the arguments in order
+     * 
+     * @param template Template of the message
+     * @param arg1     The first argument
+     * @param arg2     The second argument
+     * @return The message
+     */
+    private static String fill(String template, long arg1, Object arg2) {
+        StringBuilder message = new StringBuilder(template.length() + 40);
+        int position = Logger.appendUntilPlaceholder(message, template, 0);
+        if (position >= 0) {
+            message.append(arg1);
+        }
+        position = Logger.appendUntilPlaceholder(message, template, position);
+        if (position >= 0) {
+            message.append(arg2);
+        }
+        Logger.appendUntilPlaceholder(message, template, position);
+        return message.toString();
+    }
+
+    /**
+     * Append a template to a message, from a position to its next placeholder
+     * or to its end. Arguments without placeholder are not written
+     * 
+     * @param message  The message being built
+     * @param template The template
+     * @param position Index in the template to start from, or -1 if the
+     *                 template was already appended entirely
+     * @return The index in the template after the placeholder, or -1 if it has
+     *         no placeholder left
+     */
+    private static int appendUntilPlaceholder(StringBuilder message, String template, int position) {
+        if (position < 0) {
+            return -1;
+        }
+        int placeholder = template.indexOf("{}", position);
+        if (placeholder < 0) {
+            message.append(template, position, template.length());
+            return -1;
+        }
+        message.append(template, position, placeholder);
+        return placeholder + 2;
+    }
+
+    /**
+     * Write a message logged during a parallel simulation once its event is
+     * committed, building it then. Critical errors must be written at once
+     * 
+     * @param logSeverity Log severity level
+     * @param caller      Caller of the log
+     * @param message     Supplier of the message
+     * @see Simulator#defer(Runnable)
+     */
+    private void writeLater(LogSeverity logSeverity, String caller, Supplier<String> message) {
+        Simulator simulator = Simulator.getInstance();
+        long time = simulator.getCurrentTimeNanoSeconds();
+        Appendable target = this.asyncWriter != null ? this.asyncWriter
+                : this.writer != null ? this.writer : System.out;
+        String lineSeparator = this.writer != null ? "\n" : System.lineSeparator();
+        simulator.defer(() -> {
+            try {
+                target.append(Logger.format(time, logSeverity, caller, message.get()) + lineSeparator);
+            } catch (IOException e) {
+                Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write simulation output");
+            }
+        });
+    }
+
+    /**
+     * Write a message logged
+     * 
+     * @param logSeverity Log severity level
+     * @param caller      Caller of the log
+     * @param message     The message
+     */
+    private void write(LogSeverity logSeverity, String caller, String message) {
+        Simulator simulator = Simulator.getInstance();
+        // Critical errors of an optimistic simulation are written once their
+        // event is committed, as it may have been run too early
+        if (logSeverity == LogSeverity.CRITICAL && simulator.isRollbackEnabled()) {
+            Appendable target = this.asyncWriter != null ? this.asyncWriter
+                    : this.writer != null ? this.writer : System.out;
+            simulator.print(target, Logger.format(simulator.getCurrentTimeNanoSeconds(), logSeverity, caller, message)
+                    + (this.writer != null ? "\n" : System.lineSeparator()));
+            simulator.print(System.out,
+                    "Critical error encoutered, stopping simulation with stack trace:" + System.lineSeparator());
+            throw new NetworksCriticalException();
+        }
+        if (this.asyncWriter != null) {
+            if (logSeverity != LogSeverity.CRITICAL && simulator.isOutputDeferred()) {
+                simulator.print(this.asyncWriter, Logger.format(simulator.getCurrentTimeNanoSeconds(), logSeverity,
+                        caller, message) + (this.writer != null ? "\n" : System.lineSeparator()));
+                return;
+            }
+            if (logSeverity != LogSeverity.CRITICAL) {
+                this.asyncWriter.publish(simulator.getCurrentTimeNanoSeconds(), logSeverity, caller, message);
+                return;
+            }
+            this.asyncWriter.flush();
+        }
+        String output = Logger.format(simulator.getCurrentTimeNanoSeconds(), logSeverity, caller, message);
+
+        // Critical errors are written at once, as the simulation stops
+        if (logSeverity != LogSeverity.CRITICAL) {
+            if (this.writer != null) {
+                simulator.print(this.writer, output + "\n");
+            } else {
+                simulator.print(System.out, output + System.lineSeparator());
+            }
+        } else if (this.writer != null) {
             this.writer.write(output + "\n");
         } else {
             System.out.println(output);
@@ -145,4 +527,18 @@ public class Logger {
             throw new NetworksCriticalException();
         }
     }
+
+    /**
+     * Format a message logged
+     * 
+     * @param time        Simulation time, in nanoseconds
+     * @param logSeverity Log severity level
+     * @param caller      Caller of the log
+     * @param message     The message
+     * @return The line written
+     */
+    static String format(long time, LogSeverity logSeverity, String caller, String message) {
+        return "[" + Time.nanoSeconds(time).toStringWithPrecision(6) + "][" + logSeverity + "][" + caller + "] "
+                + message;
+    }
 }
@@ -0,0 +1,35 @@
+package model.logger;
+
+/**
+ * Enumeration of the policies of an asynchronous log writer when its buffer is
+ * full
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * 
+ * @see AsyncLogWriter
+ */
+public enum OverflowPolicy {
+    BLOCK("Block"),
+    DROP("Drop"),
+    SPILL("Spill");
+
+    /**
+     * String representation of the policy
+     */
+    private String name;
+
+    /**
+     * Construct a new instance of overflow policy
+     * 
+     * @param name String representation of this policy
+     */
+    private OverflowPolicy(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -1,5 +1,9 @@
 package model.network;
 
+import java.nio.ByteBuffer;
+
+import model.simulator.CheckpointWriter;
+
 /**
  * Abstract class representing a header
  * 
@@ -37,6 +41,41 @@ public abstract class Header {
      */
     public abstract String formatToTrace();
 
+    /**
+     * Write the fields of this header to a binary trace, using
+     * {@link #getSize()} bytes
+     * 
+     * @param buffer The buffer of the trace
+     */
+    public abstract void writeToTrace(ByteBuffer buffer);
+
+    /**
+     * Get header size on the wire in bytes, as serialized by
+     * {@link #writeToWire(ByteBuffer, Header, int)}
+     * 
+     * @return The header size on the wire
+     */
+    public abstract int getWireSizeBytes();
+
+    /**
+     * Write this header with the byte layout of the real protocol, in network
+     * byte order, to build a frame as captured on the wire
+     * 
+     * @param buffer         The buffer of the frame
+     * @param inner          Header following this one, or null if followed by
+     *                       the payload
+     * @param innerSizeBytes Size on the wire of the headers following this one
+     *                       and of the payload, in bytes
+     */
+    public abstract void writeToWire(ByteBuffer buffer, Header inner, int innerSizeBytes);
+
+    /**
+     * Write the fields of this header to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public abstract void saveState(CheckpointWriter writer);
+
     /**
      * Get the type of this header
      * 
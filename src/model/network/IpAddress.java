@@ -1,9 +1,13 @@
 package model.network;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import model.logger.LogSeverity;
 import model.logger.Logger;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.ValidationLevel;
 
 /**
  * This class represents an IP address
@@ -50,13 +54,13 @@ public class IpAddress implements Comparable<IpAddress> {
 
         for (int i = 0; i < 4; i++) {
             int element = address[i];
-            if (element < 0 || element > 255) {
+            if (ValidationLevel.CHECK_HOT_PATH && (element < 0 || element > 255)) {
                 Logger.getInstance().log(LogSeverity.CRITICAL, "IP address bytes must be between 0 and 255:" + element);
             }
             this.address[i] = element;
         }
 
-        if (mask < 0 || mask > 32) {
+        if (ValidationLevel.CHECK_HOT_PATH && (mask < 0 || mask > 32)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be between 0 and 32: " + mask);
         }
         this.mask = mask;
@@ -81,7 +85,7 @@ public class IpAddress implements Comparable<IpAddress> {
             mask = 32;
         }
 
-        if (mask < 0 || mask > 32) {
+        if (ValidationLevel.CHECK_HOT_PATH && (mask < 0 || mask > 32)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be between 0 and 32: " + mask);
         }
         this.mask = mask;
@@ -94,7 +98,7 @@ public class IpAddress implements Comparable<IpAddress> {
 
         for (int i = 0; i < 4; i++) {
             int element = Integer.parseInt(elements[i]);
-            if (element < 0 || element > 255) {
+            if (ValidationLevel.CHECK_HOT_PATH && (element < 0 || element > 255)) {
                 Logger.getInstance().log(LogSeverity.CRITICAL, "IP address bytes must be between 0 and 255:" + element);
             }
             this.address[i] = element;
@@ -126,7 +130,7 @@ public class IpAddress implements Comparable<IpAddress> {
             this.address[i] = other.address[i];
         }
 
-        if (mask < 0 || mask > 32) {
+        if (ValidationLevel.CHECK_HOT_PATH && (mask < 0 || mask > 32)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be between 0 and 32: " + mask);
         }
         this.mask = mask;
@@ -260,4 +264,55 @@ public class IpAddress implements Comparable<IpAddress> {
         }
         return ret;
     }
+
+    /**
+     * Write this address and its mask to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        for (int i = 0; i < 4; i++) {
+            writer.putByte((byte) this.address[i]);
+        }
+        writer.putByte((byte) this.mask);
+    }
+
+    /**
+     * Read an address and its mask from a checkpoint
+     * 
+     * @param reader The checkpoint reader
+     * @return The address
+     */
+    public static IpAddress restoreState(CheckpointReader reader) {
+        int[] address = new int[4];
+        for (int i = 0; i < 4; i++) {
+            address[i] = reader.getByte() & 0xff;
+        }
+        return new IpAddress(address, reader.getByte());
+    }
+
+    /**
+     * Write this address, without mask, to a binary trace
+     * 
+     * @param buffer The buffer of the trace
+     */
+    public void writeToTrace(ByteBuffer buffer) {
+        for (int i = 0; i < 4; i++) {
+            buffer.put((byte) this.address[i]);
+        }
+    }
+
+    /**
+     * Format an address written to a binary trace, as
+     * {@link #toStringNoMask()}, without creating it
+     * 
+     * @param buffer The buffer of the trace
+     * @param line   Destination of the address
+     */
+    public static void formatFromTrace(ByteBuffer buffer, StringBuilder line) {
+        line.append(buffer.get() & 0xff);
+        for (int i = 1; i < 4; i++) {
+            line.append('.').append(buffer.get() & 0xff);
+        }
+    }
 }
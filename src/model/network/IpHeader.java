@@ -1,5 +1,12 @@
 package model.network;
 
+import java.nio.ByteBuffer;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+
 /**
  * Class representing an IP header
  * 
@@ -9,6 +16,32 @@ package model.network;
  */
 public class IpHeader extends Header {
 
+    /**
+     * Size of an IPv4 header without options on the wire, in bytes
+     */
+    public static final int WIRE_SIZE_BYTES = 20;
+
+    /**
+     * Highest total length of an IPv4 packet, in bytes
+     */
+    public static final int MAX_TOTAL_LENGTH = 65535;
+
+    /**
+     * Protocol number of an IPv4 packet carrying an IPv4 packet
+     */
+    private static final byte PROTOCOL_IPV4 = 4;
+
+    /**
+     * Protocol number of an IPv4 packet carrying anything else, reserved for
+     * experimentation
+     */
+    private static final byte PROTOCOL_EXPERIMENTAL = (byte) 253;
+
+    /**
+     * Time to live written on the wire
+     */
+    private static final byte TTL = 64;
+
     /**
      * Source IP address
      */
@@ -73,4 +106,86 @@ public class IpHeader extends Header {
     public String formatToTrace() {
         return this.source.toStringNoMask() + " " + this.destination.toStringNoMask();
     }
+
+    @Override
+    public void writeToTrace(ByteBuffer buffer) {
+        this.source.writeToTrace(buffer);
+        this.destination.writeToTrace(buffer);
+    }
+
+    @Override
+    public int getWireSizeBytes() {
+        return IpHeader.WIRE_SIZE_BYTES;
+    }
+
+    /**
+     * Write this header as an IPv4 header without options, with the Don't
+     * Fragment flag and a valid checksum. The total length is truncated to 16
+     * bits
+     */
+    @Override
+    public void writeToWire(ByteBuffer buffer, Header inner, int innerSizeBytes) {
+        int start = buffer.position();
+        int totalLength = IpHeader.WIRE_SIZE_BYTES + innerSizeBytes;
+        if (totalLength > IpHeader.MAX_TOTAL_LENGTH) {
+            Logger.getInstance().log(LogSeverity.WARNING, "IpHeader.writeToWire",
+                    "Packet of {} bytes too long for IPv4, total length written as {}", totalLength,
+                    IpHeader.MAX_TOTAL_LENGTH);
+            totalLength = IpHeader.MAX_TOTAL_LENGTH;
+        }
+        buffer.put((byte) 0x45);
+        buffer.put((byte) 0);
+        buffer.putShort((short) totalLength);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0x4000);
+        buffer.put(IpHeader.TTL);
+        if (inner != null && inner.getType() == HeaderType.IP_HEADER) {
+            buffer.put(IpHeader.PROTOCOL_IPV4);
+        } else {
+            buffer.put(IpHeader.PROTOCOL_EXPERIMENTAL);
+        }
+        buffer.putShort((short) 0);
+        this.source.writeToTrace(buffer);
+        this.destination.writeToTrace(buffer);
+
+        // One's complement sum of the 16 bits words of the header
+        int sum = 0;
+        for (int i = 0; i < IpHeader.WIRE_SIZE_BYTES; i += 2) {
+            sum += buffer.getShort(start + i) & 0xffff;
+        }
+        while ((sum >> 16) != 0) {
+            sum = (sum & 0xffff) + (sum >> 16);
+        }
+        buffer.putShort(start + 10, (short) ~sum);
+    }
+
+    @Override
+    public void saveState(CheckpointWriter writer) {
+        this.source.saveState(writer);
+        this.destination.saveState(writer);
+    }
+
+    /**
+     * Read a header from a checkpoint
+     * 
+     * @param reader The checkpoint reader
+     * @return The header
+     */
+    public static IpHeader restoreState(CheckpointReader reader) {
+        IpAddress source = IpAddress.restoreState(reader);
+        return new IpHeader(source, IpAddress.restoreState(reader));
+    }
+
+    /**
+     * Format a header written to a binary trace, as {@link #formatToTrace()},
+     * without creating it
+     * 
+     * @param buffer The buffer of the trace
+     * @param line   Destination of the header
+     */
+    public static void formatFromTrace(ByteBuffer buffer, StringBuilder line) {
+        IpAddress.formatFromTrace(buffer, line);
+        line.append(' ');
+        IpAddress.formatFromTrace(buffer, line);
+    }
 }
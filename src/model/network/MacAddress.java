@@ -1,7 +1,12 @@
 package model.network;
 
+import java.nio.ByteBuffer;
+
 import model.logger.LogSeverity;
 import model.logger.Logger;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.ValidationLevel;
 
 /**
  * This class represents a MAC address
@@ -16,6 +21,11 @@ public class MacAddress implements Comparable<MacAddress> {
      */
     public static final int SIZE_BYTES = 6;
 
+    /**
+     * Hexadecimal digits, by value
+     */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
      * Array of 6 bytes representing a MAC address
      */
@@ -42,7 +52,7 @@ public class MacAddress implements Comparable<MacAddress> {
 
         for (int i = 0; i < 6; i++) {
             int element = address[i];
-            if (element < 0 || element > 255) {
+            if (ValidationLevel.CHECK_HOT_PATH && (element < 0 || element > 255)) {
                 Logger.getInstance().log(LogSeverity.CRITICAL,
                         "MAC address bytes must be between 0 and 255: " + element);
             }
@@ -69,7 +79,7 @@ public class MacAddress implements Comparable<MacAddress> {
 
         for (int i = 0; i < 6; i++) {
             int element = Integer.parseInt(elements[i], 16);
-            if (element < 0 || element > 255) {
+            if (ValidationLevel.CHECK_HOT_PATH && (element < 0 || element > 255)) {
                 Logger.getInstance().log(LogSeverity.CRITICAL,
                         "MAC address bytes must be between 0 and 255: " + element);
             }
@@ -113,11 +123,15 @@ public class MacAddress implements Comparable<MacAddress> {
 
     @Override
     public String toString() {
-        String ret = String.format("%02X", this.address[0]);
-        for (int i = 1; i < 6; i++) {
-            ret += ":" + String.format("%02X", this.address[i]);
+        char[] chars = new char[17];
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                chars[3 * i - 1] = ':';
+            }
+            chars[3 * i] = MacAddress.HEX_DIGITS[this.address[i] >> 4];
+            chars[3 * i + 1] = MacAddress.HEX_DIGITS[this.address[i] & 0xf];
         }
-        return ret;
+        return new String(chars);
     }
 
     @Override
@@ -129,4 +143,58 @@ public class MacAddress implements Comparable<MacAddress> {
         }
         return 0;
     }
+
+    /**
+     * Write this address to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        for (int i = 0; i < 6; i++) {
+            writer.putByte((byte) this.address[i]);
+        }
+    }
+
+    /**
+     * Read an address from a checkpoint. It is not added to the MAC address
+     * container
+     * 
+     * @param reader The checkpoint reader
+     * @return The address
+     */
+    public static MacAddress restoreState(CheckpointReader reader) {
+        int[] address = new int[6];
+        for (int i = 0; i < 6; i++) {
+            address[i] = reader.getByte() & 0xff;
+        }
+        return new MacAddress(address, false);
+    }
+
+    /**
+     * Write this address to a binary trace
+     * 
+     * @param buffer The buffer of the trace
+     */
+    public void writeToTrace(ByteBuffer buffer) {
+        for (int i = 0; i < 6; i++) {
+            buffer.put((byte) this.address[i]);
+        }
+    }
+
+    /**
+     * Format an address written to a binary trace, as {@link #toString()},
+     * without creating it
+     * 
+     * @param buffer The buffer of the trace
+     * @param line   Destination of the address
+     */
+    public static void formatFromTrace(ByteBuffer buffer, StringBuilder line) {
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                line.append(':');
+            }
+            int value = buffer.get() & 0xff;
+            line.append(MacAddress.HEX_DIGITS[value >> 4]).append(MacAddress.HEX_DIGITS[value & 0xf]);
+        }
+    }
 }
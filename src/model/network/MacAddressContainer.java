@@ -2,9 +2,16 @@ package model.network;
 
 import java.util.TreeSet;
 
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.SimulationContext;
+import model.utils.RandomGenerator;
+import model.utils.RandomStream;
+
 /**
  * Container to store all the MAC addresses existing.
- * It uses Singleton design pattern.
+ * Each simulation context has its own container, see
+ * {@link model.simulator.SimulationContext}.
  * 
  * @author Bastien Tauran
  * @version 1.0
@@ -17,40 +24,42 @@ public class MacAddressContainer {
     private TreeSet<MacAddress> addresses;
 
     /**
-     * Instance of MacAddressContainer
+     * Random stream of the addresses generated, created on first use
      */
-    private static MacAddressContainer instance;
+    private RandomStream random;
 
     /**
-     * Private constructor
+     * Create a new empty container. Use {@link #getInstance()} to get the one of
+     * the current simulation context
      */
-    private MacAddressContainer() {
+    public MacAddressContainer() {
         this.addresses = new TreeSet<MacAddress>();
+        this.random = null;
     }
 
     /**
-     * Get the instance of MacAddressContainer. Construct it if not already created.
+     * Get the instance of MacAddressContainer of the current simulation context.
+     * Construct it if not already created.
      * 
      * @return The instance of MacAddressContainer
      */
     public static MacAddressContainer getInstance() {
-        if (instance == null) {
-            instance = new MacAddressContainer();
-        }
-        return instance;
+        return SimulationContext.getCurrent().getMacAddressContainer();
     }
 
     /**
-     * Get a new available random MAC address
+     * Get a new available random MAC address, drawn from the random stream of
+     * the simulation context
      * 
      * @return The address generated
      */
     public MacAddress getNewMacAddress() {
+        RandomStream random = this.getRandom();
         MacAddress address = null;
         do {
             int[] values = new int[6];
             for (int i = 0; i < 6; i++) {
-                values[i] = (int) (256 * Math.random());
+                values[i] = random.nextInt(256);
             }
             address = new MacAddress(values, false);
         } while (!this.addMacAddress(address));
@@ -85,4 +94,43 @@ public class MacAddressContainer {
     public boolean removeMacAddress(MacAddress address) {
         return this.addresses.remove(address);
     }
+
+    /**
+     * Write the addresses in use to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        writer.putInt(this.addresses.size());
+        for (MacAddress address : this.addresses) {
+            address.saveState(writer);
+        }
+        this.getRandom().saveState(writer);
+    }
+
+    /**
+     * Read the addresses in use from a checkpoint, replacing the current ones
+     * 
+     * @param reader The checkpoint reader
+     */
+    public void restoreState(CheckpointReader reader) {
+        this.addresses.clear();
+        int size = reader.getInt();
+        for (int i = 0; i < size; i++) {
+            this.addresses.add(MacAddress.restoreState(reader));
+        }
+        this.getRandom().restoreState(reader);
+    }
+
+    /**
+     * Get the random stream of the addresses generated, creating it if needed
+     * 
+     * @return The random stream
+     */
+    private RandomStream getRandom() {
+        if (this.random == null) {
+            this.random = RandomGenerator.getInstance().getStream("mac");
+        }
+        return this.random;
+    }
 }
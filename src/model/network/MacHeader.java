@@ -1,5 +1,10 @@
 package model.network;
 
+import java.nio.ByteBuffer;
+
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+
 /**
  * Class representing a MAC header
  * 
@@ -9,6 +14,22 @@ package model.network;
  */
 public class MacHeader extends Header {
 
+    /**
+     * Size of an Ethernet II header on the wire, in bytes
+     */
+    public static final int WIRE_SIZE_BYTES = 14;
+
+    /**
+     * EtherType of a frame carrying an IPv4 packet
+     */
+    private static final short ETHERTYPE_IPV4 = 0x0800;
+
+    /**
+     * EtherType of a frame carrying anything else, reserved for local
+     * experiments
+     */
+    private static final short ETHERTYPE_EXPERIMENTAL = (short) 0x88B5;
+
     /**
      * Source MAC address
      */
@@ -72,4 +93,60 @@ public class MacHeader extends Header {
     public String formatToTrace() {
         return this.source + " " + this.destination;
     }
+
+    @Override
+    public void writeToTrace(ByteBuffer buffer) {
+        this.source.writeToTrace(buffer);
+        this.destination.writeToTrace(buffer);
+    }
+
+    @Override
+    public int getWireSizeBytes() {
+        return MacHeader.WIRE_SIZE_BYTES;
+    }
+
+    /**
+     * Write this header as an Ethernet II header: destination, source and
+     * EtherType
+     */
+    @Override
+    public void writeToWire(ByteBuffer buffer, Header inner, int innerSizeBytes) {
+        this.destination.writeToTrace(buffer);
+        this.source.writeToTrace(buffer);
+        if (inner != null && inner.getType() == HeaderType.IP_HEADER) {
+            buffer.putShort(MacHeader.ETHERTYPE_IPV4);
+        } else {
+            buffer.putShort(MacHeader.ETHERTYPE_EXPERIMENTAL);
+        }
+    }
+
+    @Override
+    public void saveState(CheckpointWriter writer) {
+        this.source.saveState(writer);
+        this.destination.saveState(writer);
+    }
+
+    /**
+     * Read a header from a checkpoint
+     * 
+     * @param reader The checkpoint reader
+     * @return The header
+     */
+    public static MacHeader restoreState(CheckpointReader reader) {
+        MacAddress source = MacAddress.restoreState(reader);
+        return new MacHeader(source, MacAddress.restoreState(reader));
+    }
+
+    /**
+     * Format a header written to a binary trace, as {@link #formatToTrace()},
+     * without creating it
+     * 
+     * @param buffer The buffer of the trace
+     * @param line   Destination of the header
+     */
+    public static void formatFromTrace(ByteBuffer buffer, StringBuilder line) {
+        MacAddress.formatFromTrace(buffer, line);
+        line.append(' ');
+        MacAddress.formatFromTrace(buffer, line);
+    }
 }
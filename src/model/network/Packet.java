@@ -1,7 +1,12 @@
 package model.network;
 
+import java.nio.ByteBuffer;
 import java.util.Stack;
 
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.SimulationContext;
+import model.simulator.Simulator;
 import model.utils.IdGenerator;
 
 /**
@@ -17,10 +22,18 @@ import model.utils.IdGenerator;
 public class Packet {
 
     /**
-     * ID of the packet, generated automatically
+     * ID of the packet, generated automatically. During a parallel simulation,
+     * a packet created by an event gets it once the event is committed, and it
+     * is 0 until then
      */
     protected int packetId;
 
+    /**
+     * Packet whose ID is given once its event is committed, if this packet is
+     * a copy made before, or null
+     */
+    private Packet origin;
+
     /**
      * Payload of the packet
      */
@@ -40,7 +53,7 @@ public class Packet {
      * Default constructor
      */
     public Packet() {
-        this.packetId = IdGenerator.getInstance().getNextPacketId();
+        this.assignPacketId();
         this.payload = "";
         this.payloadSizeBytes = 0;
         this.headers = new Stack<Header>();
@@ -52,7 +65,7 @@ public class Packet {
      * @param payloadSizeBytes The packet payload size in bytes
      */
     public Packet(int payloadSizeBytes) {
-        this.packetId = IdGenerator.getInstance().getNextPacketId();
+        this.assignPacketId();
         this.payload = "";
         this.payloadSizeBytes = payloadSizeBytes;
         this.headers = new Stack<Header>();
@@ -65,12 +78,68 @@ public class Packet {
      * @param payloadSizeBytes The packet payload size in bytes
      */
     public Packet(String payload, int payloadSizeBytes) {
-        this.packetId = IdGenerator.getInstance().getNextPacketId();
+        this.assignPacketId();
         this.payload = payload;
         this.payloadSizeBytes = payloadSizeBytes;
         this.headers = new Stack<Header>();
     }
 
+    /**
+     * Give its ID to a new packet. During a parallel simulation, it is given
+     * once the event creating the packet is committed, see
+     * {@link #hasPacketId()}
+     */
+    private void assignPacketId() {
+        SimulationContext context = SimulationContext.getCurrent();
+        Simulator simulator = context.getSimulator();
+        IdGenerator generator = context.getIdGenerator();
+        if (simulator.isOutputDeferred()) {
+            simulator.defer(() -> this.packetId = generator.getNextPacketId());
+        } else {
+            this.packetId = generator.getNextPacketId();
+        }
+    }
+
+    /**
+     * Constructs a packet restored from a checkpoint, keeping its ID
+     * 
+     * @param packetId         The packet ID
+     * @param payload          The packet payload
+     * @param payloadSizeBytes The packet payload size in bytes
+     */
+    private Packet(int packetId, String payload, int payloadSizeBytes) {
+        this.packetId = packetId;
+        this.payload = payload;
+        this.payloadSizeBytes = payloadSizeBytes;
+        this.headers = new Stack<Header>();
+    }
+
+    /**
+     * Constructs a copy of a packet, with the same ID. Headers are shared, as
+     * they are not modified once created
+     * 
+     * @param packet The packet to copy
+     */
+    private Packet(Packet packet) {
+        this.packetId = packet.getPacketId();
+        if (this.packetId == 0) {
+            this.origin = packet.origin != null ? packet.origin : packet;
+        }
+        this.payload = packet.payload;
+        this.payloadSizeBytes = packet.payloadSizeBytes;
+        this.headers = new Stack<Header>();
+        this.headers.addAll(packet.headers);
+    }
+
+    /**
+     * Create a copy of this packet, with the same ID and headers
+     * 
+     * @return The copy
+     */
+    public Packet copy() {
+        return new Packet(this);
+    }
+
     /**
      * Add a header to this packet
      * 
@@ -78,6 +147,10 @@ public class Packet {
      */
     public void addHeader(Header header) {
         this.headers.push(header);
+        Simulator simulator = Simulator.getInstance();
+        if (simulator.isRollbackEnabled()) {
+            simulator.addUndo(this.headers::pop);
+        }
     }
 
     /**
@@ -101,7 +174,12 @@ public class Packet {
         if (this.headers.isEmpty()) {
             return null;
         }
-        return this.headers.pop();
+        Header header = this.headers.pop();
+        Simulator simulator = Simulator.getInstance();
+        if (simulator.isRollbackEnabled()) {
+            simulator.addUndo(() -> this.headers.push(header));
+        }
+        return header;
     }
 
     /**
@@ -138,12 +216,30 @@ public class Packet {
     /**
      * Get packet ID
      * 
-     * @return Packet ID
+     * @return Packet ID, 0 if the packet was created by an event of a parallel
+     *         simulation not committed yet
+     * @see #hasPacketId()
      */
     public int getPacketId() {
+        if (this.packetId == 0 && this.origin != null) {
+            return this.origin.packetId;
+        }
         return this.packetId;
     }
 
+    /**
+     * Indicates if this packet has its ID. During a parallel simulation, the
+     * events of the partitions are run in any order, so a packet created by an
+     * event gets its ID once the event is committed, in the order of a
+     * sequential run. The outputs of the events giving the ID of such a packet
+     * must read it once committed, see {@link Simulator#defer(Runnable)}
+     * 
+     * @return True if the packet has its ID
+     */
+    public boolean hasPacketId() {
+        return this.getPacketId() != 0;
+    }
+
     @Override
     public String toString() {
         String str = "Packet: ";
@@ -156,11 +252,21 @@ public class Packet {
     }
 
     /**
-     * Format headers and payload to be printed in a trace file
+     * Format ID, headers and payload to be printed in a trace file
      * 
      * @return String representation of the packet to trace
      */
     public String formatToTrace() {
+        return this.getPacketId() + " " + this.formatContentToTrace();
+    }
+
+    /**
+     * Format headers and payload to be printed in a trace file, after the ID
+     * of the packet
+     * 
+     * @return String representation of the content of the packet to trace
+     */
+    public String formatContentToTrace() {
         String[] output = new String[this.headers.size() + 1];
         int i = 0;
         for (Header e : this.headers) {
@@ -173,6 +279,122 @@ public class Packet {
             output[this.headers.size()] = "NoPayload";
         }
 
-        return this.packetId + " " + String.join(" ", output);
+        return String.join(" ", output);
+    }
+
+    /**
+     * Get the number of bytes written by {@link #writeToTrace(ByteBuffer)}
+     * 
+     * @return The size of the packet in a binary trace
+     */
+    public int getTraceSizeBytes() {
+        int size = 5;
+        for (Header header : this.headers) {
+            size += 1 + header.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * Write the ID and the headers of this packet to a binary trace, in the
+     * order of {@link #formatToTrace()}. The payload is written by the tracer
+     * 
+     * @param buffer The buffer of the trace
+     */
+    public void writeToTrace(ByteBuffer buffer) {
+        buffer.putInt(this.getPacketId());
+        buffer.put((byte) this.headers.size());
+        for (Header header : this.headers) {
+            buffer.put((byte) header.getType().ordinal());
+            header.writeToTrace(buffer);
+        }
+    }
+
+    /**
+     * Get packet total size on the wire in bytes, as serialized by
+     * {@link #writeToWire(ByteBuffer, int)}
+     * 
+     * @return Packet total size on the wire
+     */
+    public int getWireSizeBytes() {
+        int size = this.payloadSizeBytes;
+        for (Header header : this.headers) {
+            size += header.getWireSizeBytes();
+        }
+        return size;
+    }
+
+    /**
+     * Write this packet as a frame captured on the wire: its headers, from the
+     * outermost one, with the byte layout of the real protocols, then its
+     * payload. The payload bytes are the characters of the payload, truncated
+     * to the payload size, then zeros
+     * 
+     * @param buffer   The buffer of the frame
+     * @param maxBytes Maximal number of bytes written. Headers are always
+     *                 written, the payload is truncated
+     * @return The number of bytes written
+     */
+    public int writeToWire(ByteBuffer buffer, int maxBytes) {
+        int start = buffer.position();
+        int innerSize = this.getWireSizeBytes();
+        for (int i = this.headers.size() - 1; i >= 0; i--) {
+            Header header = this.headers.elementAt(i);
+            innerSize -= header.getWireSizeBytes();
+            header.writeToWire(buffer, i > 0 ? this.headers.elementAt(i - 1) : null, innerSize);
+        }
+
+        int size = Math.min(this.payloadSizeBytes, Math.max(0, maxBytes - (buffer.position() - start)));
+        int length = Math.min(size, this.payload.length());
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) this.payload.charAt(i));
+        }
+        for (int i = length; i < size; i++) {
+            buffer.put((byte) 0);
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * Write the content of this packet to a checkpoint. Use
+     * {@link CheckpointWriter#putPacket(Packet)}, so a packet referenced
+     * several times is written once
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        writer.putInt(this.getPacketId());
+        writer.putString(this.payload);
+        writer.putInt(this.payloadSizeBytes);
+        writer.putInt(this.headers.size());
+        for (Header header : this.headers) {
+            writer.putByte((byte) header.getType().ordinal());
+            header.saveState(writer);
+        }
+    }
+
+    /**
+     * Read a packet from a checkpoint. Use
+     * {@link CheckpointReader#getPacket()}, so a packet referenced several
+     * times is restored once
+     * 
+     * @param reader The checkpoint reader
+     * @return The packet
+     */
+    public static Packet restoreState(CheckpointReader reader) {
+        int packetId = reader.getInt();
+        String payload = reader.getString();
+        // Empty payloads are compared by reference when traced
+        Packet packet = new Packet(packetId, payload.isEmpty() ? "" : payload, reader.getInt());
+        int size = reader.getInt();
+        for (int i = 0; i < size; i++) {
+            HeaderType type = HeaderType.values()[reader.getByte()];
+            if (type == HeaderType.MAC_HEADER) {
+                packet.headers.push(MacHeader.restoreState(reader));
+            } else {
+                packet.headers.push(IpHeader.restoreState(reader));
+            }
+        }
+        return packet;
     }
 }
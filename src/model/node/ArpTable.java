@@ -1,11 +1,15 @@
 package model.node;
 
+import java.util.Map;
 import java.util.TreeMap;
 
 import model.logger.LogSeverity;
 import model.logger.Logger;
 import model.network.IpAddress;
 import model.network.MacAddress;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.ValidationLevel;
 
 /**
  * Class representing an ARP table.
@@ -38,10 +42,10 @@ public class ArpTable {
      * @param macAddress Corresponding MAC address
      */
     public void addEntry(IpAddress ipAddress, MacAddress macAddress) {
-        if (ipAddress.getMask() != 32) {
+        if (ValidationLevel.CHECK_TOPOLOGY && ipAddress.getMask() != 32) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be 32, but got " + ipAddress.getMask());
         }
-        if (this.table.containsKey(ipAddress)) {
+        if (ValidationLevel.CHECK_TOPOLOGY && this.table.containsKey(ipAddress)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP adress " + ipAddress + "is already in ARP table");
         }
         this.table.put(ipAddress, macAddress);
@@ -55,10 +59,10 @@ public class ArpTable {
      * @param macAddress Corresponding MAC address
      */
     public void updateEntry(IpAddress ipAddress, MacAddress macAddress) {
-        if (ipAddress.getMask() != 32) {
+        if (ValidationLevel.CHECK_TOPOLOGY && ipAddress.getMask() != 32) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be 32, but got " + ipAddress.getMask());
         }
-        if (!this.table.containsKey(ipAddress)) {
+        if (ValidationLevel.CHECK_TOPOLOGY && !this.table.containsKey(ipAddress)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP adress " + ipAddress + "is not in ARP table");
         }
         this.table.put(ipAddress, macAddress);
@@ -70,10 +74,10 @@ public class ArpTable {
      * @param ipAddress The IP destination to remove
      */
     public void deleteEntry(IpAddress ipAddress) {
-        if (ipAddress.getMask() != 32) {
+        if (ValidationLevel.CHECK_TOPOLOGY && ipAddress.getMask() != 32) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be 32, but got " + ipAddress.getMask());
         }
-        if (!this.table.containsKey(ipAddress)) {
+        if (ValidationLevel.CHECK_TOPOLOGY && !this.table.containsKey(ipAddress)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP adress " + ipAddress + "is not in ARP table");
         }
         this.table.remove(ipAddress);
@@ -93,7 +97,7 @@ public class ArpTable {
      * @return The associated MAC address, or null if no such key
      */
     public MacAddress getEntry(IpAddress ipAddress) {
-        if (ipAddress.getMask() != 32) {
+        if (ValidationLevel.CHECK_HOT_PATH && ipAddress.getMask() != 32) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be 32, but got " + ipAddress.getMask());
         }
         return this.table.get(ipAddress);
@@ -106,9 +110,36 @@ public class ArpTable {
      * @return True if IP address is in table, False otherwise
      */
     public boolean hasEntry(IpAddress ipAddress) {
-        if (ipAddress.getMask() != 32) {
+        if (ValidationLevel.CHECK_HOT_PATH && ipAddress.getMask() != 32) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "IP address mask must be 32, but got " + ipAddress.getMask());
         }
         return this.table.containsKey(ipAddress);
     }
+
+    /**
+     * Write the entries to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        writer.putInt(this.table.size());
+        for (Map.Entry<IpAddress, MacAddress> entry : this.table.entrySet()) {
+            entry.getKey().saveState(writer);
+            entry.getValue().saveState(writer);
+        }
+    }
+
+    /**
+     * Read the entries from a checkpoint, replacing the current ones
+     * 
+     * @param reader The checkpoint reader
+     */
+    public void restoreState(CheckpointReader reader) {
+        this.table.clear();
+        int size = reader.getInt();
+        for (int i = 0; i < size; i++) {
+            IpAddress ipAddress = IpAddress.restoreState(reader);
+            this.table.put(ipAddress, MacAddress.restoreState(reader));
+        }
+    }
 }
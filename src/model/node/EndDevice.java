@@ -2,16 +2,13 @@ package model.node;
 
 import model.io.Layer;
 import model.io.PacketEvent;
-import model.io.PacketTracer;
 import model.logger.LogSeverity;
-import model.logger.Logger;
 import model.network.Header;
 import model.network.HeaderType;
 import model.network.IpAddress;
 import model.network.IpHeader;
 import model.network.Packet;
-import model.simulator.Schedulable;
-import model.simulator.SchedulableMethod;
+import model.simulator.ValidationLevel;
 import model.utils.Pair;
 
 /**
@@ -21,7 +18,7 @@ import model.utils.Pair;
  * @version 1.0
  * @see Node
  */
-public class EndDevice extends Node implements Schedulable {
+public class EndDevice extends Node {
 
     /**
      * End Device constructor
@@ -34,12 +31,13 @@ public class EndDevice extends Node implements Schedulable {
 
     @Override
     public void send(Packet packet, IpAddress addressDst) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "Send packet " + packet.getPacketId() + " to " + addressDst);
+        this.context.getLogger().log(LogSeverity.DEBUG, "EndDevice.send",
+                "Send packet {} to {}", packet, addressDst);
 
         Header currentHeader = packet.peekHeader();
         if (currentHeader != null) {
-            if (currentHeader.getType() == HeaderType.IP_HEADER) {
-                Logger.getInstance().log(LogSeverity.CRITICAL, "Packet cannot already have IP header");
+            if (ValidationLevel.CHECK_HOT_PATH && currentHeader.getType() == HeaderType.IP_HEADER) {
+                this.context.getLogger().log(LogSeverity.CRITICAL, "Packet cannot already have IP header");
             }
         }
 
@@ -48,32 +46,33 @@ public class EndDevice extends Node implements Schedulable {
             IpAddress addressSrc = routingEntry.first.getIpAddress();
 
             if (addressSrc == null) {
-                Logger.getInstance().log(LogSeverity.ERROR, "Source IP address not set");
+                this.context.getLogger().log(LogSeverity.ERROR, "Source IP address not set");
                 return;
             }
 
             IpHeader ipHeader = new IpHeader(addressSrc, addressDst);
             packet.addHeader(ipHeader);
 
-            PacketTracer.getInstance().tracePacket(this.getNodeId(), Layer.NETWORK, PacketEvent.SEND, packet);
+            this.context.getPacketTracer().tracePacket(this.getNodeId(), Layer.NETWORK, PacketEvent.SEND, packet);
 
             routingEntry.first.enque(packet, routingEntry.second);
         } else {
-            PacketTracer.getInstance().tracePacket(this.getNodeId(), Layer.NETWORK, PacketEvent.DROP, packet);
-            Logger.getInstance().log(LogSeverity.WARNING, "No route to destination, dropping packet");
+            this.context.getPacketTracer().tracePacket(this.getNodeId(), Layer.NETWORK, PacketEvent.DROP, packet);
+            this.context.getLogger().log(LogSeverity.WARNING, "EndDevice.send",
+                    "No route to destination, dropping packet");
         }
     }
 
     @Override
     public void receive(Packet packet) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "Receive packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "EndDevice.receive", "Receive packet {}", packet);
 
-        PacketTracer.getInstance().tracePacket(this.getNodeId(), Layer.NETWORK, PacketEvent.RECEIVE, packet);
+        this.context.getPacketTracer().tracePacket(this.getNodeId(), Layer.NETWORK, PacketEvent.RECEIVE, packet);
 
         Header currentHeader = packet.peekHeader();
         if (currentHeader != null) {
-            if (currentHeader.getType() != HeaderType.IP_HEADER) {
-                Logger.getInstance().log(LogSeverity.CRITICAL, "Packet does not have an IP header");
+            if (ValidationLevel.CHECK_HOT_PATH && currentHeader.getType() != HeaderType.IP_HEADER) {
+                this.context.getLogger().log(LogSeverity.CRITICAL, "Packet does not have an IP header");
             }
         }
         IpHeader header = (IpHeader) currentHeader;
@@ -81,7 +80,7 @@ public class EndDevice extends Node implements Schedulable {
 
         for (Interface interf : this.interfaces) {
             if (interf.getIpAddress().equals(destination)) {
-                System.out.println("Received packet " + packet);
+                this.getSimulator().print(System.out, "Received packet " + packet + System.lineSeparator());
                 return;
             }
         }
@@ -107,17 +106,4 @@ public class EndDevice extends Node implements Schedulable {
      * }
      * }
      */
-
-    @Override
-    public void run(SchedulableMethod method, Object[] arguments) {
-        switch (method) {
-            case END_DEVICE__SEND: {
-                this.send((Packet) arguments[0], (IpAddress) arguments[1]);
-                break;
-            }
-            default: {
-                Logger.getInstance().log(LogSeverity.CRITICAL, "Unknow method for class EndDevice: " + method);
-            }
-        }
-    }
 }
@@ -4,17 +4,19 @@ import java.util.LinkedList;
 
 import model.io.Layer;
 import model.io.PacketEvent;
-import model.io.PacketTracer;
 import model.link.Link;
 import model.logger.LogSeverity;
-import model.logger.Logger;
 import model.network.Header;
 import model.network.HeaderType;
 import model.network.IpAddress;
 import model.network.MacAddress;
-import model.network.MacAddressContainer;
 import model.network.MacHeader;
 import model.network.Packet;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.SimulationContext;
+import model.simulator.Simulator;
+import model.simulator.ValidationLevel;
 
 /**
  * Class representing an interface.
@@ -46,6 +48,11 @@ public class Interface {
      */
     private Node node;
 
+    /**
+     * Context of the simulation of the link
+     */
+    private final SimulationContext context;
+
     /**
      * Link connected to this interface
      */
@@ -80,7 +87,8 @@ public class Interface {
      */
     public Interface(String name, Node node, Link link) {
         this.name = name;
-        this.macAddress = MacAddressContainer.getInstance().getNewMacAddress();
+        this.context = link.getContext();
+        this.macAddress = this.context.getMacAddressContainer().getNewMacAddress();
         this.ipAddress = new IpAddress();
         this.node = node;
         this.link = link;
@@ -99,21 +107,22 @@ public class Interface {
      * @return True if the packet has been added, False otherwise
      */
     public boolean enque(Packet packet, IpAddress nextHop) {
-        Logger.getInstance().log(LogSeverity.DEBUG,
-                "Enque packet " + packet.getPacketId() + ". Will be sent to " + nextHop);
+        this.context.getLogger().log(LogSeverity.DEBUG, "Interface.enque", "Enque packet {}. Will be sent to {}",
+                packet, nextHop);
 
         ArpTable arpTable = this.node.getArpTable();
         MacAddress dstMacAddress = arpTable.getEntry(nextHop);
 
         if (dstMacAddress == null) {
-            Logger.getInstance().log(LogSeverity.WARNING, "Do not know destination MAC address, dropping packet");
+            this.context.getLogger().log(LogSeverity.WARNING, "Interface.enque",
+                    "Do not know destination MAC address, dropping packet");
             return false;
         }
 
         Header currentHeader = packet.peekHeader();
         if (currentHeader != null) {
-            if (currentHeader.getType() == HeaderType.MAC_HEADER) {
-                Logger.getInstance().log(LogSeverity.CRITICAL, "Packet cannot already have MAC header");
+            if (ValidationLevel.CHECK_HOT_PATH && currentHeader.getType() == HeaderType.MAC_HEADER) {
+                this.context.getLogger().log(LogSeverity.CRITICAL, "Packet cannot already have MAC header");
             }
         }
 
@@ -126,13 +135,19 @@ public class Interface {
         }
 
         if (this.queue.size() == this.queueSizeMaxPackets) {
-            Logger.getInstance().log(LogSeverity.WARNING, "Queue full, dropping packet");
-            PacketTracer.getInstance().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.DROP, packet);
+            this.context.getLogger().log(LogSeverity.WARNING, "Interface.enque", "Queue full, dropping packet");
+            this.node.getContext().getPacketTracer().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.DROP,
+                    packet);
             return false;
         }
 
-        PacketTracer.getInstance().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.ENQUE, packet);
+        this.node.getContext().getPacketTracer().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.ENQUE,
+                packet);
         this.queue.add(packet);
+        Simulator simulator = this.node.getSimulator();
+        if (simulator.isRollbackEnabled()) {
+            simulator.addUndo(this.queue::removeLast);
+        }
 
         return true;
     }
@@ -144,9 +159,10 @@ public class Interface {
      * @param packet The packet received
      */
     public void receive(Packet packet) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "Receive packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "Interface.receive", "Receive packet {}", packet);
 
-        PacketTracer.getInstance().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.RECEIVE, packet);
+        this.node.getContext().getPacketTracer().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.RECEIVE,
+                packet);
 
         MacHeader macHeader = (MacHeader) packet.popHeader();
 
@@ -161,14 +177,16 @@ public class Interface {
      * @param packet The packet to send
      */
     public void startTx(Packet packet) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "Start TX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "Interface.startTx", "Start TX packet {}", packet);
 
-        if (this.isSending == true) {
-            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot send a packet while another is already being sent");
+        if (ValidationLevel.CHECK_HOT_PATH && this.isSending == true) {
+            this.context.getLogger().log(LogSeverity.CRITICAL,
+                    "Cannot send a packet while another is already being sent");
         }
-        this.isSending = true;
+        this.setSending(true);
 
-        PacketTracer.getInstance().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.SEND, packet);
+        this.node.getContext().getPacketTracer().tracePacket(this.node.getNodeId(), Layer.MAC, PacketEvent.SEND,
+                packet);
 
         this.link.startTx(packet, this);
     }
@@ -179,12 +197,16 @@ public class Interface {
      * @param packet The packet sent
      */
     public void endTx(Packet packet) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "End TX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "Interface.endTx", "End TX packet {}", packet);
 
-        this.isSending = false;
+        this.setSending(false);
 
         if (!this.queue.isEmpty()) {
             Packet newPacket = this.queue.removeFirst();
+            Simulator simulator = this.node.getSimulator();
+            if (simulator.isRollbackEnabled()) {
+                simulator.addUndo(() -> this.queue.addFirst(newPacket));
+            }
             this.startTx(newPacket);
         }
     }
@@ -195,13 +217,13 @@ public class Interface {
      * @param packet The packet to receive
      */
     public void startRx(Packet packet) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "Start RX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "Interface.startRx", "Start RX packet {}", packet);
 
-        if (this.isReceiving == true) {
-            Logger.getInstance().log(LogSeverity.CRITICAL,
+        if (ValidationLevel.CHECK_HOT_PATH && this.isReceiving == true) {
+            this.context.getLogger().log(LogSeverity.CRITICAL,
                     "Cannot receive a packet while another is already being received");
         }
-        this.isReceiving = true;
+        this.setReceiving(true);
     }
 
     /**
@@ -210,13 +232,52 @@ public class Interface {
      * @param packet The packet received
      */
     public void endRx(Packet packet) {
-        Logger.getInstance().log(LogSeverity.DEBUG, "End RX packet " + packet.getPacketId());
+        this.context.getLogger().log(LogSeverity.DEBUG, "Interface.endRx", "End RX packet {}", packet);
 
-        this.isReceiving = false;
+        this.setReceiving(false);
 
         this.receive(packet);
     }
 
+    /**
+     * Set the flag indicating if this interface is sending a packet. The change
+     * is recorded if it may be rolled back
+     * 
+     * @param isSending The new value of the flag
+     */
+    private void setSending(boolean isSending) {
+        Simulator simulator = this.node.getSimulator();
+        if (simulator.isRollbackEnabled()) {
+            boolean previous = this.isSending;
+            simulator.addUndo(() -> this.isSending = previous);
+        }
+        this.isSending = isSending;
+    }
+
+    /**
+     * Set the flag indicating if this interface is receiving a packet. The
+     * change is recorded if it may be rolled back
+     * 
+     * @param isReceiving The new value of the flag
+     */
+    private void setReceiving(boolean isReceiving) {
+        Simulator simulator = this.node.getSimulator();
+        if (simulator.isRollbackEnabled()) {
+            boolean previous = this.isReceiving;
+            simulator.addUndo(() -> this.isReceiving = previous);
+        }
+        this.isReceiving = isReceiving;
+    }
+
+    /**
+     * Get the name of the interface
+     * 
+     * @return The name
+     */
+    public String getName() {
+        return this.name;
+    }
+
     /**
      * Get the IP address of the interface
      * 
@@ -253,18 +314,64 @@ public class Interface {
         return this.node;
     }
 
+    /**
+     * Get Link this interface is attached to
+     * 
+     * @return The link of this interface
+     */
+    public Link getLink() {
+        return this.link;
+    }
+
     /**
      * Set the maximum size of the queue
      * 
      * @param queueSizeMaxPackets The maximum size of queue to set
      */
     public void setQueueSizeMaxPackets(int queueSizeMaxPackets) {
-        if (queueSizeMaxPackets < 1) {
-            Logger.getInstance().log(LogSeverity.CRITICAL, "Queue size must be strictly positive");
+        if (ValidationLevel.CHECK_TOPOLOGY && queueSizeMaxPackets < 1) {
+            this.context.getLogger().log(LogSeverity.CRITICAL, "Queue size must be strictly positive");
         }
         this.queueSizeMaxPackets = queueSizeMaxPackets;
     }
 
+    /**
+     * Write the addresses, the state and the queue of this interface to a
+     * checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        this.macAddress.saveState(writer);
+        this.ipAddress.saveState(writer);
+        writer.putInt(this.queueSizeMaxPackets);
+        writer.putBoolean(this.isSending);
+        writer.putBoolean(this.isReceiving);
+        writer.putInt(this.queue.size());
+        for (Packet packet : this.queue) {
+            writer.putPacket(packet);
+        }
+    }
+
+    /**
+     * Read the addresses, the state and the queue of this interface from a
+     * checkpoint
+     * 
+     * @param reader The checkpoint reader
+     */
+    public void restoreState(CheckpointReader reader) {
+        this.macAddress = MacAddress.restoreState(reader);
+        this.ipAddress = IpAddress.restoreState(reader);
+        this.queueSizeMaxPackets = reader.getInt();
+        this.isSending = reader.getBoolean();
+        this.isReceiving = reader.getBoolean();
+        this.queue.clear();
+        int size = reader.getInt();
+        for (int i = 0; i < size; i++) {
+            this.queue.add(reader.getPacket());
+        }
+    }
+
     @Override
     public String toString() {
         return "[ Interface " + this.name + ", macAddress='" + this.macAddress + "', ipAddress='" + this.ipAddress
@@ -2,9 +2,13 @@ package model.node;
 
 import java.util.ArrayList;
 
+import model.logger.LogSeverity;
 import model.network.IpAddress;
 import model.network.Packet;
-import model.utils.IdGenerator;
+import model.simulator.SimulationContext;
+import model.simulator.Simulator;
+import model.simulator.ValidationLevel;
+import model.utils.RandomStream;
 
 /**
  * Abstract class representing a node
@@ -15,6 +19,11 @@ import model.utils.IdGenerator;
  */
 public abstract class Node {
 
+    /**
+     * Context of the simulation this node belongs to
+     */
+    protected SimulationContext context;
+
     /**
      * ID of the node, generated automatically
      */
@@ -41,16 +50,30 @@ public abstract class Node {
     protected RoutingTable routingTable;
 
     /**
-     * Node contructor
+     * Index of the partition running the events of this node in a parallel
+     * simulation
+     */
+    protected int partition;
+
+    /**
+     * Random stream of this node, created on first use
+     */
+    private RandomStream random;
+
+    /**
+     * Node contructor. The node belongs to the current simulation context
      * 
      * @param name Name of this node
      */
     public Node(String name) {
-        this.nodeId = IdGenerator.getInstance().getNextNodeId();
+        this.context = SimulationContext.getCurrent();
+        this.nodeId = this.context.getIdGenerator().getNextNodeId();
         this.name = name;
         this.interfaces = new ArrayList<Interface>();
         this.arpTable = new ArpTable();
         this.routingTable = new RoutingTable();
+        this.partition = 0;
+        this.random = null;
     }
 
     /**
@@ -69,6 +92,28 @@ public abstract class Node {
      */
     public abstract void receive(Packet packet);
 
+    /**
+     * Get the index of the partition running the events of this node
+     * 
+     * @return The index of the partition
+     */
+    public int getPartition() {
+        return this.partition;
+    }
+
+    /**
+     * Set the index of the partition running the events of this node in a
+     * parallel simulation. Must be set before scheduling events on this node
+     * 
+     * @param partition The index of the partition
+     */
+    public void setPartition(int partition) {
+        if (ValidationLevel.CHECK_TOPOLOGY && partition < 0) {
+            this.context.getLogger().log(LogSeverity.CRITICAL, "Partition index must be positive or null");
+        }
+        this.partition = partition;
+    }
+
     /**
      * Add a new interface to this node
      * 
@@ -78,6 +123,25 @@ public abstract class Node {
         this.interfaces.add(interf);
     }
 
+    /**
+     * Get the context of the simulation this node belongs to
+     * 
+     * @return The simulation context
+     */
+    public SimulationContext getContext() {
+        return this.context;
+    }
+
+    /**
+     * Get the simulator running the events of this node: the one of its
+     * partition during a parallel simulation
+     * 
+     * @return The simulator
+     */
+    public Simulator getSimulator() {
+        return this.context.getSimulator().getPartition(this.partition);
+    }
+
     /**
      * Get node ID
      * 
@@ -132,4 +196,17 @@ public abstract class Node {
         return this.routingTable;
     }
 
+    /**
+     * Get the random stream of this node, for instance to generate traffic. It
+     * only depends on the seed of the simulation and on the ID of the node
+     * 
+     * @return The random stream
+     */
+    public RandomStream getRandom() {
+        if (this.random == null) {
+            this.random = this.context.getRandomGenerator().getStream("node", this.nodeId);
+        }
+        return this.random;
+    }
+
 }
@@ -1,10 +1,14 @@
 package model.node;
 
 import java.util.HashMap;
+import java.util.Map;
 
 import model.logger.LogSeverity;
 import model.logger.Logger;
 import model.network.IpAddress;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.ValidationLevel;
 import model.utils.Pair;
 
 /**
@@ -39,11 +43,11 @@ public class RoutingTable {
      * @param nextHop Next hop IP address
      */
     public void addEntry(IpAddress network, Interface inter, IpAddress nextHop) {
-        if (nextHop.getMask() != 32) {
+        if (ValidationLevel.CHECK_TOPOLOGY && nextHop.getMask() != 32) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Next hop address mask must be 32, but got " + nextHop.getMask());
         }
         IpAddress net = network.getNetwork();
-        if (this.table.containsKey(net)) {
+        if (ValidationLevel.CHECK_TOPOLOGY && this.table.containsKey(net)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Network " + net + "is already in routing table");
         }
         this.table.put(net, new Pair<Interface, IpAddress>(inter, nextHop));
@@ -58,11 +62,11 @@ public class RoutingTable {
      * @param nextHop Next hop IP address
      */
     public void updateEntry(IpAddress network, Interface inter, IpAddress nextHop) {
-        if (nextHop.getMask() != 32) {
+        if (ValidationLevel.CHECK_TOPOLOGY && nextHop.getMask() != 32) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Next hop address mask must be 32, but got " + nextHop.getMask());
         }
         IpAddress net = network.getNetwork();
-        if (!this.table.containsKey(net)) {
+        if (ValidationLevel.CHECK_TOPOLOGY && !this.table.containsKey(net)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Network " + net + "is not in routing table");
         }
         this.table.put(net, new Pair<Interface, IpAddress>(inter, nextHop));
@@ -75,7 +79,7 @@ public class RoutingTable {
      */
     public void deleteEntry(IpAddress network) {
         IpAddress net = network.getNetwork();
-        if (!this.table.containsKey(net)) {
+        if (ValidationLevel.CHECK_TOPOLOGY && !this.table.containsKey(net)) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Network " + net + "is not in routing table");
         }
         this.table.remove(net);
@@ -122,4 +126,33 @@ public class RoutingTable {
         }
         return false;
     }
+
+    /**
+     * Write the entries to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        writer.putInt(this.table.size());
+        for (Map.Entry<IpAddress, Pair<Interface, IpAddress>> entry : this.table.entrySet()) {
+            entry.getKey().saveState(writer);
+            writer.putInterface(entry.getValue().first);
+            entry.getValue().second.saveState(writer);
+        }
+    }
+
+    /**
+     * Read the entries from a checkpoint, replacing the current ones
+     * 
+     * @param reader The checkpoint reader
+     */
+    public void restoreState(CheckpointReader reader) {
+        this.table.clear();
+        int size = reader.getInt();
+        for (int i = 0; i < size; i++) {
+            IpAddress network = IpAddress.restoreState(reader);
+            Interface inter = reader.getInterface();
+            this.table.put(network, new Pair<Interface, IpAddress>(inter, IpAddress.restoreState(reader)));
+        }
+    }
 }
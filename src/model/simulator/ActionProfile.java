@@ -0,0 +1,118 @@
+package model.simulator;
+
+/**
+ * Statistics of the events run for one type of action, gathered by an
+ * {@link EventProfiler}.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventProfiler
+ */
+public class ActionProfile {
+
+    /**
+     * Name of the type of action
+     */
+    private final String name;
+
+    /**
+     * Number of events run
+     */
+    private long events;
+
+    /**
+     * Cumulative wall-clock time spent running the events, in nanoseconds
+     */
+    private long totalTime;
+
+    /**
+     * Maximal wall-clock time spent running one event, in nanoseconds
+     */
+    private long maxTime;
+
+    /**
+     * Number of events scheduled by the events run
+     */
+    private long eventsScheduled;
+
+    /**
+     * Create new empty statistics
+     * 
+     * @param name Name of the type of action
+     */
+    ActionProfile(String name) {
+        this.name = name;
+        this.events = 0;
+        this.totalTime = 0;
+        this.maxTime = 0;
+        this.eventsScheduled = 0;
+    }
+
+    /**
+     * Add an event run
+     * 
+     * @param duration        Wall-clock time spent running the event, in
+     *                        nanoseconds
+     * @param eventsScheduled Number of events scheduled by the event
+     */
+    void record(long duration, long eventsScheduled) {
+        this.events++;
+        this.totalTime += duration;
+        this.maxTime = Math.max(this.maxTime, duration);
+        this.eventsScheduled += eventsScheduled;
+    }
+
+    /**
+     * Get the name of the type of action
+     * 
+     * @return The name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the number of events run
+     * 
+     * @return The number of events
+     */
+    public long getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Get the cumulative wall-clock time spent running the events
+     * 
+     * @return The time in nanoseconds
+     */
+    public long getTotalTime() {
+        return this.totalTime;
+    }
+
+    /**
+     * Get the maximal wall-clock time spent running one event
+     * 
+     * @return The time in nanoseconds
+     */
+    public long getMaxTime() {
+        return this.maxTime;
+    }
+
+    /**
+     * Get the number of events scheduled by the events run
+     * 
+     * @return The number of events scheduled
+     */
+    public long getEventsScheduled() {
+        return this.eventsScheduled;
+    }
+
+    /**
+     * Get the mean number of events scheduled per event run
+     * 
+     * @return The number of events scheduled per event
+     */
+    public double getEventsScheduledPerEvent() {
+        return this.events == 0 ? 0 : (double) this.eventsScheduled / this.events;
+    }
+}
@@ -0,0 +1,396 @@
+package model.simulator;
+
+import java.util.function.Predicate;
+
+/**
+ * Event queue based on a calendar queue (R. Brown, 1988).
+ * Events are spread in buckets, each bucket covering a time slot of fixed
+ * width, like days in a calendar. Insertion and removal are in O(1) amortized
+ * time, provided the bucket width is close to the average time between two
+ * consecutive events.
+ * The number of buckets follows the number of pending events, and the bucket
+ * width is computed again from a sample of the first events at each resize.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventQueue
+ */
+public class CalendarQueue implements EventQueue {
+
+    /**
+     * Minimum number of buckets. Must be a power of two
+     */
+    private static final int MIN_BUCKETS = 16;
+
+    /**
+     * Number of events used to estimate the bucket width
+     */
+    private static final int SAMPLE_SIZE = 25;
+
+    /**
+     * Number of consecutive direct searches before estimating again the bucket
+     * width
+     */
+    private static final int MAX_DIRECT_SEARCHES = 8;
+
+    /**
+     * Bucket width used when no event has been inserted yet, in nanoseconds
+     */
+    private static final long DEFAULT_BUCKET_WIDTH = Time.NANOSECONDS_IN_MILLISECOND;
+
+    /**
+     * First event of each bucket. Events of a bucket are sorted
+     */
+    private Event[] heads;
+
+    /**
+     * Last event of each bucket
+     */
+    private Event[] tails;
+
+    /**
+     * Mask used to get the bucket index from a time
+     */
+    private int mask;
+
+    /**
+     * Time covered by each bucket, in nanoseconds
+     */
+    private long bucketWidth;
+
+    /**
+     * Bucket where the search of the next event starts
+     */
+    private int currentBucket;
+
+    /**
+     * End of the time slot of the current bucket, in nanoseconds
+     */
+    private long bucketTop;
+
+    /**
+     * Lower bound of the time of all events in the queue, in nanoseconds
+     */
+    private long lastTime;
+
+    /**
+     * Number of events in the queue
+     */
+    private int size;
+
+    /**
+     * Number of consecutive searches that did not find the next event in the
+     * current year
+     */
+    private int directSearches;
+
+    /**
+     * Flag used to disable resize while sampling events
+     */
+    private boolean resizeEnabled;
+
+    /**
+     * Create a new empty queue
+     */
+    public CalendarQueue() {
+        this.bucketWidth = CalendarQueue.DEFAULT_BUCKET_WIDTH;
+        this.allocateBuckets(CalendarQueue.MIN_BUCKETS);
+        this.lastTime = 0;
+        this.size = 0;
+        this.directSearches = 0;
+        this.resizeEnabled = true;
+        this.moveTo(0);
+    }
+
+    @Override
+    public void add(Event event) {
+        long time = event.getTimeNanoSeconds();
+        if (time < this.lastTime) {
+            this.moveTo(time);
+        }
+        this.insert(event);
+        this.size++;
+
+        if (this.resizeEnabled && this.size > 2 * this.heads.length) {
+            this.resize(2 * this.heads.length);
+        }
+    }
+
+    @Override
+    public Event poll() {
+        Event event = this.peek();
+        if (event == null) {
+            return null;
+        }
+
+        this.heads[this.currentBucket] = event.next;
+        if (event.next == null) {
+            this.tails[this.currentBucket] = null;
+        }
+        event.next = null;
+        this.size--;
+
+        if (this.resizeEnabled && this.heads.length > CalendarQueue.MIN_BUCKETS
+                && this.size < this.heads.length / 2) {
+            this.resize(this.heads.length / 2);
+        }
+        return event;
+    }
+
+    @Override
+    public Event peek() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        int index = this.currentBucket;
+        long top = this.bucketTop;
+        for (int i = 0; i < this.heads.length; i++) {
+            Event head = this.heads[index];
+            if (head != null && head.getTimeNanoSeconds() < top) {
+                this.currentBucket = index;
+                this.bucketTop = top;
+                this.lastTime = head.getTimeNanoSeconds();
+                this.directSearches = 0;
+                return head;
+            }
+            index = (index + 1) & this.mask;
+            top += this.bucketWidth;
+        }
+
+        // No event in the current year: look for the smallest head
+        Event min = null;
+        for (Event head : this.heads) {
+            if (head != null && (min == null || head.compareTo(min) < 0)) {
+                min = head;
+            }
+        }
+        this.moveTo(min.getTimeNanoSeconds());
+
+        this.directSearches++;
+        if (this.resizeEnabled && this.directSearches > CalendarQueue.MAX_DIRECT_SEARCHES) {
+            this.resize(this.heads.length);
+        }
+        return min;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.heads.length; i++) {
+            Event event = this.heads[i];
+            while (event != null) {
+                Event next = event.next;
+                event.next = null;
+                event = next;
+            }
+        }
+        this.bucketWidth = CalendarQueue.DEFAULT_BUCKET_WIDTH;
+        this.allocateBuckets(CalendarQueue.MIN_BUCKETS);
+        this.size = 0;
+        this.directSearches = 0;
+        this.moveTo(0);
+    }
+
+    @Override
+    public int removeIf(Predicate<Event> filter) {
+        int size = this.size;
+        for (int i = 0; i < this.heads.length; i++) {
+            Event previous = null;
+            Event event = this.heads[i];
+            while (event != null) {
+                Event next = event.next;
+                if (filter.test(event)) {
+                    if (previous == null) {
+                        this.heads[i] = next;
+                    } else {
+                        previous.next = next;
+                    }
+                    event.next = null;
+                    this.size--;
+                } else {
+                    previous = event;
+                }
+                event = next;
+            }
+            this.tails[i] = previous;
+        }
+        return size - this.size;
+    }
+
+    /**
+     * Get the current width of the buckets
+     * 
+     * @return The bucket width in nanoseconds
+     */
+    public long getBucketWidth() {
+        return this.bucketWidth;
+    }
+
+    /**
+     * Get the current number of buckets
+     * 
+     * @return The number of buckets
+     */
+    public int getNumberBuckets() {
+        return this.heads.length;
+    }
+
+    /**
+     * Insert an event in its bucket, keeping the bucket sorted.
+     * As events on same date are mostly added in scheduling order, new events
+     * usually go to the end of the bucket. Events of the same order, such as
+     * the copies of an event discarded by several rollbacks, are kept in
+     * insertion order.
+     * 
+     * @param event The event to insert
+     */
+    private void insert(Event event) {
+        int index = this.getBucket(event.getTimeNanoSeconds());
+        Event tail = this.tails[index];
+
+        if (tail == null) {
+            this.heads[index] = event;
+            this.tails[index] = event;
+            return;
+        }
+        if (tail.compareTo(event) <= 0) {
+            tail.next = event;
+            this.tails[index] = event;
+            return;
+        }
+
+        Event head = this.heads[index];
+        if (event.compareTo(head) < 0) {
+            event.next = head;
+            this.heads[index] = event;
+            return;
+        }
+        Event previous = head;
+        while (previous.next.compareTo(event) < 0) {
+            previous = previous.next;
+        }
+        event.next = previous.next;
+        previous.next = event;
+    }
+
+    /**
+     * Get the bucket where an event must be stored
+     * 
+     * @param time Time of the event in nanoseconds
+     * @return The index of the bucket
+     */
+    private int getBucket(long time) {
+        return (int) ((time / this.bucketWidth) & this.mask);
+    }
+
+    /**
+     * Start the next searches from the bucket containing given time
+     * 
+     * @param time Time to start from, in nanoseconds
+     */
+    private void moveTo(long time) {
+        this.lastTime = time;
+        this.currentBucket = this.getBucket(time);
+        this.bucketTop = (time / this.bucketWidth + 1) * this.bucketWidth;
+    }
+
+    /**
+     * Allocate empty buckets
+     * 
+     * @param numberBuckets Number of buckets. Must be a power of two
+     */
+    private void allocateBuckets(int numberBuckets) {
+        this.heads = new Event[numberBuckets];
+        this.tails = new Event[numberBuckets];
+        this.mask = numberBuckets - 1;
+    }
+
+    /**
+     * Change the number of buckets and compute again their width.
+     * All the events are moved to the new buckets
+     * 
+     * @param numberBuckets New number of buckets. Must be a power of two
+     */
+    private void resize(int numberBuckets) {
+        long width = this.computeBucketWidth();
+        Event[] oldHeads = this.heads;
+
+        this.bucketWidth = width;
+        this.allocateBuckets(numberBuckets);
+        this.moveTo(this.lastTime);
+        this.directSearches = 0;
+
+        for (Event event : oldHeads) {
+            while (event != null) {
+                Event next = event.next;
+                event.next = null;
+                this.insert(event);
+                event = next;
+            }
+        }
+    }
+
+    /**
+     * Estimate the bucket width from the separation between the first events of
+     * the queue. Events at the same time are ignored, so bursts of simultaneous
+     * events do not shrink the buckets.
+     * 
+     * @return The new bucket width in nanoseconds
+     */
+    private long computeBucketWidth() {
+        int sampleSize = Math.min(this.size, CalendarQueue.SAMPLE_SIZE);
+        if (sampleSize < 2) {
+            return this.bucketWidth;
+        }
+
+        this.resizeEnabled = false;
+        Event[] sample = new Event[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = this.poll();
+        }
+        for (int i = 0; i < sampleSize; i++) {
+            this.add(sample[i]);
+        }
+        this.resizeEnabled = true;
+
+        long total = 0;
+        int count = 0;
+        for (int i = 1; i < sampleSize; i++) {
+            long separation = sample[i].getTimeNanoSeconds() - sample[i - 1].getTimeNanoSeconds();
+            if (separation > 0) {
+                total += separation;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return this.bucketWidth;
+        }
+
+        // Ignore the separations that are far above average
+        long average = total / count;
+        total = 0;
+        count = 0;
+        for (int i = 1; i < sampleSize; i++) {
+            long separation = sample[i].getTimeNanoSeconds() - sample[i - 1].getTimeNanoSeconds();
+            if (separation > 0 && separation <= 2 * average) {
+                total += separation;
+                count++;
+            }
+        }
+        if (count > 0) {
+            average = total / count;
+        }
+
+        return Math.max(1, 3 * average);
+    }
+}
@@ -0,0 +1,262 @@
+package model.simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import model.link.Link;
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.node.Interface;
+import model.node.Node;
+
+/**
+ * Checkpoint of the state of a sequential simulation, saved to a binary file
+ * so the simulation can be restored later from that point instead of being run
+ * again from the start.
+ * The file holds the time and the counters of the simulator, the pending
+ * events, the ID counters, the seed, the MAC addresses in use, and for each
+ * node its ARP table, its routing table, its random stream and the state and
+ * queue of its interfaces and links, with their random streams.
+ * 
+ * Functions cannot be saved, so the topology is not saved either: before a
+ * restore, the same topology is built again, its nodes added in the same
+ * order, and the actions of the pending events registered with the same
+ * names. The actions of the links are registered by the checkpoint. Events
+ * must be scheduled with the registered instance of an action, as a method
+ * reference gives a new instance each time it is evaluated.
+ * 
+ * Timers of the timing wheel other than the progress bar, and lazily
+ * scheduled events, cannot be saved.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see CheckpointWriter
+ * @see CheckpointReader
+ */
+public class Checkpoint {
+
+    /**
+     * First bytes of a checkpoint file
+     */
+    private static final int MAGIC = 0x4e534350;
+
+    /**
+     * Version of the format of the file
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * Simulator saved or restored
+     */
+    private final Simulator simulator;
+
+    /**
+     * Nodes of the topology
+     */
+    private final ArrayList<Node> nodes;
+
+    /**
+     * Actions registered by the user, by name
+     */
+    private final HashMap<String, Object> actions;
+
+    /**
+     * Create a new checkpoint of the simulator of the current context
+     */
+    public Checkpoint() {
+        this.simulator = Simulator.getInstance();
+        this.nodes = new ArrayList<Node>();
+        this.actions = new HashMap<String, Object>();
+    }
+
+    /**
+     * Add a node of the topology. Nodes must be added in the same order for
+     * the save and the restore
+     * 
+     * @param node The node
+     */
+    public void addNode(Node node) {
+        if (this.nodes.contains(node)) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Node " + node.getName() + " already in checkpoint");
+        }
+        this.nodes.add(node);
+    }
+
+    /**
+     * Register an action of events, so they can be saved and restored. Names
+     * must be the same for the save and the restore
+     * 
+     * @param name   Name of the action
+     * @param action The action, as given to the simulator
+     */
+    public void registerAction(String name, Object action) {
+        if (action == null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot register a null action in checkpoint");
+        }
+        if (this.actions.containsKey(name)) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Action " + name + " already registered in checkpoint");
+        }
+        this.actions.put(name, action);
+    }
+
+    /**
+     * Save the state of the simulation. The simulation must not be running,
+     * but may have been paused or run by chunks
+     * 
+     * @param path Path of the file to write
+     */
+    public void save(String path) {
+        this.simulator.checkCheckpoint();
+        ArrayList<Interface> interfaces = this.getInterfaces();
+        ArrayList<Link> links = this.getLinks(interfaces);
+        CheckpointWriter writer = new CheckpointWriter(path, this.nodes, interfaces, this.getActions(links));
+        writer.putInt(Checkpoint.MAGIC);
+        writer.putInt(Checkpoint.VERSION);
+
+        this.simulator.getContext().getIdGenerator().saveState(writer);
+        this.simulator.getContext().getRandomGenerator().saveState(writer);
+        this.simulator.getContext().getMacAddressContainer().saveState(writer);
+        writer.putInt(this.nodes.size());
+        for (Node node : this.nodes) {
+            writer.putInt(node.getNodeId());
+            writer.putString(node.getName());
+            writer.putInt(node.getNumberInterfaces());
+        }
+        for (Node node : this.nodes) {
+            node.getArpTable().saveState(writer);
+            node.getRoutingTable().saveState(writer);
+            node.getRandom().saveState(writer);
+        }
+        for (Interface interf : interfaces) {
+            interf.saveState(writer);
+        }
+        writer.putInt(links.size());
+        for (Link link : links) {
+            link.saveState(writer);
+            link.getRandom().saveState(writer);
+        }
+        this.simulator.saveState(writer);
+        writer.close();
+        Logger.getInstance().log(LogSeverity.INFO, "Checkpoint saved to " + path);
+    }
+
+    /**
+     * Run the simulation until given time, then save its state, see
+     * {@link Simulator#runUntil(Time)}
+     * 
+     * @param time Time of the checkpoint
+     * @param path Path of the file to write
+     */
+    public void saveAt(Time time, String path) {
+        this.simulator.runUntil(time);
+        this.save(path);
+    }
+
+    /**
+     * Restore the state of the simulation. The topology must have been built
+     * again, and the simulation not started yet. The pending events and the
+     * timers are replaced by the ones of the checkpoint, the stop time is kept
+     * 
+     * @param path Path of the file to read
+     */
+    public void restore(String path) {
+        this.simulator.checkCheckpoint();
+        if (this.simulator.isStarted()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Cannot restore a checkpoint once the simulation is started");
+        }
+        ArrayList<Interface> interfaces = this.getInterfaces();
+        ArrayList<Link> links = this.getLinks(interfaces);
+        CheckpointReader reader = new CheckpointReader(path, this.nodes, interfaces, this.getActions(links));
+        if (reader.getInt() != Checkpoint.MAGIC) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, path + " is not a checkpoint");
+        }
+        int version = reader.getInt();
+        if (version != Checkpoint.VERSION) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Unsupported checkpoint version: " + version);
+        }
+
+        this.simulator.getContext().getIdGenerator().restoreState(reader);
+        this.simulator.getContext().getRandomGenerator().restoreState(reader);
+        this.simulator.getContext().getMacAddressContainer().restoreState(reader);
+        if (reader.getInt() != this.nodes.size()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Number of nodes does not match checkpoint");
+        }
+        for (Node node : this.nodes) {
+            int nodeId = reader.getInt();
+            String name = reader.getString();
+            int numberInterfaces = reader.getInt();
+            if (nodeId != node.getNodeId() || !name.equals(node.getName())
+                    || numberInterfaces != node.getNumberInterfaces()) {
+                Logger.getInstance().log(LogSeverity.CRITICAL,
+                        "Node " + node.getName() + " does not match node " + name + " of checkpoint");
+            }
+        }
+        for (Node node : this.nodes) {
+            node.getArpTable().restoreState(reader);
+            node.getRoutingTable().restoreState(reader);
+            node.getRandom().restoreState(reader);
+        }
+        for (Interface interf : interfaces) {
+            interf.restoreState(reader);
+        }
+        if (reader.getInt() != links.size()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Number of links does not match checkpoint");
+        }
+        for (Link link : links) {
+            link.restoreState(reader);
+            link.getRandom().restoreState(reader);
+        }
+        this.simulator.restoreState(reader);
+        reader.close();
+        Logger.getInstance().log(LogSeverity.INFO, "Checkpoint restored from " + path);
+    }
+
+    /**
+     * Get the interfaces of the nodes, in order
+     * 
+     * @return The interfaces
+     */
+    private ArrayList<Interface> getInterfaces() {
+        ArrayList<Interface> interfaces = new ArrayList<Interface>();
+        for (Node node : this.nodes) {
+            interfaces.addAll(node.getInterfaces());
+        }
+        return interfaces;
+    }
+
+    /**
+     * Get the links of the interfaces, in the order they are first found
+     * 
+     * @param interfaces The interfaces
+     * @return The links
+     */
+    private ArrayList<Link> getLinks(ArrayList<Interface> interfaces) {
+        IdentityHashMap<Link, Boolean> found = new IdentityHashMap<Link, Boolean>();
+        ArrayList<Link> links = new ArrayList<Link>();
+        for (Interface interf : interfaces) {
+            if (found.put(interf.getLink(), true) == null) {
+                links.add(interf.getLink());
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Get the actions registered and the actions of the links, by name
+     * 
+     * @param links The links
+     * @return The actions
+     */
+    private Map<String, Object> getActions(ArrayList<Link> links) {
+        HashMap<String, Object> actions = new HashMap<String, Object>(this.actions);
+        for (int i = 0; i < links.size(); i++) {
+            for (Map.Entry<String, Object> action : links.get(i).getActions().entrySet()) {
+                actions.put("link" + i + "." + action.getKey(), action.getValue());
+            }
+        }
+        return actions;
+    }
+}
@@ -0,0 +1,272 @@
+package model.simulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.network.IpAddress;
+import model.network.MacAddress;
+import model.network.Packet;
+import model.node.Interface;
+import model.node.Node;
+
+/**
+ * Reader of a checkpoint file written by {@link CheckpointWriter}. The file is
+ * mapped in memory, so it is read without copy.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Checkpoint
+ * @see CheckpointWriter
+ */
+public class CheckpointReader {
+
+    /**
+     * Path of the file read
+     */
+    private final String path;
+
+    /**
+     * Content of the file
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Nodes of the topology, by index
+     */
+    private final ArrayList<Node> nodes;
+
+    /**
+     * Interfaces of the topology, by index
+     */
+    private final ArrayList<Interface> interfaces;
+
+    /**
+     * Actions which can be read, by name
+     */
+    private final Map<String, Object> actionsByName;
+
+    /**
+     * Actions already read, by index
+     */
+    private final ArrayList<Object> actions;
+
+    /**
+     * Packets already read, by index
+     */
+    private final ArrayList<Packet> packets;
+
+    /**
+     * Create a new reader, mapping the file
+     * 
+     * @param path       Path of the file to read
+     * @param nodes      Nodes of the topology
+     * @param interfaces Interfaces of the topology
+     * @param actions    Actions which can be read, by name
+     */
+    CheckpointReader(String path, ArrayList<Node> nodes, ArrayList<Interface> interfaces,
+            Map<String, Object> actions) {
+        this.path = path;
+        this.nodes = nodes;
+        this.interfaces = interfaces;
+        this.actionsByName = actions;
+        this.actions = new ArrayList<Object>();
+        this.packets = new ArrayList<Packet>();
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot open checkpoint " + path);
+        }
+    }
+
+    /**
+     * Read a byte
+     * 
+     * @return The value
+     */
+    public byte getByte() {
+        this.ensure(Byte.BYTES);
+        return this.buffer.get();
+    }
+
+    /**
+     * Read a boolean
+     * 
+     * @return The value
+     */
+    public boolean getBoolean() {
+        return this.getByte() != 0;
+    }
+
+    /**
+     * Read an integer
+     * 
+     * @return The value
+     */
+    public int getInt() {
+        this.ensure(Integer.BYTES);
+        return this.buffer.getInt();
+    }
+
+    /**
+     * Read a long
+     * 
+     * @return The value
+     */
+    public long getLong() {
+        this.ensure(Long.BYTES);
+        return this.buffer.getLong();
+    }
+
+    /**
+     * Read a string
+     * 
+     * @return The value
+     */
+    public String getString() {
+        int length = this.getInt();
+        this.ensure(length);
+        byte[] bytes = new byte[length];
+        this.buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a node
+     * 
+     * @return The node
+     */
+    public Node getNode() {
+        int index = this.getInt();
+        if (index < 0 || index >= this.nodes.size()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Invalid node index in checkpoint: " + index);
+        }
+        return this.nodes.get(index);
+    }
+
+    /**
+     * Read an interface
+     * 
+     * @return The interface
+     */
+    public Interface getInterface() {
+        int index = this.getInt();
+        if (index < 0 || index >= this.interfaces.size()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Invalid interface index in checkpoint: " + index);
+        }
+        return this.interfaces.get(index);
+    }
+
+    /**
+     * Read a packet, creating it the first time it is read
+     * 
+     * @return The packet
+     */
+    public Packet getPacket() {
+        int index = this.getInt();
+        if (index == this.packets.size()) {
+            this.packets.add(Packet.restoreState(this));
+        } else if (index < 0 || index > this.packets.size()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Invalid packet index in checkpoint: " + index);
+        }
+        return this.packets.get(index);
+    }
+
+    /**
+     * Read an action, looking it up by name the first time it is read
+     * 
+     * @return The action
+     */
+    Object getAction() {
+        int index = this.getInt();
+        if (index == this.actions.size()) {
+            String name = this.getString();
+            Object action = this.actionsByName.get(name);
+            if (action == null) {
+                Logger.getInstance().log(LogSeverity.CRITICAL, "Action " + name + " is not registered in checkpoint");
+            }
+            this.actions.add(action);
+        } else if (index < 0 || index > this.actions.size()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Invalid action index in checkpoint: " + index);
+        }
+        return this.actions.get(index);
+    }
+
+    /**
+     * Read an argument of an event
+     * 
+     * @return The value
+     */
+    Object getObject() {
+        byte tag = this.getByte();
+        switch (tag) {
+            case CheckpointWriter.NULL: {
+                return null;
+            }
+            case CheckpointWriter.INTEGER: {
+                return this.getInt();
+            }
+            case CheckpointWriter.LONG: {
+                return this.getLong();
+            }
+            case CheckpointWriter.DOUBLE: {
+                return Double.longBitsToDouble(this.getLong());
+            }
+            case CheckpointWriter.BOOLEAN: {
+                return this.getBoolean();
+            }
+            case CheckpointWriter.STRING: {
+                return this.getString();
+            }
+            case CheckpointWriter.TIME: {
+                return Time.nanoSeconds(this.getLong());
+            }
+            case CheckpointWriter.IP_ADDRESS: {
+                return IpAddress.restoreState(this);
+            }
+            case CheckpointWriter.MAC_ADDRESS: {
+                return MacAddress.restoreState(this);
+            }
+            case CheckpointWriter.PACKET: {
+                return this.getPacket();
+            }
+            case CheckpointWriter.NODE: {
+                return this.getNode();
+            }
+            case CheckpointWriter.INTERFACE: {
+                return this.getInterface();
+            }
+            default: {
+                Logger.getInstance().log(LogSeverity.CRITICAL, "Invalid value tag in checkpoint: " + tag);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Check that the file is fully read
+     */
+    void close() {
+        if (this.buffer.hasRemaining()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Unexpected data at end of checkpoint " + this.path);
+        }
+    }
+
+    /**
+     * Check that given number of bytes remain in the file
+     * 
+     * @param size The number of bytes
+     */
+    private void ensure(int size) {
+        if (this.buffer.remaining() < size) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Checkpoint " + this.path + " is truncated");
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package model.simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.network.IpAddress;
+import model.network.MacAddress;
+import model.network.Packet;
+import model.node.Interface;
+import model.node.Node;
+
+/**
+ * Writer of a checkpoint file. Values are written in binary, big endian, in
+ * a buffer flushed to a file channel when full.
+ * Nodes and interfaces are written as their index in the topology. Packets and
+ * actions are written with an index too, followed by their content the first
+ * time they are written, so a packet referenced by several events or queues
+ * is restored as a single object.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Checkpoint
+ * @see CheckpointReader
+ */
+public class CheckpointWriter {
+
+    /**
+     * Tag of a null value
+     */
+    static final byte NULL = 0;
+
+    /**
+     * Tag of an integer value
+     */
+    static final byte INTEGER = 1;
+
+    /**
+     * Tag of a long value
+     */
+    static final byte LONG = 2;
+
+    /**
+     * Tag of a double value
+     */
+    static final byte DOUBLE = 3;
+
+    /**
+     * Tag of a boolean value
+     */
+    static final byte BOOLEAN = 4;
+
+    /**
+     * Tag of a string value
+     */
+    static final byte STRING = 5;
+
+    /**
+     * Tag of a time value
+     */
+    static final byte TIME = 6;
+
+    /**
+     * Tag of an IP address value
+     */
+    static final byte IP_ADDRESS = 7;
+
+    /**
+     * Tag of a MAC address value
+     */
+    static final byte MAC_ADDRESS = 8;
+
+    /**
+     * Tag of a packet value
+     */
+    static final byte PACKET = 9;
+
+    /**
+     * Tag of a node value
+     */
+    static final byte NODE = 10;
+
+    /**
+     * Tag of an interface value
+     */
+    static final byte INTERFACE = 11;
+
+    /**
+     * Size of the buffer, in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Path of the file written
+     */
+    private final String path;
+
+    /**
+     * Channel writing to the file
+     */
+    private FileChannel channel;
+
+    /**
+     * Buffer of the values not written to the file yet
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Index of each node of the topology
+     */
+    private final IdentityHashMap<Node, Integer> nodes;
+
+    /**
+     * Index of each interface of the topology
+     */
+    private final IdentityHashMap<Interface, Integer> interfaces;
+
+    /**
+     * Name of each action which can be written
+     */
+    private final IdentityHashMap<Object, String> actionNames;
+
+    /**
+     * Index of each action already written
+     */
+    private final IdentityHashMap<Object, Integer> actions;
+
+    /**
+     * Index of each packet already written
+     */
+    private final IdentityHashMap<Packet, Integer> packets;
+
+    /**
+     * Create a new writer, opening the file
+     * 
+     * @param path       Path of the file to write
+     * @param nodes      Nodes of the topology
+     * @param interfaces Interfaces of the topology
+     * @param actions    Actions which can be written, by name
+     */
+    CheckpointWriter(String path, ArrayList<Node> nodes, ArrayList<Interface> interfaces,
+            Map<String, Object> actions) {
+        this.path = path;
+        this.buffer = ByteBuffer.allocateDirect(CheckpointWriter.BUFFER_SIZE);
+        this.nodes = new IdentityHashMap<Node, Integer>();
+        for (int i = 0; i < nodes.size(); i++) {
+            this.nodes.put(nodes.get(i), i);
+        }
+        this.interfaces = new IdentityHashMap<Interface, Integer>();
+        for (int i = 0; i < interfaces.size(); i++) {
+            this.interfaces.put(interfaces.get(i), i);
+        }
+        this.actionNames = new IdentityHashMap<Object, String>();
+        for (Map.Entry<String, Object> action : actions.entrySet()) {
+            this.actionNames.put(action.getValue(), action.getKey());
+        }
+        this.actions = new IdentityHashMap<Object, Integer>();
+        this.packets = new IdentityHashMap<Packet, Integer>();
+        try {
+            File file = new File(path);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot open " + path + " for checkpoint");
+        }
+    }
+
+    /**
+     * Write a byte
+     * 
+     * @param value The value
+     */
+    public void putByte(byte value) {
+        this.ensure(Byte.BYTES);
+        this.buffer.put(value);
+    }
+
+    /**
+     * Write a boolean
+     * 
+     * @param value The value
+     */
+    public void putBoolean(boolean value) {
+        this.putByte(value ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * Write an integer
+     * 
+     * @param value The value
+     */
+    public void putInt(int value) {
+        this.ensure(Integer.BYTES);
+        this.buffer.putInt(value);
+    }
+
+    /**
+     * Write a long
+     * 
+     * @param value The value
+     */
+    public void putLong(long value) {
+        this.ensure(Long.BYTES);
+        this.buffer.putLong(value);
+    }
+
+    /**
+     * Write a string, as its length followed by its bytes in UTF-8
+     * 
+     * @param value The value
+     */
+    public void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.putInt(bytes.length);
+        if (bytes.length > CheckpointWriter.BUFFER_SIZE) {
+            this.flush();
+            this.write(ByteBuffer.wrap(bytes));
+        } else {
+            this.ensure(bytes.length);
+            this.buffer.put(bytes);
+        }
+    }
+
+    /**
+     * Write a node, as its index in the topology
+     * 
+     * @param node The node
+     */
+    public void putNode(Node node) {
+        Integer index = this.nodes.get(node);
+        if (index == null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Node " + node.getName() + " is not in checkpoint");
+        }
+        this.putInt(index);
+    }
+
+    /**
+     * Write an interface, as its index in the topology
+     * 
+     * @param interf The interface
+     */
+    public void putInterface(Interface interf) {
+        Integer index = this.interfaces.get(interf);
+        if (index == null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Interface " + interf + " is not in checkpoint");
+        }
+        this.putInt(index);
+    }
+
+    /**
+     * Write a packet, as its index among the packets written, followed by its
+     * content if it was not written yet
+     * 
+     * @param packet The packet
+     */
+    public void putPacket(Packet packet) {
+        Integer index = this.packets.get(packet);
+        if (index != null) {
+            this.putInt(index);
+            return;
+        }
+        this.putInt(this.packets.size());
+        this.packets.put(packet, this.packets.size());
+        packet.saveState(this);
+    }
+
+    /**
+     * Write an action, as its index among the actions written, followed by its
+     * name if it was not written yet
+     * 
+     * @param action The action
+     */
+    void putAction(Object action) {
+        Integer index = this.actions.get(action);
+        if (index != null) {
+            this.putInt(index);
+            return;
+        }
+        String name = this.actionNames.get(action);
+        if (name == null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Action " + action + " is not registered in checkpoint");
+        }
+        this.putInt(this.actions.size());
+        this.actions.put(action, this.actions.size());
+        this.putString(name);
+    }
+
+    /**
+     * Write an argument of an event, as a tag giving its type followed by its
+     * value
+     * 
+     * @param value The value
+     */
+    void putObject(Object value) {
+        if (value == null) {
+            this.putByte(CheckpointWriter.NULL);
+        } else if (value instanceof Integer) {
+            this.putByte(CheckpointWriter.INTEGER);
+            this.putInt((Integer) value);
+        } else if (value instanceof Long) {
+            this.putByte(CheckpointWriter.LONG);
+            this.putLong((Long) value);
+        } else if (value instanceof Double) {
+            this.putByte(CheckpointWriter.DOUBLE);
+            this.putLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Boolean) {
+            this.putByte(CheckpointWriter.BOOLEAN);
+            this.putBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            this.putByte(CheckpointWriter.STRING);
+            this.putString((String) value);
+        } else if (value instanceof Time) {
+            this.putByte(CheckpointWriter.TIME);
+            this.putLong(((Time) value).toNanoSeconds());
+        } else if (value instanceof IpAddress) {
+            this.putByte(CheckpointWriter.IP_ADDRESS);
+            ((IpAddress) value).saveState(this);
+        } else if (value instanceof MacAddress) {
+            this.putByte(CheckpointWriter.MAC_ADDRESS);
+            ((MacAddress) value).saveState(this);
+        } else if (value instanceof Packet) {
+            this.putByte(CheckpointWriter.PACKET);
+            this.putPacket((Packet) value);
+        } else if (value instanceof Node) {
+            this.putByte(CheckpointWriter.NODE);
+            this.putNode((Node) value);
+        } else if (value instanceof Interface) {
+            this.putByte(CheckpointWriter.INTERFACE);
+            this.putInterface((Interface) value);
+        } else {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Cannot save event argument of type " + value.getClass().getName() + " in checkpoint");
+        }
+    }
+
+    /**
+     * Write the buffer to the file and close it
+     */
+    void close() {
+        this.flush();
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.ERROR, "Cannot close checkpoint " + this.path);
+        }
+    }
+
+    /**
+     * Make room in the buffer for given number of bytes
+     * 
+     * @param size The number of bytes
+     */
+    private void ensure(int size) {
+        if (this.buffer.remaining() < size) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Write the content of the buffer to the file
+     */
+    private void flush() {
+        this.buffer.flip();
+        this.write(this.buffer);
+        this.buffer.clear();
+    }
+
+    /**
+     * Write all the content of a buffer to the file
+     * 
+     * @param source The buffer to write
+     */
+    private void write(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                this.channel.write(source);
+            }
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write checkpoint " + this.path);
+        }
+    }
+}
@@ -1,34 +1,86 @@
 package model.simulator;
 
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
 /**
  * Class representing a event.
- * This is a method of chosen instance to launch at desired date.
+ * This is an action to launch at desired date, with up to two arguments.
+ * The action is stored with its exact functional type, so arguments are
+ * neither boxed in an array nor checked at runtime.
  * 
  * @author Bastien Tauran
  * @version 1.0
- * @see Schedulable
- * @see SchedulableMethod
+ * @see Simulator
  */
-public class Event implements Comparable<Event> {
+public class Event implements Comparable<Event>, EventHandle {
+
+    /**
+     * Kind of action taking no argument
+     */
+    static final byte RUNNABLE = 0;
+
+    /**
+     * Kind of action taking one argument
+     */
+    static final byte CONSUMER = 1;
+
+    /**
+     * Kind of action taking two arguments
+     */
+    static final byte BI_CONSUMER = 2;
+
+    /**
+     * Kind of action taking one argument and one integer
+     */
+    static final byte OBJ_INT_CONSUMER = 3;
+
+    /**
+     * Kind of action taking one integer
+     */
+    static final byte INT_CONSUMER = 4;
+
+    /**
+     * Kind of an event released to the pool of the simulator
+     */
+    static final byte RELEASED = 5;
+
+    /**
+     * State of an event waiting in the queue
+     */
+    static final byte PENDING = 0;
+
+    /**
+     * State of a cancelled event still in the queue
+     */
+    static final byte CANCELLED = 1;
+
     /**
-     * Time to schedule the event
+     * State of an event already run
      */
-    private Time time;
+    static final byte EXPIRED = 2;
 
     /**
-     * The instance to launch
+     * State of an event removed by the simulator during an optimistic
+     * simulation, because the event which scheduled it was rolled back. It can
+     * never run again
      */
-    private Schedulable instance;
+    static final byte DISCARDED = 3;
 
     /**
-     * The method of instance to launch
+     * Rank of an event not committed yet
      */
-    private SchedulableMethod method;
+    static final long NO_RANK = Long.MIN_VALUE;
 
     /**
-     * The arguments of the method
+     * Time to schedule the event, in nanoseconds
      */
-    private Object[] arguments;
+    private long time;
 
     /**
      * ID of the event
@@ -36,50 +88,459 @@ public class Event implements Comparable<Event> {
     private long id;
 
     /**
-     * Create a new event
+     * Rank in execution order of the event that scheduled this one, or -1 if
+     * scheduled before the simulation starts
+     */
+    private long parentRank;
+
+    /**
+     * Position of this event among the events scheduled by the same parent
+     */
+    private long sequence;
+
+    /**
+     * Event that scheduled this one during an optimistic simulation, until this
+     * event is committed. Null otherwise, the rank of the parent being known
+     */
+    private Event parent;
+
+    /**
+     * Rank in execution order of this event, known once it is committed by an
+     * optimistic simulation
+     */
+    private long rank;
+
+    /**
+     * Kind of the action, giving its functional type
+     */
+    private byte kind;
+
+    /**
+     * The action to launch
+     */
+    private Object action;
+
+    /**
+     * First argument of the action
+     */
+    private Object first;
+
+    /**
+     * Second argument of the action
+     */
+    private Object second;
+
+    /**
+     * Integer argument of the action
+     */
+    private int value;
+
+    /**
+     * State of the event
+     */
+    private byte state;
+
+    /**
+     * The simulator containing this event
+     */
+    private Simulator simulator;
+
+    /**
+     * Number of times this event has been released to the pool, so handles
+     * detect that it was recycled
+     */
+    private int generation;
+
+    /**
+     * Next event in the same bucket or list of siblings, used by event queues
+     * chaining events
+     */
+    Event next;
+
+    /**
+     * First child of this event, used by event queues organized as trees of
+     * events
+     */
+    Event child;
+
+    /**
+     * Create a new event launching an action without argument
+     * 
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param action The action to launch
+     * @param id     Id of this event. Used to differenciate two events on same
+     *               date
+     */
+    public Event(long time, Runnable action, long id) {
+        this.set(null, time, id, Event.RUNNABLE, action, null, null, 0);
+        this.setOrder(-1, id);
+    }
+
+    /**
+     * Create an empty event, to be filled by the simulator
+     */
+    Event() {
+    }
+
+    /**
+     * Release this event. It cannot be run anymore until it is set again.
+     * References are cleared so packets are not kept alive by the pool
+     */
+    void release() {
+        this.generation++;
+        this.kind = Event.RELEASED;
+        this.action = null;
+        this.first = null;
+        this.second = null;
+        this.simulator = null;
+        this.parent = null;
+    }
+
+    /**
+     * Indicates if this event has been released
+     * 
+     * @return True if the event is released
+     */
+    boolean isReleased() {
+        return this.kind == Event.RELEASED;
+    }
+
+    /**
+     * Get the number of times this event has been released to the pool
+     * 
+     * @return The generation of the event
+     */
+    int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Set all the fields of this event. The event becomes pending
      * 
-     * @param time      Time to schedule the event
-     * @param instance  The instance to launch
-     * @param method    The method of instance to launch
-     * @param arguments The arguments of the method
-     * @param id        Id of this event. Used to differenciate two events on same
-     *                  date
+     * @param simulator The simulator containing this event
+     * @param time      Time to schedule the event, in nanoseconds
+     * @param id        Id of this event
+     * @param kind      Kind of the action
+     * @param action    The action to launch
+     * @param first     First argument of the action
+     * @param second    Second argument of the action
+     * @param value     Integer argument of the action
      */
-    public Event(Time time, Schedulable instance, SchedulableMethod method, Object[] arguments, long id) {
+    void set(Simulator simulator, long time, long id, byte kind, Object action, Object first, Object second,
+            int value) {
+        this.simulator = simulator;
         this.time = time;
-        this.instance = instance;
-        this.method = method;
-        this.arguments = arguments;
         this.id = id;
+        this.kind = kind;
+        this.action = action;
+        this.first = first;
+        this.second = second;
+        this.value = value;
+        this.state = Event.PENDING;
+        this.parent = null;
+        this.rank = Event.NO_RANK;
+    }
+
+    /**
+     * Set the position of this event among the events on the same date.
+     * Ordering events by parent rank then sequence gives the order in which
+     * they were scheduled, and does not depend on a global counter, so
+     * partitions of a parallel simulation agree on it
+     * 
+     * @param parentRank Rank in execution order of the event that scheduled
+     *                   this one, or -1 if scheduled before the simulation
+     * @param sequence   Position among the events scheduled by the same parent
+     */
+    void setOrder(long parentRank, long sequence) {
+        this.parentRank = parentRank;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Set the event that scheduled this one during an optimistic simulation.
+     * Its rank replaces the parent rank once it is committed
+     * 
+     * @param parent The event being run when this one was scheduled
+     */
+    void setParent(Event parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Get the rank in execution order of the event that scheduled this one
+     * 
+     * @return The rank of the parent, or NO_RANK if the parent is not committed
+     *         yet
+     */
+    long getParentRank() {
+        if (this.parent == null) {
+            return this.parentRank;
+        }
+        return this.parent.rank;
+    }
+
+    /**
+     * Give its final rank to an event run by an optimistic simulation. Its parent
+     * must already be committed, so it is not referenced anymore
+     * 
+     * @param rank The rank in execution order
+     */
+    void commit(long rank) {
+        this.parentRank = this.getParentRank();
+        this.parent = null;
+        this.rank = rank;
     }
 
     /**
-     * Get time of event
+     * Get the kind of the action
      * 
-     * @return Time of event
+     * @return The kind
      */
+    byte getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Get the first argument of the action
+     * 
+     * @return The first argument
+     */
+    Object getFirst() {
+        return this.first;
+    }
+
+    /**
+     * Get the second argument of the action
+     * 
+     * @return The second argument
+     */
+    Object getSecond() {
+        return this.second;
+    }
+
+    /**
+     * Get the integer argument of the action
+     * 
+     * @return The integer argument
+     */
+    int getValue() {
+        return this.value;
+    }
+
+    /**
+     * Get the position of this event among the events scheduled by the same
+     * parent
+     * 
+     * @return The sequence number
+     */
+    long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Indicates if this event has been cancelled
+     * 
+     * @return True if the event is cancelled
+     */
+    boolean isCancelled() {
+        return this.state == Event.CANCELLED || this.state == Event.DISCARDED;
+    }
+
+    /**
+     * Indicates if this event has been discarded by the simulator
+     * 
+     * @return True if the event is discarded
+     */
+    boolean isDiscarded() {
+        return this.state == Event.DISCARDED;
+    }
+
+    /**
+     * Indicates if this event has been run
+     * 
+     * @return True if the event is expired
+     */
+    boolean isExpired() {
+        return this.state == Event.EXPIRED;
+    }
+
+    /**
+     * Mark this event as run, so it cannot be cancelled anymore
+     */
+    void expire() {
+        this.state = Event.EXPIRED;
+    }
+
+    /**
+     * Discard this event, so it never runs
+     */
+    void discard() {
+        this.state = Event.DISCARDED;
+    }
+
+    /**
+     * Make this event pending again if it was run, as its run is rolled back
+     */
+    void restore() {
+        if (this.state == Event.EXPIRED) {
+            this.state = Event.PENDING;
+        }
+    }
+
+    /**
+     * Make this event pending again if it was cancelled, as the event which
+     * cancelled it is rolled back
+     */
+    void uncancel() {
+        if (this.state == Event.CANCELLED) {
+            this.state = Event.PENDING;
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        this.checkNotReleased();
+        if (this.state != Event.PENDING) {
+            return false;
+        }
+        this.state = Event.CANCELLED;
+        if (this.simulator != null) {
+            this.simulator.onEventCancelled(this);
+        }
+        return true;
+    }
+
+    @Override
+    public EventHandle reschedule(Time time) {
+        this.checkNotReleased();
+        // The cancellation may release this event to the pool. Events created
+        // by the user belong to the simulator of the current context
+        Simulator simulator = this.simulator != null ? this.simulator : Simulator.getInstance();
+        byte kind = this.kind;
+        Object action = this.action;
+        Object first = this.first;
+        Object second = this.second;
+        this.cancel();
+        return simulator.handle(simulator.insert(time.toNanoSeconds(), kind, action, first, second, this.value));
+    }
+
+    @Override
+    public boolean isPending() {
+        this.checkNotReleased();
+        return this.state == Event.PENDING;
+    }
+
+    /**
+     * Raise a critical error if this event has been released, meaning the handle
+     * is used after the event was recycled
+     */
+    private void checkNotReleased() {
+        if (this.kind == Event.RELEASED) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Event handle " + this.id + " used after release");
+        }
+    }
+
+    @Override
     public Time getTime() {
+        return Time.nanoSeconds(this.time);
+    }
+
+    /**
+     * Get time of event in nanoseconds
+     * 
+     * @return Time of event in nanoseconds
+     */
+    public long getTimeNanoSeconds() {
         return this.time;
     }
 
+    /**
+     * Get ID of event
+     * 
+     * @return ID of event
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Get the action launched by this event
+     * 
+     * @return The action
+     */
+    public Object getAction() {
+        return this.action;
+    }
+
     /**
      * Run this event
      */
+    @SuppressWarnings("unchecked")
     public void runEvent() {
-        this.instance.run(this.method, this.arguments);
+        switch (this.kind) {
+            case Event.RUNNABLE: {
+                ((Runnable) this.action).run();
+                break;
+            }
+            case Event.CONSUMER: {
+                ((Consumer<Object>) this.action).accept(this.first);
+                break;
+            }
+            case Event.BI_CONSUMER: {
+                ((BiConsumer<Object, Object>) this.action).accept(this.first, this.second);
+                break;
+            }
+            case Event.OBJ_INT_CONSUMER: {
+                ((ObjIntConsumer<Object>) this.action).accept(this.first, this.value);
+                break;
+            }
+            case Event.INT_CONSUMER: {
+                ((IntConsumer) this.action).accept(this.value);
+                break;
+            }
+            default: {
+                Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot run event " + this.id + " after its release");
+            }
+        }
     }
 
     @Override
     public int compareTo(Event other) {
-        if (this.time.equals(other.time)) {
-            if (this.id > other.id) {
-                return 1;
-            } else if (this.id < other.id) {
-                return -1;
-            } else {
-                return 0;
+        if (this.time != other.time) {
+            return Long.compare(this.time, other.time);
+        }
+        if (this.parent != other.parent) {
+            // During an optimistic simulation, a parent not committed yet is
+            // always after the committed ones, as it is after the GVT
+            long parentRank = this.getParentRank();
+            long otherParentRank = other.getParentRank();
+            if (parentRank == Event.NO_RANK || otherParentRank == Event.NO_RANK) {
+                if (otherParentRank != Event.NO_RANK) {
+                    return 1;
+                }
+                if (parentRank != Event.NO_RANK) {
+                    return -1;
+                }
+                int order = this.parent.compareTo(other.parent);
+                if (order != 0) {
+                    return order;
+                }
+            } else if (parentRank != otherParentRank) {
+                return Long.compare(parentRank, otherParentRank);
             }
+        } else if (this.parentRank != other.parentRank) {
+            return Long.compare(this.parentRank, other.parentRank);
+        }
+        if (this.sequence != other.sequence) {
+            return Long.compare(this.sequence, other.sequence);
+        }
+        // A copy of an event discarded by a rollback has the same order and ID
+        // as the event scheduled again, and comes first. Copies discarded by
+        // several rollbacks have the same order
+        if (this.isDiscarded() != other.isDiscarded()) {
+            return this.isDiscarded() ? -1 : 1;
         }
-        return this.time.compareTo(other.time);
+        // Only events of the same lazy source have the same order
+        return Long.compare(this.id, other.id);
     }
 }
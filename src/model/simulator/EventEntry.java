@@ -0,0 +1,217 @@
+package model.simulator;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Description of an event to schedule in bulk: its time and its action with
+ * the arguments of the action. Entries are given to
+ * {@link Simulator#scheduleAll(Iterable)} or
+ * {@link Simulator#scheduleLazily(java.util.Iterator)}, which create the
+ * events.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator
+ */
+public class EventEntry {
+
+    /**
+     * Time to schedule the event, in nanoseconds
+     */
+    final long time;
+
+    /**
+     * Kind of the action
+     */
+    final byte kind;
+
+    /**
+     * The action to launch
+     */
+    final Object action;
+
+    /**
+     * First argument of the action
+     */
+    final Object first;
+
+    /**
+     * Second argument of the action
+     */
+    final Object second;
+
+    /**
+     * Integer argument of the action
+     */
+    final int value;
+
+    /**
+     * Create a new entry
+     * 
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param kind   Kind of the action
+     * @param action The action to launch
+     * @param first  First argument of the action
+     * @param second Second argument of the action
+     * @param value  Integer argument of the action
+     */
+    private EventEntry(long time, byte kind, Object action, Object first, Object second, int value) {
+        if (time < 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule at a negative time");
+        }
+        if (action == null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule a null action");
+        }
+        this.time = time;
+        this.kind = kind;
+        this.action = action;
+        this.first = first;
+        this.second = second;
+        this.value = value;
+    }
+
+    /**
+     * Create an entry launching an action without argument
+     * 
+     * @param time   Time to schedule the event
+     * @param action The action to launch
+     * @return The entry
+     */
+    public static EventEntry of(Time time, Runnable action) {
+        return new EventEntry(time.toNanoSeconds(), Event.RUNNABLE, action, null, null, 0);
+    }
+
+    /**
+     * Create an entry launching an action without argument
+     * 
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param action The action to launch
+     * @return The entry
+     */
+    public static EventEntry of(long time, Runnable action) {
+        return new EventEntry(time, Event.RUNNABLE, action, null, null, 0);
+    }
+
+    /**
+     * Create an entry launching an action with one argument
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @return The entry
+     */
+    public static <A> EventEntry of(Time time, Consumer<A> action, A argument) {
+        return new EventEntry(time.toNanoSeconds(), Event.CONSUMER, action, argument, null, 0);
+    }
+
+    /**
+     * Create an entry launching an action with one argument
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event, in nanoseconds
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @return The entry
+     */
+    public static <A> EventEntry of(long time, Consumer<A> action, A argument) {
+        return new EventEntry(time, Event.CONSUMER, action, argument, null, 0);
+    }
+
+    /**
+     * Create an entry launching an action with one integer
+     * 
+     * @param time   Time to schedule the event
+     * @param action The action to launch
+     * @param value  The integer argument of the action
+     * @return The entry
+     */
+    public static EventEntry of(Time time, IntConsumer action, int value) {
+        return new EventEntry(time.toNanoSeconds(), Event.INT_CONSUMER, action, null, null, value);
+    }
+
+    /**
+     * Create an entry launching an action with one integer
+     * 
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param action The action to launch
+     * @param value  The integer argument of the action
+     * @return The entry
+     */
+    public static EventEntry of(long time, IntConsumer action, int value) {
+        return new EventEntry(time, Event.INT_CONSUMER, action, null, null, value);
+    }
+
+    /**
+     * Create an entry launching an action with two arguments
+     * 
+     * @param <A>    Type of the first argument
+     * @param <B>    Type of the second argument
+     * @param time   Time to schedule the event
+     * @param action The action to launch
+     * @param first  The first argument of the action
+     * @param second The second argument of the action
+     * @return The entry
+     */
+    public static <A, B> EventEntry of(Time time, BiConsumer<A, B> action, A first, B second) {
+        return new EventEntry(time.toNanoSeconds(), Event.BI_CONSUMER, action, first, second, 0);
+    }
+
+    /**
+     * Create an entry launching an action with two arguments
+     * 
+     * @param <A>    Type of the first argument
+     * @param <B>    Type of the second argument
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param action The action to launch
+     * @param first  The first argument of the action
+     * @param second The second argument of the action
+     * @return The entry
+     */
+    public static <A, B> EventEntry of(long time, BiConsumer<A, B> action, A first, B second) {
+        return new EventEntry(time, Event.BI_CONSUMER, action, first, second, 0);
+    }
+
+    /**
+     * Create an entry launching an action with one argument and one integer
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @param value    The integer argument of the action
+     * @return The entry
+     */
+    public static <A> EventEntry of(Time time, ObjIntConsumer<A> action, A argument, int value) {
+        return new EventEntry(time.toNanoSeconds(), Event.OBJ_INT_CONSUMER, action, argument, null, value);
+    }
+
+    /**
+     * Create an entry launching an action with one argument and one integer
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event, in nanoseconds
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @param value    The integer argument of the action
+     * @return The entry
+     */
+    public static <A> EventEntry of(long time, ObjIntConsumer<A> action, A argument, int value) {
+        return new EventEntry(time, Event.OBJ_INT_CONSUMER, action, argument, null, value);
+    }
+
+    /**
+     * Get the time to schedule the event
+     * 
+     * @return The time in nanoseconds
+     */
+    public long getTimeNanoSeconds() {
+        return this.time;
+    }
+}
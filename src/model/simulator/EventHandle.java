@@ -0,0 +1,50 @@
+package model.simulator;
+
+/**
+ * Handle returned when scheduling an event, used to cancel or move it.
+ * Cancellation is lazy: the event stays in the queue and is dropped when it
+ * reaches the head of the queue, so cancelling is in O(1).
+ * 
+ * When the event pool of the simulator is enabled, the event is recycled once
+ * run or dropped, so its handle then acts as the one of an event already run,
+ * but cannot reschedule it.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Event
+ * @see Simulator
+ */
+public interface EventHandle {
+
+    /**
+     * Cancel the event
+     * 
+     * @return True if the event was cancelled, False if it was already run or
+     *         cancelled
+     */
+    public boolean cancel();
+
+    /**
+     * Cancel the event if still pending, and schedule it again with the same
+     * action and arguments at a new date. This handle is not linked to the new
+     * event, the returned handle must be used instead
+     * 
+     * @param time New time of the event
+     * @return The handle of the new event
+     */
+    public EventHandle reschedule(Time time);
+
+    /**
+     * Indicates if the event is still waiting to be run
+     * 
+     * @return True if the event is neither run nor cancelled
+     */
+    public boolean isPending();
+
+    /**
+     * Get time of event
+     * 
+     * @return Time of event
+     */
+    public Time getTime();
+}
@@ -0,0 +1,274 @@
+package model.simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profiler of the event loop of a sequential simulation.
+ * For each type of action, it counts the events run, the wall-clock time spent
+ * running them and the events they schedule. The type of an action is the
+ * label registered for it, the actions of the links being labelled with the
+ * class of the link and their name, or else the class of the action, named
+ * after the class defining it for a lambda or a method reference. It also
+ * gives the depth of the event queue over simulated time, as a histogram
+ * whose bins split the simulation in periods of equal duration.
+ * 
+ * The simulator only checks if a profiler is set before each event, so it
+ * costs nothing when disabled.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator#enableProfiler()
+ * @see ActionProfile
+ */
+public class EventProfiler {
+
+    /**
+     * Number of bins of the queue depth histogram
+     */
+    public static final int NUMBER_BINS = 20;
+
+    /**
+     * Labels registered for actions
+     */
+    private final IdentityHashMap<Object, String> labels;
+
+    /**
+     * Statistics of each type of action, by label
+     */
+    private final Map<String, ActionProfile> actions;
+
+    /**
+     * Statistics of the actions not labelled, by class of action
+     */
+    private final IdentityHashMap<Class<?>, ActionProfile> unlabelledActions;
+
+    /**
+     * Action of the last event, events of the same type often following each
+     * other
+     */
+    private Object lastAction;
+
+    /**
+     * Statistics of the type of action of the last event
+     */
+    private ActionProfile lastProfile;
+
+    /**
+     * Duration of the simulation covered by a bin of the histogram, in
+     * nanoseconds
+     */
+    private long binDuration;
+
+    /**
+     * Sum of the queue depths seen before the events of each bin
+     */
+    private final long[] depthSums;
+
+    /**
+     * Number of events of each bin
+     */
+    private final long[] depthCounts;
+
+    /**
+     * Maximal queue depth seen before the events of each bin
+     */
+    private final int[] depthMax;
+
+    /**
+     * Create a new empty profiler
+     */
+    EventProfiler() {
+        this(new IdentityHashMap<Object, String>());
+    }
+
+    /**
+     * Create a new empty profiler keeping the labels of another profiler
+     * 
+     * @param profiler The profiler whose labels are kept
+     */
+    EventProfiler(EventProfiler profiler) {
+        this(new IdentityHashMap<Object, String>(profiler.labels));
+    }
+
+    /**
+     * Create a new empty profiler
+     * 
+     * @param labels Labels registered for actions
+     */
+    private EventProfiler(IdentityHashMap<Object, String> labels) {
+        this.labels = labels;
+        this.actions = new HashMap<String, ActionProfile>();
+        this.unlabelledActions = new IdentityHashMap<Class<?>, ActionProfile>();
+        this.lastAction = null;
+        this.lastProfile = null;
+        this.binDuration = 1;
+        this.depthSums = new long[EventProfiler.NUMBER_BINS];
+        this.depthCounts = new long[EventProfiler.NUMBER_BINS];
+        this.depthMax = new int[EventProfiler.NUMBER_BINS];
+    }
+
+    /**
+     * Register the label of an action, its events being profiled under this
+     * label instead of the class of the action. Actions with the same label
+     * share their statistics. Labels are kept on reset
+     * 
+     * @param label  Label of the action
+     * @param action The action, as passed to schedule
+     */
+    public void registerAction(String label, Object action) {
+        this.labels.put(action, label);
+        this.lastAction = null;
+    }
+
+    /**
+     * Set the duration of the simulation, split between the bins of the
+     * histogram
+     * 
+     * @param stopTime Stop time of the simulation, in nanoseconds
+     */
+    void start(long stopTime) {
+        this.binDuration = Math.max(1, (stopTime + EventProfiler.NUMBER_BINS - 1) / EventProfiler.NUMBER_BINS);
+    }
+
+    /**
+     * Add an event run
+     * 
+     * @param action          Action of the event
+     * @param duration        Wall-clock time spent running the event, in
+     *                        nanoseconds
+     * @param eventsScheduled Number of events scheduled by the event
+     * @param time            Time of the event, in nanoseconds
+     * @param queueDepth      Number of events in the queue when the event was
+     *                        run
+     */
+    void record(Object action, long duration, long eventsScheduled, long time, int queueDepth) {
+        if (action != this.lastAction) {
+            ActionProfile profile;
+            String label = this.labels.get(action);
+            if (label != null) {
+                profile = this.getProfile(label);
+            } else {
+                Class<?> type = action.getClass();
+                profile = this.unlabelledActions.get(type);
+                if (profile == null) {
+                    profile = this.getProfile(EventProfiler.getName(type));
+                    this.unlabelledActions.put(type, profile);
+                }
+            }
+            this.lastAction = action;
+            this.lastProfile = profile;
+        }
+        this.lastProfile.record(duration, eventsScheduled);
+
+        int bin = (int) Math.min(time / this.binDuration, EventProfiler.NUMBER_BINS - 1);
+        this.depthSums[bin] += queueDepth;
+        this.depthCounts[bin]++;
+        this.depthMax[bin] = Math.max(this.depthMax[bin], queueDepth);
+    }
+
+    /**
+     * Get the statistics of each type of action, by decreasing total time
+     * 
+     * @return The statistics
+     */
+    public List<ActionProfile> getActionProfiles() {
+        List<ActionProfile> profiles = new ArrayList<ActionProfile>(this.actions.values());
+        profiles.sort((first, second) -> Long.compare(second.getTotalTime(), first.getTotalTime()));
+        return profiles;
+    }
+
+    /**
+     * Get the mean queue depth of a bin of the histogram
+     * 
+     * @param bin Index of the bin
+     * @return The mean number of events in the queue, 0 if no event was run
+     */
+    public double getMeanQueueDepth(int bin) {
+        return this.depthCounts[bin] == 0 ? 0 : (double) this.depthSums[bin] / this.depthCounts[bin];
+    }
+
+    /**
+     * Get the maximal queue depth of a bin of the histogram
+     * 
+     * @param bin Index of the bin
+     * @return The maximal number of events in the queue
+     */
+    public int getMaxQueueDepth(int bin) {
+        return this.depthMax[bin];
+    }
+
+    /**
+     * Get the table of the statistics of the actions, followed by the queue
+     * depth histogram
+     * 
+     * @return The report
+     */
+    public String getReport() {
+        List<ActionProfile> profiles = this.getActionProfiles();
+        int width = "Action".length();
+        for (ActionProfile profile : profiles) {
+            width = Math.max(width, profile.getName().length());
+        }
+        String line = "%-" + width + "s %12s %12s %12s %12s %12s";
+        StringBuilder report = new StringBuilder("Event profile:");
+        report.append(System.lineSeparator()).append(String.format(line, "Action", "Events", "Total (ms)",
+                "Mean (us)", "Max (us)", "Scheduled"));
+        for (ActionProfile profile : profiles) {
+            report.append(System.lineSeparator()).append(String.format(line, profile.getName(),
+                    profile.getEvents(), String.format("%.3f", profile.getTotalTime() / 1e6),
+                    String.format("%.3f", profile.getTotalTime() / 1e3 / profile.getEvents()),
+                    String.format("%.3f", profile.getMaxTime() / 1e3),
+                    String.format("%.3f", profile.getEventsScheduledPerEvent())));
+        }
+
+        int maxDepth = 1;
+        for (int depth : this.depthMax) {
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        report.append(System.lineSeparator()).append("Queue depth over simulated time:");
+        for (int bin = 0; bin < EventProfiler.NUMBER_BINS; bin++) {
+            double mean = this.getMeanQueueDepth(bin);
+            report.append(System.lineSeparator()).append(String.format("%14s %10.1f %8d ",
+                    Time.nanoSeconds(bin * this.binDuration).toStringWithPrecision(6), mean, this.depthMax[bin]));
+            report.append("#".repeat((int) Math.round(40 * mean / maxDepth)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Get the statistics of a type of action, created if needed
+     * 
+     * @param label Label of the type of action
+     * @return The statistics
+     */
+    private ActionProfile getProfile(String label) {
+        ActionProfile profile = this.actions.get(label);
+        if (profile == null) {
+            profile = new ActionProfile(label);
+            this.actions.put(label, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Get the name of a type of action not labelled: the name of its class
+     * without package. For a lambda or a method reference, it is the class
+     * defining it, so the actions of a class not labelled share their
+     * statistics
+     * 
+     * @param type The type of action
+     * @return The name
+     */
+    private static String getName(Class<?> type) {
+        String name = type.getName();
+        int lambda = name.indexOf("$$Lambda");
+        if (lambda >= 0) {
+            name = name.substring(0, lambda);
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,101 @@
+package model.simulator;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Interface implemented by all the structures able to store the pending events
+ * of the simulation.
+ * Events must be given back in increasing order, as defined by
+ * {@link Event#compareTo(Event)}: by time, then in scheduling order for events
+ * on same date.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Event
+ * @see EventQueueType
+ */
+public interface EventQueue {
+
+    /**
+     * Add an event to the queue
+     * 
+     * @param event The event to add
+     */
+    public void add(Event event);
+
+    /**
+     * Add several events to the queue at once. Queues able to build their
+     * structure in one pass override it, the others add the events one by one
+     * 
+     * @param events Array containing the events to add
+     * @param count  Number of events to add, from the start of the array
+     */
+    public default void addAll(Event[] events, int count) {
+        for (int i = 0; i < count; i++) {
+            this.add(events[i]);
+        }
+    }
+
+    /**
+     * Get the first event of the queue and remove it from the queue
+     * 
+     * @return The first event, or null if the queue is empty
+     */
+    public Event poll();
+
+    /**
+     * Get the first event of the queue but does not remove it from the queue
+     * 
+     * @return The first event, or null if the queue is empty
+     */
+    public Event peek();
+
+    /**
+     * Get the number of events in the queue
+     * 
+     * @return The number of events
+     */
+    public int size();
+
+    /**
+     * Indicates if the queue is empty
+     * 
+     * @return True if there is no event in the queue
+     */
+    public boolean isEmpty();
+
+    /**
+     * Remove all the events from the queue
+     */
+    public void clear();
+
+    /**
+     * Remove all the events matching a filter from the queue, in O(n)
+     * 
+     * @param filter The filter giving the events to remove
+     * @return The number of events removed
+     */
+    public int removeIf(Predicate<Event> filter);
+
+    /**
+     * Remove all the cancelled events from the queue, in O(n)
+     * 
+     * @return The number of events removed
+     */
+    public default int removeCancelled() {
+        return this.removeIf(Event::isCancelled);
+    }
+
+    /**
+     * Visit all the events of the queue, in no particular order
+     * 
+     * @param action The action to run on each event
+     */
+    public default void forEach(Consumer<Event> action) {
+        this.removeIf(event -> {
+            action.accept(event);
+            return false;
+        });
+    }
+}
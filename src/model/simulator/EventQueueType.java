@@ -0,0 +1,57 @@
+package model.simulator;
+
+/**
+ * Enumeration of all the event queues that can be used by the simulator
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventQueue
+ * @see Simulator
+ */
+public enum EventQueueType {
+    TREE("Tree"),
+    CALENDAR("Calendar"),
+    BINARY_HEAP("BinaryHeap"),
+    QUATERNARY_HEAP("QuaternaryHeap"),
+    PAIRING_HEAP("PairingHeap");
+
+    /**
+     * String representation of the event queue type
+     */
+    private String name;
+
+    /**
+     * Construct a new instance of event queue type
+     * 
+     * @param name String representation of this event queue type
+     */
+    private EventQueueType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create a new empty event queue of this type
+     * 
+     * @return The event queue created
+     */
+    public EventQueue createEventQueue() {
+        switch (this) {
+            case TREE:
+                return new TreeEventQueue();
+            case BINARY_HEAP:
+                return new HeapEventQueue(2);
+            case QUATERNARY_HEAP:
+                return new HeapEventQueue(4);
+            case PAIRING_HEAP:
+                return new PairingHeapEventQueue();
+            case CALENDAR:
+            default:
+                return new CalendarQueue();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -0,0 +1,93 @@
+package model.simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Class used to record all the operations done on the event queue during a
+ * simulation, so they can be replayed later on other event queues.
+ * Each operation is written as a byte giving its type. Additions are followed
+ * by the time of the event in nanoseconds and its ID, as longs.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventQueue
+ * @see tools.EventQueueBenchmark
+ */
+public class EventScheduleRecorder {
+
+    /**
+     * Code of an event added to the queue
+     */
+    public static final byte ADD = 0;
+
+    /**
+     * Code of an event removed from the queue
+     */
+    public static final byte POLL = 1;
+
+    /**
+     * Stream writing the operations to file
+     */
+    private DataOutputStream output;
+
+    /**
+     * Create a new recorder
+     * 
+     * @param path Path of the file to write
+     */
+    public EventScheduleRecorder(String path) {
+        try {
+            File file = new File(path);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot open " + path + " for event schedule recording");
+        }
+    }
+
+    /**
+     * Record an event added to the queue
+     * 
+     * @param event The event added
+     */
+    public void recordAdd(Event event) {
+        try {
+            this.output.writeByte(EventScheduleRecorder.ADD);
+            this.output.writeLong(event.getTimeNanoSeconds());
+            this.output.writeLong(event.getId());
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write event schedule recording");
+        }
+    }
+
+    /**
+     * Record the first event removed from the queue
+     */
+    public void recordPoll() {
+        try {
+            this.output.writeByte(EventScheduleRecorder.POLL);
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write event schedule recording");
+        }
+    }
+
+    /**
+     * Close the file
+     */
+    public void close() {
+        try {
+            this.output.close();
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.ERROR, "Cannot close event schedule recording");
+        }
+    }
+}
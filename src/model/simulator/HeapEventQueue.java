@@ -0,0 +1,206 @@
+package model.simulator;
+
+import java.util.function.Predicate;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Event queue based on an implicit d-ary heap stored in an array.
+ * Insertion and removal are in O(log n). A higher arity makes the heap less
+ * deep, reducing cache misses when going up the heap, at the cost of more
+ * comparisons when going down.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventQueue
+ */
+public class HeapEventQueue implements EventQueue {
+
+    /**
+     * Initial capacity of the array
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The heap, the first event being at index 0
+     */
+    private Event[] heap;
+
+    /**
+     * Number of events in the heap
+     */
+    private int size;
+
+    /**
+     * Logarithm in base 2 of the heap arity
+     */
+    private int shift;
+
+    /**
+     * Create a new empty heap
+     * 
+     * @param arity Number of children of each node. Must be a power of two
+     */
+    public HeapEventQueue(int arity) {
+        if (arity < 2 || Integer.bitCount(arity) != 1) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Heap arity must be a power of two: " + arity);
+        }
+        this.heap = new Event[HeapEventQueue.INITIAL_CAPACITY];
+        this.size = 0;
+        this.shift = Integer.numberOfTrailingZeros(arity);
+    }
+
+    @Override
+    public void add(Event event) {
+        if (this.size == this.heap.length) {
+            Event[] heap = new Event[2 * this.heap.length];
+            System.arraycopy(this.heap, 0, heap, 0, this.size);
+            this.heap = heap;
+        }
+
+        int index = this.size;
+        this.size++;
+        while (index > 0) {
+            int parent = (index - 1) >> this.shift;
+            if (this.heap[parent].compareTo(event) <= 0) {
+                break;
+            }
+            this.heap[index] = this.heap[parent];
+            index = parent;
+        }
+        this.heap[index] = event;
+    }
+
+    /**
+     * Add several events at once. If they are at least as many as the events
+     * already in the heap, they are appended to the array and the heap is
+     * rebuilt from the bottom, in O(n) instead of O(n log n)
+     * 
+     * @param events Array containing the events to add
+     * @param count  Number of events to add, from the start of the array
+     */
+    @Override
+    public void addAll(Event[] events, int count) {
+        if (count < this.size) {
+            EventQueue.super.addAll(events, count);
+            return;
+        }
+        if (this.size + count > this.heap.length) {
+            int capacity = this.heap.length;
+            while (capacity < this.size + count) {
+                capacity *= 2;
+            }
+            Event[] heap = new Event[capacity];
+            System.arraycopy(this.heap, 0, heap, 0, this.size);
+            this.heap = heap;
+        }
+        System.arraycopy(events, 0, this.heap, this.size, count);
+        this.size += count;
+        this.heapify();
+    }
+
+    @Override
+    public Event poll() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        Event first = this.heap[0];
+        this.size--;
+        Event last = this.heap[this.size];
+        this.heap[this.size] = null;
+        if (this.size == 0) {
+            return first;
+        }
+
+        this.siftDown(0, last);
+
+        return first;
+    }
+
+    @Override
+    public Event peek() {
+        if (this.size == 0) {
+            return null;
+        }
+        return this.heap[0];
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.heap[i] = null;
+        }
+        this.size = 0;
+    }
+
+    @Override
+    public int removeIf(Predicate<Event> filter) {
+        int size = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (!filter.test(this.heap[i])) {
+                this.heap[size] = this.heap[i];
+                size++;
+            }
+        }
+        for (int i = size; i < this.size; i++) {
+            this.heap[i] = null;
+        }
+        int removed = this.size - size;
+        this.size = size;
+
+        this.heapify();
+        return removed;
+    }
+
+    /**
+     * Rebuild the heap from the bottom, in O(n)
+     */
+    private void heapify() {
+        if (this.size > 1) {
+            for (int index = (this.size - 2) >> this.shift; index >= 0; index--) {
+                this.siftDown(index, this.heap[index]);
+            }
+        }
+    }
+
+    /**
+     * Move an event down the heap from given index until its children are all
+     * greater than it
+     * 
+     * @param index Index where the event starts
+     * @param event The event to place
+     */
+    private void siftDown(int index, Event event) {
+        while (true) {
+            int firstChild = (index << this.shift) + 1;
+            if (firstChild >= this.size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + (1 << this.shift), this.size);
+            int minChild = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (this.heap[child].compareTo(this.heap[minChild]) < 0) {
+                    minChild = child;
+                }
+            }
+            if (event.compareTo(this.heap[minChild]) <= 0) {
+                break;
+            }
+            this.heap[index] = this.heap[minChild];
+            index = minChild;
+        }
+        this.heap[index] = event;
+    }
+}
@@ -0,0 +1,90 @@
+package model.simulator;
+
+import java.util.Iterator;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Entries scheduled lazily, pulled from their iterator only when the
+ * simulation reaches them.
+ * All the events of a source share the same position among the events on the
+ * same date, the one of the call to {@link Simulator#scheduleLazily(Iterator)}:
+ * they are ordered between them by their IDs, given in the order the entries
+ * are pulled.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator
+ */
+class LazyEventSource {
+
+    /**
+     * Entries not pulled yet, in increasing time order
+     */
+    private final Iterator<EventEntry> entries;
+
+    /**
+     * Position of the events of this source among the events scheduled before
+     * the simulation starts
+     */
+    final long sequence;
+
+    /**
+     * Next entry to schedule, or null if all entries are scheduled
+     */
+    private EventEntry next;
+
+    /**
+     * Create a new source
+     * 
+     * @param entries  Entries to schedule, in increasing time order
+     * @param sequence Position of the events of this source among the events
+     *                 scheduled before the simulation starts
+     */
+    LazyEventSource(Iterator<EventEntry> entries, long sequence) {
+        this.entries = entries;
+        this.sequence = sequence;
+        this.next = null;
+        this.pull();
+    }
+
+    /**
+     * Indicates if all the entries are scheduled
+     * 
+     * @return True if no entry is left
+     */
+    boolean isEmpty() {
+        return this.next == null;
+    }
+
+    /**
+     * Get the time of the next entry
+     * 
+     * @return The time in nanoseconds
+     */
+    long getNextTime() {
+        return this.next.time;
+    }
+
+    /**
+     * Get the next entry and pull the following one from the iterator
+     * 
+     * @return The next entry
+     */
+    EventEntry poll() {
+        EventEntry entry = this.next;
+        this.pull();
+        if (this.next != null && this.next.time < entry.time) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Lazily scheduled entries must be in increasing time order");
+        }
+        return entry;
+    }
+
+    /**
+     * Pull the next entry from the iterator
+     */
+    private void pull() {
+        this.next = this.entries.hasNext() ? this.entries.next() : null;
+    }
+}
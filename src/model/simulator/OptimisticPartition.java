@@ -0,0 +1,509 @@
+package model.simulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * State of one partition of an optimistic simulation.
+ * It records the events run by the partition and not committed yet, with what
+ * is needed to roll them back: the actions undoing their changes of the model,
+ * the events they scheduled, and the output they produced. Packets created by
+ * these events get their ID with this output, so a rolled back event gives no
+ * ID, see {@link model.network.Packet#hasPacketId()}. It also receives the
+ * events sent by other partitions, and the anti-messages cancelling them.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see OptimisticSimulation
+ */
+class OptimisticPartition {
+
+    /**
+     * Initial capacity of the arrays recording events
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Index of this partition
+     */
+    private final int index;
+
+    /**
+     * Simulator of each partition
+     */
+    private final Simulator[] partitions;
+
+    /**
+     * Pending events of this partition
+     */
+    private final EventQueue events;
+
+    /**
+     * Events sent by other partitions, not received yet
+     */
+    private final ConcurrentLinkedQueue<Event> inbox;
+
+    /**
+     * Events sent by other partitions and then cancelled by their sender, not
+     * received yet
+     */
+    private final ConcurrentLinkedQueue<Event> antiInbox;
+
+    /**
+     * Events taken from the queue and not committed yet, in execution order.
+     * Cancelled events are kept too, as they can be pending again if the event
+     * which cancelled them is rolled back
+     */
+    private Event[] processed;
+
+    /**
+     * Index in the undo log of the first action of each processed event
+     */
+    private int[] undoStarts;
+
+    /**
+     * Index in the children of the first event scheduled by each processed
+     * event
+     */
+    private int[] childStarts;
+
+    /**
+     * Index in the output of the first text written by each processed event
+     */
+    private int[] outputStarts;
+
+    /**
+     * Number of processed events
+     */
+    private int size;
+
+    /**
+     * Actions undoing the changes of the model made by the processed events
+     */
+    private final ArrayList<Runnable> undoLog;
+
+    /**
+     * Events scheduled by the processed events
+     */
+    private final ArrayList<Event> children;
+
+    /**
+     * Index of the partition of each event scheduled by the processed events
+     */
+    private int[] childPartitions;
+
+    /**
+     * Destination of each text written by the processed events
+     */
+    private final ArrayList<Appendable> outputTargets;
+
+    /**
+     * Texts written by the processed events
+     */
+    private final ArrayList<String> outputTexts;
+
+    /**
+     * Outputs deferred by the processed events, null for a text
+     */
+    private final ArrayList<Runnable> outputActions;
+
+    /**
+     * Number of events rolled back
+     */
+    private long eventsRolledBack;
+
+    /**
+     * Error raised by the last processed event, or null. It is raised once the
+     * event is committed, and forgotten if the event is rolled back
+     */
+    private RuntimeException failure;
+
+    /**
+     * Create a new partition
+     * 
+     * @param index      Index of this partition
+     * @param partitions Simulator of each partition
+     * @param events     Pending events of this partition
+     */
+    OptimisticPartition(int index, Simulator[] partitions, EventQueue events) {
+        this.index = index;
+        this.partitions = partitions;
+        this.events = events;
+        this.inbox = new ConcurrentLinkedQueue<Event>();
+        this.antiInbox = new ConcurrentLinkedQueue<Event>();
+        this.processed = new Event[OptimisticPartition.INITIAL_CAPACITY];
+        this.undoStarts = new int[OptimisticPartition.INITIAL_CAPACITY];
+        this.childStarts = new int[OptimisticPartition.INITIAL_CAPACITY];
+        this.outputStarts = new int[OptimisticPartition.INITIAL_CAPACITY];
+        this.size = 0;
+        this.undoLog = new ArrayList<Runnable>();
+        this.children = new ArrayList<Event>();
+        this.childPartitions = new int[OptimisticPartition.INITIAL_CAPACITY];
+        this.outputTargets = new ArrayList<Appendable>();
+        this.outputTexts = new ArrayList<String>();
+        this.outputActions = new ArrayList<Runnable>();
+        this.eventsRolledBack = 0;
+        this.failure = null;
+    }
+
+    /**
+     * Get the index of this partition
+     * 
+     * @return The index
+     */
+    int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Get the number of events rolled back
+     * 
+     * @return The number of events
+     */
+    long getEventsRolledBack() {
+        return this.eventsRolledBack;
+    }
+
+    /**
+     * Get the error raised by the last processed event
+     * 
+     * @return The error, or null if the event did not raise one
+     */
+    RuntimeException getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Keep the error raised by the last processed event, until the event is
+     * committed or rolled back
+     * 
+     * @param failure The error
+     */
+    void setFailure(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Get the date of the next event this partition can run, the events sent
+     * by other partitions aside
+     * 
+     * @return The date in nanoseconds, Long.MAX_VALUE if no event is pending
+     */
+    long getNextTime() {
+        // The event which raised an error is the last processed one, and only
+        // waits for the events of other partitions to be committed
+        if (this.failure != null) {
+            return this.processed[this.size - 1].getTimeNanoSeconds() + 1;
+        }
+        Event event = this.events.peek();
+        return event == null ? Long.MAX_VALUE : event.getTimeNanoSeconds();
+    }
+
+    /**
+     * Send an event to this partition. Called by the thread of the sender
+     * 
+     * @param event The event
+     */
+    void send(Event event) {
+        this.inbox.add(event);
+    }
+
+    /**
+     * Send an anti-message to this partition, cancelling an event sent before.
+     * Called by the thread of the sender
+     * 
+     * @param event The event to cancel
+     */
+    void sendAnti(Event event) {
+        this.antiInbox.add(event);
+    }
+
+    /**
+     * Record an event taken from the queue, before it is run
+     * 
+     * @param event The event
+     */
+    void addEvent(Event event) {
+        if (this.size == this.processed.length) {
+            int capacity = 2 * this.size;
+            this.processed = Arrays.copyOf(this.processed, capacity);
+            this.undoStarts = Arrays.copyOf(this.undoStarts, capacity);
+            this.childStarts = Arrays.copyOf(this.childStarts, capacity);
+            this.outputStarts = Arrays.copyOf(this.outputStarts, capacity);
+        }
+        this.processed[this.size] = event;
+        this.undoStarts[this.size] = this.undoLog.size();
+        this.childStarts[this.size] = this.children.size();
+        this.outputStarts[this.size] = this.outputTexts.size();
+        this.size++;
+    }
+
+    /**
+     * Record an action undoing a change of the model made by the event being
+     * run
+     * 
+     * @param undo The action
+     */
+    void addUndo(Runnable undo) {
+        this.undoLog.add(undo);
+    }
+
+    /**
+     * Record an event scheduled by the event being run
+     * 
+     * @param child     The event scheduled
+     * @param partition Index of the partition of the event
+     */
+    void addChild(Event child, int partition) {
+        if (this.children.size() == this.childPartitions.length) {
+            this.childPartitions = Arrays.copyOf(this.childPartitions, 2 * this.childPartitions.length);
+        }
+        this.childPartitions[this.children.size()] = partition;
+        this.children.add(child);
+    }
+
+    /**
+     * Keep a text written by the event being run, until the event is committed
+     * 
+     * @param target Destination of the text
+     * @param text   The text
+     */
+    void print(Appendable target, String text) {
+        this.outputTargets.add(target);
+        this.outputTexts.add(text);
+        this.outputActions.add(null);
+    }
+
+    /**
+     * Keep an output of the event being run, until the event is committed
+     * 
+     * @param output The output to run
+     */
+    void defer(Runnable output) {
+        this.outputTargets.add(null);
+        this.outputTexts.add(null);
+        this.outputActions.add(output);
+    }
+
+    /**
+     * Write a text or run an output kept
+     * 
+     * @param k Index of the output
+     */
+    private void writeOutput(int k) {
+        if (this.outputActions.get(k) != null) {
+            this.outputActions.get(k).run();
+            return;
+        }
+        try {
+            this.outputTargets.get(k).append(this.outputTexts.get(k));
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write simulation output");
+        }
+    }
+
+    /**
+     * Add to the queue the events sent by other partitions, and remove the ones
+     * cancelled by anti-messages. Events run too early are rolled back first
+     * 
+     * @return True if anti-messages were sent to other partitions
+     */
+    boolean receive() {
+        boolean sent = this.receiveAnti();
+        Event event;
+        while ((event = this.inbox.poll()) != null) {
+            // An event sent again after a rollback has the same order as its
+            // discarded copy, so the anti-message sent before it must be
+            // received first
+            sent |= this.receiveAnti();
+            if (event.isDiscarded()) {
+                continue;
+            }
+            if (this.size > 0 && this.processed[this.size - 1].compareTo(event) > 0) {
+                sent |= this.rollback(event, false);
+            }
+            this.events.add(event);
+        }
+        return sent;
+    }
+
+    /**
+     * Remove the events cancelled by anti-messages. Events run too early are
+     * rolled back first
+     * 
+     * @return True if anti-messages were sent to other partitions
+     */
+    private boolean receiveAnti() {
+        boolean sent = false;
+        Event event;
+        while ((event = this.antiInbox.poll()) != null) {
+            if (event.isExpired()) {
+                sent |= this.rollback(event, true);
+            }
+            event.discard();
+        }
+        return sent;
+    }
+
+    /**
+     * Roll back the processed events after a given one
+     * 
+     * @param event     The event
+     * @param inclusive Roll back the event itself if set to true
+     * @return True if anti-messages were sent to other partitions
+     */
+    private boolean rollback(Event event, boolean inclusive) {
+        boolean sent = false;
+        while (this.size > 0) {
+            int order = this.processed[this.size - 1].compareTo(event);
+            if (order < 0 || (order == 0 && !inclusive)) {
+                break;
+            }
+            sent |= this.undoLastEvent();
+        }
+        return sent;
+    }
+
+    /**
+     * Roll back the last processed event: undo its changes of the model,
+     * discard the events it scheduled and its output, and put it back in the
+     * queue
+     * 
+     * @return True if anti-messages were sent to other partitions
+     */
+    private boolean undoLastEvent() {
+        this.size--;
+        Event event = this.processed[this.size];
+        this.processed[this.size] = null;
+        this.failure = null;
+
+        for (int i = this.undoLog.size() - 1; i >= this.undoStarts[this.size]; i--) {
+            this.undoLog.remove(i).run();
+        }
+
+        boolean sent = false;
+        for (int i = this.children.size() - 1; i >= this.childStarts[this.size]; i--) {
+            Event child = this.children.remove(i);
+            int partition = this.childPartitions[i];
+            if (partition == this.index) {
+                child.discard();
+            } else {
+                this.partitions[partition].getOptimisticPartition().sendAnti(child);
+                sent = true;
+            }
+        }
+
+        int outputStart = this.outputStarts[this.size];
+        this.outputTargets.subList(outputStart, this.outputTargets.size()).clear();
+        this.outputTexts.subList(outputStart, this.outputTexts.size()).clear();
+        this.outputActions.subList(outputStart, this.outputActions.size()).clear();
+
+        event.restore();
+        if (!event.isDiscarded()) {
+            this.events.add(event);
+        }
+        this.eventsRolledBack++;
+        return sent;
+    }
+
+    /**
+     * Remove the discarded events from the queue and from the processed events.
+     * Must be called once no event is in transit, so the events scheduled by
+     * the discarded ones are all discarded too
+     */
+    void purge() {
+        this.events.removeIf(Event::isDiscarded);
+
+        // Discarded processed events are cancelled ones, without undo log,
+        // children or output
+        int size = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (!this.processed[i].isDiscarded()) {
+                this.processed[size] = this.processed[i];
+                this.undoStarts[size] = this.undoStarts[i];
+                this.childStarts[size] = this.childStarts[i];
+                this.outputStarts[size] = this.outputStarts[i];
+                size++;
+            }
+        }
+        Arrays.fill(this.processed, size, this.size, null);
+        this.size = size;
+    }
+
+    /**
+     * Get the number of processed events before a date. They are the first
+     * processed events
+     * 
+     * @param time The date, excluded, in nanoseconds
+     * @return The number of events
+     */
+    int countEventsBefore(long time) {
+        int count = 0;
+        while (count < this.size && this.processed[count].getTimeNanoSeconds() < time) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get a processed event
+     * 
+     * @param i Index of the event
+     * @return The event
+     */
+    Event getEvent(int i) {
+        return this.processed[i];
+    }
+
+    /**
+     * Give its final rank to a processed event, and write its output
+     * 
+     * @param i    Index of the event
+     * @param rank The final rank
+     * @return The error raised by the event, or null if it did not raise one
+     */
+    RuntimeException commitEvent(int i, long rank) {
+        this.processed[i].commit(rank);
+        int end = i + 1 < this.size ? this.outputStarts[i + 1] : this.outputTexts.size();
+        for (int k = this.outputStarts[i]; k < end; k++) {
+            this.writeOutput(k);
+        }
+        return i == this.size - 1 ? this.failure : null;
+    }
+
+    /**
+     * Forget the first processed events, once they are committed: they cannot
+     * be rolled back anymore
+     * 
+     * @param count Number of events to forget
+     */
+    void removeEvents(int count) {
+        if (count == 0) {
+            return;
+        }
+        int undoEnd = count < this.size ? this.undoStarts[count] : this.undoLog.size();
+        int childEnd = count < this.size ? this.childStarts[count] : this.children.size();
+        int outputEnd = count < this.size ? this.outputStarts[count] : this.outputTexts.size();
+        this.undoLog.subList(0, undoEnd).clear();
+        System.arraycopy(this.childPartitions, childEnd, this.childPartitions, 0, this.children.size() - childEnd);
+        this.children.subList(0, childEnd).clear();
+        this.outputTargets.subList(0, outputEnd).clear();
+        this.outputTexts.subList(0, outputEnd).clear();
+        this.outputActions.subList(0, outputEnd).clear();
+
+        int size = this.size - count;
+        for (int i = 0; i < size; i++) {
+            this.processed[i] = this.processed[i + count];
+            this.undoStarts[i] = this.undoStarts[i + count] - undoEnd;
+            this.childStarts[i] = this.childStarts[i + count] - childEnd;
+            this.outputStarts[i] = this.outputStarts[i + count] - outputEnd;
+        }
+        Arrays.fill(this.processed, size, this.size, null);
+        this.size = size;
+    }
+}
@@ -0,0 +1,413 @@
+package model.simulator;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.locks.LockSupport;
+
+import model.logger.NetworksCriticalException;
+
+/**
+ * Optimistic parallel run of a simulation split in partitions, each one run
+ * by its own thread, following the Time Warp protocol (D. Jefferson, 1985).
+ * Partitions run their events without waiting for the other partitions. When
+ * an event arrives before the last event run by its partition, this partition
+ * is rolled back: events run too early are undone and run again. Rolled back
+ * events send anti-messages cancelling the events they sent to other
+ * partitions, which may roll them back too.
+ * 
+ * Partitions regularly stop together to compute the GVT (Global Virtual Time),
+ * the date of the first pending event of all partitions once no event is in
+ * transit. Events before the GVT cannot be rolled back anymore: they are
+ * committed and forgotten (fossil collection). Like in a conservative
+ * simulation, committed events are merged by date then scheduling order,
+ * giving them their rank in a sequential run, and their output is written in
+ * this order, so traces are identical to the ones of a sequential run.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator
+ * @see OptimisticPartition
+ */
+class OptimisticSimulation {
+
+    /**
+     * Number of events run by a partition before it asks for a GVT computation
+     */
+    private static final int GVT_INTERVAL = 4096;
+
+    /**
+     * Number of times a partition finds no event to run before it asks for a
+     * GVT computation
+     */
+    private static final int IDLE_LIMIT = 16;
+
+    /**
+     * Time waited by a partition finding no event to run, in nanoseconds
+     */
+    private static final long IDLE_WAIT = 20000;
+
+    /**
+     * Simulator of each partition. The first one is run by the calling thread
+     */
+    private final Simulator[] partitions;
+
+    /**
+     * Time where the simulation will be stopped, in nanoseconds
+     */
+    private final long stopTime;
+
+    /**
+     * Barrier reached by all partitions once they stop running events for a
+     * GVT computation
+     */
+    private final CyclicBarrier stopBarrier;
+
+    /**
+     * Barrier reached by all partitions after receiving their events, checking
+     * whether events are still in transit
+     */
+    private final CyclicBarrier receiveBarrier;
+
+    /**
+     * Barrier reached by all partitions once their events are received,
+     * computing the GVT and committing the events before it
+     */
+    private final CyclicBarrier commitBarrier;
+
+    /**
+     * Indicates if each partition sent anti-messages while receiving its events
+     */
+    private final boolean[] sent;
+
+    /**
+     * Date of the first pending event of each partition, in nanoseconds
+     */
+    private final long[] nextTimes;
+
+    /**
+     * Set to true when a partition asks for a GVT computation
+     */
+    private volatile boolean gvtRequested;
+
+    /**
+     * Set to true once no event is in transit
+     */
+    private boolean quiet;
+
+    /**
+     * Set to true once no event remains before the stop time
+     */
+    private boolean finished;
+
+    /**
+     * Rank of the next event committed
+     */
+    private long nextRank;
+
+    /**
+     * Date of the last event committed, in nanoseconds
+     */
+    private long lastTime;
+
+    /**
+     * Number of GVT computations
+     */
+    private long numberGvtComputations;
+
+    /**
+     * First error raised by a partition
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Reporter of the progress, or null if not enabled
+     */
+    private final ProgressReporter reporter;
+
+    /**
+     * Create a new optimistic simulation
+     * 
+     * @param partitions Simulator of each partition
+     * @param stopTime   Time where the simulation will be stopped, in
+     *                   nanoseconds
+     * @param firstRank  Rank of the first event run
+     * @param reporter   Reporter of the progress, or null if not enabled
+     */
+    OptimisticSimulation(Simulator[] partitions, long stopTime, long firstRank, ProgressReporter reporter) {
+        this.partitions = partitions;
+        this.stopTime = stopTime;
+        this.stopBarrier = new CyclicBarrier(partitions.length);
+        this.receiveBarrier = new CyclicBarrier(partitions.length, this::checkQuiet);
+        this.commitBarrier = new CyclicBarrier(partitions.length, this::commit);
+        this.sent = new boolean[partitions.length];
+        this.nextTimes = new long[partitions.length];
+        this.gvtRequested = false;
+        this.quiet = false;
+        this.finished = false;
+        this.nextRank = firstRank;
+        this.lastTime = 0;
+        this.numberGvtComputations = 0;
+        this.failure = null;
+        this.reporter = reporter;
+    }
+
+    /**
+     * Run the simulation until no event remains before the stop time.
+     * Returns once all the partitions are stopped
+     * 
+     * @return The rank of the next event to run
+     */
+    long run() {
+        // Partitions run events without waiting for a barrier, so all the
+        // workers are known before the first event can be sent
+        Thread[] threads = new Thread[this.partitions.length];
+        threads[0] = Thread.currentThread();
+        for (int i = 1; i < this.partitions.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> this.runPartition(index), "Partition-" + i);
+        }
+        for (int i = 0; i < this.partitions.length; i++) {
+            this.partitions[i].setWorker(threads[i]);
+        }
+        for (int i = 1; i < this.partitions.length; i++) {
+            threads[i].start();
+        }
+        this.runPartition(0);
+        for (int i = 1; i < this.partitions.length; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.fail(e);
+            }
+        }
+        for (Simulator partition : this.partitions) {
+            partition.setWorker(null);
+        }
+
+        if (this.failure instanceof RuntimeException) {
+            throw (RuntimeException) this.failure;
+        }
+        if (this.failure instanceof Error) {
+            throw (Error) this.failure;
+        }
+        if (this.failure != null) {
+            throw new NetworksCriticalException();
+        }
+        return this.nextRank;
+    }
+
+    /**
+     * Get the date of the last event committed
+     * 
+     * @return The date in nanoseconds
+     */
+    long getLastTime() {
+        return this.lastTime;
+    }
+
+    /**
+     * Get the number of GVT computations
+     * 
+     * @return The number of GVT computations
+     */
+    long getNumberGvtComputations() {
+        return this.numberGvtComputations;
+    }
+
+    /**
+     * Run the events of a partition, and take part in the GVT computations.
+     * A partition raising an error asks for a GVT computation, which stops the
+     * simulation
+     * 
+     * @param index Index of the partition
+     */
+    private void runPartition(int index) {
+        Simulator partition = this.partitions[index];
+        if (index != 0) {
+            Simulator.setCurrentPartition(partition);
+        }
+        try {
+            int eventsRun = 0;
+            int idle = 0;
+            while (true) {
+                if (this.gvtRequested) {
+                    if (this.computeGvt(index)) {
+                        break;
+                    }
+                    eventsRun = 0;
+                    idle = 0;
+                    continue;
+                }
+
+                boolean running = false;
+                if (this.failure == null) {
+                    try {
+                        running = partition.runOptimisticEvent();
+                    } catch (Throwable t) {
+                        this.fail(t);
+                    }
+                }
+                if (running) {
+                    eventsRun++;
+                    if (eventsRun == OptimisticSimulation.GVT_INTERVAL) {
+                        this.gvtRequested = true;
+                    }
+                } else {
+                    idle++;
+                    if (this.failure != null || idle == OptimisticSimulation.IDLE_LIMIT) {
+                        this.gvtRequested = true;
+                    } else {
+                        LockSupport.parkNanos(OptimisticSimulation.IDLE_WAIT);
+                    }
+                }
+            }
+        } catch (BrokenBarrierException e) {
+            // A barrier action failed, its error is raised instead
+        } catch (InterruptedException e) {
+            this.fail(e);
+        } finally {
+            if (index != 0) {
+                Simulator.setCurrentPartition(null);
+            }
+        }
+    }
+
+    /**
+     * Take part in a GVT computation. Partitions receive their events until no
+     * event is in transit, then the events before the GVT are committed
+     * 
+     * @param index Index of the partition
+     * @return True if the simulation is finished
+     * @throws BrokenBarrierException If a barrier action failed
+     * @throws InterruptedException   If the thread is interrupted
+     */
+    private boolean computeGvt(int index) throws BrokenBarrierException, InterruptedException {
+        Simulator partition = this.partitions[index];
+        OptimisticPartition state = partition.getOptimisticPartition();
+        this.stopBarrier.await();
+        do {
+            this.sent[index] = false;
+            this.runSafely(() -> this.sent[index] = state.receive());
+            this.receiveBarrier.await();
+        } while (!this.quiet);
+
+        this.nextTimes[index] = Long.MAX_VALUE;
+        this.runSafely(() -> {
+            state.purge();
+            this.nextTimes[index] = state.getNextTime();
+        });
+        this.commitBarrier.await();
+        return this.finished;
+    }
+
+    /**
+     * Run an action of a partition, unless a partition already failed
+     * 
+     * @param action The action to run
+     */
+    private void runSafely(Runnable action) {
+        if (this.failure != null) {
+            return;
+        }
+        try {
+            action.run();
+        } catch (Throwable t) {
+            this.fail(t);
+        }
+    }
+
+    /**
+     * Keep the first error raised by a partition
+     * 
+     * @param t The error raised
+     */
+    private synchronized void fail(Throwable t) {
+        if (this.failure == null) {
+            this.failure = t;
+        }
+    }
+
+    /**
+     * Check whether events are still in transit: anti-messages sent while
+     * receiving events must be received too. Run by the last partition
+     * reaching the barrier
+     */
+    private void checkQuiet() {
+        this.quiet = true;
+        for (boolean sent : this.sent) {
+            this.quiet &= !sent;
+        }
+        this.quiet |= this.failure != null;
+    }
+
+    /**
+     * Compute the GVT, and commit the events before it, or all the events if no
+     * event remains before the stop time. Run by the last partition reaching
+     * the barrier
+     */
+    private void commit() {
+        this.gvtRequested = false;
+        this.numberGvtComputations++;
+        if (this.failure != null) {
+            this.finished = true;
+            return;
+        }
+        long gvt = Long.MAX_VALUE;
+        for (long time : this.nextTimes) {
+            gvt = Math.min(gvt, time);
+        }
+        this.finished = gvt > this.stopTime;
+        if (this.finished) {
+            gvt = Long.MAX_VALUE;
+        }
+
+        OptimisticPartition[] states = new OptimisticPartition[this.partitions.length];
+        int[] positions = new int[this.partitions.length];
+        int[] ends = new int[this.partitions.length];
+        for (int i = 0; i < this.partitions.length; i++) {
+            states[i] = this.partitions[i].getOptimisticPartition();
+            ends[i] = states[i].countEventsBefore(gvt);
+        }
+
+        // Cancelled events are skipped, they have no rank
+        while (true) {
+            int best = -1;
+            for (int i = 0; i < states.length; i++) {
+                while (positions[i] < ends[i] && !states[i].getEvent(positions[i]).isExpired()) {
+                    positions[i]++;
+                }
+                if (positions[i] < ends[i] && (best == -1
+                        || states[i].getEvent(positions[i]).compareTo(states[best].getEvent(positions[best])) < 0)) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            this.lastTime = states[best].getEvent(positions[best]).getTimeNanoSeconds();
+            RuntimeException failure = states[best].commitEvent(positions[best], this.nextRank);
+            positions[best]++;
+            this.nextRank++;
+            if (failure != null) {
+                // The error of an event is raised once it is sure the event
+                // was not run too early
+                this.fail(failure);
+                this.finished = true;
+                break;
+            }
+        }
+
+        for (int i = 0; i < states.length; i++) {
+            states[i].removeEvents(ends[i]);
+        }
+
+        if (this.reporter != null) {
+            int queueSize = 0;
+            for (Simulator partition : this.partitions) {
+                queueSize += partition.getEventQueueSize();
+            }
+            this.reporter.publish(Math.min(this.lastTime, this.stopTime), this.nextRank, queueSize);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package model.simulator;
+
+import java.util.ArrayDeque;
+import java.util.function.Predicate;
+
+/**
+ * Event queue based on a pairing heap.
+ * Insertion is in O(1) and removal in O(log n) amortized. Children of a node
+ * are chained directly in the events, so no node is allocated.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventQueue
+ */
+public class PairingHeapEventQueue implements EventQueue {
+
+    /**
+     * Root of the heap, being the first event
+     */
+    private Event root;
+
+    /**
+     * Number of events in the heap
+     */
+    private int size;
+
+    /**
+     * Create a new empty heap
+     */
+    public PairingHeapEventQueue() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    @Override
+    public void add(Event event) {
+        this.root = this.root == null ? event : this.link(this.root, event);
+        this.size++;
+    }
+
+    @Override
+    public Event poll() {
+        if (this.root == null) {
+            return null;
+        }
+
+        Event first = this.root;
+        this.root = this.mergePairs(first.child);
+        first.child = null;
+        this.size--;
+
+        return first;
+    }
+
+    @Override
+    public Event peek() {
+        return this.root;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public void clear() {
+        while (this.root != null) {
+            this.poll();
+        }
+    }
+
+    @Override
+    public int removeIf(Predicate<Event> filter) {
+        int size = this.size;
+        ArrayDeque<Event> remaining = new ArrayDeque<Event>();
+        if (this.root != null) {
+            remaining.push(this.root);
+        }
+        this.root = null;
+        this.size = 0;
+
+        // Visit all the events, linking the ones kept into a new heap
+        while (!remaining.isEmpty()) {
+            Event event = remaining.pop();
+            if (event.child != null) {
+                remaining.push(event.child);
+            }
+            if (event.next != null) {
+                remaining.push(event.next);
+            }
+            event.child = null;
+            event.next = null;
+            if (!filter.test(event)) {
+                this.add(event);
+            }
+        }
+        return size - this.size;
+    }
+
+    /**
+     * Link two heaps. The root with the higher event becomes the first child of
+     * the other one
+     * 
+     * @param first  Root of first heap
+     * @param second Root of second heap
+     * @return The root of the resulting heap
+     */
+    private Event link(Event first, Event second) {
+        if (second.compareTo(first) < 0) {
+            Event tmp = first;
+            first = second;
+            second = tmp;
+        }
+        second.next = first.child;
+        first.child = second;
+        first.next = null;
+        return first;
+    }
+
+    /**
+     * Merge a list of siblings into one heap, using the two-pass method.
+     * The first pass links siblings by pairs from left to right, the second pass
+     * links the pairs from right to left.
+     * 
+     * @param first First sibling of the list
+     * @return The root of the merged heap
+     */
+    private Event mergePairs(Event first) {
+        Event pairs = null;
+        while (first != null) {
+            Event second = first.next;
+            if (second == null) {
+                first.next = pairs;
+                pairs = first;
+                break;
+            }
+            Event remaining = second.next;
+            Event pair = this.link(first, second);
+            pair.next = pairs;
+            pairs = pair;
+            first = remaining;
+        }
+
+        Event root = null;
+        while (pairs != null) {
+            Event next = pairs.next;
+            root = root == null ? pairs : this.link(pairs, root);
+            pairs = next;
+        }
+        if (root != null) {
+            root.next = null;
+        }
+        return root;
+    }
+}
@@ -0,0 +1,288 @@
+package model.simulator;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import model.logger.NetworksCriticalException;
+
+/**
+ * Conservative parallel run of a simulation split in partitions, each one run
+ * by its own thread.
+ * Partitions advance together by time windows. A window starts at the date of
+ * the first pending event of all partitions, and lasts the lookahead: the
+ * minimal delay between an event and the events it schedules on other
+ * partitions. No event run in a window can then schedule an event in the same
+ * window on another partition, so partitions run their window without any
+ * synchronization. Events sent to other partitions are stored in outboxes, and
+ * delivered at the end of the window.
+ * 
+ * At the end of each window, the events run by all partitions are merged by
+ * date then scheduling order, as done by a sequential run. This gives each
+ * event its rank in the sequential run, and writes the output of the events
+ * in this order, so traces are identical to the ones of a sequential run.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator
+ * @see PartitionWindow
+ */
+class ParallelSimulation {
+
+    /**
+     * Simulator of each partition. The first one is run by the calling thread
+     */
+    private final Simulator[] partitions;
+
+    /**
+     * Duration of a window, in nanoseconds
+     */
+    private final long lookahead;
+
+    /**
+     * Time where the simulation will be stopped, in nanoseconds
+     */
+    private final long stopTime;
+
+    /**
+     * Barrier reached by all partitions before each window, computing the end
+     * of the window
+     */
+    private final CyclicBarrier startWindowBarrier;
+
+    /**
+     * Barrier reached by all partitions after each window, merging the windows
+     */
+    private final CyclicBarrier endWindowBarrier;
+
+    /**
+     * Date of the first pending event of each partition, in nanoseconds
+     */
+    private final long[] nextTimes;
+
+    /**
+     * End of the current window, excluded, in nanoseconds
+     */
+    private long windowEnd;
+
+    /**
+     * Set to true once no event remains before the stop time
+     */
+    private boolean finished;
+
+    /**
+     * Rank of the next event committed
+     */
+    private long nextRank;
+
+    /**
+     * Number of windows run
+     */
+    private long numberWindows;
+
+    /**
+     * First error raised by a partition
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Reporter of the progress, or null if not enabled
+     */
+    private final ProgressReporter reporter;
+
+    /**
+     * Create a new parallel simulation
+     * 
+     * @param partitions Simulator of each partition
+     * @param lookahead  Duration of a window, in nanoseconds
+     * @param stopTime   Time where the simulation will be stopped, in
+     *                   nanoseconds
+     * @param firstRank  Rank of the first event run
+     * @param reporter   Reporter of the progress, or null if not enabled
+     */
+    ParallelSimulation(Simulator[] partitions, long lookahead, long stopTime, long firstRank,
+            ProgressReporter reporter) {
+        this.partitions = partitions;
+        this.lookahead = lookahead;
+        this.stopTime = stopTime;
+        this.startWindowBarrier = new CyclicBarrier(partitions.length, this::startWindow);
+        this.endWindowBarrier = new CyclicBarrier(partitions.length, this::endWindow);
+        this.nextTimes = new long[partitions.length];
+        this.windowEnd = 0;
+        this.finished = false;
+        this.nextRank = firstRank;
+        this.numberWindows = 0;
+        this.failure = null;
+        this.reporter = reporter;
+    }
+
+    /**
+     * Run the simulation until no event remains before the stop time.
+     * Returns once all the partitions are stopped
+     * 
+     * @return The rank of the next event to run
+     */
+    long run() {
+        Thread[] threads = new Thread[this.partitions.length];
+        for (int i = 1; i < this.partitions.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> this.runPartition(index), "Partition-" + i);
+            threads[i].start();
+        }
+        this.runPartition(0);
+        for (int i = 1; i < this.partitions.length; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.fail(e);
+            }
+        }
+
+        if (this.failure instanceof RuntimeException) {
+            throw (RuntimeException) this.failure;
+        }
+        if (this.failure instanceof Error) {
+            throw (Error) this.failure;
+        }
+        if (this.failure != null) {
+            throw new NetworksCriticalException();
+        }
+        return this.nextRank;
+    }
+
+    /**
+     * Get the number of windows run
+     * 
+     * @return The number of windows
+     */
+    long getNumberWindows() {
+        return this.numberWindows;
+    }
+
+    /**
+     * Run the windows of a partition.
+     * A partition raising an error keeps reaching the barriers, so the other
+     * partitions are not blocked, until the simulation is stopped at the start
+     * of the next window
+     * 
+     * @param index Index of the partition
+     */
+    private void runPartition(int index) {
+        Simulator partition = this.partitions[index];
+        if (index != 0) {
+            Simulator.setCurrentPartition(partition);
+        }
+        partition.setWorker(Thread.currentThread());
+        try {
+            while (true) {
+                this.nextTimes[index] = Long.MAX_VALUE;
+                this.runSafely(() -> this.nextTimes[index] = partition.getNextEventTime());
+                this.startWindowBarrier.await();
+                if (this.finished) {
+                    break;
+                }
+                this.runSafely(() -> partition.runWindow(this.windowEnd));
+                this.endWindowBarrier.await();
+                this.runSafely(partition::receiveEvents);
+            }
+        } catch (BrokenBarrierException e) {
+            // A barrier action failed, its error is raised instead
+        } catch (InterruptedException e) {
+            this.fail(e);
+        } finally {
+            partition.setWorker(null);
+            if (index != 0) {
+                Simulator.setCurrentPartition(null);
+            }
+        }
+    }
+
+    /**
+     * Run an action of a partition, unless a partition already failed
+     * 
+     * @param action The action to run
+     */
+    private void runSafely(Runnable action) {
+        if (this.failure != null) {
+            return;
+        }
+        try {
+            action.run();
+        } catch (Throwable t) {
+            this.fail(t);
+        }
+    }
+
+    /**
+     * Keep the first error raised by a partition
+     * 
+     * @param t The error raised
+     */
+    private synchronized void fail(Throwable t) {
+        if (this.failure == null) {
+            this.failure = t;
+        }
+    }
+
+    /**
+     * Compute the end of the next window, or stop the simulation if no event
+     * remains before the stop time. Run by the last partition reaching the
+     * barrier
+     */
+    private void startWindow() {
+        long start = Long.MAX_VALUE;
+        for (long time : this.nextTimes) {
+            start = Math.min(start, time);
+        }
+        if (this.failure != null || start > this.stopTime) {
+            this.finished = true;
+            return;
+        }
+        this.windowEnd = start > Long.MAX_VALUE - this.lookahead ? Long.MAX_VALUE : start + this.lookahead;
+        this.numberWindows++;
+    }
+
+    /**
+     * Merge the events run in the window by all partitions, giving them their
+     * final rank and writing their output. Run by the last partition reaching
+     * the barrier
+     */
+    private void endWindow() {
+        if (this.failure != null) {
+            return;
+        }
+        PartitionWindow[] windows = new PartitionWindow[this.partitions.length];
+        int[] positions = new int[this.partitions.length];
+        for (int i = 0; i < this.partitions.length; i++) {
+            windows[i] = this.partitions[i].getWindow();
+        }
+
+        while (true) {
+            int best = -1;
+            for (int i = 0; i < windows.length; i++) {
+                if (positions[i] < windows[i].size() && (best == -1
+                        || windows[i].compare(positions[i], windows[best], positions[best]) < 0)) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            windows[best].commitEvent(positions[best], this.nextRank);
+            positions[best]++;
+            this.nextRank++;
+        }
+
+        for (PartitionWindow window : windows) {
+            window.endWindow();
+        }
+
+        if (this.reporter != null) {
+            int queueSize = 0;
+            for (Simulator partition : this.partitions) {
+                queueSize += partition.getEventQueueSize();
+            }
+            this.reporter.publish(Math.min(this.windowEnd, this.stopTime), this.nextRank, queueSize);
+        }
+    }
+}
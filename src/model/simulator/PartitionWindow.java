@@ -0,0 +1,296 @@
+package model.simulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * State of one partition of a parallel simulation during a time window.
+ * It records the events run in the window and the output they produced, so
+ * the windows of all partitions can be merged in the same order as a
+ * sequential run. It also stores the events sent to other partitions until
+ * the end of the window.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see ParallelSimulation
+ */
+class PartitionWindow {
+
+    /**
+     * First rank given to events run in the current window, before their final
+     * rank is known. Events run in previous windows always have a lower rank
+     */
+    static final long PROVISIONAL_RANK = 1L << 62;
+
+    /**
+     * Initial capacity of the arrays recording events
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Index of this partition
+     */
+    private final int index;
+
+    /**
+     * Events sent to each other partition during the current window
+     */
+    private final ArrayList<ArrayList<Event>> outboxes;
+
+    /**
+     * Events scheduled during the current window, whose parent has a
+     * provisional rank
+     */
+    private final ArrayList<Event> created;
+
+    /**
+     * Time of each event run in the current window, in nanoseconds
+     */
+    private long[] times;
+
+    /**
+     * Parent rank of each event run in the current window
+     */
+    private long[] parentRanks;
+
+    /**
+     * Sequence of each event run in the current window
+     */
+    private long[] sequences;
+
+    /**
+     * Index in the output of the end of the output of each event run in the
+     * current window
+     */
+    private int[] outputEnds;
+
+    /**
+     * Final rank of each event run in the current window, known once the
+     * windows of all partitions are merged
+     */
+    private long[] ranks;
+
+    /**
+     * Number of events run in the current window
+     */
+    private int size;
+
+    /**
+     * Destination of each text written during the current window
+     */
+    private final ArrayList<Appendable> outputTargets;
+
+    /**
+     * Texts written during the current window
+     */
+    private final ArrayList<String> outputTexts;
+
+    /**
+     * Outputs deferred by the events run in the current window, null for a
+     * text
+     */
+    private final ArrayList<Runnable> outputActions;
+
+    /**
+     * Create a new partition
+     * 
+     * @param index            Index of this partition
+     * @param numberPartitions Total number of partitions
+     */
+    PartitionWindow(int index, int numberPartitions) {
+        this.index = index;
+        this.outboxes = new ArrayList<ArrayList<Event>>();
+        for (int i = 0; i < numberPartitions; i++) {
+            this.outboxes.add(new ArrayList<Event>());
+        }
+        this.created = new ArrayList<Event>();
+        this.times = new long[PartitionWindow.INITIAL_CAPACITY];
+        this.parentRanks = new long[PartitionWindow.INITIAL_CAPACITY];
+        this.sequences = new long[PartitionWindow.INITIAL_CAPACITY];
+        this.outputEnds = new int[PartitionWindow.INITIAL_CAPACITY];
+        this.ranks = new long[PartitionWindow.INITIAL_CAPACITY];
+        this.size = 0;
+        this.outputTargets = new ArrayList<Appendable>();
+        this.outputTexts = new ArrayList<String>();
+        this.outputActions = new ArrayList<Runnable>();
+    }
+
+    /**
+     * Get the index of this partition
+     * 
+     * @return The index
+     */
+    int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Get the events sent to a partition during the current window
+     * 
+     * @param destination Index of the destination partition
+     * @return The list of events
+     */
+    ArrayList<Event> getOutbox(int destination) {
+        return this.outboxes.get(destination);
+    }
+
+    /**
+     * Keep an event scheduled during the current window, so the rank of its
+     * parent is updated at the end of the window
+     * 
+     * @param event The event scheduled
+     */
+    void addCreated(Event event) {
+        this.created.add(event);
+    }
+
+    /**
+     * Record an event about to be run
+     * 
+     * @param event The event
+     * @return The provisional rank of the event
+     */
+    long addEvent(Event event) {
+        if (this.size == this.times.length) {
+            int capacity = 2 * this.size;
+            this.times = Arrays.copyOf(this.times, capacity);
+            this.parentRanks = Arrays.copyOf(this.parentRanks, capacity);
+            this.sequences = Arrays.copyOf(this.sequences, capacity);
+            this.outputEnds = Arrays.copyOf(this.outputEnds, capacity);
+            this.ranks = Arrays.copyOf(this.ranks, capacity);
+        }
+        this.times[this.size] = event.getTimeNanoSeconds();
+        this.parentRanks[this.size] = event.getParentRank();
+        this.sequences[this.size] = event.getSequence();
+        this.size++;
+        return PartitionWindow.PROVISIONAL_RANK + this.size - 1;
+    }
+
+    /**
+     * Mark the end of the output of the last event recorded
+     */
+    void endEvent() {
+        this.outputEnds[this.size - 1] = this.outputTexts.size();
+    }
+
+    /**
+     * Keep a text to write once the windows are merged
+     * 
+     * @param target Destination of the text
+     * @param text   The text
+     */
+    void print(Appendable target, String text) {
+        this.outputTargets.add(target);
+        this.outputTexts.add(text);
+        this.outputActions.add(null);
+    }
+
+    /**
+     * Keep an output to run once the windows are merged
+     * 
+     * @param output The output to run
+     */
+    void defer(Runnable output) {
+        this.outputTargets.add(null);
+        this.outputTexts.add(null);
+        this.outputActions.add(output);
+    }
+
+    /**
+     * Write a text or run an output kept
+     * 
+     * @param k Index of the output
+     */
+    private void writeOutput(int k) {
+        if (this.outputActions.get(k) != null) {
+            this.outputActions.get(k).run();
+            return;
+        }
+        try {
+            this.outputTargets.get(k).append(this.outputTexts.get(k));
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write simulation output");
+        }
+    }
+
+    /**
+     * Get the number of events run in the current window
+     * 
+     * @return The number of events
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Compare two events run in the current window, possibly in different
+     * partitions. Parents of both events must already have their final rank
+     * 
+     * @param i     Index of the event in this partition
+     * @param other The other partition
+     * @param j     Index of the event in the other partition
+     * @return A negative integer, zero, or a positive integer as the first
+     *         event is less than, equal to, or greater than the second one
+     */
+    int compare(int i, PartitionWindow other, int j) {
+        if (this.times[i] != other.times[j]) {
+            return Long.compare(this.times[i], other.times[j]);
+        }
+        long parent = this.getFinalRank(this.parentRanks[i]);
+        long otherParent = other.getFinalRank(other.parentRanks[j]);
+        if (parent != otherParent) {
+            return Long.compare(parent, otherParent);
+        }
+        return Long.compare(this.sequences[i], other.sequences[j]);
+    }
+
+    /**
+     * Give its final rank to an event run in the current window, and write its
+     * output
+     * 
+     * @param i    Index of the event
+     * @param rank The final rank
+     */
+    void commitEvent(int i, long rank) {
+        this.ranks[i] = rank;
+        int start = i == 0 ? 0 : this.outputEnds[i - 1];
+        for (int k = start; k < this.outputEnds[i]; k++) {
+            this.writeOutput(k);
+        }
+    }
+
+    /**
+     * Replace the provisional ranks of the parents of the events scheduled in
+     * the current window by their final rank, and start a new window. Must be
+     * called once all the events of the window are committed
+     */
+    void endWindow() {
+        for (Event event : this.created) {
+            if (event.getParentRank() >= PartitionWindow.PROVISIONAL_RANK) {
+                event.setOrder(this.getFinalRank(event.getParentRank()), event.getSequence());
+            }
+        }
+        this.created.clear();
+        this.size = 0;
+        this.outputTargets.clear();
+        this.outputTexts.clear();
+        this.outputActions.clear();
+    }
+
+    /**
+     * Get the final rank matching a rank, possibly provisional
+     * 
+     * @param rank The rank
+     * @return The final rank
+     */
+    private long getFinalRank(long rank) {
+        if (rank >= PartitionWindow.PROVISIONAL_RANK) {
+            return this.ranks[(int) (rank - PartitionWindow.PROVISIONAL_RANK)];
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,89 @@
+package model.simulator;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Handle of an event taken from the event pool of the simulator.
+ * The event is recycled once run or dropped, so the handle keeps the
+ * generation of the event when it was scheduled: once the event is released,
+ * its generation changes and the handle acts as the one of an event already
+ * run, instead of reaching the event now using the object.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator#enableEventPool()
+ */
+class PooledEventHandle implements EventHandle {
+
+    /**
+     * The event, possibly recycled since
+     */
+    private final Event event;
+
+    /**
+     * Generation of the event when it was scheduled
+     */
+    private final int generation;
+
+    /**
+     * Time of the event, in nanoseconds
+     */
+    private final long time;
+
+    /**
+     * Create the handle of an event just scheduled
+     * 
+     * @param event The event
+     */
+    PooledEventHandle(Event event) {
+        this.event = event;
+        this.generation = event.getGeneration();
+        this.time = event.getTimeNanoSeconds();
+    }
+
+    /**
+     * Indicates if this handle refers to an event
+     * 
+     * @param event The event
+     * @return True if the event is the one of this handle and is not recycled
+     */
+    boolean isHandleOf(Event event) {
+        return this.event == event && !this.isStale();
+    }
+
+    @Override
+    public boolean cancel() {
+        if (this.isStale()) {
+            return false;
+        }
+        return this.event.cancel();
+    }
+
+    @Override
+    public EventHandle reschedule(Time time) {
+        if (this.isStale()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot reschedule an event once run with the event pool");
+        }
+        return this.event.reschedule(time);
+    }
+
+    @Override
+    public boolean isPending() {
+        return !this.isStale() && this.event.isPending();
+    }
+
+    @Override
+    public Time getTime() {
+        return Time.nanoSeconds(this.time);
+    }
+
+    /**
+     * Indicates if the event has been released since it was scheduled
+     * 
+     * @return True if the handle does not refer to its event anymore
+     */
+    private boolean isStale() {
+        return this.event.getGeneration() != this.generation;
+    }
+}
@@ -0,0 +1,251 @@
+package model.simulator;
+
+import java.io.PrintStream;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reporter of the progress of a simulation, printing at a fixed wall-clock
+ * interval from a background thread. Unlike the progress bar, it does not
+ * schedule any event: the simulator publishes an immutable snapshot of its
+ * time, of the number of events run and of the size of its queue in a volatile
+ * field, every {@link #PUBLISH_INTERVAL} events and at the end of each run, and
+ * the thread reads it, so the values of a report always come from the same
+ * snapshot.
+ * 
+ * Each report gives the simulation time, the number of events run per
+ * wall-clock second and the number of simulated seconds per wall-clock second
+ * over the last interval, the heap used, and the wall-clock time left to reach
+ * the stop time at the current speed.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator#enableProgressReporter(Time)
+ */
+public class ProgressReporter {
+
+    /**
+     * Number of events run between two snapshots published by the simulator
+     */
+    static final int PUBLISH_INTERVAL = 1024;
+
+    /**
+     * Number of bytes in a mebibyte
+     */
+    private static final long BYTES_IN_MEBIBYTE = 1024 * 1024;
+
+    /**
+     * Wall-clock interval between two reports, in nanoseconds
+     */
+    private final long interval;
+
+    /**
+     * Stream the reports are printed to
+     */
+    private PrintStream output;
+
+    /**
+     * Stop time of the simulation reported, in nanoseconds
+     */
+    private volatile long stopTime;
+
+    /**
+     * Last snapshot published by the simulator
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Thread printing the reports, or null if not started
+     */
+    private Thread thread;
+
+    /**
+     * Number of reports printed since started
+     */
+    private volatile long reports;
+
+    /**
+     * Create a new reporter
+     * 
+     * @param interval Wall-clock interval between two reports, in nanoseconds
+     */
+    ProgressReporter(long interval) {
+        this.interval = interval;
+        this.output = System.out;
+        this.thread = null;
+        this.reports = 0;
+    }
+
+    /**
+     * Create a new reporter with the same configuration as another one
+     * 
+     * @param other The reporter to copy
+     */
+    ProgressReporter(ProgressReporter other) {
+        this(other.interval);
+        this.output = other.output;
+    }
+
+    /**
+     * Get the wall-clock interval between two reports
+     * 
+     * @return The interval
+     */
+    public Time getInterval() {
+        return Time.nanoSeconds(this.interval);
+    }
+
+    /**
+     * Set the stream the reports are printed to, the standard output by
+     * default
+     * 
+     * @param output The stream
+     */
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Get the number of reports printed since the simulation started
+     * 
+     * @return The number of reports
+     */
+    public long getReports() {
+        return this.reports;
+    }
+
+    /**
+     * Publish a snapshot of the simulation
+     * 
+     * @param time      Current time, in nanoseconds
+     * @param events    Number of events run
+     * @param queueSize Number of events in the queue
+     */
+    void publish(long time, long events, int queueSize) {
+        this.snapshot = new Snapshot(time, events, queueSize);
+    }
+
+    /**
+     * Start the thread printing the reports
+     * 
+     * @param stopTime  Stop time of the simulation, in nanoseconds
+     * @param time      Current time, in nanoseconds
+     * @param events    Number of events run
+     * @param queueSize Number of events in the queue
+     */
+    void start(long stopTime, long time, long events, int queueSize) {
+        this.stopTime = stopTime;
+        this.publish(time, events, queueSize);
+        this.reports = 0;
+        this.thread = new Thread(this::run, "ProgressReporter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stop the thread printing the reports, waiting for it to end
+     */
+    void stop() {
+        if (this.thread == null) {
+            return;
+        }
+        this.thread.interrupt();
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.thread = null;
+    }
+
+    /**
+     * Print a report at each interval until interrupted
+     */
+    private void run() {
+        long lastWallTime = System.nanoTime();
+        Snapshot last = this.snapshot;
+        while (true) {
+            long deadline = lastWallTime + this.interval;
+            long remaining = deadline - System.nanoTime();
+            while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            long wallTime = System.nanoTime();
+            Snapshot snapshot = this.snapshot;
+            this.output.println(ProgressReporter.format(snapshot.time, this.stopTime, snapshot.events - last.events,
+                    snapshot.time - last.time, wallTime - lastWallTime, snapshot.queueSize));
+            this.reports++;
+            lastWallTime = wallTime;
+            last = snapshot;
+        }
+    }
+
+    /**
+     * Format a report
+     * 
+     * @param time      Simulation time, in nanoseconds
+     * @param stopTime  Stop time of the simulation, in nanoseconds
+     * @param events    Number of events run during the interval
+     * @param simulated Simulation time elapsed during the interval, in
+     *                  nanoseconds
+     * @param elapsed   Wall-clock time elapsed during the interval, in
+     *                  nanoseconds
+     * @param queueSize Number of events in the queue
+     * @return The report
+     */
+    static String format(long time, long stopTime, long events, long simulated, long elapsed, int queueSize) {
+        double seconds = (double) elapsed / Time.NANOSECONDS_IN_SECOND;
+        double speed = (double) simulated / elapsed;
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = (runtime.totalMemory() - runtime.freeMemory()) / ProgressReporter.BYTES_IN_MEBIBYTE;
+        long heapMax = runtime.maxMemory() / ProgressReporter.BYTES_IN_MEBIBYTE;
+
+        String eta = "unknown";
+        if (simulated > 0) {
+            long left = (long) ((stopTime - Math.min(time, stopTime)) / speed / Time.NANOSECONDS_IN_SECOND);
+            eta = String.format("%d:%02d:%02d", left / 3600, left / 60 % 60, left % 60);
+        }
+        return String.format(
+                "Progress: %s/%s (%.1f%%), %.0f events/s, speed %.1fx, queue %d, heap %d/%d MiB, ETA %s",
+                Time.nanoSeconds(time).toStringWithPrecision(3), Time.nanoSeconds(stopTime).toStringWithPrecision(3),
+                100.0 * time / stopTime, events / seconds, speed, queueSize, heapUsed, heapMax, eta);
+    }
+
+    /**
+     * State of the simulation published by the simulator
+     */
+    private static final class Snapshot {
+
+        /**
+         * Simulation time, in nanoseconds
+         */
+        private final long time;
+
+        /**
+         * Number of events run
+         */
+        private final long events;
+
+        /**
+         * Size of the event queue
+         */
+        private final int queueSize;
+
+        /**
+         * Create a new snapshot
+         * 
+         * @param time      Simulation time, in nanoseconds
+         * @param events    Number of events run
+         * @param queueSize Size of the event queue
+         */
+        Snapshot(long time, long events, int queueSize) {
+            this.time = time;
+            this.events = events;
+            this.queueSize = queueSize;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package model.simulator;
+
+import java.util.concurrent.locks.LockSupport;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Clock pacing a simulation run in real time, so simulation time tracks
+ * wall-clock time given by {@link System#nanoTime()}, scaled by a speed factor.
+ * Before each event, the simulator waits until the wall-clock time of the
+ * event is reached: the thread is parked while the wait is long, then spins
+ * for the last microseconds, so events are dispatched with a latency of a few
+ * microseconds without using a core when idle.
+ * 
+ * The lag of each event, the time between its wall-clock time and its
+ * dispatch, is measured. When it gets over a threshold, the simulation cannot
+ * keep up and a warning is logged, once until it catches up.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator#enableRealTime(double)
+ */
+public class RealTimeClock {
+
+    /**
+     * Default lag after which the simulation is considered late, in
+     * nanoseconds
+     */
+    public static final long DEFAULT_LAG_THRESHOLD = 10 * Time.NANOSECONDS_IN_MILLISECOND;
+
+    /**
+     * Duration of the end of a wait spent spinning instead of parking, in
+     * nanoseconds. Parking wakes up with a delay of some tens of microseconds
+     */
+    private static final long SPIN_DURATION = 100 * Time.NANOSECONDS_IN_MICROSECOND;
+
+    /**
+     * Number of simulated nanoseconds per wall-clock nanosecond
+     */
+    private final double speed;
+
+    /**
+     * Lag after which the simulation is considered late, in nanoseconds
+     */
+    private long lagThreshold;
+
+    /**
+     * Wall-clock time of the start of the run, in nanoseconds
+     */
+    private long startWallTime;
+
+    /**
+     * Simulation time of the start of the run, in nanoseconds
+     */
+    private long startTime;
+
+    /**
+     * Indicates if the lag of the last event is over the threshold
+     */
+    private boolean late;
+
+    /**
+     * Number of events dispatched
+     */
+    private long events;
+
+    /**
+     * Number of events dispatched with a lag over the threshold
+     */
+    private long lateEvents;
+
+    /**
+     * Sum of the lags of the events, in nanoseconds
+     */
+    private long totalLag;
+
+    /**
+     * Maximal lag of an event, in nanoseconds
+     */
+    private long maxLag;
+
+    /**
+     * Lag of the last event, in nanoseconds
+     */
+    private long lastLag;
+
+    /**
+     * Smoothed variation of the lag between two events, in nanoseconds
+     */
+    private double jitter;
+
+    /**
+     * Create a new clock
+     * 
+     * @param speed Number of simulated seconds per wall-clock second
+     */
+    RealTimeClock(double speed) {
+        if (!(speed > 0) || Double.isInfinite(speed)) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Real time speed factor must be strictly positive: " + speed);
+        }
+        this.speed = speed;
+        this.lagThreshold = RealTimeClock.DEFAULT_LAG_THRESHOLD;
+        this.late = false;
+        this.events = 0;
+        this.lateEvents = 0;
+        this.totalLag = 0;
+        this.maxLag = 0;
+        this.lastLag = 0;
+        this.jitter = 0;
+    }
+
+    /**
+     * Create a new clock with the same configuration as another one, without
+     * its statistics
+     * 
+     * @param other The clock to copy
+     */
+    RealTimeClock(RealTimeClock other) {
+        this(other.speed);
+        this.lagThreshold = other.lagThreshold;
+    }
+
+    /**
+     * Get the speed factor
+     * 
+     * @return The number of simulated seconds per wall-clock second
+     */
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Set the lag after which the simulation is considered late
+     * 
+     * @param lagThreshold The lag threshold
+     */
+    public void setLagThreshold(Time lagThreshold) {
+        this.lagThreshold = lagThreshold.toNanoSeconds();
+    }
+
+    /**
+     * Get the number of events dispatched since last reset
+     * 
+     * @return The number of events
+     */
+    public long getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Get the number of events dispatched with a lag over the threshold
+     * 
+     * @return The number of late events
+     */
+    public long getLateEvents() {
+        return this.lateEvents;
+    }
+
+    /**
+     * Get the maximal lag of an event
+     * 
+     * @return The maximal lag
+     */
+    public Time getMaxLag() {
+        return Time.nanoSeconds(this.maxLag);
+    }
+
+    /**
+     * Get the mean lag of the events
+     * 
+     * @return The mean lag
+     */
+    public Time getMeanLag() {
+        return Time.nanoSeconds(this.events == 0 ? 0 : this.totalLag / this.events);
+    }
+
+    /**
+     * Get the jitter of the lag, smoothed over the last events as for RTP
+     * (RFC 3550)
+     * 
+     * @return The jitter
+     */
+    public Time getJitter() {
+        return Time.nanoSeconds((long) this.jitter);
+    }
+
+    /**
+     * Start pacing from given simulation time, matched with the current
+     * wall-clock time
+     * 
+     * @param time Simulation time, in nanoseconds
+     */
+    void start(long time) {
+        this.startWallTime = System.nanoTime();
+        this.startTime = time;
+    }
+
+    /**
+     * Wait until the wall-clock time matching a simulation time is reached
+     * 
+     * @param time Simulation time, in nanoseconds
+     * @return The wall-clock time, in nanoseconds
+     */
+    long sleepUntil(long time) {
+        long target = this.startWallTime + (long) ((time - this.startTime) / this.speed);
+        long remaining = target - System.nanoTime();
+        while (remaining > 0) {
+            if (remaining > RealTimeClock.SPIN_DURATION) {
+                LockSupport.parkNanos(remaining - RealTimeClock.SPIN_DURATION);
+            } else {
+                Thread.onSpinWait();
+            }
+            remaining = target - System.nanoTime();
+        }
+        return target;
+    }
+
+    /**
+     * Wait for the wall-clock time of an event, then measure its lag
+     * 
+     * @param time Time of the event, in nanoseconds
+     */
+    void dispatch(long time) {
+        long target = this.sleepUntil(time);
+        long lag = System.nanoTime() - target;
+        this.events++;
+        this.totalLag += lag;
+        this.maxLag = Math.max(this.maxLag, lag);
+        this.jitter += (Math.abs(lag - this.lastLag) - this.jitter) / 16;
+        this.lastLag = lag;
+
+        if (lag > this.lagThreshold) {
+            this.lateEvents++;
+            if (!this.late) {
+                this.late = true;
+                Logger.getInstance().log(LogSeverity.WARNING, "RealTimeClock.dispatch",
+                        () -> "Real time simulation cannot keep up, late by "
+                                + Time.nanoSeconds(lag).toStringWithPrecision(6));
+            }
+        } else if (this.late) {
+            this.late = false;
+            Logger.getInstance().log(LogSeverity.INFO, "RealTimeClock.dispatch", "Real time simulation caught up");
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package model.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.io.PacketTracer;
+import model.link.Link;
+import model.logger.Logger;
+import model.network.MacAddressContainer;
+import model.utils.IdGenerator;
+import model.utils.RandomGenerator;
+
+/**
+ * Context of a simulation, owning its state: the simulator, the logger, the
+ * packet tracer, the ID generator, the MAC addresses container, the random
+ * generator and the links created.
+ * Each thread has its own current context, created on first use, so several
+ * simulations can run at the same time in one JVM, one per thread. The
+ * getInstance() methods of these classes give the instance of the current
+ * context.
+ * 
+ * A context is confined to one thread: it must not be used by another thread
+ * while it is current. During a parallel simulation, each partition is run with
+ * its own context, sharing all the state of the context of the simulation but
+ * its simulator.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see Simulator
+ */
+public class SimulationContext {
+
+    /**
+     * Context of the simulation run by each thread
+     */
+    private static final ThreadLocal<SimulationContext> current = ThreadLocal.withInitial(SimulationContext::new);
+
+    /**
+     * Context of the simulation, this one unless this context is the one of a
+     * partition
+     */
+    private final SimulationContext root;
+
+    /**
+     * Simulator of this context
+     */
+    private Simulator simulator;
+
+    /**
+     * Logger of this context
+     */
+    private Logger logger;
+
+    /**
+     * Packet tracer of this context
+     */
+    private PacketTracer packetTracer;
+
+    /**
+     * ID generator of this context
+     */
+    private IdGenerator idGenerator;
+
+    /**
+     * MAC addresses container of this context
+     */
+    private MacAddressContainer macAddressContainer;
+
+    /**
+     * Random generator of this context
+     */
+    private RandomGenerator randomGenerator;
+
+    /**
+     * Links created in this context
+     */
+    private final ArrayList<Link> links;
+
+    /**
+     * Create a new empty context. Its content is created on first use
+     */
+    public SimulationContext() {
+        this.root = this;
+        this.simulator = null;
+        this.logger = null;
+        this.packetTracer = null;
+        this.idGenerator = null;
+        this.macAddressContainer = null;
+        this.randomGenerator = null;
+        this.links = new ArrayList<Link>();
+    }
+
+    /**
+     * Create the context of a partition of a parallel simulation
+     * 
+     * @param root Context of the simulation
+     */
+    SimulationContext(SimulationContext root) {
+        this.root = root;
+        this.simulator = null;
+        this.logger = null;
+        this.packetTracer = null;
+        this.idGenerator = null;
+        this.macAddressContainer = null;
+        this.randomGenerator = null;
+        this.links = null;
+    }
+
+    /**
+     * Get the context of the simulation run by the current thread. Construct it
+     * if not already created
+     * 
+     * @return The current context
+     */
+    public static SimulationContext getCurrent() {
+        return SimulationContext.current.get();
+    }
+
+    /**
+     * Set the context of the simulation run by the current thread
+     * 
+     * @param context The context, or null to create a new one on next use
+     */
+    public static void setCurrent(SimulationContext context) {
+        if (context == null) {
+            SimulationContext.current.remove();
+        } else {
+            SimulationContext.current.set(context);
+        }
+    }
+
+    /**
+     * Get the simulator of this context. Construct it if not already created
+     * 
+     * @return The simulator
+     */
+    public Simulator getSimulator() {
+        if (this.simulator == null) {
+            this.simulator = new Simulator(this);
+        }
+        return this.simulator;
+    }
+
+    /**
+     * Get the logger of this context. Construct it if not already created
+     * 
+     * @return The logger
+     */
+    public Logger getLogger() {
+        if (this.root != this) {
+            return this.root.getLogger();
+        }
+        if (this.logger == null) {
+            this.logger = new Logger();
+        }
+        return this.logger;
+    }
+
+    /**
+     * Remove the logger of this context. A new one is created on next use
+     * 
+     * @return The logger removed, or null if not created
+     */
+    public Logger removeLogger() {
+        if (this.root != this) {
+            return this.root.removeLogger();
+        }
+        Logger logger = this.logger;
+        this.logger = null;
+        return logger;
+    }
+
+    /**
+     * Get the packet tracer of this context. Construct it if not already
+     * created, writing to the trace of the scenario of the simulator
+     * 
+     * @return The packet tracer
+     */
+    public PacketTracer getPacketTracer() {
+        if (this.root != this) {
+            return this.root.getPacketTracer();
+        }
+        if (this.packetTracer == null) {
+            Simulator simulator = this.getSimulator();
+            this.packetTracer = new PacketTracer(simulator.getScenarioName(), simulator.isBinaryTraceEnabled(),
+                    simulator.isAsyncTraceEnabled(), simulator.getPcapSnapLength());
+        }
+        return this.packetTracer;
+    }
+
+    /**
+     * Remove the packet tracer of this context. A new one is created on next
+     * use
+     * 
+     * @return The packet tracer removed, or null if not created
+     */
+    public PacketTracer removePacketTracer() {
+        if (this.root != this) {
+            return this.root.removePacketTracer();
+        }
+        PacketTracer packetTracer = this.packetTracer;
+        this.packetTracer = null;
+        return packetTracer;
+    }
+
+    /**
+     * Get the ID generator of this context. Construct it if not already created
+     * 
+     * @return The ID generator
+     */
+    public IdGenerator getIdGenerator() {
+        if (this.root != this) {
+            return this.root.getIdGenerator();
+        }
+        if (this.idGenerator == null) {
+            this.idGenerator = new IdGenerator();
+        }
+        return this.idGenerator;
+    }
+
+    /**
+     * Get the MAC addresses container of this context. Construct it if not
+     * already created
+     * 
+     * @return The MAC addresses container
+     */
+    public MacAddressContainer getMacAddressContainer() {
+        if (this.root != this) {
+            return this.root.getMacAddressContainer();
+        }
+        if (this.macAddressContainer == null) {
+            this.macAddressContainer = new MacAddressContainer();
+        }
+        return this.macAddressContainer;
+    }
+
+    /**
+     * Get the random generator of this context. Construct it if not already
+     * created
+     * 
+     * @return The random generator
+     */
+    public RandomGenerator getRandomGenerator() {
+        if (this.root != this) {
+            return this.root.getRandomGenerator();
+        }
+        if (this.randomGenerator == null) {
+            this.randomGenerator = new RandomGenerator();
+        }
+        return this.randomGenerator;
+    }
+
+    /**
+     * Add a link created in this context
+     * 
+     * @param link The link
+     */
+    public void addLink(Link link) {
+        if (this.root != this) {
+            this.root.addLink(link);
+            return;
+        }
+        this.links.add(link);
+    }
+
+    /**
+     * Get the links created in this context
+     * 
+     * @return The links, in creation order
+     */
+    public List<Link> getLinks() {
+        if (this.root != this) {
+            return this.root.getLinks();
+        }
+        return this.links;
+    }
+}
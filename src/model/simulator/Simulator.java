@@ -1,183 +1,2183 @@
 package model.simulator;
 
-import java.util.TreeSet;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import model.io.PacketTracer;
+import model.io.PcapngWriter;
+import model.link.Link;
 import model.logger.LogSeverity;
 import model.logger.Logger;
 
 /**
  * The simulator is used to scehdule events in the future.
- * It uses Singleton template.
+ * Each simulation context has its own simulator, see {@link SimulationContext}.
+ * 
+ * The simulation can be split in partitions run in parallel, each one having
+ * its own simulator. Events touching a node must then be scheduled on the
+ * simulator of the partition of the node, see {@link #getPartition(int)}.
+ * While a parallel simulation runs, {@link #getInstance()} gives the simulator
+ * of the partition run by the current thread, as each partition is run with
+ * its own context.
  * 
  * @author Bastien Tauran
  * @version 1.0
  * @see Event
- * @see SchedulableMethod
+ * @see EventQueue
  */
-public class Simulator implements Schedulable {
+public class Simulator {
+
+    /**
+     * Context owning this simulator
+     */
+    private final SimulationContext context;
+
+    /**
+     * Name of the scenario
+     */
+    private String scenarioName;
+
+    /**
+     * Current time in simulation, in nanoseconds
+     */
+    private long currentTime;
+
+    /**
+     * Last instance of Time returned for current time. Time is immutable, so it
+     * can be shared until current time changes
+     */
+    private Time currentTimeInstance;
+
+    /**
+     * Time where the simulation will be stopped, in nanoseconds
+     */
+    private long stopTime;
+
+    /**
+     * Print progress bar in console if set to true
+     */
+    private boolean enableProgressBar;
+
+    /**
+     * Write the packet trace in binary format if set to true
+     */
+    private boolean enableBinaryTrace;
+
+    /**
+     * Format and write the text packet trace on a background thread if set to
+     * true
+     */
+    private boolean enableAsyncTrace;
+
+    /**
+     * Maximal number of bytes of each frame captured in the pcapng trace, or 0
+     * if not captured
+     */
+    private int pcapSnapLength;
+
+    /**
+     * Interval between to prints on the console of progress, in nanoseconds
+     */
+    private long progressBarStep;
+
+    /**
+     * Action printing the progress bar and scheduling the next print, created
+     * once to be scheduled repeatedly
+     */
+    private final Runnable repeatProgressBarAction;
+
+    /**
+     * Wheel of the short and periodic timers, or null if not used yet
+     */
+    private TimingWheel timingWheel;
+
+    /**
+     * Indicates if the simulation has been launched
+     */
+    private boolean running;
+
+    /**
+     * Indicates if the simulation has been started and is not finished yet. It
+     * stays started between the calls running it by chunks, keeping its trace
+     * open
+     */
+    private boolean started;
+
+    /**
+     * Indicates if an event asked to pause the simulation
+     */
+    private boolean paused;
+
+    /**
+     * Type of the queue storing the events
+     */
+    private EventQueueType eventQueueType;
+
+    /**
+     * The list of events to schedule
+     */
+    private EventQueue events;
+
+    /**
+     * Recorder of the operations on the event queue, or null if disabled
+     */
+    private EventScheduleRecorder recorder;
+
+    /**
+     * Events are taken from the pool and given back to it after being run if set
+     * to true
+     */
+    private boolean enableEventPool;
+
+    /**
+     * Check the use of released events if set to true
+     */
+    private boolean enableEventPoolDebug;
+
+    /**
+     * First released event ready to be used again. Released events are chained
+     * together
+     */
+    private Event freeEvents;
+
+    /**
+     * Released events not yet ready to be used again in debug mode, so late
+     * uses of these events are detected
+     */
+    private ArrayDeque<Event> quarantinedEvents;
+
+    /**
+     * Number of released events kept in quarantine in debug mode
+     */
+    private static final int QUARANTINE_SIZE = 1024;
+
+    /**
+     * Events scheduled at the current time during a sequential run, in
+     * scheduling order. They skip the queue, as they are run before time
+     * advances
+     */
+    private ArrayDeque<Event> fastLane;
+
+    /**
+     * Use the fast lane for events scheduled at the current time if set to true
+     */
+    private boolean enableFastLane;
+
+    /**
+     * Indicates if events scheduled at the current time are added to the fast
+     * lane. It is the case while a sequential run is in progress
+     */
+    private boolean fastLaneRunning;
+
+    /**
+     * Number of events scheduled through the fast lane since last reset
+     */
+    private long fastLaneEvents;
+
+    /**
+     * Clock pacing the run in real time, or null if the run is not paced
+     */
+    private RealTimeClock realTimeClock;
+
+    /**
+     * Reporter of the progress on a background thread, or null if not enabled
+     */
+    private ProgressReporter progressReporter;
+
+    /**
+     * Profiler of the event loop, or null if profiling is disabled
+     */
+    private EventProfiler profiler;
+
+    /**
+     * Sources of lazily scheduled entries not fully pulled yet
+     */
+    private ArrayList<LazyEventSource> lazySources;
+
+    /**
+     * Number of cancelled events still in the queue
+     */
+    private int cancelledEvents;
+
+    /**
+     * Maximum ratio of cancelled events in the queue before they are removed
+     */
+    private double compactionThreshold;
+
+    /**
+     * Number of events scheduled since last reset
+     */
+    private long eventsScheduled;
+
+    /**
+     * Number of events allocated since last reset
+     */
+    private long eventsAllocated;
+
+    /**
+     * Number of handles of pooled events allocated since last reset
+     */
+    private long handlesAllocated;
+
+    /**
+     * Number of events taken from the pool and not given back to it yet
+     */
+    private long eventsInUse;
+
+    /**
+     * Unique ID given to events to differenciate ones one same date.
+     */
+    private long id;
+
+    /**
+     * Number of events run since last reset
+     */
+    private long eventsRun;
+
+    /**
+     * Number of events rolled back by optimistic simulations since last reset
+     */
+    private long eventsRolledBack;
+
+    /**
+     * Rank in execution order of the event being run
+     */
+    private long currentRank;
+
+    /**
+     * Number of events scheduled by the event being run
+     */
+    private long childSequence;
+
+    /**
+     * Number of events scheduled before the simulation starts
+     */
+    private long rootSequence;
+
+    /**
+     * Simulator of each partition. The first one is the instance of Simulator
+     */
+    private Simulator[] partitions;
+
+    /**
+     * Minimal delay between an event and the events it schedules on other
+     * partitions, in nanoseconds
+     */
+    private long lookahead;
+
+    /**
+     * State of this partition in the current window, or null if no parallel
+     * simulation is running
+     */
+    private PartitionWindow window;
+
+    /**
+     * End of the current window, excluded, in nanoseconds
+     */
+    private long windowEnd;
+
+    /**
+     * Thread running this partition, or null if no parallel simulation is
+     * running
+     */
+    private Thread worker;
+
+    /**
+     * Partitions run optimistically, rolling back the events run too early,
+     * instead of advancing by windows, if set to true
+     */
+    private boolean enableOptimisticSimulation;
+
+    /**
+     * State of this partition in an optimistic simulation, or null if no
+     * optimistic simulation is running
+     */
+    private OptimisticPartition optimistic;
+
+    /**
+     * Event being run in an optimistic simulation
+     */
+    private Event currentEvent;
+
+    /**
+     * Create the simulator of a context
+     * 
+     * @param context Context owning this simulator
+     */
+    Simulator(SimulationContext context) {
+        this.context = context;
+        this.scenarioName = "";
+        this.currentTime = 0;
+        this.currentTimeInstance = new Time();
+        this.stopTime = 0;
+        this.enableProgressBar = false;
+        this.enableBinaryTrace = false;
+        this.enableAsyncTrace = false;
+        this.pcapSnapLength = 0;
+        this.progressBarStep = 0;
+        this.repeatProgressBarAction = this::repeatProgressBar;
+        this.timingWheel = null;
+        this.running = false;
+        this.started = false;
+        this.paused = false;
+        this.eventQueueType = EventQueueType.CALENDAR;
+        this.events = this.eventQueueType.createEventQueue();
+        this.recorder = null;
+        this.enableEventPool = false;
+        this.enableEventPoolDebug = false;
+        this.freeEvents = null;
+        this.quarantinedEvents = new ArrayDeque<Event>();
+        this.fastLane = new ArrayDeque<Event>();
+        this.enableFastLane = true;
+        this.fastLaneRunning = false;
+        this.fastLaneEvents = 0;
+        this.realTimeClock = null;
+        this.profiler = null;
+        this.progressReporter = null;
+        this.lazySources = new ArrayList<LazyEventSource>();
+        this.cancelledEvents = 0;
+        this.compactionThreshold = 0.5;
+        this.eventsScheduled = 0;
+        this.eventsAllocated = 0;
+        this.handlesAllocated = 0;
+        this.eventsInUse = 0;
+        this.id = 0;
+        this.eventsRun = 0;
+        this.eventsRolledBack = 0;
+        this.currentRank = -1;
+        this.childSequence = 0;
+        this.rootSequence = 0;
+        this.partitions = new Simulator[] { this };
+        this.lookahead = 0;
+        this.window = null;
+        this.windowEnd = 0;
+        this.worker = null;
+        this.enableOptimisticSimulation = false;
+        this.optimistic = null;
+        this.currentEvent = null;
+    }
+
+    /**
+     * Get the instance of Simulator of the current simulation context. Construct
+     * it if not already created.
+     * During a parallel simulation, gives the simulator of the partition run by
+     * the current thread
+     * 
+     * @return The instance of Simulator
+     */
+    public static Simulator getInstance() {
+        return SimulationContext.getCurrent().getSimulator();
+    }
+
+    /**
+     * Get the context owning this simulator. For a partition of a parallel
+     * simulation, it is the context of the partition
+     * 
+     * @return The context
+     */
+    public SimulationContext getContext() {
+        return this.context;
+    }
+
+    /**
+     * Reset the simulation
+     */
+    public void reset() {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot reset simulation when running");
+        }
+        this.scenarioName = "";
+        this.currentTime = 0;
+        this.currentTimeInstance = new Time();
+        this.stopTime = 0;
+        this.started = false;
+        this.paused = false;
+        this.clearEvents();
+        this.events = this.eventQueueType.createEventQueue();
+        if (this.timingWheel != null) {
+            this.timingWheel = new TimingWheel(this, this.timingWheel.getResolution(),
+                    this.timingWheel.getNumberSlots(), this.timingWheel.getNumberLevels());
+        }
+        this.fastLaneEvents = 0;
+        if (this.realTimeClock != null) {
+            this.realTimeClock = new RealTimeClock(this.realTimeClock);
+        }
+        if (this.profiler != null) {
+            this.profiler = new EventProfiler(this.profiler);
+        }
+        if (this.progressReporter != null) {
+            this.progressReporter = new ProgressReporter(this.progressReporter);
+        }
+        this.lazySources.clear();
+        this.cancelledEvents = 0;
+        this.eventsScheduled = 0;
+        this.eventsAllocated = 0;
+        this.handlesAllocated = 0;
+        this.eventsInUse = 0;
+        this.id = 0;
+        this.eventsRun = 0;
+        this.eventsRolledBack = 0;
+        this.currentRank = -1;
+        this.childSequence = 0;
+        this.rootSequence = 0;
+        if (this.partitions[0] == this) {
+            for (int i = 1; i < this.partitions.length; i++) {
+                this.partitions[i].reset();
+            }
+        }
+    }
+
+    /**
+     * Split the simulation in partitions run in parallel by as many threads.
+     * Each node belongs to the partition given by {@link model.node.Node#getPartition()}.
+     * Partitions advance by windows lasting the lookahead, the lowest delay of
+     * the links between partitions unless set, see {@link #setLookahead(Time)}.
+     * Links between partitions must then have a delay, unless partitions run
+     * optimistically, see
+     * {@link #enableOptimisticSimulation()}.
+     * Traces are identical to the ones of a sequential run.
+     * 
+     * @param numberPartitions Number of partitions
+     */
+    public void enableParallelSimulation(int numberPartitions) {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot change partitions when running");
+        }
+        if (numberPartitions < 1) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Number of partitions must be strictly positive");
+        }
+        for (int i = numberPartitions; i < this.partitions.length; i++) {
+            if (!this.partitions[i].events.isEmpty()) {
+                Logger.getInstance().log(LogSeverity.CRITICAL,
+                        "Cannot remove partition " + i + " with events scheduled");
+            }
+        }
+
+        Simulator[] partitions = new Simulator[numberPartitions];
+        for (int i = 0; i < numberPartitions; i++) {
+            partitions[i] = i < this.partitions.length ? this.partitions[i]
+                    : new SimulationContext(this.context).getSimulator();
+        }
+        for (Simulator partition : partitions) {
+            partition.partitions = partitions;
+        }
+    }
+
+    /**
+     * Run the simulation sequentially
+     */
+    public void disableParallelSimulation() {
+        this.enableParallelSimulation(1);
+    }
+
+    /**
+     * Run the partitions of a parallel simulation optimistically: each
+     * partition runs its events without waiting for the other ones, and rolls
+     * them back when an event arrives too late. No lookahead is needed, which
+     * suits links between partitions with tiny delays. Traces are identical to
+     * the ones of a sequential run.
+     * Changes of the state of the model made by events must be recorded with
+     * {@link #addUndo(Runnable)}. Errors raised by an event stop the simulation
+     * only once the event is committed, as it may have been run too early
+     */
+    public void enableOptimisticSimulation() {
+        this.enableOptimisticSimulation = true;
+    }
+
+    /**
+     * Run the partitions of a parallel simulation conservatively, by windows
+     * lasting the lookahead
+     */
+    public void disableOptimisticSimulation() {
+        this.enableOptimisticSimulation = false;
+    }
+
+    /**
+     * Indicates if the changes of the state of the model must be recorded, so
+     * they can be undone. It is the case during an optimistic simulation
+     * 
+     * @return True if changes must be recorded with {@link #addUndo(Runnable)}
+     */
+    public boolean isRollbackEnabled() {
+        return this.optimistic != null;
+    }
+
+    /**
+     * Record the action undoing a change of the state of the model made by the
+     * event being run. If the event is rolled back, the actions it recorded are
+     * run in reverse order. Ignored outside an optimistic simulation
+     * 
+     * @param undo The action undoing the change
+     */
+    public void addUndo(Runnable undo) {
+        if (this.optimistic != null) {
+            this.optimistic.addUndo(undo);
+        }
+    }
+
+    /**
+     * Get the number of partitions of the simulation
+     * 
+     * @return The number of partitions, 1 if the simulation is sequential
+     */
+    public int getNumberPartitions() {
+        return this.partitions.length;
+    }
+
+    /**
+     * Get the simulator of a partition, used to schedule events on this
+     * partition. Events can be scheduled on another partition during a parallel
+     * simulation as long as they are after the end of the current window, or at
+     * any time if partitions run optimistically.
+     * In a sequential simulation, gives this simulator whatever the index
+     * 
+     * @param index Index of the partition
+     * @return The simulator of the partition
+     */
+    public Simulator getPartition(int index) {
+        if (this.partitions.length == 1) {
+            return this;
+        }
+        if (index < 0 || index >= this.partitions.length) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Partition " + index + " does not exist");
+        }
+        return this.partitions[index];
+    }
+
+    /**
+     * Set the lookahead of a parallel simulation: the minimal delay between an
+     * event and the events it schedules on other partitions. By default, it is
+     * the lowest propagation delay of the links between two partitions. A
+     * lookahead set is checked against them when the simulation starts
+     * 
+     * @param lookahead The lookahead
+     */
+    public void setLookahead(Time lookahead) {
+        if (lookahead.toNanoSeconds() == 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Lookahead must be strictly positive");
+        }
+        this.lookahead = lookahead.toNanoSeconds();
+    }
+
+    /**
+     * Use the lowest propagation delay of the links between two partitions as
+     * lookahead, which is the default
+     */
+    public void clearLookahead() {
+        this.lookahead = 0;
+    }
+
+    /**
+     * Get the lookahead of a parallel simulation, see
+     * {@link #setLookahead(Time)}
+     * 
+     * @return The lookahead set, else the lowest delay of the links between
+     *         partitions
+     */
+    public Time getLookahead() {
+        if (this.lookahead != 0) {
+            return Time.nanoSeconds(this.lookahead);
+        }
+        return Time.nanoSeconds(this.getLinksLookahead());
+    }
+
+    /**
+     * Get the lowest propagation delay of the links between two partitions
+     * 
+     * @return The delay in nanoseconds, or Long.MAX_VALUE if no link is between
+     *         two partitions
+     */
+    private long getLinksLookahead() {
+        long lookahead = Long.MAX_VALUE;
+        for (Link link : this.context.getLinks()) {
+            lookahead = Math.min(lookahead, link.getPartitionDelay());
+        }
+        return lookahead;
+    }
+
+    /**
+     * Set the type of queue used to store the events.
+     * Events already scheduled are moved to the new queue
+     * 
+     * @param eventQueueType The type of event queue
+     */
+    public void setEventQueueType(EventQueueType eventQueueType) {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot change event queue when running");
+        }
+        EventQueue events = eventQueueType.createEventQueue();
+        while (!this.events.isEmpty()) {
+            events.add(this.events.poll());
+        }
+        this.eventQueueType = eventQueueType;
+        this.events = events;
+    }
+
+    /**
+     * Get the type of queue used to store the events
+     * 
+     * @return The type of event queue
+     */
+    public EventQueueType getEventQueueType() {
+        return this.eventQueueType;
+    }
+
+    /**
+     * Record all the operations on the event queue until the end of the next
+     * run, so they can be replayed by the event queue benchmark.
+     * Must be called before scheduling the first event
+     * 
+     * @param path Path of the file to write
+     */
+    public void recordEventSchedule(String path) {
+        if (this.recorder != null) {
+            this.recorder.close();
+        }
+        this.recorder = new EventScheduleRecorder(path);
+    }
+
+    /**
+     * Set the time where the simulation will be stopped
+     * 
+     * @param stopTime Time where the simulation will be stopped
+     */
+    public void setStopTime(Time stopTime) {
+        if (stopTime.toNanoSeconds() == 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Stop time must be strictly positive");
+        }
+        this.stopTime = stopTime.toNanoSeconds();
+    }
+
+    /**
+     * Enable the event pool. Events are then recycled once run instead of
+     * being allocated for each schedule, and only a small handle checking that
+     * its event is not recycled is allocated. These handles are counted in
+     * the allocations, see {@link #getHandlesAllocated()}
+     */
+    public void enableEventPool() {
+        this.enableEventPool = true;
+    }
+
+    /**
+     * Disable the event pool
+     */
+    public void disableEventPool() {
+        this.enableEventPool = false;
+    }
+
+    /**
+     * Enable the detection of released events being used again.
+     * Released events are kept in quarantine for some time before being
+     * recycled, and a critical error is raised if one of them is run or
+     * released twice
+     */
+    public void enableEventPoolDebug() {
+        this.enableEventPoolDebug = true;
+    }
+
+    /**
+     * Disable the detection of released events being used again
+     */
+    public void disableEventPoolDebug() {
+        this.enableEventPoolDebug = false;
+        this.quarantinedEvents.clear();
+    }
+
+    /**
+     * Enable the fast lane: during a sequential run, events scheduled at the
+     * current time are kept in a FIFO list instead of the queue, and run before
+     * time advances. They run in the same order as through the queue. Enabled by
+     * default
+     */
+    public void enableFastLane() {
+        this.enableFastLane = true;
+    }
+
+    /**
+     * Disable the fast lane, all the events then go through the queue
+     */
+    public void disableFastLane() {
+        this.enableFastLane = false;
+    }
+
+    /**
+     * Get the number of events scheduled through the fast lane since last reset
+     * 
+     * @return The number of events
+     */
+    public long getFastLaneEvents() {
+        return this.fastLaneEvents;
+    }
+
+    /**
+     * Enable the real time mode: events of a sequential run are dispatched when
+     * the wall-clock time matching their time is reached, so simulation time
+     * tracks wall-clock time. The speed factor and the lag threshold are kept
+     * on reset
+     * 
+     * @param speed Number of simulated seconds per wall-clock second
+     */
+    public void enableRealTime(double speed) {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot change real time mode when running");
+        }
+        this.realTimeClock = new RealTimeClock(speed);
+    }
+
+    /**
+     * Disable the real time mode, events are then run as fast as possible
+     */
+    public void disableRealTime() {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot change real time mode when running");
+        }
+        this.realTimeClock = null;
+    }
+
+    /**
+     * Get the clock pacing the run in real time, giving the lag of the events
+     * 
+     * @return The clock, or null if the real time mode is disabled
+     */
+    public RealTimeClock getRealTimeClock() {
+        return this.realTimeClock;
+    }
+
+    /**
+     * Enable the profiler of the event loop: the events of sequential runs are
+     * timed by type of action, and the queue depth is sampled over simulated
+     * time. The report is logged when the simulation finishes. It stays enabled
+     * on reset, with its statistics cleared
+     */
+    public void enableProfiler() {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot enable profiler when running");
+        }
+        this.profiler = new EventProfiler();
+        if (this.started) {
+            this.profiler.start(this.stopTime);
+        }
+    }
+
+    /**
+     * Disable the profiler of the event loop
+     */
+    public void disableProfiler() {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot disable profiler when running");
+        }
+        this.profiler = null;
+    }
+
+    /**
+     * Get the profiler of the event loop
+     * 
+     * @return The profiler, or null if profiling is disabled
+     */
+    public EventProfiler getProfiler() {
+        return this.profiler;
+    }
+
+    /**
+     * Get the number of events scheduled since last reset
+     * 
+     * @return The number of events scheduled
+     */
+    public long getEventsScheduled() {
+        return this.eventsScheduled;
+    }
+
+    /**
+     * Get the number of events allocated since last reset
+     * 
+     * @return The number of events allocated
+     */
+    public long getEventsAllocated() {
+        return this.eventsAllocated;
+    }
+
+    /**
+     * Get the number of handles of pooled events allocated since last reset.
+     * With the event pool, each event scheduled allocates a handle, smaller
+     * than an event, as a handle cannot be reused while the caller may keep it
+     * 
+     * @return The number of handles allocated
+     */
+    public long getHandlesAllocated() {
+        return this.handlesAllocated;
+    }
+
+    /**
+     * Get the number of events taken from the pool and never given back to it
+     * during the last run. Pending events are given back when the run ends,
+     * so it is 0 unless events are lost. It is not counted for optimistic
+     * runs, whose events are kept for rollbacks
+     * 
+     * @return The number of events not released
+     */
+    public long getEventsNotReleased() {
+        return this.eventsInUse;
+    }
+
+    /**
+     * Get the number of events rolled back by optimistic simulations since
+     * last reset
+     * 
+     * @return The number of events rolled back
+     */
+    public long getEventsRolledBack() {
+        return this.eventsRolledBack;
+    }
+
+    /**
+     * Get the number of objects allocated per event scheduled since last
+     * reset, counting the events and the handles of pooled events. It is 1
+     * without the event pool. With it, it tends to 1 too, but the objects
+     * allocated are the handles, smaller than the events
+     * 
+     * @return The allocation rate
+     */
+    public double getEventAllocationRate() {
+        if (this.eventsScheduled == 0) {
+            return 0;
+        }
+        return 1.0 * (this.eventsAllocated + this.handlesAllocated) / this.eventsScheduled;
+    }
+
+    /**
+     * Set the maximum ratio of cancelled events in the queue. Cancelled events
+     * stay in the queue until they are reached, unless this ratio is exceeded:
+     * all of them are then removed at once
+     * 
+     * @param compactionThreshold The ratio, between 0 excluded and 1 included
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        if (compactionThreshold <= 0 || compactionThreshold > 1) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Compaction threshold must be in ]0, 1]: " + compactionThreshold);
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Get the number of events in the queue and in the fast lane, including the
+     * cancelled ones
+     * 
+     * @return The size of the event queue
+     */
+    public int getEventQueueSize() {
+        return this.events.size() + this.fastLane.size();
+    }
+
+    /**
+     * Get the number of cancelled events still in the queue
+     * 
+     * @return The number of cancelled events
+     */
+    public int getCancelledEvents() {
+        return this.cancelledEvents;
+    }
+
+    /**
+     * Get the ratio of cancelled events among the events of the queue
+     * 
+     * @return The ratio of cancelled events
+     */
+    public double getCancelledEventRatio() {
+        if (this.getEventQueueSize() == 0) {
+            return 0;
+        }
+        return 1.0 * this.cancelledEvents / this.getEventQueueSize();
+    }
+
+    /**
+     * Enable progress bar in simulation
+     */
+    public void enableProgressBar() {
+        this.enableProgressBar = true;
+    }
+
+    /**
+     * Disable progress bar in simulation
+     */
+    public void disableProgressBar() {
+        this.enableProgressBar = false;
+    }
+
+    /**
+     * Write the packet trace of the scenario in a compact binary format,
+     * PacketTrace.bin, instead of text. The text trace is regenerated using
+     * tools.TraceDecoder. It stays enabled on reset
+     */
+    public void enableBinaryTrace() {
+        this.enableBinaryTrace = true;
+    }
+
+    /**
+     * Write the packet trace of the scenario as text
+     */
+    public void disableBinaryTrace() {
+        this.enableBinaryTrace = false;
+    }
+
+    /**
+     * Indicates if the packet trace is written in binary format
+     * 
+     * @return True if the trace is binary
+     */
+    public boolean isBinaryTraceEnabled() {
+        return this.enableBinaryTrace;
+    }
+
+    /**
+     * Format and write the text packet trace on a background thread: the
+     * simulation only stores raw records in a buffer, swapped with the one
+     * being written when full. The high-water mark of the buffers and the time
+     * waited for the writer are logged when the trace is closed. It stays
+     * enabled on reset, and is ignored if the trace is binary
+     */
+    public void enableAsyncTrace() {
+        this.enableAsyncTrace = true;
+    }
+
+    /**
+     * Format and write the text packet trace on the simulation thread
+     */
+    public void disableAsyncTrace() {
+        this.enableAsyncTrace = false;
+    }
+
+    /**
+     * Indicates if the text packet trace is written on a background thread
+     * 
+     * @return True if the trace is written on a background thread
+     */
+    public boolean isAsyncTraceEnabled() {
+        return this.enableAsyncTrace;
+    }
+
+    /**
+     * Capture the packets sent on the wire in PacketTrace.pcapng, next to the
+     * packet trace of the scenario, for standard network analysis tools. Frames
+     * are built with real Ethernet and IPv4 headers, and a payload synthesized
+     * from the payload of the packet and its size. It stays enabled on reset
+     * 
+     * @param snapLength Maximal number of bytes of each frame captured. The
+     *                   frame is truncated beyond it, headers included
+     */
+    public void enablePcapTrace(int snapLength) {
+        if (snapLength < 1 || snapLength > PcapngWriter.MAX_SNAP_LENGTH) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Snap length must be between 1 and " + PcapngWriter.MAX_SNAP_LENGTH + ": " + snapLength);
+        }
+        this.pcapSnapLength = snapLength;
+    }
+
+    /**
+     * Do not capture the packets sent on the wire
+     */
+    public void disablePcapTrace() {
+        this.pcapSnapLength = 0;
+    }
+
+    /**
+     * Get the maximal number of bytes of each frame captured in the pcapng
+     * trace
+     * 
+     * @return The snap length, or 0 if the packets are not captured
+     */
+    public int getPcapSnapLength() {
+        return this.pcapSnapLength;
+    }
+
+    /**
+     * Enable the progress reporter: while the simulation runs, a background
+     * thread prints its progress, speed, heap usage and remaining time at given
+     * wall-clock interval, without scheduling any event. It stays enabled on
+     * reset
+     * 
+     * @param interval Wall-clock interval between two reports
+     */
+    public void enableProgressReporter(Time interval) {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot enable progress reporter when running");
+        }
+        if (interval.toNanoSeconds() <= 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Progress reporter interval must be strictly positive: " + interval);
+        }
+        this.progressReporter = new ProgressReporter(interval.toNanoSeconds());
+    }
+
+    /**
+     * Disable the progress reporter
+     */
+    public void disableProgressReporter() {
+        if (this.running == true) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot disable progress reporter when running");
+        }
+        this.progressReporter = null;
+    }
+
+    /**
+     * Get the progress reporter
+     * 
+     * @return The progress reporter, or null if not enabled
+     */
+    public ProgressReporter getProgressReporter() {
+        return this.progressReporter;
+    }
+
+    /**
+     * Get current time in simulation
+     * 
+     * @return Current time
+     */
+    public Time getCurrentTime() {
+        if (this.currentTimeInstance.toNanoSeconds() != this.currentTime) {
+            this.currentTimeInstance = Time.nanoSeconds(this.currentTime);
+        }
+        return this.currentTimeInstance;
+    }
+
+    /**
+     * Get current time in simulation, without creating any object
+     * 
+     * @return Current time in nanoseconds
+     */
+    public long getCurrentTimeNanoSeconds() {
+        return this.currentTime;
+    }
+
+    /**
+     * Write a text produced by an event. During a parallel simulation, the
+     * text is written once the order of the event in a sequential run is known,
+     * so outputs are identical to the ones of a sequential run. During an
+     * optimistic simulation, it is written once the event is committed
+     * 
+     * @param target Destination of the text
+     * @param text   The text
+     */
+    public void print(Appendable target, String text) {
+        if (this.window != null) {
+            this.window.print(target, text);
+            return;
+        }
+        if (this.optimistic != null) {
+            this.optimistic.print(target, text);
+            return;
+        }
+        try {
+            target.append(text);
+        } catch (IOException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot write simulation output");
+        }
+    }
+
+    /**
+     * Run an output produced by an event, such as the write of a binary record.
+     * It is deferred like the texts written with
+     * {@link #print(Appendable, String)}, in the same order
+     * 
+     * @param output The output to run
+     */
+    public void defer(Runnable output) {
+        if (this.window != null) {
+            this.window.defer(output);
+            return;
+        }
+        if (this.optimistic != null) {
+            this.optimistic.defer(output);
+            return;
+        }
+        output.run();
+    }
+
+    /**
+     * Indicates if the outputs of the events are deferred until their order
+     * is known, see {@link #print(Appendable, String)} and
+     * {@link #defer(Runnable)}
+     * 
+     * @return True during a parallel or optimistic simulation
+     */
+    public boolean isOutputDeferred() {
+        return this.window != null || this.optimistic != null;
+    }
+
+    /**
+     * Print progress bar
+     */
+    public void printProgressBar() {
+        this.print(System.out, "Progress: " + this.getCurrentTime().toStringWithPrecision(3) + "/"
+                + Time.nanoSeconds(this.stopTime).toStringWithPrecision(3) + System.lineSeparator());
+    }
+
+    /**
+     * Print progress bar and schedule the next print. Used by parallel
+     * simulations, where the timing wheel of each partition is not shared, and
+     * when the timing wheel is too coarse for the step of the progress bar
+     */
+    private void repeatProgressBar() {
+        this.printProgressBar();
+        schedule(this.currentTime + this.progressBarStep, this.repeatProgressBarAction);
+    }
+
+    /**
+     * Get the timing wheel of the short and periodic timers driven by this
+     * simulator. It is created with the default resolution and size if not
+     * configured
+     * 
+     * @return The timing wheel
+     */
+    public TimingWheel getTimingWheel() {
+        if (this.timingWheel == null) {
+            this.timingWheel = new TimingWheel(this, TimingWheel.DEFAULT_RESOLUTION,
+                    TimingWheel.DEFAULT_NUMBER_SLOTS, TimingWheel.DEFAULT_NUMBER_LEVELS);
+        }
+        return this.timingWheel;
+    }
+
+    /**
+     * Configure the timing wheel of the short and periodic timers. The horizon
+     * of the wheel is the resolution times the number of slots to the power of
+     * the number of levels, timers after it being placed again when it is
+     * reached. The configuration is kept on reset
+     * 
+     * @param resolution   Duration of a tick, timers expiring at the first tick at
+     *                     or after their time
+     * @param numberSlots  Number of slots of each level. Must be a power of two
+     * @param numberLevels Number of levels
+     */
+    public void setTimingWheel(Time resolution, int numberSlots, int numberLevels) {
+        if (this.timingWheel != null && this.timingWheel.size() > 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot configure timing wheel with timers pending");
+        }
+        this.timingWheel = new TimingWheel(this, resolution.toNanoSeconds(), numberSlots, numberLevels);
+    }
+
+    /**
+     * Schedule a new event launching an action without argument
+     * 
+     * @param time   Time to schedule the event
+     * @param action The action to launch
+     * @return The handle of the event
+     */
+    public EventHandle schedule(Time time, Runnable action) {
+        return this.handle(this.insert(time.toNanoSeconds(), Event.RUNNABLE, action, null, null, 0));
+    }
+
+    /**
+     * Schedule a new event launching an action without argument
+     * 
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param action The action to launch
+     * @return The handle of the event
+     */
+    public EventHandle schedule(long time, Runnable action) {
+        return this.handle(this.insert(time, Event.RUNNABLE, action, null, null, 0));
+    }
+
+    /**
+     * Schedule a new event launching an action with one argument
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @return The handle of the event
+     */
+    public <A> EventHandle schedule(Time time, Consumer<A> action, A argument) {
+        return this.handle(this.insert(time.toNanoSeconds(), Event.CONSUMER, action, argument, null, 0));
+    }
+
+    /**
+     * Schedule a new event launching an action with one argument
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event, in nanoseconds
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @return The handle of the event
+     */
+    public <A> EventHandle schedule(long time, Consumer<A> action, A argument) {
+        return this.handle(this.insert(time, Event.CONSUMER, action, argument, null, 0));
+    }
+
+    /**
+     * Schedule a new event launching an action with one integer. The integer is
+     * not boxed
+     * 
+     * @param time   Time to schedule the event
+     * @param action The action to launch
+     * @param value  The integer argument of the action
+     * @return The handle of the event
+     */
+    public EventHandle schedule(Time time, IntConsumer action, int value) {
+        return this.handle(this.insert(time.toNanoSeconds(), Event.INT_CONSUMER, action, null, null, value));
+    }
+
+    /**
+     * Schedule a new event launching an action with one integer. The integer is
+     * not boxed
+     * 
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param action The action to launch
+     * @param value  The integer argument of the action
+     * @return The handle of the event
+     */
+    public EventHandle schedule(long time, IntConsumer action, int value) {
+        return this.handle(this.insert(time, Event.INT_CONSUMER, action, null, null, value));
+    }
+
+    /**
+     * Schedule a new event launching an action with two arguments
+     * 
+     * @param <A>    Type of the first argument
+     * @param <B>    Type of the second argument
+     * @param time   Time to schedule the event
+     * @param action The action to launch
+     * @param first  The first argument of the action
+     * @param second The second argument of the action
+     * @return The handle of the event
+     */
+    public <A, B> EventHandle schedule(Time time, BiConsumer<A, B> action, A first, B second) {
+        return this.handle(this.insert(time.toNanoSeconds(), Event.BI_CONSUMER, action, first, second, 0));
+    }
+
+    /**
+     * Schedule a new event launching an action with two arguments
+     * 
+     * @param <A>    Type of the first argument
+     * @param <B>    Type of the second argument
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param action The action to launch
+     * @param first  The first argument of the action
+     * @param second The second argument of the action
+     * @return The handle of the event
+     */
+    public <A, B> EventHandle schedule(long time, BiConsumer<A, B> action, A first, B second) {
+        return this.handle(this.insert(time, Event.BI_CONSUMER, action, first, second, 0));
+    }
+
+    /**
+     * Schedule a new event launching an action with one argument and one integer.
+     * The integer is not boxed
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @param value    The integer argument of the action
+     * @return The handle of the event
+     */
+    public <A> EventHandle schedule(Time time, ObjIntConsumer<A> action, A argument, int value) {
+        return this.handle(this.insert(time.toNanoSeconds(), Event.OBJ_INT_CONSUMER, action, argument, null, value));
+    }
+
+    /**
+     * Schedule a new event launching an action with one argument and one integer.
+     * The integer is not boxed
+     * 
+     * @param <A>      Type of the argument
+     * @param time     Time to schedule the event, in nanoseconds
+     * @param action   The action to launch
+     * @param argument The argument of the action
+     * @param value    The integer argument of the action
+     * @return The handle of the event
+     */
+    public <A> EventHandle schedule(long time, ObjIntConsumer<A> action, A argument, int value) {
+        return this.handle(this.insert(time, Event.OBJ_INT_CONSUMER, action, argument, null, value));
+    }
+
+    /**
+     * Schedule several events at once. Before the simulation starts, the events
+     * are all created then added to the queue in one operation, which builds
+     * heaps in O(n). They are ordered as if scheduled one by one
+     * 
+     * @param entries The events to schedule
+     * @return The number of events scheduled
+     */
+    public int scheduleAll(Iterable<EventEntry> entries) {
+        if (this.running || this.worker != null) {
+            int count = 0;
+            for (EventEntry entry : entries) {
+                this.insert(entry.time, entry.kind, entry.action, entry.first, entry.second, entry.value);
+                count++;
+            }
+            return count;
+        }
+
+        Event[] batch = new Event[64];
+        int count = 0;
+        long firstTime = Long.MAX_VALUE;
+        for (EventEntry entry : entries) {
+            if (count == batch.length) {
+                Event[] larger = new Event[2 * batch.length];
+                System.arraycopy(batch, 0, larger, 0, count);
+                batch = larger;
+            }
+            Event e = this.acquireEvent();
+            e.set(this, entry.time, this.id, entry.kind, entry.action, entry.first, entry.second, entry.value);
+            e.setOrder(-1, this.partitions[0].rootSequence);
+            this.partitions[0].rootSequence++;
+            this.id++;
+            firstTime = Math.min(firstTime, entry.time);
+            batch[count] = e;
+            count++;
+        }
+        if (firstTime < this.currentTime) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule in the past");
+        }
+        this.eventsScheduled += count;
+        this.events.addAll(batch, count);
+        if (this.recorder != null) {
+            for (int i = 0; i < count; i++) {
+                this.recorder.recordAdd(batch[i]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Schedule several events at once, see {@link #scheduleAll(Iterable)}
+     * 
+     * @param entries The events to schedule
+     * @return The number of events scheduled
+     */
+    public int scheduleAll(Stream<EventEntry> entries) {
+        return this.scheduleAll((Iterable<EventEntry>) entries::iterator);
+    }
+
+    /**
+     * Schedule events lazily, before the simulation starts. Entries must be in
+     * increasing time order. Each one is pulled from the iterator and added to
+     * the queue only when the simulation reaches its time, so the entries are
+     * never all in memory. Events run in the same order as if they were all
+     * scheduled by {@link #scheduleAll(Iterable)} at the time of the call.
+     * Only available for sequential simulations
+     * 
+     * @param entries The events to schedule, in increasing time order
+     */
+    public void scheduleLazily(Iterator<EventEntry> entries) {
+        if (this.running) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule lazily once the simulation is running");
+        }
+        LazyEventSource source = new LazyEventSource(entries, this.partitions[0].rootSequence);
+        this.partitions[0].rootSequence++;
+        if (!source.isEmpty()) {
+            if (source.getNextTime() < this.currentTime) {
+                Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule in the past");
+            }
+            this.lazySources.add(source);
+        }
+    }
+
+    /**
+     * Schedule events lazily, see {@link #scheduleLazily(Iterator)}
+     * 
+     * @param entries The events to schedule, in increasing time order
+     */
+    public void scheduleLazily(Stream<EventEntry> entries) {
+        this.scheduleLazily(entries.iterator());
+    }
+
+    /**
+     * Add to the queue the lazily scheduled entries up to the first event of the
+     * queue, so it is known to be the next event to run. When the queue is
+     * empty, the entries at the time of the first lazy entry are added
+     */
+    private void pullLazyEntries() {
+        long limit = this.events.isEmpty() ? Long.MAX_VALUE : this.events.peek().getTimeNanoSeconds();
+        for (LazyEventSource source : this.lazySources) {
+            if (!source.isEmpty()) {
+                limit = Math.min(limit, source.getNextTime());
+            }
+        }
+        for (int i = this.lazySources.size() - 1; i >= 0; i--) {
+            LazyEventSource source = this.lazySources.get(i);
+            while (!source.isEmpty() && source.getNextTime() <= limit) {
+                EventEntry entry = source.poll();
+                Event e = this.acquireEvent();
+                e.set(this, entry.time, this.id, entry.kind, entry.action, entry.first, entry.second, entry.value);
+                e.setOrder(-1, source.sequence);
+                this.eventsScheduled++;
+                this.id++;
+                this.events.add(e);
+                if (this.recorder != null) {
+                    this.recorder.recordAdd(e);
+                }
+            }
+            if (source.isEmpty()) {
+                this.lazySources.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Create a new event and add it to the queue
+     * 
+     * @param time   Time to schedule the event, in nanoseconds
+     * @param kind   Kind of the action
+     * @param action The action to launch
+     * @param first  First argument of the action
+     * @param second Second argument of the action
+     * @param value  Integer argument of the action
+     * @return The event created. If it is after the stop time, the event is
+     *         returned without being added to the queue
+     */
+    Event insert(long time, byte kind, Object action, Object first, Object second, int value) {
+        // Scheduling from another partition: the event is created by the
+        // partition of the current thread and sent at the end of the window
+        Simulator source = this;
+        if (this.worker != null && this.worker != Thread.currentThread()) {
+            source = Simulator.getInstance();
+        }
+
+        if (ValidationLevel.CHECK_HOT_PATH && time < source.currentTime) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule in the past");
+        }
+        if (ValidationLevel.CHECK_HOT_PATH && action == null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule a null action");
+        }
+        long parentRank = -1;
+        long sequence;
+        // Between the chunks of a simulation run by chunks, events are ordered
+        // as if scheduled by the last event run, after the ones it scheduled
+        if (source.running == true || (source.started && source.currentRank >= 0)) {
+            parentRank = source.currentRank;
+            sequence = source.childSequence;
+            source.childSequence++;
+            if (time > source.stopTime) {
+                Logger.getInstance().log(LogSeverity.INFO, "Simulator.insert",
+                        "Trying to schedule event after stop simulation time");
+                Event e = new Event();
+                source.eventsAllocated++;
+                e.set(this, time, source.id, kind, action, first, second, value);
+                e.setOrder(parentRank, sequence);
+                e.expire();
+                return e;
+            }
+        } else {
+            sequence = this.partitions[0].rootSequence;
+            this.partitions[0].rootSequence++;
+        }
+        Event e = source.acquireEvent();
+        e.set(this, time, source.id, kind, action, first, second, value);
+        e.setOrder(parentRank, sequence);
+        source.eventsScheduled++;
+        source.id++;
+
+        if (source.optimistic != null) {
+            e.setParent(source.currentEvent);
+            source.optimistic.addChild(e, this.optimistic.getIndex());
+            if (source != this) {
+                this.optimistic.send(e);
+                return e;
+            }
+        }
+        if (source.window != null) {
+            if (parentRank >= PartitionWindow.PROVISIONAL_RANK) {
+                source.window.addCreated(e);
+            }
+            if (source != this) {
+                if (time < source.windowEnd) {
+                    Logger.getInstance().log(LogSeverity.CRITICAL,
+                            "Event scheduled on another partition before the end of the window, lookahead is too high");
+                }
+                source.window.getOutbox(this.window.getIndex()).add(e);
+                return e;
+            }
+        }
+        if (this.fastLaneRunning && time == this.currentTime) {
+            this.fastLane.addLast(e);
+            this.fastLaneEvents++;
+            return e;
+        }
+        this.events.add(e);
+        if (this.recorder != null) {
+            this.recorder.recordAdd(e);
+        }
+        return e;
+    }
 
     /**
-     * Instance of Simulator
+     * Get the handle of an event just scheduled. With the event pool, the
+     * handle keeps the generation of the event, so it is not used once the
+     * event is recycled. It is allocated, and counted by the partition of the
+     * current thread
+     * 
+     * @param e The event
+     * @return The handle
      */
-    private static Simulator instance;
+    EventHandle handle(Event e) {
+        if (this.enableEventPool) {
+            Simulator source = this;
+            if (this.worker != null && this.worker != Thread.currentThread()) {
+                source = Simulator.getInstance();
+            }
+            source.handlesAllocated++;
+            return new PooledEventHandle(e);
+        }
+        return e;
+    }
 
     /**
-     * Name of the scenario
+     * Count an event that has just been cancelled, and remove all the cancelled
+     * events from the queue if they are too many.
+     * During an optimistic simulation, cancelled events stay in the queue, as
+     * the cancellation is undone if the event being run is rolled back
+     * 
+     * @param event The event cancelled
      */
-    private String scenarioName;
+    void onEventCancelled(Event event) {
+        if (this.worker != null && this.worker != Thread.currentThread()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot cancel an event of another partition");
+        }
+        this.cancelledEvents++;
+        if (this.optimistic != null) {
+            this.optimistic.addUndo(() -> {
+                event.uncancel();
+                this.cancelledEvents--;
+            });
+            return;
+        }
+        if (this.cancelledEvents > this.compactionThreshold * this.getEventQueueSize()) {
+            this.cancelledEvents -= this.removeEvents(Event::isCancelled);
+        }
+    }
 
     /**
-     * Current time in simulation
+     * Remove the events matching a filter from the queue and the fast lane,
+     * giving them back to the pool if enabled. They are released once all
+     * removed, as the pool chains them through the field used by the queues
+     * 
+     * @param filter The filter giving the events to remove
+     * @return The number of events removed
      */
-    private Time currentTime;
+    private int removeEvents(Predicate<Event> filter) {
+        int laneSize = this.fastLane.size();
+        if (!this.enableEventPool) {
+            int removed = this.events.removeIf(filter);
+            this.fastLane.removeIf(filter);
+            return removed + laneSize - this.fastLane.size();
+        }
+        ArrayList<Event> removed = new ArrayList<Event>();
+        Predicate<Event> collect = e -> filter.test(e) && removed.add(e);
+        this.events.removeIf(collect);
+        this.fastLane.removeIf(collect);
+        for (Event e : removed) {
+            this.releaseEvent(e);
+        }
+        return removed.size();
+    }
 
     /**
-     * Time where the simulation will be stopped
+     * Remove all the pending events, giving them back to the pool if enabled
      */
-    private Time stopTime;
+    private void clearEvents() {
+        if (this.enableEventPool) {
+            this.removeEvents(e -> true);
+        }
+        this.events.clear();
+        this.fastLane.clear();
+        this.cancelledEvents = 0;
+    }
 
     /**
-     * Print progress bar in console if set to true
+     * Get an event to fill, from the pool if enabled
+     * 
+     * @return An empty event
      */
-    private boolean enableProgressBar;
+    private Event acquireEvent() {
+        if (this.enableEventPool) {
+            this.eventsInUse++;
+            if (this.freeEvents != null) {
+                Event e = this.freeEvents;
+                this.freeEvents = e.next;
+                e.next = null;
+                return e;
+            }
+        }
+        this.eventsAllocated++;
+        return new Event();
+    }
 
     /**
-     * Interval between to prints on the console of progress
+     * Give back an event to the pool
+     * 
+     * @param e The event to release
      */
-    private Time progressBarStep;
+    private void releaseEvent(Event e) {
+        this.eventsInUse--;
+        if (this.enableEventPoolDebug) {
+            if (e.isReleased()) {
+                Logger.getInstance().log(LogSeverity.CRITICAL, "Event " + e.getId() + " released twice");
+            }
+            e.release();
+            this.quarantinedEvents.addLast(e);
+            if (this.quarantinedEvents.size() <= Simulator.QUARANTINE_SIZE) {
+                return;
+            }
+            e = this.quarantinedEvents.pollFirst();
+        } else {
+            e.release();
+        }
+        e.next = this.freeEvents;
+        this.freeEvents = e;
+    }
 
     /**
-     * Indicates if the simulation has been launched
+     * Run the events in order on the current thread. Events left in the fast
+     * lane, when the run stops after a number of events or a pause, go back to
+     * the queue, where the events scheduled before the next run are ordered
+     * with them
+     * 
+     * @param limit     Time of the last events to run, in nanoseconds
+     * @param maxEvents Maximal number of events to run
      */
-    private boolean running;
+    private void runSequential(long limit, long maxEvents) {
+        this.fastLaneRunning = this.enableFastLane;
+        try {
+            this.runSequentialEvents(limit, maxEvents);
+        } finally {
+            this.fastLaneRunning = false;
+            while (!this.fastLane.isEmpty()) {
+                Event e = this.fastLane.pollFirst();
+                this.events.add(e);
+                if (this.recorder != null) {
+                    this.recorder.recordAdd(e);
+                }
+            }
+        }
+    }
 
     /**
-     * The list of events to schedule
+     * Run the events of the queue and of the fast lane in order.
+     * Events in the queue at the current time were scheduled before time
+     * reached it, so by events run before the ones which filled the fast lane:
+     * they run first. The fast lane is then drained before time advances.
+     * Events after the limit stay in the queue, it is checked on the first event
+     * of the queue before removing it
+     * 
+     * @param limit     Time of the last events to run, in nanoseconds
+     * @param maxEvents Maximal number of events to run
      */
-    private TreeSet<Event> events;
+    private void runSequentialEvents(long limit, long maxEvents) {
+        // Set once the queue has no event left at the current time. No event
+        // can be added to the queue at this time until it advances
+        boolean queueAhead = false;
+        long remaining = maxEvents;
+        while (remaining > 0) {
+            // Lazy entries are all pulled before time reaches them, so the
+            // queue has no entry at the current time to pull after the first
+            // event of the fast lane
+            if (!this.lazySources.isEmpty() && (!queueAhead || this.fastLane.isEmpty())) {
+                this.pullLazyEntries();
+            }
+            Event e;
+            if (!this.fastLane.isEmpty() && (queueAhead || this.events.isEmpty()
+                    || this.events.peek().getTimeNanoSeconds() != this.currentTime)) {
+                queueAhead = true;
+                e = this.fastLane.pollFirst();
+            } else if (!this.events.isEmpty() && this.events.peek().getTimeNanoSeconds() <= limit) {
+                queueAhead = false;
+                e = this.events.poll();
+                if (this.recorder != null) {
+                    this.recorder.recordPoll();
+                }
+            } else {
+                break;
+            }
+            if (e.isCancelled()) {
+                this.cancelledEvents--;
+                if (this.enableEventPool) {
+                    this.releaseEvent(e);
+                }
+                continue;
+            }
+            if (this.realTimeClock != null) {
+                this.realTimeClock.dispatch(e.getTimeNanoSeconds());
+            }
+            this.currentTime = e.getTimeNanoSeconds();
+            this.currentRank = this.eventsRun;
+            this.eventsRun++;
+            this.childSequence = 0;
+            if (this.progressReporter != null && this.eventsRun % ProgressReporter.PUBLISH_INTERVAL == 0) {
+                this.progressReporter.publish(this.currentTime, this.eventsRun, this.getEventQueueSize());
+            }
+            e.expire();
+            if (this.profiler != null) {
+                int depth = this.getEventQueueSize();
+                long start = System.nanoTime();
+                e.runEvent();
+                this.profiler.record(e.getAction(), System.nanoTime() - start, this.childSequence,
+                        this.currentTime, depth);
+            } else {
+                e.runEvent();
+            }
+            if (this.enableEventPool) {
+                this.releaseEvent(e);
+            }
+            remaining--;
+            if (this.paused) {
+                break;
+            }
+        }
+    }
 
     /**
-     * Unique ID given to events to differenciate ones one same date.
+     * Indicates if no event remains to be run before the stop time
+     * 
+     * @return True if the simulation is over
      */
-    private long id;
+    private boolean isOver() {
+        if (!this.fastLane.isEmpty()) {
+            return false;
+        }
+        for (LazyEventSource source : this.lazySources) {
+            if (source.getNextTime() <= this.stopTime) {
+                return false;
+            }
+        }
+        return this.events.isEmpty() || this.events.peek().getTimeNanoSeconds() > this.stopTime;
+    }
 
     /**
-     * Private constructor
+     * Run the partitions in parallel, one thread per partition
      */
-    private Simulator() {
-        this.scenarioName = "";
-        this.currentTime = new Time();
-        this.stopTime = new Time();
-        this.enableProgressBar = false;
-        this.progressBarStep = new Time();
-        this.running = false;
-        this.events = new TreeSet<Event>();
-        this.id = 0;
+    private void runParallel() {
+        long linksLookahead = this.getLinksLookahead();
+        long lookahead = this.lookahead != 0 ? this.lookahead : linksLookahead;
+        if (lookahead == 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Links between partitions without delay need an optimistic simulation");
+        }
+        if (lookahead > linksLookahead) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Lookahead " + Time.nanoSeconds(lookahead)
+                    + " is higher than the delay of a link between partitions: " + Time.nanoSeconds(linksLookahead));
+        }
+        this.startPartitions();
+        for (int i = 0; i < this.partitions.length; i++) {
+            this.partitions[i].window = new PartitionWindow(i, this.partitions.length);
+        }
+
+        ParallelSimulation simulation = new ParallelSimulation(this.partitions, lookahead, this.stopTime,
+                this.eventsRun, this.progressReporter);
+        try {
+            this.eventsRun = simulation.run();
+        } finally {
+            this.stopPartitions();
+        }
+
+        Logger.getInstance().log(LogSeverity.INFO, "Parallel simulation on " + this.partitions.length
+                + " partitions, " + simulation.getNumberWindows() + " windows");
+    }
+
+    /**
+     * Run the partitions in parallel and optimistically, one thread per
+     * partition
+     */
+    private void runOptimistic() {
+        this.startPartitions();
+        for (int i = 0; i < this.partitions.length; i++) {
+            Simulator partition = this.partitions[i];
+            partition.optimistic = new OptimisticPartition(i, this.partitions, partition.events);
+        }
+
+        OptimisticSimulation simulation = new OptimisticSimulation(this.partitions, this.stopTime, this.eventsRun,
+                this.progressReporter);
+        long startTime = this.currentTime;
+        long eventsRolledBack = 0;
+        try {
+            this.eventsRun = simulation.run();
+        } finally {
+            for (Simulator partition : this.partitions) {
+                eventsRolledBack += partition.optimistic.getEventsRolledBack();
+                partition.currentEvent = null;
+            }
+            this.eventsRolledBack += eventsRolledBack;
+            this.stopPartitions();
+        }
+        // Partitions may have run events after the last committed one
+        this.currentTime = Math.max(startTime, simulation.getLastTime());
+
+        Logger.getInstance().log(LogSeverity.INFO,
+                "Optimistic simulation on " + this.partitions.length + " partitions, "
+                        + simulation.getNumberGvtComputations() + " GVT computations, " + eventsRolledBack
+                        + " events rolled back");
+    }
+
+    /**
+     * Give the settings of this simulator to the other partitions before a
+     * parallel run
+     */
+    private void startPartitions() {
+        if (this.recorder != null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot record event schedule of a parallel simulation");
+        }
+
+        // Content of the context is created before the threads start
+        this.context.getLogger();
+        this.context.getPacketTracer();
+        this.context.getIdGenerator();
+        this.context.getMacAddressContainer();
+        this.context.getRandomGenerator();
+        for (int i = 1; i < this.partitions.length; i++) {
+            Simulator partition = this.partitions[i];
+            partition.setEventQueueType(this.eventQueueType);
+            partition.stopTime = this.stopTime;
+            partition.enableEventPool = this.enableEventPool;
+            partition.enableEventPoolDebug = this.enableEventPoolDebug;
+            partition.compactionThreshold = this.compactionThreshold;
+            partition.running = true;
+        }
+    }
+
+    /**
+     * Clear the partitions after a parallel run, and gather their statistics
+     * in this simulator
+     */
+    private void stopPartitions() {
+        for (int i = 0; i < this.partitions.length; i++) {
+            Simulator partition = this.partitions[i];
+            partition.window = null;
+            if (partition.optimistic != null) {
+                // Events of an optimistic run may still be referenced by its
+                // history, so they are not given back to the pool
+                partition.optimistic = null;
+                partition.events.clear();
+                partition.cancelledEvents = 0;
+                partition.eventsInUse = 0;
+            } else {
+                partition.clearEvents();
+            }
+            if (i > 0) {
+                partition.running = false;
+                this.currentTime = Math.max(this.currentTime, partition.currentTime);
+                this.eventsScheduled += partition.eventsScheduled;
+                this.eventsAllocated += partition.eventsAllocated;
+                this.handlesAllocated += partition.handlesAllocated;
+                this.eventsInUse += partition.eventsInUse;
+                partition.eventsScheduled = 0;
+                partition.eventsAllocated = 0;
+                partition.handlesAllocated = 0;
+                partition.eventsInUse = 0;
+            }
+        }
     }
 
     /**
-     * Get the instance of Simulator. Construct it if not already created.
+     * Set the simulator of the partition run by the current thread, if it is
+     * not the first partition
      * 
-     * @return The instance of Simulator
+     * @param partition The simulator of the partition, or null
      */
-    public static Simulator getInstance() {
-        if (instance == null) {
-            instance = new Simulator();
+    static void setCurrentPartition(Simulator partition) {
+        SimulationContext.setCurrent(partition == null ? null : partition.context);
+    }
+
+    /**
+     * Get the state of this partition in the current window
+     * 
+     * @return The state of the window
+     */
+    PartitionWindow getWindow() {
+        return this.window;
+    }
+
+    /**
+     * Get the state of this partition in an optimistic simulation
+     * 
+     * @return The state of the partition
+     */
+    OptimisticPartition getOptimisticPartition() {
+        return this.optimistic;
+    }
+
+    /**
+     * Set the thread running this partition
+     * 
+     * @param worker The thread, or null once the simulation is finished
+     */
+    void setWorker(Thread worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * Get the date of the first pending event of this partition
+     * 
+     * @return The date in nanoseconds, or Long.MAX_VALUE if no event is pending
+     */
+    long getNextEventTime() {
+        Event e = this.events.peek();
+        if (e == null) {
+            return Long.MAX_VALUE;
         }
-        return instance;
+        return e.getTimeNanoSeconds();
     }
 
     /**
-     * Reset the simulation
+     * Run the events of this partition before the end of a window
+     * 
+     * @param windowEnd End of the window, excluded, in nanoseconds
      */
-    public void reset() {
-        if (this.running == true) {
-            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot reset simulation when running");
+    void runWindow(long windowEnd) {
+        this.windowEnd = windowEnd;
+        while (true) {
+            Event e = this.events.peek();
+            if (e == null || e.getTimeNanoSeconds() >= windowEnd || e.getTimeNanoSeconds() > this.stopTime) {
+                break;
+            }
+            this.events.poll();
+            if (e.isCancelled()) {
+                this.cancelledEvents--;
+                if (this.enableEventPool) {
+                    this.releaseEvent(e);
+                }
+                continue;
+            }
+            this.currentTime = e.getTimeNanoSeconds();
+            this.currentRank = this.window.addEvent(e);
+            this.childSequence = 0;
+            e.expire();
+            e.runEvent();
+            this.window.endEvent();
+            if (this.enableEventPool) {
+                this.releaseEvent(e);
+            }
         }
-        this.scenarioName = "";
-        this.currentTime = new Time();
-        this.stopTime = new Time();
-        this.events = new TreeSet<Event>();
-        this.id = 0;
     }
 
     /**
-     * Set the time where the simulation will be stopped
+     * Receive the events sent by other partitions, then run the next event of
+     * this partition in an optimistic simulation. The event is recorded so it
+     * can be rolled back, and is not released to the pool. An error raised by
+     * the event is kept until the event is committed
      * 
-     * @param stopTime Time where the simulation will be stopped
+     * @return True if an event was taken from the queue, false if no event
+     *         remains before the stop time
      */
-    public void setStopTime(Time stopTime) {
-        if (stopTime.compareTo(new Time()) == 0) {
-            Logger.getInstance().log(LogSeverity.CRITICAL, "Stop time must be strictly positive");
+    boolean runOptimisticEvent() {
+        this.optimistic.receive();
+        // No event is run after one which raised an error, until this one is
+        // committed or rolled back
+        if (this.optimistic.getFailure() != null) {
+            return false;
         }
-        this.stopTime = stopTime;
+        Event e = this.events.peek();
+        if (e == null || e.getTimeNanoSeconds() > this.stopTime) {
+            return false;
+        }
+        this.events.poll();
+        if (e.isDiscarded()) {
+            return true;
+        }
+        // Cancelled events are recorded too, they are pending again if the
+        // cancellation is rolled back
+        this.optimistic.addEvent(e);
+        if (e.isCancelled()) {
+            return true;
+        }
+        this.currentTime = e.getTimeNanoSeconds();
+        this.currentEvent = e;
+        this.childSequence = 0;
+        // The events scheduled by a rolled back event are discarded, so their
+        // IDs are given again when it is run again
+        long id = this.id;
+        long eventsScheduled = this.eventsScheduled;
+        this.optimistic.addUndo(() -> {
+            this.id = id;
+            this.eventsScheduled = eventsScheduled;
+        });
+        e.expire();
+        try {
+            e.runEvent();
+        } catch (RuntimeException error) {
+            // The event may have been run too early, so its error is raised
+            // only once it is committed
+            this.optimistic.setFailure(error);
+        }
+        return true;
     }
 
     /**
-     * Enable progress bar in simulation
+     * Add to this partition the events sent by all partitions during the last
+     * window
      */
-    public void enableProgressBar() {
-        this.enableProgressBar = true;
+    void receiveEvents() {
+        int index = this.window.getIndex();
+        for (Simulator source : this.partitions) {
+            ArrayList<Event> inbox = source.window.getOutbox(index);
+            for (Event e : inbox) {
+                this.events.add(e);
+            }
+            inbox.clear();
+        }
     }
 
     /**
-     * Disable progress bar in simulation
+     * Run the simulation.
+     * It runs while events are scheduled and stop simulation time is not reached.
+     * If it was paused or run by chunks, it goes on from where it stopped
      */
-    public void disableProgressBar() {
-        this.enableProgressBar = false;
+    public void run() {
+        this.runChunk(this.stopTime, Long.MAX_VALUE);
     }
 
     /**
-     * Get current time in simulation
+     * Run the events up to given time included, then stop with the simulation
+     * time at given time. The simulation, its trace and its log are kept open,
+     * so it can go on later. If given time is after the stop time, the
+     * simulation runs until the end, as with {@link #run()}. In real time mode,
+     * it returns once the wall-clock time matching given time is reached.
+     * Only available for sequential simulations
      * 
-     * @return Current time
+     * @param time Time of the last events to run
      */
-    public Time getCurrentTime() {
-        return new Time(this.currentTime);
+    public void runUntil(Time time) {
+        long limit = time.toNanoSeconds();
+        if (limit < this.currentTime) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot run until a time in the past");
+        }
+        this.runChunk(Math.min(limit, this.stopTime), Long.MAX_VALUE);
+        if (this.started && !this.paused) {
+            if (this.realTimeClock != null) {
+                this.realTimeClock.sleepUntil(Math.min(limit, this.stopTime));
+            }
+            this.currentTime = Math.min(limit, this.stopTime);
+        }
     }
 
     /**
-     * Print progress bar
+     * Run the events during given duration from current time, see
+     * {@link #runUntil(Time)}
+     * 
+     * @param duration Duration to run
      */
-    public void printProgressBar() {
-        System.out.println("Progress: " + this.currentTime.toStringWithPrecision(3) + "/"
-                + this.stopTime.toStringWithPrecision(3));
+    public void runFor(Time duration) {
+        this.runUntil(this.getCurrentTime().add(duration));
+    }
+
+    /**
+     * Run the next events, without going beyond the stop time. The simulation
+     * is kept open once they are run, see {@link #runUntil(Time)}
+     * 
+     * @param numberEvents Maximal number of events to run
+     * @return The number of events run
+     */
+    public long step(long numberEvents) {
+        if (numberEvents <= 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Number of steps must be strictly positive");
+        }
+        long eventsRun = this.eventsRun;
+        this.runChunk(this.stopTime, numberEvents);
+        return this.eventsRun - eventsRun;
+    }
 
-        schedule(this.currentTime.add(this.progressBarStep), this, SchedulableMethod.SIMULATOR__PRINT_PROGRESS_BAR);
+    /**
+     * Pause the simulation once the event being run is over. The call running
+     * the simulation then returns, keeping it open so it can be resumed. Must
+     * be called by an event of a sequential simulation
+     */
+    public void pause() {
+        if (!this.running) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot pause a simulation not running");
+        }
+        if (this.partitions.length > 1 || this.worker != null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot pause a parallel simulation");
+        }
+        this.paused = true;
+    }
+
+    /**
+     * Resume a paused simulation, running it until the end or the next pause
+     */
+    public void resume() {
+        if (!this.isPaused()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot resume a simulation not paused");
+        }
+        this.run();
     }
 
     /**
-     * Schedule a new event
+     * Indicates if the simulation has been paused by an event and not resumed
+     * yet
      * 
-     * @param time      Time to schedule the event
-     * @param instance  The instance to launch
-     * @param method    The method of instance to launch
-     * @param arguments The arguments of the method
+     * @return True if the simulation is paused
      */
-    public void schedule(Time time, Schedulable instance, SchedulableMethod method, Object... arguments) {
-        if (time.compareTo(this.currentTime) < 0) {
-            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule in the past");
+    public boolean isPaused() {
+        return this.started && this.paused;
+    }
+
+    /**
+     * Indicates if the simulation has been started and is not finished yet,
+     * as it was paused or run by chunks
+     * 
+     * @return True if the simulation is started
+     */
+    public boolean isStarted() {
+        return this.started;
+    }
+
+    /**
+     * Run the events up to a limit, starting the simulation first if needed.
+     * Once no event remains before the stop time, the simulation is finished
+     * and its trace is closed
+     * 
+     * @param limit     Time of the last events to run, in nanoseconds
+     * @param maxEvents Maximal number of events to run
+     */
+    private void runChunk(long limit, long maxEvents) {
+        if (!this.started) {
+            this.start();
+        }
+        if (this.partitions.length > 1 && (limit < this.stopTime || maxEvents != Long.MAX_VALUE)) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Parallel simulations can only be run until the stop time");
+        }
+
+        this.paused = false;
+        this.running = true;
+        if (this.progressReporter != null) {
+            this.progressReporter.start(this.stopTime, this.currentTime, this.eventsRun, this.getEventQueueSize());
         }
-        if (checkArguments(method, arguments)) {
-            if (this.running == true) {
-                if (time.compareTo(this.stopTime) > 0) {
-                    Logger.getInstance().log(LogSeverity.INFO, "Trying to schedule event after stop simulation time");
-                    return;
+        try {
+            if (this.partitions.length > 1 && this.enableOptimisticSimulation) {
+                this.runOptimistic();
+            } else if (this.partitions.length > 1) {
+                this.runParallel();
+            } else {
+                if (this.realTimeClock != null) {
+                    this.realTimeClock.start(this.currentTime);
                 }
+                this.runSequential(limit, maxEvents);
             }
-            Event e = new Event(time, instance, method, arguments, id);
-            this.events.add(e);
-            id++;
+        } finally {
+            this.running = false;
+            if (this.progressReporter != null) {
+                this.progressReporter.stop();
+            }
+        }
+
+        if (this.partitions.length > 1 || (!this.paused && this.isOver())) {
+            this.finish();
         }
     }
 
     /**
-     * Run the simulation.
-     * It runs while events are scheduled and stop simulation time is not reached
+     * Start the simulation: open its trace and schedule the progress bar
      */
-    public void run() {
-        if (this.stopTime.compareTo(new Time()) == 0) {
+    private void start() {
+        if (this.stopTime == 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Stop time not set");
         }
 
@@ -186,32 +2186,74 @@ public class Simulator implements Schedulable {
         }
 
         if (this.enableProgressBar) {
-            if (this.stopTime.compareTo(new Time(10, 0)) < 0) {
-                this.progressBarStep = new Time(0, 100000000);
+            if (this.stopTime < 10L * Time.NANOSECONDS_IN_SECOND) {
+                this.progressBarStep = 100 * Time.NANOSECONDS_IN_MILLISECOND;
             } else {
-                this.progressBarStep = this.stopTime.divide(100);
+                this.progressBarStep = this.stopTime / 100;
             }
 
-            schedule(this.progressBarStep, this, SchedulableMethod.SIMULATOR__PRINT_PROGRESS_BAR);
+            // The wheel rounds periods up to a number of ticks, so it only
+            // prints the progress bar when the step is a whole number of ticks
+            if (this.partitions.length == 1 && this.progressBarStep % this.getTimingWheel().getResolution() == 0) {
+                this.getTimingWheel().scheduleEvery(Time.nanoSeconds(this.progressBarStep), this::printProgressBar);
+            } else {
+                schedule(this.progressBarStep, this.repeatProgressBarAction);
+            }
         }
 
-        this.running = true;
-        Logger.getInstance().log(LogSeverity.INFO, "Launch Simulation");
-        for (Event e : this.events) {
-            if (e.getTime().compareTo(this.stopTime) > 0) {
-                this.events.tailSet(e).clear();
-                break;
+        if (this.profiler != null) {
+            for (Link link : this.context.getLinks()) {
+                for (Map.Entry<String, Object> action : link.getActions().entrySet()) {
+                    this.profiler.registerAction(link.getClass().getSimpleName() + "." + action.getKey(),
+                            action.getValue());
+                }
             }
+            this.profiler.start(this.stopTime);
         }
 
-        while (!this.events.isEmpty()) {
-            Event e = this.events.pollFirst();
-            this.currentTime = e.getTime();
-            e.runEvent();
+        if (this.partitions.length > 1 && this.realTimeClock != null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Real time mode is not available for parallel simulations");
+        }
+
+        if (this.partitions.length > 1) {
+            for (Simulator partition : this.partitions) {
+                if (!partition.lazySources.isEmpty()) {
+                    Logger.getInstance().log(LogSeverity.CRITICAL,
+                            "Lazy scheduling is not available for parallel simulations");
+                }
+            }
+        }
+
+        this.started = true;
+        Logger.getInstance().log(LogSeverity.INFO, "Launch Simulation");
+    }
+
+    /**
+     * Finish the simulation: drop the events after the stop time and close its
+     * trace and its log
+     */
+    private void finish() {
+        this.clearEvents();
+        this.lazySources.clear();
+        this.started = false;
+        this.paused = false;
+
+        if (this.recorder != null) {
+            this.recorder.close();
+            this.recorder = null;
         }
-        this.running = false;
 
         Logger.getInstance().log(LogSeverity.INFO, "Simulation finished");
+        Logger.getInstance().log(LogSeverity.INFO, "Events scheduled: " + this.eventsScheduled + ", allocated: "
+                + this.eventsAllocated + " events and " + this.handlesAllocated + " handles ("
+                + this.getEventAllocationRate() + " per event)");
+        if (this.enableEventPoolDebug && this.eventsInUse > 0) {
+            Logger.getInstance().log(LogSeverity.WARNING,
+                    this.eventsInUse + " events taken from the pool were never released");
+        }
+        if (this.profiler != null) {
+            Logger.getInstance().log(LogSeverity.INFO, this.profiler.getReport());
+        }
 
         if (this.scenarioName != "") {
             PacketTracer.getInstance().closeTrace();
@@ -222,29 +2264,100 @@ public class Simulator implements Schedulable {
     }
 
     /**
-     * Test if the arguments given in schedule method are coherent with types
-     * contained in SchedulableMethod instance
+     * Check that the state of the simulation can be saved to or restored from
+     * a checkpoint
+     */
+    void checkCheckpoint() {
+        if (this.running) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot use a checkpoint when running");
+        }
+        if (this.partitions.length > 1) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Checkpoints are not available for parallel simulations");
+        }
+        if (!this.lazySources.isEmpty()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot use a checkpoint with lazily scheduled events");
+        }
+    }
+
+    /**
+     * Write the time, the counters and the pending events to a checkpoint.
+     * Cancelled events are dropped. The event driving the timing wheel and the
+     * progress bar are not saved, so no timer can be pending but the progress
+     * bar, created again when the restored simulation starts
      * 
-     * @param method    The class and method to schedule
-     * @param arguments The arguments of th emethod
-     * @return true if this method can be scheduled
+     * @param writer The checkpoint writer
      */
-    private boolean checkArguments(SchedulableMethod method, Object[] arguments) {
-        Class<?>[] argumentTypes = method.getArgumentTypes();
-        if (argumentTypes.length != arguments.length) {
-            Logger.getInstance().log(LogSeverity.CRITICAL,
-                    "Schedule method " + method + " with the wrong number of arguments. Need " + argumentTypes.length
-                            + " but got " + arguments.length);
+    void saveState(CheckpointWriter writer) {
+        int timers = this.timingWheel == null ? 0 : this.timingWheel.size();
+        if (timers > (this.started && this.enableProgressBar ? 1 : 0)) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot save a checkpoint with timers pending");
         }
-        for (int i = 0; i < argumentTypes.length; i++) {
-            try {
-                argumentTypes[i].cast(arguments[i]);
-            } catch (ClassCastException e) {
-                Logger.getInstance().log(LogSeverity.CRITICAL,
-                        "Cannot cast argument " + arguments[i] + " to class " + argumentTypes[i]);
+        ArrayList<Event> pending = new ArrayList<Event>(this.getEventQueueSize());
+        this.events.forEach(pending::add);
+        pending.addAll(this.fastLane);
+        pending.removeIf(e -> e.isCancelled() || e.getAction() == this.repeatProgressBarAction
+                || (this.timingWheel != null && this.timingWheel.isDriver(e)));
+
+        writer.putLong(this.currentTime);
+        writer.putLong(this.id);
+        writer.putLong(this.eventsRun);
+        writer.putLong(this.rootSequence);
+        writer.putLong(this.eventsScheduled);
+        writer.putInt(pending.size());
+        for (Event e : pending) {
+            writer.putLong(e.getTimeNanoSeconds());
+            writer.putLong(e.getParentRank());
+            writer.putLong(e.getSequence());
+            writer.putLong(e.getId());
+            writer.putByte(e.getKind());
+            writer.putAction(e.getAction());
+            writer.putObject(e.getFirst());
+            writer.putObject(e.getSecond());
+            writer.putInt(e.getValue());
+        }
+    }
+
+    /**
+     * Read the time, the counters and the pending events from a checkpoint,
+     * replacing the events and the timers already scheduled. Events keep their
+     * order, and are added to the queue in one operation
+     * 
+     * @param reader The checkpoint reader
+     */
+    void restoreState(CheckpointReader reader) {
+        this.clearEvents();
+        this.currentTime = reader.getLong();
+        this.id = reader.getLong();
+        this.eventsRun = reader.getLong();
+        this.rootSequence = reader.getLong();
+        this.eventsScheduled = reader.getLong();
+        if (this.timingWheel != null) {
+            this.timingWheel = new TimingWheel(this, this.timingWheel.getResolution(),
+                    this.timingWheel.getNumberSlots(), this.timingWheel.getNumberLevels());
+        }
+
+        int count = reader.getInt();
+        Event[] batch = new Event[count];
+        for (int i = 0; i < count; i++) {
+            long time = reader.getLong();
+            long parentRank = reader.getLong();
+            long sequence = reader.getLong();
+            long id = reader.getLong();
+            byte kind = reader.getByte();
+            Object action = reader.getAction();
+            Object first = reader.getObject();
+            Object second = reader.getObject();
+            Event e = this.acquireEvent();
+            e.set(this, time, id, kind, action, first, second, reader.getInt());
+            e.setOrder(parentRank, sequence);
+            batch[i] = e;
+        }
+        this.events.addAll(batch, count);
+        if (this.recorder != null) {
+            for (int i = 0; i < count; i++) {
+                this.recorder.recordAdd(batch[i]);
             }
         }
-        return true;
     }
 
     /**
@@ -264,17 +2377,4 @@ public class Simulator implements Schedulable {
     public void setScenarioName(String scenarioName) {
         this.scenarioName = scenarioName;
     }
-
-    @Override
-    public void run(SchedulableMethod method, Object[] arguments) {
-        switch (method) {
-            case SIMULATOR__PRINT_PROGRESS_BAR: {
-                this.printProgressBar();
-                break;
-            }
-            default: {
-                Logger.getInstance().log(LogSeverity.CRITICAL, "Unknow method for class PointToPointLink: " + method);
-            }
-        }
-    }
 }
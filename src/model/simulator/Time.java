@@ -12,14 +12,10 @@ import model.logger.Logger;
 public class Time implements Comparable<Time> {
 
     /**
-     * Number of seconds
+     * Total number of nanoseconds.
+     * Time is immutable, so instances can be shared safely
      */
-    private int seconds;
-
-    /**
-     * Number of nanoseconds within the second
-     */
-    private int nanoSeconds;
+    private final long nanoSeconds;
 
     /**
      * Number of nanoseconds in a microsecond
@@ -51,7 +47,6 @@ public class Time implements Comparable<Time> {
      * Initializes time to zero.
      */
     public Time() {
-        this.seconds = 0;
         this.nanoSeconds = 0;
     }
 
@@ -61,12 +56,15 @@ public class Time implements Comparable<Time> {
      * @param seconds Number of seconds
      * @return Time created
      */
-    public static Time seconds(int seconds) {
-        if (seconds < 0) {
+    public static Time seconds(long seconds) {
+        if (ValidationLevel.CHECK_HOT_PATH && seconds < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Number of seconds must be positive or null");
         }
+        if (ValidationLevel.CHECK_HOT_PATH && seconds > Long.MAX_VALUE / Time.NANOSECONDS_IN_SECOND) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Number of seconds is too high: " + seconds);
+        }
 
-        return new Time(seconds, 0);
+        return new Time(seconds * Time.NANOSECONDS_IN_SECOND);
     }
 
     /**
@@ -76,13 +74,14 @@ public class Time implements Comparable<Time> {
      * @return Time created
      */
     public static Time milliSeconds(long milliSeconds) {
-        if (milliSeconds < 0) {
+        if (ValidationLevel.CHECK_HOT_PATH && milliSeconds < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Number of milliseconds must be positive or null");
         }
+        if (ValidationLevel.CHECK_HOT_PATH && milliSeconds > Long.MAX_VALUE / Time.NANOSECONDS_IN_MILLISECOND) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Number of milliseconds is too high: " + milliSeconds);
+        }
 
-        int seconds = (int) (milliSeconds / Time.MILLISECONDS_IN_SECOND);
-        int nanoSeconds = (int) (Time.NANOSECONDS_IN_MILLISECOND * (milliSeconds % Time.MILLISECONDS_IN_SECOND));
-        return new Time(seconds, nanoSeconds);
+        return new Time(milliSeconds * Time.NANOSECONDS_IN_MILLISECOND);
     }
 
     /**
@@ -92,13 +91,14 @@ public class Time implements Comparable<Time> {
      * @return Time created
      */
     public static Time microSeconds(long microSeconds) {
-        if (microSeconds < 0) {
+        if (ValidationLevel.CHECK_HOT_PATH && microSeconds < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Number of microseconds must be positive or null");
         }
+        if (ValidationLevel.CHECK_HOT_PATH && microSeconds > Long.MAX_VALUE / Time.NANOSECONDS_IN_MICROSECOND) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Number of microseconds is too high: " + microSeconds);
+        }
 
-        int seconds = (int) (microSeconds / Time.MICROSECONDS_IN_SECOND);
-        int nanoSeconds = (int) (Time.NANOSECONDS_IN_MICROSECOND * (microSeconds % Time.MICROSECONDS_IN_SECOND));
-        return new Time(seconds, nanoSeconds);
+        return new Time(microSeconds * Time.NANOSECONDS_IN_MICROSECOND);
     }
 
     /**
@@ -108,13 +108,11 @@ public class Time implements Comparable<Time> {
      * @return Time created
      */
     public static Time nanoSeconds(long nanoSeconds) {
-        if (nanoSeconds < 0) {
+        if (ValidationLevel.CHECK_HOT_PATH && nanoSeconds < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Number of nanoseconds must be positive or null");
         }
 
-        int seconds = (int) (nanoSeconds / Time.NANOSECONDS_IN_SECOND);
-        nanoSeconds = nanoSeconds % Time.NANOSECONDS_IN_SECOND;
-        return new Time(seconds, (int) nanoSeconds);
+        return new Time(nanoSeconds);
     }
 
     /**
@@ -124,18 +122,17 @@ public class Time implements Comparable<Time> {
      * @param nanoSeconds Number of nanoseconds within the second
      */
     public Time(int seconds, int nanoSeconds) {
-        if (seconds < 0) {
+        if (ValidationLevel.CHECK_HOT_PATH && seconds < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Number of seconds must be positive or null");
         }
-        if (nanoSeconds < 0) {
+        if (ValidationLevel.CHECK_HOT_PATH && nanoSeconds < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Number of nanoseconds must be positive or null");
         }
-        if (nanoSeconds >= Time.NANOSECONDS_IN_SECOND) {
+        if (ValidationLevel.CHECK_HOT_PATH && nanoSeconds >= Time.NANOSECONDS_IN_SECOND) {
             Logger.getInstance().log(LogSeverity.CRITICAL,
                     "Number of nanoseconds must be strictly lower than 1 billion");
         }
-        this.seconds = seconds;
-        this.nanoSeconds = nanoSeconds;
+        this.nanoSeconds = 1L * Time.NANOSECONDS_IN_SECOND * seconds + nanoSeconds;
     }
 
     /**
@@ -144,10 +141,18 @@ public class Time implements Comparable<Time> {
      * @param other The object to duplicate
      */
     public Time(Time other) {
-        this.seconds = other.seconds;
         this.nanoSeconds = other.nanoSeconds;
     }
 
+    /**
+     * Create an object from a total number of nanoseconds, without any check
+     * 
+     * @param nanoSeconds Total number of nanoseconds
+     */
+    private Time(long nanoSeconds) {
+        this.nanoSeconds = nanoSeconds;
+    }
+
     /**
      * Add argument time with the current time.
      * It does not modify current reference, nor the argument
@@ -156,16 +161,15 @@ public class Time implements Comparable<Time> {
      * @return The time being the sum of current and argument
      */
     public Time add(Time toAdd) {
-        Time time = new Time(this);
-        time.seconds += toAdd.seconds;
-        time.nanoSeconds += toAdd.nanoSeconds;
-
-        if (time.nanoSeconds >= Time.NANOSECONDS_IN_SECOND) {
-            time.seconds += 1;
-            time.nanoSeconds -= Time.NANOSECONDS_IN_SECOND;
+        long nanoSeconds;
+        try {
+            nanoSeconds = Math.addExact(this.nanoSeconds, toAdd.nanoSeconds);
+        } catch (ArithmeticException e) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Time is too high: " + this + " + " + toAdd);
+            nanoSeconds = Long.MAX_VALUE;
         }
 
-        return time;
+        return new Time(nanoSeconds);
     }
 
     /**
@@ -176,21 +180,13 @@ public class Time implements Comparable<Time> {
      * @return The time being the difference between current and argument
      */
     public Time remove(Time toRemove) {
-        Time time = new Time(this);
-        time.seconds -= toRemove.seconds;
-        time.nanoSeconds -= toRemove.nanoSeconds;
+        long nanoSeconds = this.nanoSeconds - toRemove.nanoSeconds;
 
-        if (time.nanoSeconds < 0) {
-            time.seconds -= 1;
-            time.nanoSeconds += Time.NANOSECONDS_IN_SECOND;
-        }
-        ;
-
-        if (time.seconds < 0) {
+        if (ValidationLevel.CHECK_HOT_PATH && nanoSeconds < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Time cannot be negative");
         }
 
-        return time;
+        return new Time(nanoSeconds);
     }
 
     /**
@@ -200,14 +196,11 @@ public class Time implements Comparable<Time> {
      * @return A new instance of Time which is the fraction of current Time
      */
     public Time divide(double divider) {
-        if (divider < 0) {
+        if (ValidationLevel.CHECK_HOT_PATH && divider < 0) {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot divide Time by negative value");
         }
-        long nanoSeconds = 1L * Time.NANOSECONDS_IN_SECOND * this.seconds + this.nanoSeconds;
-        nanoSeconds /= divider;
 
-        return new Time((int) (nanoSeconds / Time.NANOSECONDS_IN_SECOND),
-                (int) (nanoSeconds % Time.NANOSECONDS_IN_SECOND));
+        return new Time((long) (this.nanoSeconds / divider));
     }
 
     /**
@@ -225,15 +218,12 @@ public class Time implements Comparable<Time> {
         }
 
         precision = 9 - precision;
-        int mask = 1;
+        long mask = 1;
         for (int i = 0; i < precision; i++) {
             mask *= 10;
         }
 
-        Time time = new Time(this);
-        time.nanoSeconds = ((int) (time.nanoSeconds / mask)) * mask;
-
-        return time;
+        return new Time((this.nanoSeconds / mask) * mask);
     }
 
     /**
@@ -242,7 +232,7 @@ public class Time implements Comparable<Time> {
      * @return The number of seconds
      */
     public double getSeconds() {
-        return this.seconds + this.nanoSeconds / (Time.NANOSECONDS_IN_SECOND * 1.0);
+        return this.getWholeSeconds() + this.getNanoSecondsInSecond() / (Time.NANOSECONDS_IN_SECOND * 1.0);
     }
 
     /**
@@ -251,8 +241,8 @@ public class Time implements Comparable<Time> {
      * @return The number of milliseconds
      */
     public double getMilliSeconds() {
-        return 1.0 * this.seconds * Time.MILLISECONDS_IN_SECOND
-                + 1.0 * this.nanoSeconds / Time.NANOSECONDS_IN_MILLISECOND;
+        return 1.0 * this.getWholeSeconds() * Time.MILLISECONDS_IN_SECOND
+                + 1.0 * this.getNanoSecondsInSecond() / Time.NANOSECONDS_IN_MILLISECOND;
     }
 
     /**
@@ -261,8 +251,8 @@ public class Time implements Comparable<Time> {
      * @return The number of microseconds
      */
     public double getMicroSeconds() {
-        return 1.0 * this.seconds * Time.MICROSECONDS_IN_SECOND
-                + 1.0 * this.nanoSeconds / Time.NANOSECONDS_IN_MICROSECOND;
+        return 1.0 * this.getWholeSeconds() * Time.MICROSECONDS_IN_SECOND
+                + 1.0 * this.getNanoSecondsInSecond() / Time.NANOSECONDS_IN_MICROSECOND;
     }
 
     /**
@@ -271,20 +261,44 @@ public class Time implements Comparable<Time> {
      * @return The number of nanoseconds
      */
     public double getNanoSeconds() {
-        return 1.0 * this.seconds * Time.NANOSECONDS_IN_SECOND + this.nanoSeconds;
+        return this.nanoSeconds;
+    }
+
+    /**
+     * Get the total number of nanoseconds in this instance
+     * 
+     * @return The number of nanoseconds, as an integer
+     */
+    public long toNanoSeconds() {
+        return this.nanoSeconds;
+    }
+
+    /**
+     * Get the number of whole seconds in this instance
+     * 
+     * @return The number of seconds, without fraction of second
+     */
+    private long getWholeSeconds() {
+        return this.nanoSeconds / Time.NANOSECONDS_IN_SECOND;
+    }
+
+    /**
+     * Get the number of nanoseconds within the second
+     * 
+     * @return The number of nanoseconds, lower than 1 billion
+     */
+    private long getNanoSecondsInSecond() {
+        return this.nanoSeconds % Time.NANOSECONDS_IN_SECOND;
     }
 
     @Override
     public int compareTo(Time other) {
-        if (this.seconds == other.seconds) {
-            return this.nanoSeconds - other.nanoSeconds;
-        }
-        return this.seconds - other.seconds;
+        return Long.compare(this.nanoSeconds, other.nanoSeconds);
     }
 
     @Override
     public String toString() {
-        return this.seconds + "s" + this.nanoSeconds + "ns";
+        return this.getWholeSeconds() + "s" + this.getNanoSecondsInSecond() + "ns";
     }
 
     public String toStringWithPrecision(int precision) {
@@ -295,22 +309,24 @@ public class Time implements Comparable<Time> {
             Logger.getInstance().log(LogSeverity.CRITICAL, "Precision cannot be higher than a nanosecond");
         }
 
-        if (precision == 0 || this.nanoSeconds == 0) {
-            return this.seconds + "s";
+        if (precision == 0 || this.getNanoSecondsInSecond() == 0) {
+            return this.getWholeSeconds() + "s";
         }
 
-        Time t = this.truncate(precision);
-        String time = String
-                .format("%." + precision + "f", t.seconds + 1.0 * t.nanoSeconds / Time.NANOSECONDS_IN_SECOND)
-                .replace(",", ".");
-        while (time.charAt(time.length() - 1) == '0') {
-            time = time.substring(0, time.length() - 1);
+        long fraction = this.getNanoSecondsInSecond();
+        for (int i = precision; i < 9; i++) {
+            fraction /= 10;
         }
-        if (time.charAt(time.length() - 1) == '.') {
-            time = time.substring(0, time.length() - 1);
+        if (fraction == 0) {
+            return this.getWholeSeconds() + "s";
         }
 
-        return time + "s";
+        String digits = Long.toString(fraction);
+        while (digits.charAt(digits.length() - 1) == '0') {
+            digits = digits.substring(0, digits.length() - 1);
+            precision--;
+        }
+        return this.getWholeSeconds() + "." + "0".repeat(precision - digits.length()) + digits + "s";
     }
 
     @Override
@@ -321,6 +337,11 @@ public class Time implements Comparable<Time> {
             return false;
         }
         Time time = (Time) other;
-        return this.seconds == time.seconds && this.nanoSeconds == time.nanoSeconds;
+        return this.nanoSeconds == time.nanoSeconds;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.nanoSeconds);
     }
 }
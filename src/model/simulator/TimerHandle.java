@@ -0,0 +1,121 @@
+package model.simulator;
+
+/**
+ * Handle of a timer of a timing wheel, used to cancel it.
+ * Timers are chained in the slots of the wheel, so they can be removed in
+ * O(1).
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see TimingWheel
+ */
+public class TimerHandle {
+
+    /**
+     * Wheel containing this timer, or null for the head of a slot
+     */
+    final TimingWheel wheel;
+
+    /**
+     * The action to launch
+     */
+    final Runnable action;
+
+    /**
+     * Tick at which the timer expires
+     */
+    long expiry;
+
+    /**
+     * Number of ticks between two expirations of a periodic timer, 0 for a
+     * timer expiring once
+     */
+    final long period;
+
+    /**
+     * Level of the wheel containing this timer
+     */
+    int level;
+
+    /**
+     * Previous timer in the same slot
+     */
+    TimerHandle previous;
+
+    /**
+     * Next timer in the same slot
+     */
+    TimerHandle next;
+
+    /**
+     * Create a new timer, not yet in a slot
+     * 
+     * @param wheel  Wheel containing this timer
+     * @param action The action to launch
+     * @param expiry Tick at which the timer expires
+     * @param period Number of ticks between two expirations, 0 if it expires
+     *               once
+     */
+    TimerHandle(TimingWheel wheel, Runnable action, long expiry, long period) {
+        this.wheel = wheel;
+        this.action = action;
+        this.expiry = expiry;
+        this.period = period;
+        this.level = 0;
+        this.previous = null;
+        this.next = null;
+    }
+
+    /**
+     * Indicates if the timer will expire again
+     * 
+     * @return True if the timer is in the wheel
+     */
+    public boolean isPending() {
+        return this.next != null;
+    }
+
+    /**
+     * Get the time of the next expiration of the timer
+     * 
+     * @return The time of the next expiration
+     */
+    public Time getTime() {
+        return Time.nanoSeconds(this.expiry * this.wheel.getResolution());
+    }
+
+    /**
+     * Cancel the timer. A periodic timer does not expire anymore
+     * 
+     * @return True if the timer was pending
+     */
+    public boolean cancel() {
+        if (!this.isPending()) {
+            return false;
+        }
+        this.wheel.remove(this);
+        return true;
+    }
+
+    /**
+     * Remove this timer from its slot
+     */
+    void unlink() {
+        this.previous.next = this.next;
+        this.next.previous = this.previous;
+        this.previous = null;
+        this.next = null;
+    }
+
+    /**
+     * Add a timer at the end of the slot of which this timer is the head
+     * 
+     * @param timer The timer to add
+     */
+    void append(TimerHandle timer) {
+        timer.previous = this.previous;
+        timer.next = this;
+        this.previous.next = timer;
+        this.previous = timer;
+    }
+}
@@ -0,0 +1,432 @@
+package model.simulator;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Hierarchical timing wheel, storing short and periodic timers out of the
+ * event queue of the simulator.
+ * Time is split in ticks of a fixed resolution, and timers expire at the first
+ * tick at or after their time. Each level of the wheel is an array of slots:
+ * a slot of the first level holds the timers of one tick, a slot of the next
+ * level the timers of as many ticks as there are slots in a level, and so on.
+ * Timers are moved to a lower level when the time of their slot is reached.
+ * Adding, cancelling and expiring a timer are in O(1).
+ * 
+ * The wheel is driven by the clock of its simulator: a single event is kept in
+ * the event queue, at the next tick where timers expire or are moved to a
+ * lower level. Timers expiring on the same tick run in that event, in a
+ * deterministic order.
+ * 
+ * Timers cannot be used during an optimistic simulation, as the state of the
+ * wheel is not rolled back.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see TimerHandle
+ * @see Simulator#getTimingWheel()
+ */
+public class TimingWheel {
+
+    /**
+     * Default duration of a tick, in nanoseconds
+     */
+    public static final long DEFAULT_RESOLUTION = Time.NANOSECONDS_IN_MILLISECOND;
+
+    /**
+     * Default number of slots of each level
+     */
+    public static final int DEFAULT_NUMBER_SLOTS = 256;
+
+    /**
+     * Default number of levels
+     */
+    public static final int DEFAULT_NUMBER_LEVELS = 4;
+
+    /**
+     * Simulator driving this wheel
+     */
+    private final Simulator simulator;
+
+    /**
+     * Duration of a tick, in nanoseconds
+     */
+    private final long resolution;
+
+    /**
+     * Logarithm in base 2 of the number of slots of each level
+     */
+    private final int shift;
+
+    /**
+     * Mask giving the index of a slot in a level
+     */
+    private final long mask;
+
+    /**
+     * Head of each slot, by level. The timers of a slot are chained in a
+     * circular list starting and ending at its head
+     */
+    private final TimerHandle[][] slots;
+
+    /**
+     * Number of timers in each level
+     */
+    private final int[] levelSizes;
+
+    /**
+     * Number of timers in the wheel
+     */
+    private int size;
+
+    /**
+     * Last tick processed
+     */
+    private long now;
+
+    /**
+     * Event processing the next tick, or null if no tick is scheduled
+     */
+    private EventHandle driver;
+
+    /**
+     * Tick processed by the driver event
+     */
+    private long driverTick;
+
+    /**
+     * Indicates if a tick is being processed. The driver event is then
+     * scheduled once the tick is over
+     */
+    private boolean ticking;
+
+    /**
+     * Action processing a tick, created once to be scheduled repeatedly
+     */
+    private final Runnable tickAction;
+
+    /**
+     * Create a new empty wheel
+     * 
+     * @param simulator    Simulator driving this wheel
+     * @param resolution   Duration of a tick, in nanoseconds
+     * @param numberSlots  Number of slots of each level. Must be a power of two
+     * @param numberLevels Number of levels
+     */
+    TimingWheel(Simulator simulator, long resolution, int numberSlots, int numberLevels) {
+        if (resolution <= 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Timing wheel resolution must be strictly positive");
+        }
+        if (numberSlots < 2 || Integer.bitCount(numberSlots) != 1) {
+            Logger.getInstance().log(LogSeverity.CRITICAL,
+                    "Number of slots of timing wheel must be a power of two: " + numberSlots);
+        }
+        int shift = Integer.numberOfTrailingZeros(numberSlots);
+        if (numberLevels < 1 || shift * numberLevels > 62) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Invalid number of levels of timing wheel: " + numberLevels);
+        }
+        this.simulator = simulator;
+        this.resolution = resolution;
+        this.shift = shift;
+        this.mask = numberSlots - 1;
+        this.slots = new TimerHandle[numberLevels][numberSlots];
+        for (TimerHandle[] level : this.slots) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new TimerHandle(null, null, 0, 0);
+                level[i].previous = level[i];
+                level[i].next = level[i];
+            }
+        }
+        this.levelSizes = new int[numberLevels];
+        this.size = 0;
+        this.now = this.ceilTick(simulator.getCurrentTimeNanoSeconds()) - 1;
+        this.driver = null;
+        this.driverTick = 0;
+        this.ticking = false;
+        this.tickAction = this::tick;
+    }
+
+    /**
+     * Get the duration of a tick
+     * 
+     * @return The resolution in nanoseconds
+     */
+    public long getResolution() {
+        return this.resolution;
+    }
+
+    /**
+     * Get the number of slots of each level
+     * 
+     * @return The number of slots
+     */
+    public int getNumberSlots() {
+        return (int) this.mask + 1;
+    }
+
+    /**
+     * Get the number of levels
+     * 
+     * @return The number of levels
+     */
+    public int getNumberLevels() {
+        return this.slots.length;
+    }
+
+    /**
+     * Get the number of pending timers
+     * 
+     * @return The number of timers
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Add a timer expiring once. It expires at the first tick at or after given
+     * time, so a timer added for the current time expires right away, in a
+     * new event if the current tick was already processed
+     * 
+     * @param time   Time of expiration
+     * @param action The action to launch
+     * @return The handle of the timer
+     */
+    public TimerHandle schedule(Time time, Runnable action) {
+        return this.add(time.toNanoSeconds(), 0, action);
+    }
+
+    /**
+     * Add a periodic timer. It expires for the first time after one period from
+     * current time, then after each period. The period is rounded up to a
+     * number of ticks
+     * 
+     * @param period Duration between two expirations
+     * @param action The action to launch
+     * @return The handle of the timer
+     */
+    public TimerHandle scheduleEvery(Time period, Runnable action) {
+        long ticks = this.ceilTick(period.toNanoSeconds());
+        if (ticks == 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Timer period must be strictly positive");
+        }
+        return this.add(this.simulator.getCurrentTimeNanoSeconds() + period.toNanoSeconds(), ticks, action);
+    }
+
+    /**
+     * Create a timer and add it to the wheel
+     * 
+     * @param time   Time of first expiration, in nanoseconds
+     * @param period Number of ticks between two expirations, 0 if it expires
+     *               once
+     * @param action The action to launch
+     * @return The handle of the timer
+     */
+    private TimerHandle add(long time, long period, Runnable action) {
+        this.checkRollback();
+        if (time < this.simulator.getCurrentTimeNanoSeconds()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule a timer in the past");
+        }
+        if (action == null) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Cannot schedule a null timer action");
+        }
+        // Ticks skipped since the last one processed had nothing to do, so the
+        // wheel can move to the current tick, unless the driver is due before
+        long current = this.ceilTick(this.simulator.getCurrentTimeNanoSeconds());
+        if (!this.ticking && this.driver != null && this.driver.isPending()) {
+            current = Math.min(current, this.driverTick);
+        }
+        this.now = Math.max(this.now, current - 1);
+
+        TimerHandle timer = new TimerHandle(this, action, this.ceilTick(time), period);
+        long visit = this.insert(timer);
+        this.size++;
+        if (!this.ticking && (this.driver == null || !this.driver.isPending() || visit < this.driverTick)) {
+            this.scheduleDriver(visit);
+        }
+        return timer;
+    }
+
+    /**
+     * Indicates if an event is the one processing the next tick
+     * 
+     * @param event The event
+     * @return True if the event drives this wheel
+     */
+    boolean isDriver(Event event) {
+        if (this.driver instanceof PooledEventHandle) {
+            return ((PooledEventHandle) this.driver).isHandleOf(event);
+        }
+        return event == this.driver;
+    }
+
+    /**
+     * Remove a cancelled timer from the wheel
+     * 
+     * @param timer The timer to remove
+     */
+    void remove(TimerHandle timer) {
+        this.checkRollback();
+        this.levelSizes[timer.level]--;
+        timer.unlink();
+        this.size--;
+        if (this.size == 0 && this.driver != null) {
+            this.driver.cancel();
+            this.driver = null;
+        }
+    }
+
+    /**
+     * Add a timer to the slot matching the number of ticks before it expires.
+     * Timers expiring after the last slot of the last level are put in this
+     * slot, and placed again when it is reached
+     * 
+     * @param timer The timer to add
+     * @return The tick at which the slot of the timer is processed
+     */
+    private long insert(TimerHandle timer) {
+        long delta = timer.expiry - this.now;
+        int level = 0;
+        while (level < this.slots.length - 1 && delta >> (this.shift * (level + 1)) != 0) {
+            level++;
+        }
+        long expiry = timer.expiry;
+        int levelShift = this.shift * level;
+        if (delta >> (levelShift + this.shift) != 0) {
+            expiry = this.now + (1L << (levelShift + this.shift)) - 1;
+        }
+        timer.level = level;
+        this.levelSizes[level]++;
+        this.slots[level][(int) ((expiry >> levelShift) & this.mask)].append(timer);
+        return expiry >> levelShift << levelShift;
+    }
+
+    /**
+     * Process the tick reached by the simulator: move the timers of the higher
+     * levels whose slot starts at this tick, then expire the timers of the tick
+     */
+    private void tick() {
+        this.driver = null;
+        long tick = this.simulator.getCurrentTimeNanoSeconds() / this.resolution;
+        this.now = tick;
+        this.ticking = true;
+
+        for (int level = this.slots.length - 1; level > 0; level--) {
+            int levelShift = this.shift * level;
+            if ((tick & ((1L << levelShift) - 1)) == 0 && this.levelSizes[level] > 0) {
+                this.cascade(level, (int) ((tick >> levelShift) & this.mask));
+            }
+        }
+
+        // Timers added by the actions for this tick are appended to this slot,
+        // so they expire in this loop
+        TimerHandle head = this.slots[0][(int) (tick & this.mask)];
+        while (head.next != head) {
+            TimerHandle timer = head.next;
+            this.levelSizes[0]--;
+            timer.unlink();
+            if (timer.expiry > tick) {
+                this.insert(timer);
+                continue;
+            }
+            if (timer.period > 0) {
+                timer.expiry += timer.period;
+                this.insert(timer);
+            } else {
+                this.size--;
+            }
+            try {
+                timer.action.run();
+            } catch (RuntimeException e) {
+                this.ticking = false;
+                throw e;
+            }
+        }
+        this.ticking = false;
+
+        if (this.size > 0) {
+            this.scheduleDriver(this.nextTick());
+        }
+    }
+
+    /**
+     * Move all the timers of a slot to the lower levels
+     * 
+     * @param level Level of the slot
+     * @param index Index of the slot in its level
+     */
+    private void cascade(int level, int index) {
+        TimerHandle head = this.slots[level][index];
+        TimerHandle timer = head.next;
+        head.next = head;
+        head.previous = head;
+        while (timer != head) {
+            TimerHandle next = timer.next;
+            timer.previous = null;
+            timer.next = null;
+            this.levelSizes[level]--;
+            this.insert(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Find the next tick where timers expire or are moved to a lower level.
+     * Each level is scanned for its first slot not empty, until the next slot
+     * of the level cannot be before the tick already found
+     * 
+     * @return The next tick to process
+     */
+    private long nextTick() {
+        long best = Long.MAX_VALUE;
+        for (int level = 0; level < this.slots.length; level++) {
+            int levelShift = this.shift * level;
+            long block = (this.now >> levelShift) + 1;
+            if (block << levelShift >= best) {
+                break;
+            }
+            if (this.levelSizes[level] == 0) {
+                continue;
+            }
+            for (long i = 0; i <= this.mask && block << levelShift < best; i++, block++) {
+                TimerHandle head = this.slots[level][(int) (block & this.mask)];
+                if (head.next != head) {
+                    best = block << levelShift;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Schedule the event processing a tick, in place of the one already
+     * scheduled
+     * 
+     * @param tick The tick to process
+     */
+    private void scheduleDriver(long tick) {
+        if (this.driver != null) {
+            this.driver.cancel();
+        }
+        this.driverTick = tick;
+        this.driver = this.simulator.schedule(tick * this.resolution, this.tickAction);
+    }
+
+    /**
+     * Get the first tick at or after a time
+     * 
+     * @param time The time in nanoseconds
+     * @return The tick
+     */
+    private long ceilTick(long time) {
+        return (time + this.resolution - 1) / this.resolution;
+    }
+
+    /**
+     * Check that timers are not changed during an optimistic simulation
+     */
+    private void checkRollback() {
+        if (this.simulator.isRollbackEnabled()) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Timers cannot be used in an optimistic simulation");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package model.simulator;
+
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Event queue based on a red-black tree.
+ * All operations are in O(log n).
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventQueue
+ */
+public class TreeEventQueue implements EventQueue {
+
+    /**
+     * The events stored
+     */
+    private TreeSet<Event> events;
+
+    /**
+     * Create a new empty queue
+     */
+    public TreeEventQueue() {
+        this.events = new TreeSet<Event>();
+    }
+
+    @Override
+    public void add(Event event) {
+        this.events.add(event);
+    }
+
+    @Override
+    public Event poll() {
+        return this.events.pollFirst();
+    }
+
+    @Override
+    public Event peek() {
+        if (this.events.isEmpty()) {
+            return null;
+        }
+        return this.events.first();
+    }
+
+    @Override
+    public int size() {
+        return this.events.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.events.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        this.events.clear();
+    }
+
+    @Override
+    public int removeIf(Predicate<Event> filter) {
+        int size = this.events.size();
+        this.events.removeIf(filter);
+        return size - this.events.size();
+    }
+}
@@ -0,0 +1,85 @@
+package model.simulator;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+
+/**
+ * Enumeration of the levels of validation of the arguments given to the
+ * simulation.
+ * Checks are split in two groups: the topology checks, run when building the
+ * scenario (tables, links, interfaces, unique addresses), and the hot path
+ * checks, run for each packet or event (time and address ranges, state of the
+ * interfaces and links, headers, scheduling). Once a scenario is known to be
+ * valid, the hot path checks can be skipped.
+ * 
+ * The level is read once from the system property {@value #PROPERTY}, for
+ * instance -Dnetworks.validation=off, strict if not set. It is held in
+ * constants, so the JIT compiler removes the checks disabled.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ */
+public enum ValidationLevel {
+    STRICT("Strict"),
+    TOPOLOGY("Topology"),
+    OFF("Off");
+
+    /**
+     * System property giving the validation level
+     */
+    public static final String PROPERTY = "networks.validation";
+
+    /**
+     * Validation level of the simulations of this JVM
+     */
+    public static final ValidationLevel CURRENT = ValidationLevel.parse(System.getProperty(ValidationLevel.PROPERTY));
+
+    /**
+     * Indicates if the checks run for each packet or event are enabled
+     */
+    public static final boolean CHECK_HOT_PATH = ValidationLevel.CURRENT == ValidationLevel.STRICT;
+
+    /**
+     * Indicates if the checks run when building the topology are enabled
+     */
+    public static final boolean CHECK_TOPOLOGY = ValidationLevel.CURRENT != ValidationLevel.OFF;
+
+    /**
+     * String representation of the validation level
+     */
+    private String name;
+
+    /**
+     * Construct a new instance of validation level
+     * 
+     * @param name String representation of this validation level
+     */
+    private ValidationLevel(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the validation level of given name, ignoring case
+     * 
+     * @param value The name of the level
+     * @return The validation level, strict if the name is null or unknown. An
+     *         unknown name is logged as a warning
+     */
+    public static ValidationLevel parse(String value) {
+        for (ValidationLevel level : ValidationLevel.values()) {
+            if (level.name.equalsIgnoreCase(value)) {
+                return level;
+            }
+        }
+        if (value != null) {
+            Logger.getInstance().log(LogSeverity.WARNING, "ValidationLevel.parse",
+                    "Unknown validation level '" + value + "', using " + ValidationLevel.STRICT);
+        }
+        return ValidationLevel.STRICT;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
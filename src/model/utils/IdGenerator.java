@@ -1,46 +1,53 @@
 package model.utils;
 
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.SimulationContext;
+
 /**
- * Singleton used to generate unique IDs for some elements of the simulation
+ * Generator of unique IDs for some elements of the simulation.
+ * Each simulation context has its own generator, see
+ * {@link model.simulator.SimulationContext}.
  * 
  * @author Bastien Tauran
  * @version 1.0
  */
 public class IdGenerator {
 
-    /**
-     * Instance of Simulator
-     */
-    private static IdGenerator instance;
-
     /**
      * Counter of node IDs
      */
     private int nodeId;
 
     /**
-     * Counter of packet IDs
+     * Counter of packet IDs. During a parallel simulation, it is only read
+     * when the events are committed, see {@link model.network.Packet#hasPacketId()}
      */
     private int packetId;
 
     /**
-     * Private constructor
+     * Counter of link IDs
+     */
+    private int linkId;
+
+    /**
+     * Create a new generator. Use {@link #getInstance()} to get the one of the
+     * current simulation context
      */
-    private IdGenerator() {
+    public IdGenerator() {
         this.nodeId = 0;
         this.packetId = 0;
+        this.linkId = 0;
     }
 
     /**
-     * Get the instance of Simulator. Construct it if not already created.
+     * Get the instance of IdGenerator of the current simulation context.
+     * Construct it if not already created.
      * 
-     * @return The instance of Simulator
+     * @return The instance of IdGenerator
      */
     public static IdGenerator getInstance() {
-        if (instance == null) {
-            instance = new IdGenerator();
-        }
-        return instance;
+        return SimulationContext.getCurrent().getIdGenerator();
     }
 
     /**
@@ -64,4 +71,37 @@ public class IdGenerator {
 
         return this.packetId;
     }
+
+    /**
+     * Get a new link ID. This ID is incremented each time this method is called
+     * 
+     * @return Link ID
+     */
+    public int getNextLinkId() {
+        this.linkId++;
+
+        return this.linkId;
+    }
+
+    /**
+     * Write the counters to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        writer.putInt(this.nodeId);
+        writer.putInt(this.packetId);
+        writer.putInt(this.linkId);
+    }
+
+    /**
+     * Read the counters from a checkpoint
+     * 
+     * @param reader The checkpoint reader
+     */
+    public void restoreState(CheckpointReader reader) {
+        this.nodeId = reader.getInt();
+        this.packetId = reader.getInt();
+        this.linkId = reader.getInt();
+    }
 }
@@ -0,0 +1,126 @@
+package model.utils;
+
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.SimulationContext;
+
+/**
+ * Generator of the random streams of the simulation.
+ * Each component drawing random numbers has its own stream, a
+ * {@link RandomStream} seeded from the seed of the simulation and the name of
+ * the stream only. Streams are independent of each other and of the order
+ * in which they are created, so a run is reproduced from its seed whatever the
+ * partitioning of a parallel simulation, and components never share a
+ * generator between threads.
+ * Each simulation context has its own generator, see
+ * {@link model.simulator.SimulationContext}.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ */
+public class RandomGenerator {
+
+    /**
+     * Seed of a new generator
+     */
+    public static final long DEFAULT_SEED = 1;
+
+    /**
+     * Seed of the simulation
+     */
+    private long seed;
+
+    /**
+     * Create a new generator. Use {@link #getInstance()} to get the one of the
+     * current simulation context
+     */
+    public RandomGenerator() {
+        this.seed = RandomGenerator.DEFAULT_SEED;
+    }
+
+    /**
+     * Get the instance of RandomGenerator of the current simulation context.
+     * Construct it if not already created.
+     * 
+     * @return The instance of RandomGenerator
+     */
+    public static RandomGenerator getInstance() {
+        return SimulationContext.getCurrent().getRandomGenerator();
+    }
+
+    /**
+     * Get the seed of the simulation
+     * 
+     * @return The seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Set the seed of the simulation. Must be set before the streams are
+     * created, so before the topology is built
+     * 
+     * @param seed The seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Create the stream of given name. Streams created with the same name and
+     * seed give the same numbers
+     * 
+     * @param name Name of the stream
+     * @return The stream
+     */
+    public RandomStream getStream(String name) {
+        // FNV-1a hash of the name, then mixed with the seed
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        return new RandomStream(RandomGenerator.mix(this.seed ^ RandomGenerator.mix(hash)));
+    }
+
+    /**
+     * Create the stream of a component, given by its type and its ID
+     * 
+     * @param type Type of the component
+     * @param id   ID of the component
+     * @return The stream
+     */
+    public RandomStream getStream(String type, long id) {
+        return this.getStream(type + "/" + id);
+    }
+
+    /**
+     * Write the seed to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        writer.putLong(this.seed);
+    }
+
+    /**
+     * Read the seed from a checkpoint
+     * 
+     * @param reader The checkpoint reader
+     */
+    public void restoreState(CheckpointReader reader) {
+        this.seed = reader.getLong();
+    }
+
+    /**
+     * Mix the bits of a value, with the finalizer of SplitMix64
+     * 
+     * @param value The value
+     * @return The value mixed
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,139 @@
+package model.utils;
+
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.simulator.CheckpointReader;
+import model.simulator.CheckpointWriter;
+import model.simulator.Simulator;
+
+/**
+ * Random stream of a component of the simulation.
+ * It gives the same numbers as a {@link java.util.SplittableRandom} created
+ * with the same seed, but its state is a single long which can be saved in a
+ * checkpoint. During an optimistic simulation, each draw records the previous
+ * state, so a rolled back event draws the same numbers when run again.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see RandomGenerator
+ */
+public class RandomStream {
+
+    /**
+     * Increment of the state at each draw
+     */
+    private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * State of the stream
+     */
+    private long seed;
+
+    /**
+     * Create a new stream
+     * 
+     * @param seed Initial state of the stream
+     */
+    public RandomStream(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Draw a long
+     * 
+     * @return A long, uniformly distributed
+     */
+    public long nextLong() {
+        long z = this.nextSeed();
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Draw an int
+     * 
+     * @return An int, uniformly distributed
+     */
+    public int nextInt() {
+        long z = this.nextSeed();
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /**
+     * Draw an int between 0 included and a bound excluded
+     * 
+     * @param bound The bound, strictly positive
+     * @return An int, uniformly distributed
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            Logger.getInstance().log(LogSeverity.CRITICAL, "Random bound must be strictly positive: " + bound);
+        }
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return this.nextInt() & m;
+        }
+        // Values of the last incomplete range are drawn again
+        int u = this.nextInt() >>> 1;
+        int r = u % bound;
+        while (u + m - r < 0) {
+            u = this.nextInt() >>> 1;
+            r = u % bound;
+        }
+        return r;
+    }
+
+    /**
+     * Draw a double between 0 included and 1 excluded
+     * 
+     * @return A double, uniformly distributed
+     */
+    public double nextDouble() {
+        return (this.nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Draw a boolean
+     * 
+     * @return A boolean, true with probability 0.5
+     */
+    public boolean nextBoolean() {
+        return this.nextInt() < 0;
+    }
+
+    /**
+     * Write the state of this stream to a checkpoint
+     * 
+     * @param writer The checkpoint writer
+     */
+    public void saveState(CheckpointWriter writer) {
+        writer.putLong(this.seed);
+    }
+
+    /**
+     * Read the state of this stream from a checkpoint
+     * 
+     * @param reader The checkpoint reader
+     */
+    public void restoreState(CheckpointReader reader) {
+        this.seed = reader.getLong();
+    }
+
+    /**
+     * Advance the state of the stream, recording how to undo it during an
+     * optimistic simulation
+     * 
+     * @return The new state
+     */
+    private long nextSeed() {
+        Simulator simulator = Simulator.getInstance();
+        if (simulator.isRollbackEnabled()) {
+            long seed = this.seed;
+            simulator.addUndo(() -> this.seed = seed);
+        }
+        this.seed += RandomStream.GAMMA;
+        return this.seed;
+    }
+}
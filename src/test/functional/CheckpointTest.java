@@ -0,0 +1,165 @@
+package test.functional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.junit.Test;
+
+import helper.PointToPointHelper;
+import model.link.Link;
+import model.logger.Logger;
+import model.network.IpAddress;
+import model.network.Packet;
+import model.node.EndDevice;
+import model.node.Interface;
+import model.simulator.Checkpoint;
+import model.simulator.SimulationContext;
+import model.simulator.Simulator;
+import model.simulator.Time;
+import model.utils.IdGenerator;
+import model.utils.Pair;
+
+public class CheckpointTest {
+
+    private static final String PATH = "out/checkpoint/CheckpointTest.bin";
+
+    private EndDevice nodeA;
+    private Link link;
+
+    // Two nodes sending packets to each other faster than the link, so queues
+    // are filled when the checkpoint is saved. Node a drops some of its packets
+    // at random. Packets are only scheduled for the full run, the restored one
+    // gets them from the checkpoint
+    private Checkpoint buildScenario(String scenarioName, boolean schedulePackets) {
+        EndDevice nodeA = new EndDevice("a");
+        EndDevice nodeB = new EndDevice("b");
+        PointToPointHelper p2pHelper = new PointToPointHelper(1000, Time.milliSeconds(10));
+        Pair<Interface, Interface> interfaces = p2pHelper.install(nodeA, nodeB, new IpAddress("10.0.0.0/24"));
+        this.nodeA = nodeA;
+        this.link = interfaces.first.getLink();
+        IpAddress addressA = new IpAddress(interfaces.first.getIpAddress(), 32);
+        IpAddress addressB = new IpAddress(interfaces.second.getIpAddress(), 32);
+        nodeA.getRoutingTable().addEntry(new IpAddress("10.0.0.0/24"), interfaces.first, addressB);
+        nodeB.getRoutingTable().addEntry(new IpAddress("10.0.0.0/24"), interfaces.second, addressA);
+        nodeA.getArpTable().addEntry(addressB, interfaces.second.getMacAddress());
+        nodeB.getArpTable().addEntry(addressA, interfaces.first.getMacAddress());
+
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(20, 0));
+        Simulator.getInstance().setScenarioName(scenarioName);
+
+        BiConsumer<Packet, IpAddress> sendA = (packet, address) -> {
+            if (nodeA.getRandom().nextInt(4) > 0) {
+                nodeA.send(packet, address);
+            }
+        };
+        BiConsumer<Packet, IpAddress> sendB = nodeB::send;
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.addNode(nodeA);
+        checkpoint.addNode(nodeB);
+        checkpoint.registerAction("sendA", sendA);
+        checkpoint.registerAction("sendB", sendB);
+        if (schedulePackets) {
+            for (int i = 0; i < 50; i++) {
+                Simulator.getInstance().schedule(Time.milliSeconds(20 * i), sendA, new Packet("Up " + i, 100),
+                        addressB);
+                Simulator.getInstance().schedule(Time.milliSeconds(30 * i), sendB, new Packet(100), addressA);
+            }
+        }
+        return checkpoint;
+    }
+
+    private List<String> readTrace(String scenarioName) throws IOException {
+        return Files.readAllLines(Paths.get("out/simulation/" + scenarioName + "/PacketTrace.log"));
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        // Both halves run in a fresh context, so node IDs do not depend on the
+        // tests run before
+        SimulationContext context = SimulationContext.getCurrent();
+        SimulationContext.setCurrent(new SimulationContext());
+        Time end;
+        int packetId;
+        long nodeDraw;
+        long linkDraw;
+        List<String> fullTrace;
+        try {
+            Checkpoint checkpoint = this.buildScenario("CheckpointTestFull", true);
+            this.link.getRandom().nextLong();
+            checkpoint.saveAt(Time.milliSeconds(500), CheckpointTest.PATH);
+            assertEquals(Time.milliSeconds(500), Simulator.getInstance().getCurrentTime());
+            Simulator.getInstance().run();
+            end = Simulator.getInstance().getCurrentTime();
+            packetId = IdGenerator.getInstance().getNextPacketId();
+            nodeDraw = this.nodeA.getRandom().nextLong();
+            linkDraw = this.link.getRandom().nextLong();
+            fullTrace = this.readTrace("CheckpointTestFull");
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            Checkpoint restored = this.buildScenario("CheckpointTestRestored", false);
+            restored.restore(CheckpointTest.PATH);
+            assertEquals(Time.milliSeconds(500), Simulator.getInstance().getCurrentTime());
+            Simulator.getInstance().run();
+            assertEquals(end, Simulator.getInstance().getCurrentTime());
+            assertEquals(packetId, IdGenerator.getInstance().getNextPacketId());
+            assertEquals(nodeDraw, this.nodeA.getRandom().nextLong());
+            assertEquals(linkDraw, this.link.getRandom().nextLong());
+
+            // Same trace as the end of the full run, MAC addresses included
+            List<String> restoredTrace = this.readTrace("CheckpointTestRestored");
+            int header = 4;
+            int skipped = fullTrace.size() - restoredTrace.size();
+            assertTrue(skipped > 0 && restoredTrace.size() > header);
+            assertEquals(fullTrace.subList(0, header), restoredTrace.subList(0, header));
+            assertEquals(fullTrace.subList(skipped + header, fullTrace.size()),
+                    restoredTrace.subList(header, restoredTrace.size()));
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        SimulationContext context = SimulationContext.getCurrent();
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            Checkpoint checkpoint = this.buildScenario("", true);
+            Logger.getInstance().enableLogger();
+            assertThrows(RuntimeException.class, () -> checkpoint.registerAction("sendA", (Runnable) () -> {
+            }));
+
+            // Action not registered
+            Simulator.getInstance().schedule(Time.milliSeconds(1), () -> {
+            });
+            assertThrows(RuntimeException.class, () -> checkpoint.save(CheckpointTest.PATH));
+
+            // Topology not matching
+            Simulator.getInstance().reset();
+            checkpoint.save(CheckpointTest.PATH);
+            Checkpoint other = new Checkpoint();
+            other.addNode(new EndDevice("c"));
+            assertThrows(RuntimeException.class, () -> other.restore(CheckpointTest.PATH));
+
+            // Simulation already started
+            Simulator.getInstance().setStopTime(new Time(20, 0));
+            Simulator.getInstance().schedule(new Time(1, 0), () -> {
+            });
+            Simulator.getInstance().runUntil(Time.milliSeconds(100));
+            assertThrows(RuntimeException.class, () -> checkpoint.restore(CheckpointTest.PATH));
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+    }
+}
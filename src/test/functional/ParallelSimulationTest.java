@@ -0,0 +1,450 @@
+package test.functional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.junit.Test;
+
+import helper.PointToPointHelper;
+import model.io.PacketTracer;
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.network.IpAddress;
+import model.network.Packet;
+import model.node.EndDevice;
+import model.node.Interface;
+import model.simulator.SimulationContext;
+import model.simulator.Simulator;
+import model.simulator.Time;
+import model.utils.IdGenerator;
+import model.utils.Pair;
+import tools.TraceDecoder;
+
+public class ParallelSimulationTest {
+
+    private EndDevice center;
+    private EndDevice[] leaves;
+    private IpAddress[] centerAddresses;
+    private IpAddress[] leafAddresses;
+    private Packet[][] upPackets;
+    private Packet[][] downPackets;
+    private boolean randomDrops;
+    private int nextPacketId;
+
+    // Star where each leaf is linked to the center with a different delay, and
+    // is run by its own partition
+    private void buildStar(int numberLeaves) {
+        this.center = new EndDevice("center");
+        this.leaves = new EndDevice[numberLeaves];
+        this.centerAddresses = new IpAddress[numberLeaves];
+        this.leafAddresses = new IpAddress[numberLeaves];
+        this.upPackets = new Packet[numberLeaves][5];
+        this.downPackets = new Packet[numberLeaves][5];
+
+        for (int i = 0; i < numberLeaves; i++) {
+            this.leaves[i] = new EndDevice("leaf" + i);
+            for (int j = 0; j < 5; j++) {
+                this.upPackets[i][j] = new Packet("Up " + i + " " + j, 100);
+                this.downPackets[i][j] = new Packet("Down " + i + " " + j, 100);
+            }
+            this.leaves[i].setPartition(i + 1);
+
+            PointToPointHelper p2pHelper = new PointToPointHelper(1000, Time.milliSeconds(10 * (i + 1)));
+            IpAddress network = new IpAddress("10.0." + i + ".0/24");
+            Pair<Interface, Interface> interfaces = p2pHelper.install(this.center, this.leaves[i], network);
+            this.centerAddresses[i] = interfaces.first.getIpAddress();
+            this.leafAddresses[i] = interfaces.second.getIpAddress();
+
+            this.center.getRoutingTable().addEntry(network, interfaces.first, this.leafAddresses[i]);
+            this.leaves[i].getRoutingTable().addEntry(network, interfaces.second, this.centerAddresses[i]);
+            this.center.getArpTable().addEntry(this.leafAddresses[i], interfaces.second.getMacAddress());
+            this.leaves[i].getArpTable().addEntry(this.centerAddresses[i], interfaces.first.getMacAddress());
+        }
+    }
+
+    // Each run sends copies of the same packets, so packet IDs are the same
+    private void schedulePackets() {
+        for (int i = 0; i < this.leaves.length; i++) {
+            for (int j = 0; j < 5; j++) {
+                Time time = Time.milliSeconds(50 * j);
+                Simulator.getInstance().getPartition(this.leaves[i].getPartition()).schedule(time,
+                        this.send(this.leaves[i]), this.upPackets[i][j].copy(), this.centerAddresses[i]);
+                Simulator.getInstance().getPartition(this.center.getPartition()).schedule(time,
+                        this.send(this.center), this.downPackets[i][j].copy(), this.leafAddresses[i]);
+            }
+        }
+    }
+
+    // With random drops, a node sends a packet with probability 3/4, drawn from
+    // its own stream
+    private BiConsumer<Packet, IpAddress> send(EndDevice node) {
+        if (!this.randomDrops) {
+            return node::send;
+        }
+        return (packet, address) -> {
+            if (node.getRandom().nextInt(4) > 0) {
+                node.send(packet, address);
+            }
+        };
+    }
+
+    private List<String> runScenario(String scenarioName, int numberPartitions, boolean optimistic)
+            throws IOException {
+        return this.runScenario(scenarioName, numberPartitions, optimistic, false);
+    }
+
+    // A binary trace is decoded to the text one before being read
+    private List<String> runScenario(String scenarioName, int numberPartitions, boolean optimistic, boolean binary)
+            throws IOException {
+        Simulator.getInstance().reset();
+        if (binary) {
+            Simulator.getInstance().enableBinaryTrace();
+        } else {
+            Simulator.getInstance().disableBinaryTrace();
+        }
+        Simulator.getInstance().enableParallelSimulation(numberPartitions);
+        if (optimistic) {
+            Simulator.getInstance().enableOptimisticSimulation();
+        } else {
+            Simulator.getInstance().disableOptimisticSimulation();
+        }
+        Simulator.getInstance().clearLookahead();
+        Simulator.getInstance().setStopTime(new Time(100, 0));
+        Simulator.getInstance().setScenarioName(scenarioName);
+        this.schedulePackets();
+        Simulator.getInstance().run();
+        Simulator.getInstance().disableParallelSimulation();
+        Simulator.getInstance().disableOptimisticSimulation();
+        Simulator.getInstance().disableBinaryTrace();
+
+        if (binary) {
+            try (Writer writer = new FileWriter("out/simulation/" + scenarioName + "/PacketTrace.log")) {
+                new TraceDecoder("out/simulation/" + scenarioName + "/PacketTrace.bin").decode(writer);
+            }
+        }
+        return Files.readAllLines(Paths.get("out/simulation/" + scenarioName + "/PacketTrace.log"));
+    }
+
+    @Test
+    public void testSameTraceAsSequential() throws IOException {
+        this.buildStar(3);
+
+        List<String> sequential = this.runScenario("ParallelSimulationTestSequential", 1, false);
+        Time sequentialEnd = Simulator.getInstance().getCurrentTime();
+        // Lowest delay of the links between partitions
+        Simulator.getInstance().enableParallelSimulation(4);
+        assertEquals(Time.milliSeconds(10), Simulator.getInstance().getLookahead());
+        List<String> parallel = this.runScenario("ParallelSimulationTestParallel", 4, false);
+
+        assertTrue(sequential.size() > 100);
+        assertEquals(sequential, parallel);
+        assertEquals(sequentialEnd, Simulator.getInstance().getCurrentTime());
+        assertEquals(1, Simulator.getInstance().getNumberPartitions());
+    }
+
+    @Test
+    public void testOptimisticSameTraceAsSequential() throws IOException {
+        this.buildStar(3);
+
+        List<String> sequential = this.runScenario("ParallelSimulationTestSequential", 1, false);
+        Time sequentialEnd = Simulator.getInstance().getCurrentTime();
+        List<String> optimistic = this.runScenario("ParallelSimulationTestOptimistic", 4, true);
+
+        assertTrue(sequential.size() > 100);
+        assertEquals(sequential, optimistic);
+        assertEquals(sequentialEnd, Simulator.getInstance().getCurrentTime());
+    }
+
+    // Each run builds the star in its own context, so nodes get the same IDs,
+    // thus the same random streams
+    private List<String> runRandomScenario(String scenarioName, int numberPartitions, boolean optimistic)
+            throws IOException {
+        SimulationContext context = SimulationContext.getCurrent();
+        SimulationContext.setCurrent(new SimulationContext());
+        this.randomDrops = true;
+        try {
+            this.buildStar(3);
+            return this.runScenario(scenarioName, numberPartitions, optimistic);
+        } finally {
+            this.randomDrops = false;
+            SimulationContext.setCurrent(context);
+        }
+    }
+
+    @Test
+    public void testOptimisticRandomSameAsSequential() throws IOException {
+        List<String> sequential = this.runRandomScenario("ParallelSimulationTestRandomSequential", 1, false);
+        List<String> parallel = this.runRandomScenario("ParallelSimulationTestRandomParallel", 4, false);
+        List<String> optimistic = this.runRandomScenario("ParallelSimulationTestRandomOptimistic", 4, true);
+
+        assertTrue(sequential.size() > 50);
+        assertEquals(sequential, parallel);
+        assertEquals(sequential, optimistic);
+    }
+
+    // Chain where each node is run by its own partition, with links of very
+    // different delays: the second node runs far ahead of the packets of its
+    // slow link, and is rolled back by the ones of its fast link. The nodes at
+    // both ends and the second one create packets during the run, whose IDs are
+    // given in the order of the sequential run
+    private List<String> runChainScenario(String scenarioName, int numberPartitions, boolean optimistic)
+            throws IOException {
+        SimulationContext context = SimulationContext.getCurrent();
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            EndDevice[] nodes = new EndDevice[4];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = new EndDevice("chain" + i);
+                nodes[i].setPartition(i);
+            }
+            int[] delays = { 1, 40, 3 };
+            IpAddress[] leftAddresses = new IpAddress[delays.length];
+            IpAddress[] rightAddresses = new IpAddress[delays.length];
+            for (int i = 0; i < delays.length; i++) {
+                PointToPointHelper p2pHelper = new PointToPointHelper(1000000, Time.milliSeconds(delays[i]));
+                IpAddress network = new IpAddress("10.1." + i + ".0/24");
+                Pair<Interface, Interface> interfaces = p2pHelper.install(nodes[i], nodes[i + 1], network);
+                leftAddresses[i] = interfaces.first.getIpAddress();
+                rightAddresses[i] = interfaces.second.getIpAddress();
+
+                nodes[i].getRoutingTable().addEntry(network, interfaces.first, rightAddresses[i]);
+                nodes[i + 1].getRoutingTable().addEntry(network, interfaces.second, leftAddresses[i]);
+                nodes[i].getArpTable().addEntry(rightAddresses[i], interfaces.second.getMacAddress());
+                nodes[i + 1].getArpTable().addEntry(leftAddresses[i], interfaces.first.getMacAddress());
+            }
+
+            Simulator.getInstance().enableParallelSimulation(numberPartitions);
+            if (optimistic) {
+                Simulator.getInstance().enableOptimisticSimulation();
+            }
+            Simulator.getInstance().setStopTime(new Time(100, 0));
+            Simulator.getInstance().setScenarioName(scenarioName);
+            for (int j = 0; j < 200; j++) {
+                Time time = Time.milliSeconds(j);
+                for (int i = 0; i < delays.length; i++) {
+                    Simulator.getInstance().getPartition(i).schedule(time, nodes[i]::send,
+                            new Packet("Right " + i + " " + j, 100), rightAddresses[i]);
+                    Simulator.getInstance().getPartition(i + 1).schedule(time, nodes[i + 1]::send,
+                            new Packet("Left " + i + " " + j, 100), leftAddresses[i]);
+                }
+                String payload = "Created " + j;
+                Simulator.getInstance().getPartition(1).schedule(time, () -> {
+                    if (nodes[1].getRandom().nextInt(4) > 0) {
+                        nodes[1].send(new Packet(payload, 100), leftAddresses[0]);
+                    }
+                });
+                Simulator.getInstance().getPartition(0).schedule(time, () -> {
+                    if (nodes[0].getRandom().nextInt(2) > 0) {
+                        nodes[0].send(new Packet("First " + payload, 100), rightAddresses[0]);
+                    }
+                });
+                Simulator.getInstance().getPartition(3).schedule(time, () -> {
+                    if (nodes[3].getRandom().nextInt(2) > 0) {
+                        nodes[3].send(new Packet("Last " + payload, 100), leftAddresses[2]);
+                    }
+                });
+            }
+            Simulator.getInstance().run();
+            if (optimistic) {
+                assertTrue(Simulator.getInstance().getEventsRolledBack() > 0);
+            }
+            this.nextPacketId = IdGenerator.getInstance().getNextPacketId();
+            return Files.readAllLines(Paths.get("out/simulation/" + scenarioName + "/PacketTrace.log"));
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+    }
+
+    @Test
+    public void testOptimisticChainSameAsSequential() throws IOException {
+        List<String> sequential = this.runChainScenario("ParallelSimulationTestChainSequential", 1, false);
+        List<String> parallel = this.runChainScenario("ParallelSimulationTestChainParallel", 4, false);
+        List<String> optimistic = this.runChainScenario("ParallelSimulationTestChainOptimistic", 4, true);
+
+        assertTrue(sequential.size() > 1000);
+        assertEquals(sequential, parallel);
+        assertEquals(sequential, optimistic);
+    }
+
+    // Events rolled back after creating packets give no packet ID, so the
+    // counter ends as in a sequential run
+    @Test
+    public void testOptimisticRollbackRestoresPacketIds() throws IOException {
+        this.runChainScenario("ParallelSimulationTestChainSequential", 1, false);
+        int sequential = this.nextPacketId;
+        this.runChainScenario("ParallelSimulationTestChainOptimistic", 4, true);
+
+        assertTrue(sequential > 1000);
+        assertEquals(sequential, this.nextPacketId);
+    }
+
+    @Test
+    public void testOptimisticCriticalError() {
+        Logger.getInstance().enableLogger();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().enableParallelSimulation(2);
+        Simulator.getInstance().enableOptimisticSimulation();
+        Simulator.getInstance().setStopTime(new Time(1, 0));
+
+        // The first partition starts last, and waits before scheduling the
+        // event setting the flag, so the second partition checks it too early
+        boolean[] flag = new boolean[1];
+        Simulator.getInstance().getPartition(0).schedule(new Time(0, 0), () -> {
+            long end = System.nanoTime() + 20000000L;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            Simulator.getInstance().getPartition(1).schedule(Time.milliSeconds(5), () -> {
+                flag[0] = true;
+                Simulator.getInstance().addUndo(() -> flag[0] = false);
+            });
+        });
+        Simulator.getInstance().getPartition(1).schedule(Time.milliSeconds(10), () -> {
+            if (!flag[0]) {
+                Logger.getInstance().log(LogSeverity.CRITICAL, "Flag not set");
+            }
+        });
+        Simulator.getInstance().run();
+        assertTrue(flag[0]);
+        assertTrue(Simulator.getInstance().getEventsRolledBack() > 0);
+
+        // Raised once the event is committed. The logger is destroyed when the
+        // simulation ends
+        Logger.getInstance().enableLogger();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(1, 0));
+        Simulator.getInstance().getPartition(1).schedule(Time.milliSeconds(10),
+                () -> Logger.getInstance().log(LogSeverity.CRITICAL, "Always raised"));
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().run());
+
+        Simulator.getInstance().reset();
+        Simulator.getInstance().disableParallelSimulation();
+        Simulator.getInstance().disableOptimisticSimulation();
+        PacketTracer.destroy();
+        Logger.destroy();
+    }
+
+    @Test
+    public void testBinaryTraceSameAsText() throws IOException {
+        this.buildStar(3);
+
+        List<String> text = this.runScenario("ParallelSimulationTestText", 1, false);
+        List<String> binary = this.runScenario("ParallelSimulationTestBinary", 1, false, true);
+        List<String> parallel = this.runScenario("ParallelSimulationTestBinaryParallel", 4, false, true);
+        List<String> optimistic = this.runScenario("ParallelSimulationTestBinaryOptimistic", 4, true, true);
+
+        assertTrue(text.size() > 100);
+        assertEquals(text, binary);
+        assertEquals(text, parallel);
+        assertEquals(text, optimistic);
+    }
+
+    @Test
+    public void testAsyncTraceSameAsText() throws IOException {
+        this.buildStar(3);
+
+        List<String> text = this.runScenario("ParallelSimulationTestText", 1, false);
+        Simulator.getInstance().enableAsyncTrace();
+        List<String> async = this.runScenario("ParallelSimulationTestAsync", 1, false);
+        List<String> parallel = this.runScenario("ParallelSimulationTestAsyncParallel", 4, false);
+        List<String> optimistic = this.runScenario("ParallelSimulationTestAsyncOptimistic", 4, true);
+        Simulator.getInstance().disableAsyncTrace();
+
+        assertTrue(text.size() > 100);
+        assertEquals(text, async);
+        assertEquals(text, parallel);
+        assertEquals(text, optimistic);
+    }
+
+    @Test
+    public void testPcapTraceSameAsSequential() throws IOException {
+        this.buildStar(3);
+
+        Simulator.getInstance().enablePcapTrace(64);
+        List<String> text = this.runScenario("ParallelSimulationTestPcap", 1, false);
+        this.runScenario("ParallelSimulationTestPcapParallel", 4, false);
+        this.runScenario("ParallelSimulationTestPcapOptimistic", 4, true);
+        Simulator.getInstance().disablePcapTrace();
+
+        String path = "out/simulation/ParallelSimulationTestPcap%s/PacketTrace.pcapng";
+        byte[] sequential = Files.readAllBytes(Paths.get(String.format(path, "")));
+        assertArrayEquals(sequential, Files.readAllBytes(Paths.get(String.format(path, "Parallel"))));
+        assertArrayEquals(sequential, Files.readAllBytes(Paths.get(String.format(path, "Optimistic"))));
+
+        // One interface description per interface, one packet per send on the wire
+        int[] blocks = new int[7];
+        ByteBuffer buffer = ByteBuffer.wrap(sequential);
+        while (buffer.hasRemaining()) {
+            int type = buffer.getInt(buffer.position());
+            int length = buffer.getInt(buffer.position() + 4);
+            assertEquals(length, buffer.getInt(buffer.position() + length - 4));
+            blocks[type == 0x0A0D0D0A ? 0 : type]++;
+            buffer.position(buffer.position() + length);
+        }
+        assertEquals(1, blocks[0]);
+        assertEquals(6, blocks[1]);
+        assertEquals(text.stream().filter(line -> line.contains(" PHY SND ")).count(), blocks[6]);
+    }
+
+    @Test
+    public void testPcapSnapLengthBelowHeaders() throws IOException {
+        this.buildStar(3);
+
+        // Ethernet and IPv4 headers are 34 bytes, so frames are truncated within them
+        Simulator.getInstance().enablePcapTrace(20);
+        this.runScenario("ParallelSimulationTestPcapSnap", 1, false);
+        this.runScenario("ParallelSimulationTestPcapSnapParallel", 4, false);
+        Simulator.getInstance().disablePcapTrace();
+
+        String path = "out/simulation/ParallelSimulationTestPcapSnap%s/PacketTrace.pcapng";
+        byte[] sequential = Files.readAllBytes(Paths.get(String.format(path, "")));
+        assertArrayEquals(sequential, Files.readAllBytes(Paths.get(String.format(path, "Parallel"))));
+
+        // Interfaces declare the snap length, and no frame captured exceeds it
+        int packets = 0;
+        ByteBuffer buffer = ByteBuffer.wrap(sequential);
+        while (buffer.hasRemaining()) {
+            int type = buffer.getInt(buffer.position());
+            if (type == 1) {
+                assertEquals(20, buffer.getInt(buffer.position() + 12));
+            } else if (type == 6) {
+                assertEquals(20, buffer.getInt(buffer.position() + 20));
+                packets++;
+            }
+            buffer.position(buffer.position() + buffer.getInt(buffer.position() + 4));
+        }
+        assertTrue(packets > 0);
+    }
+
+    @Test
+    public void testLookaheadTooHigh() {
+        this.buildStar(2);
+
+        Logger.getInstance().enableLogger();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().enableParallelSimulation(3);
+        Simulator.getInstance().setLookahead(Time.milliSeconds(15));
+        Simulator.getInstance().setStopTime(new Time(100, 0));
+        this.schedulePackets();
+
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().run());
+
+        Simulator.getInstance().reset();
+        Simulator.getInstance().clearLookahead();
+        Simulator.getInstance().disableParallelSimulation();
+        PacketTracer.destroy();
+        Logger.destroy();
+    }
+}
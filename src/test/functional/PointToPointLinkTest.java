@@ -12,7 +12,6 @@ import model.network.MacHeader;
 import model.network.Packet;
 import model.node.EndDevice;
 import model.node.Interface;
-import model.simulator.SchedulableMethod;
 import model.simulator.Simulator;
 import model.simulator.Time;
 import model.utils.Pair;
@@ -48,7 +47,7 @@ public class PointToPointLinkTest {
 
         Packet packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
 
-        Simulator.getInstance().schedule(new Time(), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+        Simulator.getInstance().schedule(new Time(), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
         Simulator.getInstance().run();
 
         assertEquals(new Time(51, 0), Simulator.getInstance().getCurrentTime());
@@ -76,7 +75,7 @@ public class PointToPointLinkTest {
 
         Packet packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
 
-        Simulator.getInstance().schedule(new Time(), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+        Simulator.getInstance().schedule(new Time(), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
         Simulator.getInstance().run();
 
         assertEquals(new Time(51, 0), Simulator.getInstance().getCurrentTime());
@@ -104,7 +103,7 @@ public class PointToPointLinkTest {
 
         Packet packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
 
-        Simulator.getInstance().schedule(new Time(), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.4"));
+        Simulator.getInstance().schedule(new Time(), nodeSrc::send, packet, new IpAddress("192.168.0.4"));
         Simulator.getInstance().run();
 
         assertEquals(new Time(51, 0), Simulator.getInstance().getCurrentTime());
@@ -140,7 +139,7 @@ public class PointToPointLinkTest {
         Packet packet;
         for (int i = 0; i < 5; i++) {
             packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
-            Simulator.getInstance().schedule(new Time(), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+            Simulator.getInstance().schedule(new Time(), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
         }
 
         Simulator.getInstance().run();
@@ -178,10 +177,10 @@ public class PointToPointLinkTest {
         Packet packet;
         for (int i = 0; i < 5; i++) {
             packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
-            Simulator.getInstance().schedule(new Time(10, 1000), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+            Simulator.getInstance().schedule(new Time(10, 1000), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
         }
         packet = new Packet(500 - new MacHeader().getSize() - new IpHeader().getSize());
-        Simulator.getInstance().schedule(new Time(10, 1000), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+        Simulator.getInstance().schedule(new Time(10, 1000), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
 
         Simulator.getInstance().run();
 
@@ -216,10 +215,10 @@ public class PointToPointLinkTest {
         Simulator.getInstance().setStopTime(new Time(1000, 0));
 
         Packet packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
-        Simulator.getInstance().schedule(new Time(0, 0), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+        Simulator.getInstance().schedule(new Time(0, 0), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
 
         packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
-        Simulator.getInstance().schedule(new Time(0, 500000000), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+        Simulator.getInstance().schedule(new Time(0, 500000000), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
 
         Simulator.getInstance().run();
 
@@ -258,7 +257,7 @@ public class PointToPointLinkTest {
         Packet packet;
         for (int i = 0; i < 20; i++) {
             packet = new Packet(1000 - new MacHeader().getSize() - new IpHeader().getSize());
-            Simulator.getInstance().schedule(new Time(0, 0), nodeSrc, SchedulableMethod.END_DEVICE__SEND, packet, new IpAddress("192.168.0.2"));
+            Simulator.getInstance().schedule(new Time(0, 0), nodeSrc::send, packet, new IpAddress("192.168.0.2"));
         }
 
         Simulator.getInstance().run();
@@ -0,0 +1,120 @@
+package test.functional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import helper.PointToPointHelper;
+import model.network.IpAddress;
+import model.network.Packet;
+import model.node.EndDevice;
+import model.node.Interface;
+import model.simulator.SimulationContext;
+import model.simulator.Simulator;
+import model.simulator.Time;
+import model.utils.Pair;
+
+public class SimulationContextTest {
+
+    // Two nodes sending packets to each other, built and run in the context of
+    // the current thread. MAC addresses are random, so they are removed from
+    // the trace
+    private List<String> runScenario(String scenarioName) throws IOException {
+        EndDevice nodeA = new EndDevice("a");
+        EndDevice nodeB = new EndDevice("b");
+        PointToPointHelper p2pHelper = new PointToPointHelper(1000, Time.milliSeconds(10));
+        Pair<Interface, Interface> interfaces = p2pHelper.install(nodeA, nodeB, new IpAddress("10.0.0.0/24"));
+        IpAddress addressA = interfaces.first.getIpAddress();
+        IpAddress addressB = interfaces.second.getIpAddress();
+        nodeA.getRoutingTable().addEntry(new IpAddress("10.0.0.0/24"), interfaces.first, addressB);
+        nodeB.getRoutingTable().addEntry(new IpAddress("10.0.0.0/24"), interfaces.second, addressA);
+        nodeA.getArpTable().addEntry(addressB, interfaces.second.getMacAddress());
+        nodeB.getArpTable().addEntry(addressA, interfaces.first.getMacAddress());
+
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().setScenarioName(scenarioName);
+        for (int i = 0; i < 50; i++) {
+            Simulator.getInstance().schedule(Time.milliSeconds(20 * i), nodeA::send, new Packet("Up " + i, 100),
+                    addressB);
+            Simulator.getInstance().schedule(Time.milliSeconds(30 * i), nodeB::send, new Packet("Down " + i, 100),
+                    addressA);
+        }
+        Simulator.getInstance().run();
+
+        List<String> trace = new ArrayList<String>();
+        for (String line : Files.readAllLines(Paths.get("out/simulation/" + scenarioName + "/PacketTrace.log"))) {
+            trace.add(line.replaceAll("([0-9A-F]{2}:){5}[0-9A-F]{2}", "-"));
+        }
+        return trace;
+    }
+
+    @Test
+    public void testConcurrentSimulations() throws Exception {
+        int numberThreads = 5;
+        Thread[] threads = new Thread[numberThreads];
+        Object[] traces = new Object[numberThreads];
+        Time[] ends = new Time[numberThreads];
+        Throwable[] failures = new Throwable[numberThreads];
+        for (int i = 0; i < numberThreads; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    traces[index] = this.runScenario("SimulationContextTest" + index);
+                    ends[index] = Simulator.getInstance().getCurrentTime();
+                } catch (Throwable t) {
+                    failures[index] = t;
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Throwable failure : failures) {
+            assertEquals(null, failure);
+        }
+        assertTrue(((List<?>) traces[0]).size() > 100);
+        for (int i = 1; i < numberThreads; i++) {
+            // Each context has its own IDs, so even node and packet IDs are
+            // identical
+            assertEquals(traces[0], traces[i]);
+            assertEquals(ends[0], ends[i]);
+        }
+    }
+
+    @Test
+    public void testContextOfThread() throws InterruptedException {
+        SimulationContext context = SimulationContext.getCurrent();
+        EndDevice node = new EndDevice("node");
+        assertSame(context, node.getContext());
+        assertSame(Simulator.getInstance(), context.getSimulator());
+        assertSame(context, Simulator.getInstance().getContext());
+
+        Simulator[] simulators = new Simulator[1];
+        Thread thread = new Thread(() -> simulators[0] = Simulator.getInstance());
+        thread.start();
+        thread.join();
+        assertNotSame(Simulator.getInstance(), simulators[0]);
+
+        SimulationContext other = new SimulationContext();
+        SimulationContext.setCurrent(other);
+        try {
+            assertSame(other.getSimulator(), Simulator.getInstance());
+            assertNotSame(context.getSimulator(), Simulator.getInstance());
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+        assertSame(context.getSimulator(), Simulator.getInstance());
+    }
+}
@@ -0,0 +1,115 @@
+package test.functional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import helper.PointToPointHelper;
+import helper.SweepRun;
+import helper.SweepRunner;
+import model.network.IpAddress;
+import model.network.Packet;
+import model.node.EndDevice;
+import model.node.Interface;
+import model.simulator.Simulator;
+import model.simulator.Time;
+import model.utils.Pair;
+
+public class SweepRunnerTest {
+
+    // Packets sent in a burst on a link: the end time depends on all the
+    // parameters
+    private void runScenario(SweepRun run) {
+        EndDevice nodeA = new EndDevice("a");
+        EndDevice nodeB = new EndDevice("b");
+        PointToPointHelper p2pHelper = new PointToPointHelper(run.getInt("bandwidth"), run.getTime("delay"));
+        Pair<Interface, Interface> interfaces = p2pHelper.install(nodeA, nodeB, new IpAddress("10.0.0.0/24"));
+        interfaces.first.setQueueSizeMaxPackets(run.getInt("queueSize"));
+        nodeA.getRoutingTable().addEntry(new IpAddress("10.0.0.0/24"), interfaces.first,
+                interfaces.second.getIpAddress());
+        nodeA.getArpTable().addEntry(interfaces.second.getIpAddress(), interfaces.second.getMacAddress());
+
+        Simulator.getInstance().setStopTime(new Time(1000, 0));
+        for (int i = 0; i < 10; i++) {
+            Simulator.getInstance().schedule(new Time(), nodeA::send, new Packet(100), interfaces.second.getIpAddress());
+        }
+        Simulator.getInstance().run();
+        run.addMetric("bandwidthKiloBytes", run.getInt("bandwidth") / 1000);
+    }
+
+    @Test
+    public void testGrid() {
+        SweepRunner sweep = new SweepRunner("SweepRunnerTestGrid", this::runScenario);
+        sweep.addParameter("bandwidth", 1000, 2000);
+        sweep.addParameter("delay", Time.milliSeconds(10), Time.milliSeconds(20), Time.milliSeconds(30));
+
+        List<SweepRun> runs = sweep.getRuns();
+        assertEquals(6, runs.size());
+        assertEquals(1000, runs.get(0).getInt("bandwidth"));
+        assertEquals(Time.milliSeconds(10), runs.get(0).getTime("delay"));
+        assertEquals(1000, runs.get(2).getInt("bandwidth"));
+        assertEquals(Time.milliSeconds(30), runs.get(2).getTime("delay"));
+        assertEquals(2000, runs.get(3).getInt("bandwidth"));
+        assertEquals(Time.milliSeconds(10), runs.get(3).getTime("delay"));
+        assertEquals("SweepRunnerTestGrid/run5", runs.get(5).getScenarioName());
+    }
+
+    @Test
+    public void testSameResultsAsSequentialRuns() throws IOException {
+        SweepRunner sweep = new SweepRunner("SweepRunnerTest", this::runScenario);
+        sweep.addParameter("bandwidth", 1000, 10000);
+        sweep.addParameter("delay", Time.milliSeconds(10), new Time(1, 0));
+        sweep.addParameter("queueSize", 5, 100);
+        sweep.setParallelism(4);
+        List<SweepRun> runs = sweep.run();
+
+        SweepRunner sequentialSweep = new SweepRunner("SweepRunnerTestSequential", this::runScenario);
+        sequentialSweep.addParameter("bandwidth", 1000, 10000);
+        sequentialSweep.addParameter("delay", Time.milliSeconds(10), new Time(1, 0));
+        sequentialSweep.addParameter("queueSize", 5, 100);
+        sequentialSweep.setParallelism(1);
+        List<SweepRun> sequentialRuns = sequentialSweep.run();
+
+        assertEquals(8, runs.size());
+        for (int i = 0; i < runs.size(); i++) {
+            assertFalse(runs.get(i).isFailed());
+            assertEquals(sequentialRuns.get(i).getMetric("endTimeSeconds"), runs.get(i).getMetric("endTimeSeconds"));
+            assertEquals(sequentialRuns.get(i).getMetric("eventsScheduled"), runs.get(i).getMetric("eventsScheduled"));
+            assertTrue(Files.exists(Paths.get("out/simulation/SweepRunnerTest/run" + i + "/PacketTrace.log")));
+        }
+        // Packets dropped by the small queue are never received
+        assertTrue((Double) runs.get(0).getMetric("endTimeSeconds") < (Double) runs.get(1).getMetric("endTimeSeconds"));
+
+        List<String> summary = Files.readAllLines(Paths.get(sweep.getSummaryPath()));
+        assertEquals(9, summary.size());
+        assertEquals("run,bandwidth,delay,queueSize,status,bandwidthKiloBytes,endTimeSeconds,eventsScheduled,"
+                + "wallTimeMilliSeconds", summary.get(0));
+        assertTrue(summary.get(1).startsWith("0,1000," + Time.milliSeconds(10) + ",5,ok,1,"));
+        assertTrue(summary.get(8).startsWith("7,10000," + new Time(1, 0) + ",100,ok,10,"));
+    }
+
+    @Test
+    public void testFailedRun() throws IOException {
+        SweepRunner sweep = new SweepRunner("SweepRunnerTestFailure", run -> {
+            if (run.getInt("value") == 1) {
+                throw new IllegalStateException("Failure");
+            }
+            run.addMetric("value", run.getInt("value"));
+        });
+        sweep.addParameter("value", 0, 1, 2);
+        List<SweepRun> runs = sweep.run();
+
+        assertFalse(runs.get(0).isFailed());
+        assertTrue(runs.get(1).isFailed());
+        assertFalse(runs.get(2).isFailed());
+        List<String> summary = Files.readAllLines(Paths.get(sweep.getSummaryPath()));
+        assertEquals("1,1,failed,,,,", summary.get(2));
+    }
+}
@@ -0,0 +1,65 @@
+package test.unitary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import model.io.AsyncTraceWriter;
+import model.io.Layer;
+import model.io.PacketEvent;
+import model.network.IpAddress;
+import model.network.IpHeader;
+import model.network.Packet;
+import model.simulator.Time;
+
+public class AsyncTraceWriterTest extends GenericTest {
+
+   @Test
+   public void testSeveralSegments() {
+      // Segments of 256 bytes hold a few records, so they are swapped many times
+      StringWriter output = new StringWriter();
+      AsyncTraceWriter writer = new AsyncTraceWriter(output, 256);
+      StringBuilder expected = new StringBuilder();
+      writer.append("Header\n");
+      expected.append("Header\n");
+      for (int i = 0; i < 1000; i++) {
+         Packet packet = new Packet(i % 2 == 0 ? "" : "Payload " + i, 100);
+         packet.addHeader(new IpHeader(new IpAddress("10.0.0.1/24"), new IpAddress("10.0.0.2/24")));
+         writer.writePacket(1000L * i, i % 7, Layer.NETWORK, PacketEvent.SEND, packet);
+         expected.append(Time.nanoSeconds(1000L * i).toStringWithPrecision(6) + " " + i % 7 + " NET SND "
+               + packet.formatToTrace() + "\n");
+      }
+      writer.close();
+
+      assertEquals(expected.toString(), output.toString());
+      assertEquals(1001, writer.getRecords());
+      assertTrue(writer.getHighWaterMark() < 100);
+   }
+
+   @Test
+   public void testWriteError() {
+      Writer output = new Writer() {
+         @Override
+         public void write(char[] buffer, int offset, int length) throws IOException {
+            throw new IOException();
+         }
+
+         @Override
+         public void flush() {
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+      AsyncTraceWriter writer = new AsyncTraceWriter(output, 256);
+      writer.append("Header\n");
+      assertThrows(RuntimeException.class, () -> writer.close());
+   }
+}
@@ -0,0 +1,128 @@
+package test.unitary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import model.simulator.Event;
+import model.simulator.EventQueue;
+import model.simulator.EventQueueType;
+
+public class EventQueueTest extends GenericTest {
+
+    private Event createEvent(long timeNanoSeconds, long id) {
+        return new Event(timeNanoSeconds, null, id);
+    }
+
+    @Test
+    public void testEmptyQueue() {
+        for (EventQueueType type : EventQueueType.values()) {
+            EventQueue queue = type.createEventQueue();
+            assertTrue(queue.isEmpty());
+            assertEquals(0, queue.size());
+            assertNull(queue.peek());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void testOrdering() {
+        for (EventQueueType type : EventQueueType.values()) {
+            EventQueue queue = type.createEventQueue();
+            Random random = new Random(42);
+            ArrayList<Event> expected = new ArrayList<Event>();
+            for (int i = 0; i < 10000; i++) {
+                Event event = this.createEvent(random.nextInt(1000000), i);
+                expected.add(event);
+                queue.add(event);
+            }
+            Collections.sort(expected);
+
+            assertEquals(10000, queue.size());
+            for (Event event : expected) {
+                assertEquals(event, queue.peek());
+                assertEquals(event, queue.poll());
+            }
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void testSameTimeOrdering() {
+        for (EventQueueType type : EventQueueType.values()) {
+            EventQueue queue = type.createEventQueue();
+            ArrayList<Event> expected = new ArrayList<Event>();
+            for (int i = 0; i < 5000; i++) {
+                Event event = this.createEvent(i < 2500 ? 1000 : 5000, i);
+                expected.add(event);
+                queue.add(event);
+            }
+
+            for (Event event : expected) {
+                assertEquals(event, queue.poll());
+            }
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void testHoldModel() {
+        for (EventQueueType type : EventQueueType.values()) {
+            EventQueue queue = type.createEventQueue();
+            Random random = new Random(7);
+            long id = 0;
+            for (int i = 0; i < 1000; i++) {
+                queue.add(this.createEvent(random.nextInt(100000), id++));
+            }
+
+            Event last = null;
+            for (int i = 0; i < 100000; i++) {
+                Event event = queue.poll();
+                if (last != null) {
+                    assertTrue(last.compareTo(event) < 0);
+                }
+                last = event;
+                long delay = i % 10 == 0 ? 0 : (long) (random.nextDouble() * random.nextDouble() * 1000000);
+                queue.add(this.createEvent(event.getTimeNanoSeconds() + delay, id++));
+            }
+            assertEquals(1000, queue.size());
+
+            queue.clear();
+            assertTrue(queue.isEmpty());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void testRemoveCancelled() {
+        for (EventQueueType type : EventQueueType.values()) {
+            EventQueue queue = type.createEventQueue();
+            Random random = new Random(3);
+            ArrayList<Event> expected = new ArrayList<Event>();
+            for (int i = 0; i < 5000; i++) {
+                Event event = this.createEvent(random.nextInt(100000), i);
+                queue.add(event);
+                if (i % 3 == 0) {
+                    event.cancel();
+                } else {
+                    expected.add(event);
+                }
+            }
+            Collections.sort(expected);
+
+            assertEquals(5000 - expected.size(), queue.removeCancelled());
+            assertEquals(expected.size(), queue.size());
+            assertEquals(0, queue.removeCancelled());
+            for (Event event : expected) {
+                assertEquals(event, queue.poll());
+            }
+            assertTrue(queue.isEmpty());
+        }
+    }
+}
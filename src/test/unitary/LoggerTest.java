@@ -0,0 +1,165 @@
+package test.unitary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import model.logger.AsyncLogWriter;
+import model.logger.LogSeverity;
+import model.logger.Logger;
+import model.logger.OverflowPolicy;
+import model.network.IpAddress;
+import model.simulator.SimulationContext;
+
+public class LoggerTest extends GenericTest {
+
+    private static final String PATH = "out/logger/LoggerTest.log";
+
+    private static final String ASYNC_PATH = "out/logger/LoggerTestAsync.log";
+
+    @Test
+    public void testTaggedMessages() throws IOException {
+        SimulationContext context = SimulationContext.getCurrent();
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            new File(LoggerTest.PATH).getParentFile().mkdirs();
+            Logger logger = Logger.getInstance();
+            logger.enableLogger();
+            logger.setMinSeveritylevel(LogSeverity.INFO);
+            logger.setOutputPath(LoggerTest.PATH);
+            assertTrue(logger.isEnabled(LogSeverity.INFO));
+            assertFalse(logger.isEnabled(LogSeverity.DEBUG));
+
+            // Messages filtered out are never built
+            logger.log(LogSeverity.DEBUG, "LoggerTest.test", () -> {
+                throw new AssertionError();
+            });
+            logger.log(LogSeverity.INFO, "LoggerTest.test", "Plain");
+            logger.log(LogSeverity.INFO, "LoggerTest.test", () -> "Supplied");
+            logger.log(LogSeverity.INFO, "LoggerTest.test", "Packet {} sent", 42);
+            logger.log(LogSeverity.INFO, "LoggerTest.test", "Packet {} of {} bytes", 7, 1500);
+            logger.log(LogSeverity.INFO, "LoggerTest.test", "Packet {} to {}.", 3, new IpAddress("10.0.0.1"));
+            logger.log(LogSeverity.INFO, "LoggerTest.test", "No placeholder", 1);
+            logger.log(LogSeverity.INFO, "Untagged");
+            assertThrows(RuntimeException.class, () -> logger.log(LogSeverity.CRITICAL, "LoggerTest.test", "Error"));
+            logger.disableLogger();
+
+            List<String> lines = Files.readAllLines(new File(LoggerTest.PATH).toPath());
+            assertEquals(8, lines.size());
+            assertEquals("[0s][Info][LoggerTest.test] Plain", lines.get(0));
+            assertTrue(lines.get(1).endsWith("] Supplied"));
+            assertTrue(lines.get(2).endsWith("] Packet 42 sent"));
+            assertTrue(lines.get(3).endsWith("] Packet 7 of 1500 bytes"));
+            assertTrue(lines.get(4).endsWith("] Packet 3 to 10.0.0.1/32."));
+            assertTrue(lines.get(5).endsWith("] No placeholder"));
+
+            // Caller found on the stack without a tag
+            assertTrue(lines.get(6).startsWith("[0s][Info][test.unitary.LoggerTest.testTaggedMessages:"));
+            assertEquals("[0s][Critical][LoggerTest.test] Error", lines.get(7));
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+    }
+
+    @Test
+    public void testAsync() throws IOException {
+        SimulationContext context = SimulationContext.getCurrent();
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            new File(LoggerTest.ASYNC_PATH).getParentFile().mkdirs();
+            Logger logger = Logger.getInstance();
+            logger.enableLogger();
+            logger.setMinSeveritylevel(LogSeverity.INFO);
+            logger.setOutputPath(LoggerTest.ASYNC_PATH);
+
+            // Blocking writer keeps every record, in order
+            logger.enableAsync(8, OverflowPolicy.BLOCK);
+            assertEquals(OverflowPolicy.BLOCK, logger.getAsyncWriter().getPolicy());
+            for (int i = 0; i < 1000; i++) {
+                logger.log(LogSeverity.INFO, "LoggerTest.test", "Record {}", i);
+            }
+            assertThrows(RuntimeException.class, () -> logger.log(LogSeverity.CRITICAL, "LoggerTest.test", "Error"));
+            logger.disableAsync();
+            assertEquals(null, logger.getAsyncWriter());
+            logger.disableLogger();
+
+            List<String> lines = Files.readAllLines(new File(LoggerTest.ASYNC_PATH).toPath());
+            assertEquals(1001, lines.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals("[0s][Info][LoggerTest.test] Record " + i, lines.get(i));
+            }
+            assertEquals("[0s][Critical][LoggerTest.test] Error", lines.get(1000));
+
+            // Dropping and spilling writers count the records not buffered
+            for (OverflowPolicy policy : new OverflowPolicy[] { OverflowPolicy.DROP, OverflowPolicy.SPILL }) {
+                new File(LoggerTest.ASYNC_PATH + ".spill").delete();
+                logger.enableLogger();
+                logger.setOutputPath(LoggerTest.ASYNC_PATH);
+                logger.enableAsync(1, policy);
+                AsyncLogWriter writer = logger.getAsyncWriter();
+                for (int i = 0; i < 10000; i++) {
+                    logger.log(LogSeverity.INFO, "LoggerTest.test", "Record {}", i);
+                }
+                logger.disableLogger();
+
+                long lost = policy == OverflowPolicy.DROP ? writer.getDroppedRecords() : writer.getSpilledRecords();
+                lines = Files.readAllLines(new File(LoggerTest.ASYNC_PATH).toPath());
+                if (lost == 0) {
+                    assertEquals(10000, lines.size());
+                    continue;
+                }
+                assertEquals(10000 - lost + 1, lines.size());
+                assertTrue(lines.get(lines.size() - 1).startsWith(lost + " log records "));
+                if (policy == OverflowPolicy.SPILL) {
+                    assertEquals(lost, Files.readAllLines(new File(LoggerTest.ASYNC_PATH + ".spill").toPath()).size());
+                } else {
+                    assertFalse(new File(LoggerTest.ASYNC_PATH + ".spill").exists());
+                }
+            }
+
+            // Records are spilled to the standard error if the spill file
+            // cannot be opened, and it is left open
+            File spillFile = new File(LoggerTest.ASYNC_PATH + ".spill");
+            spillFile.delete();
+            spillFile.mkdir();
+            PrintStream err = System.err;
+            ByteArrayOutputStream spilled = new ByteArrayOutputStream();
+            System.setErr(new PrintStream(spilled, true));
+            try {
+                logger.enableLogger();
+                logger.setOutputPath(LoggerTest.ASYNC_PATH);
+                logger.enableAsync(1, OverflowPolicy.SPILL);
+                AsyncLogWriter writer = logger.getAsyncWriter();
+                for (int i = 0; i < 10000; i++) {
+                    logger.log(LogSeverity.INFO, "LoggerTest.test", "Record {}", i);
+                }
+                logger.disableLogger();
+
+                System.err.print("Still open");
+                assertFalse(System.err.checkError());
+                long lost = writer.getSpilledRecords();
+                if (lost > 0) {
+                    lines = Files.readAllLines(new File(LoggerTest.ASYNC_PATH).toPath());
+                    assertEquals(lost + " log records written to the standard error as the log buffer was full",
+                            lines.get(lines.size() - 1));
+                    assertEquals(lost + 1, spilled.toString().split(System.lineSeparator()).length);
+                }
+            } finally {
+                System.setErr(err);
+                spillFile.delete();
+            }
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+    }
+}
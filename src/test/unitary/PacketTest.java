@@ -1,9 +1,12 @@
 package test.unitary;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.junit.Test;
 
 import model.network.Header;
@@ -119,4 +122,49 @@ public class PacketTest extends GenericTest {
       sol += "[payload='dummy payload', payloadSize=1500, totalSize=1500]";
       assertEquals(sol, packet.toString());
    }
+
+   @Test
+   public void testWireBytes() {
+      Packet packet = new Packet("abc", 10);
+      packet.addHeader(new IpHeader(new IpAddress("10.0.0.1/24"), new IpAddress("10.0.0.2/24")));
+      packet.addHeader(new MacHeader(new MacAddress("02:00:00:00:00:01", false),
+            new MacAddress("02:00:00:00:00:02", false)));
+      assertEquals(44, packet.getWireSizeBytes());
+
+      ByteBuffer buffer = ByteBuffer.allocate(64);
+      assertEquals(44, packet.writeToWire(buffer, 64));
+      byte[] frame = Arrays.copyOf(buffer.array(), 44);
+
+      // Ethernet: destination, source, IPv4 EtherType
+      assertArrayEquals(new byte[] { 2, 0, 0, 0, 0, 2, 2, 0, 0, 0, 0, 1, 0x08, 0x00 }, Arrays.copyOf(frame, 14));
+
+      // IPv4: version, length, addresses and a valid checksum
+      assertEquals(0x45, frame[14]);
+      assertEquals(30, buffer.getShort(16));
+      assertArrayEquals(new byte[] { 10, 0, 0, 1, 10, 0, 0, 2 }, Arrays.copyOfRange(frame, 26, 34));
+      int sum = 0;
+      for (int i = 14; i < 34; i += 2) {
+         sum += buffer.getShort(i) & 0xffff;
+      }
+      sum = (sum & 0xffff) + (sum >> 16);
+      assertEquals(0xffff, sum);
+
+      // Payload characters, then zeros
+      assertArrayEquals(new byte[] { 'a', 'b', 'c', 0, 0, 0, 0, 0, 0, 0 }, Arrays.copyOfRange(frame, 34, 44));
+
+      // Payload truncated, headers always written
+      buffer.clear();
+      assertEquals(36, packet.writeToWire(buffer, 36));
+      buffer.clear();
+      assertEquals(34, packet.writeToWire(buffer, 10));
+   }
+
+   @Test
+   public void testWireTotalLengthClamped() {
+      Packet packet = new Packet("", 70000);
+      packet.addHeader(new IpHeader(new IpAddress("10.0.0.1/24"), new IpAddress("10.0.0.2/24")));
+      ByteBuffer buffer = ByteBuffer.allocate(64);
+      packet.writeToWire(buffer, 20);
+      assertEquals(IpHeader.MAX_TOTAL_LENGTH, buffer.getShort(2) & 0xffff);
+   }
 }
@@ -0,0 +1,97 @@
+package test.unitary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import model.link.PointToPointLink;
+import model.network.MacAddress;
+import model.network.MacAddressContainer;
+import model.node.EndDevice;
+import model.simulator.SimulationContext;
+import model.utils.RandomGenerator;
+import model.utils.RandomStream;
+
+public class RandomGeneratorTest extends GenericTest {
+
+    private long[] draw(RandomStream random) {
+        long[] values = new long[8];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+        }
+        return values;
+    }
+
+    @Test
+    public void testStreams() {
+        RandomGenerator generator = new RandomGenerator();
+        assertEquals(RandomGenerator.DEFAULT_SEED, generator.getSeed());
+        long[] first = this.draw(generator.getStream("node", 1));
+        assertEquals(first[0], this.draw(generator.getStream("node/1"))[0]);
+        assertNotEquals(first[0], this.draw(generator.getStream("node", 2))[0]);
+        assertNotEquals(first[0], this.draw(generator.getStream("link", 1))[0]);
+
+        // Same stream from the same seed, whatever the streams created before
+        RandomGenerator other = new RandomGenerator();
+        other.getStream("node", 2).nextLong();
+        for (int i = 0; i < first.length; i++) {
+            assertEquals(first[i], this.draw(other.getStream("node", 1))[i]);
+        }
+        other.setSeed(42);
+        assertNotEquals(first[0], this.draw(other.getStream("node", 1))[0]);
+    }
+
+    @Test
+    public void testSameAsSplittableRandom() {
+        RandomStream stream = new RandomStream(42);
+        SplittableRandom reference = new SplittableRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(reference.nextLong(), stream.nextLong());
+            assertEquals(reference.nextInt(), stream.nextInt());
+            assertEquals(reference.nextInt(256), stream.nextInt(256));
+            assertEquals(reference.nextInt(10000), stream.nextInt(10000));
+            assertEquals(reference.nextInt(Integer.MAX_VALUE), stream.nextInt(Integer.MAX_VALUE));
+            assertEquals(reference.nextDouble(), stream.nextDouble(), 0.0);
+            assertEquals(reference.nextBoolean(), stream.nextBoolean());
+        }
+    }
+
+    @Test
+    public void testComponents() {
+        long[] nodeValues = new long[2];
+        long[] linkValues = new long[2];
+        MacAddress[] addresses = new MacAddress[2];
+        SimulationContext context = SimulationContext.getCurrent();
+        try {
+            for (int run = 0; run < 2; run++) {
+                SimulationContext.setCurrent(new SimulationContext());
+                RandomGenerator.getInstance().setSeed(7);
+                EndDevice nodeA = new EndDevice("a");
+                EndDevice nodeB = new EndDevice("b");
+                PointToPointLink link = new PointToPointLink();
+                assertEquals(1, link.getLinkId());
+                assertSame(nodeA.getRandom(), nodeA.getRandom());
+
+                // Streams drawn in another order on each run
+                if (run == 0) {
+                    nodeValues[run] = nodeB.getRandom().nextLong();
+                    linkValues[run] = link.getRandom().nextLong();
+                } else {
+                    linkValues[run] = link.getRandom().nextLong();
+                    nodeA.getRandom().nextLong();
+                    nodeValues[run] = nodeB.getRandom().nextLong();
+                }
+                addresses[run] = MacAddressContainer.getInstance().getNewMacAddress();
+            }
+        } finally {
+            SimulationContext.setCurrent(context);
+        }
+        assertEquals(nodeValues[0], nodeValues[1]);
+        assertEquals(linkValues[0], linkValues[1]);
+        assertEquals(addresses[0], addresses[1]);
+    }
+}
@@ -1,19 +1,36 @@
 package test.unitary;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import org.junit.Test;
 
-import model.network.MacAddress;
-import model.simulator.Schedulable;
-import model.simulator.SchedulableMethod;
+import model.logger.Logger;
+import model.simulator.ActionProfile;
+import model.simulator.Event;
+import model.simulator.EventEntry;
+import model.simulator.EventHandle;
+import model.simulator.EventProfiler;
+import model.simulator.EventQueueType;
+import model.simulator.ProgressReporter;
+import model.simulator.RealTimeClock;
 import model.simulator.Simulator;
 import model.simulator.Time;
+import model.simulator.TimingWheel;
+import model.simulator.ValidationLevel;
 
 public class SimulatorTest extends GenericTest {
 
-    private class DummyMethods implements Schedulable {
+    private class DummyMethods {
 
         public int valueInt;
         public String valueString;
@@ -40,20 +57,27 @@ public class SimulatorTest extends GenericTest {
             return 0.0;
         }
 
-        @Override
-        public void run(SchedulableMethod method, Object[] arguments) {
-            switch (method) {
-                case DUMMY_CLASS__METHOD_1: {
-                    this.method1((int) arguments[0]);
-                    break;
-                }
-                case DUMMY_CLASS__METHOD_2: {
-                    this.method2((String) arguments[0], (Time) arguments[1]);
-                    break;
-                }
-                default: {
-                    throw new IllegalArgumentException("Unknow method for class DummyMethods: " + method);
-                }
+        public void method3(String arg1, int arg2) {
+            this.totalString += arg1 + arg2;
+        }
+
+        public void method4() {
+            this.totalString += "!";
+        }
+
+        public void burst(int value) {
+            this.totalString += value;
+            if (value < 100) {
+                Simulator.getInstance().schedule(Simulator.getInstance().getCurrentTime(), this::burst, value * 10);
+                Simulator.getInstance().schedule(Simulator.getInstance().getCurrentTime(), this::method1, value + 1);
+            }
+        }
+
+        public void chain(int remaining) {
+            this.valueInt++;
+            if (remaining > 0) {
+                Simulator.getInstance().schedule(Simulator.getInstance().getCurrentTime().add(new Time(0, 1000)),
+                        this::chain, remaining - 1);
             }
         }
     }
@@ -77,13 +101,13 @@ public class SimulatorTest extends GenericTest {
         Simulator.getInstance().reset();
         Simulator.getInstance().setStopTime(new Time(10, 0));
 
-        Simulator.getInstance().schedule(new Time(5, 0), d, SchedulableMethod.DUMMY_CLASS__METHOD_1, 1);
-        Simulator.getInstance().schedule(new Time(1, 0), d, SchedulableMethod.DUMMY_CLASS__METHOD_2, "test",
+        Simulator.getInstance().schedule(new Time(5, 0), d::method1, 1);
+        Simulator.getInstance().schedule(new Time(1, 0), d::method2, "test",
                 new Time(4, 100));
-        Simulator.getInstance().schedule(new Time(5, 10), d, SchedulableMethod.DUMMY_CLASS__METHOD_1, -40);
-        Simulator.getInstance().schedule(new Time(5, 1), d, SchedulableMethod.DUMMY_CLASS__METHOD_2, "other",
+        Simulator.getInstance().schedule(new Time(5, 10), d::method1, -40);
+        Simulator.getInstance().schedule(new Time(5, 1), d::method2, "other",
                 new Time(14, 3000));
-        Simulator.getInstance().schedule(new Time(15, 0), d, SchedulableMethod.DUMMY_CLASS__METHOD_1, 21);
+        Simulator.getInstance().schedule(new Time(15, 0), d::method1, 21);
         Simulator.getInstance().run();
 
         assertEquals(-40, d.valueInt);
@@ -92,6 +116,45 @@ public class SimulatorTest extends GenericTest {
         assertEquals("test1other-40", d.totalString);
     }
 
+    @Test
+    public void testSchedulingAllEventQueues() {
+        for (EventQueueType type : EventQueueType.values()) {
+            DummyMethods d = new DummyMethods();
+            Simulator.getInstance().reset();
+            Simulator.getInstance().setEventQueueType(type);
+            Simulator.getInstance().setStopTime(new Time(10, 0));
+
+            Simulator.getInstance().schedule(new Time(5, 0), d::method1, 1);
+            Simulator.getInstance().schedule(new Time(5, 0), d::method1, 2);
+            Simulator.getInstance().schedule(new Time(1, 0), d::method2, "test",
+                    new Time(4, 100));
+            Simulator.getInstance().schedule(new Time(5, 0), d::method1, 3);
+            Simulator.getInstance().schedule(new Time(15, 0), d::method1, 21);
+            Simulator.getInstance().run();
+
+            assertEquals(type, Simulator.getInstance().getEventQueueType());
+            assertEquals(3, d.valueInt);
+            assertEquals("test123", d.totalString);
+            assertEquals(new Time(5, 0), Simulator.getInstance().getCurrentTime());
+        }
+    }
+
+    @Test
+    public void testSchedulingAllArities() {
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+
+        Simulator.getInstance().schedule(new Time(3, 0), d::method4);
+        Simulator.getInstance().schedule(new Time(2, 0), d::method3, "int", 7);
+        Simulator.getInstance().schedule(new Time(1, 0), d::method2, "two", new Time(1, 1));
+        Simulator.getInstance().schedule(Time.milliSeconds(500).toNanoSeconds(), d::method1, 5);
+        Simulator.getInstance().run();
+
+        assertEquals("5twoint7!", d.totalString);
+        assertEquals(new Time(3, 0), Simulator.getInstance().getCurrentTime());
+    }
+
     @Test
     public void testSchedulingError() {
         DummyMethods d = new DummyMethods();
@@ -100,12 +163,564 @@ public class SimulatorTest extends GenericTest {
 
         assertThrows(
                 RuntimeException.class,
-                () -> Simulator.getInstance().schedule(new Time(5, 0), d, SchedulableMethod.DUMMY_CLASS__METHOD_1,
-                        1.5));
+                () -> Simulator.getInstance().schedule(-1, d::method1, 1));
         assertThrows(
                 RuntimeException.class,
-                () -> Simulator.getInstance().schedule(new Time(1, 0), d, SchedulableMethod.DUMMY_CLASS__METHOD_2,
-                        "test",
-                        new MacAddress()));
+                () -> Simulator.getInstance().schedule(new Time(1, 0), (Runnable) null));
+    }
+
+    @Test
+    public void testEventPool() {
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().schedule(new Time(), d::chain, 9999);
+        Simulator.getInstance().run();
+
+        assertEquals(10000, d.valueInt);
+        assertEquals(10000, Simulator.getInstance().getEventsScheduled());
+        assertEquals(10000, Simulator.getInstance().getEventsAllocated());
+        assertEquals(1.0, Simulator.getInstance().getEventAllocationRate(), 0.0);
+
+        d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().enableEventPool();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().schedule(new Time(), d::chain, 9999);
+        Simulator.getInstance().run();
+
+        assertEquals(10000, d.valueInt);
+        assertEquals(10000, Simulator.getInstance().getEventsScheduled());
+        assertTrue(Simulator.getInstance().getEventsAllocated() <= 2);
+        assertEquals(10000, Simulator.getInstance().getHandlesAllocated());
+        assertEquals(0, Simulator.getInstance().getEventsNotReleased());
+
+        // Events still pending at the end of the run go back to the pool
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        for (int i = 0; i < 100; i++) {
+            Simulator.getInstance().schedule(new Time(20, i), d::method4);
+        }
+        Simulator.getInstance().run();
+        assertEquals(0, Simulator.getInstance().getEventsNotReleased());
+        Simulator.getInstance().reset();
+        for (int i = 0; i < 100; i++) {
+            Simulator.getInstance().schedule(new Time(20, i), d::method4);
+        }
+        assertEquals(0, Simulator.getInstance().getEventsAllocated());
+        assertEquals(100, Simulator.getInstance().getEventsNotReleased());
+
+        // An event scheduled after the stop time during the run is allocated
+        // outside of the pool
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        DummyMethods late = d;
+        Simulator.getInstance().schedule(new Time(),
+                () -> Simulator.getInstance().schedule(new Time(20, 0), late::method4));
+        Simulator.getInstance().run();
+        assertEquals(1, Simulator.getInstance().getEventsAllocated());
+        assertEquals(2, Simulator.getInstance().getHandlesAllocated());
+
+        d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().enableEventPoolDebug();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().schedule(new Time(), d::chain, 9999);
+        Simulator.getInstance().run();
+
+        assertEquals(10000, d.valueInt);
+        assertTrue(Simulator.getInstance().getEventsAllocated() < 2000);
+        assertTrue(Simulator.getInstance().getEventAllocationRate() < 1.2);
+
+        Simulator.getInstance().disableEventPoolDebug();
+        Simulator.getInstance().disableEventPool();
+    }
+
+    @Test
+    public void testCancel() {
+        for (EventQueueType type : EventQueueType.values()) {
+            DummyMethods d = new DummyMethods();
+            Simulator.getInstance().reset();
+            Simulator.getInstance().setEventQueueType(type);
+            Simulator.getInstance().setStopTime(new Time(10, 0));
+
+            EventHandle first = Simulator.getInstance().schedule(new Time(1, 0), d::method1, 1);
+            EventHandle second = Simulator.getInstance().schedule(new Time(2, 0), d::method1, 2);
+            Simulator.getInstance().schedule(new Time(3, 0), d::method1, 3);
+            assertTrue(first.isPending());
+            assertTrue(second.cancel());
+            assertFalse(second.cancel());
+            assertFalse(second.isPending());
+            assertEquals(3, Simulator.getInstance().getEventQueueSize());
+            assertEquals(1, Simulator.getInstance().getCancelledEvents());
+            assertEquals(1.0 / 3, Simulator.getInstance().getCancelledEventRatio(), 1e-9);
+
+            EventHandle moved = first.reschedule(new Time(4, 0));
+            assertFalse(first.isPending());
+            assertTrue(moved.isPending());
+            assertEquals(new Time(4, 0), moved.getTime());
+
+            // Cancelled events exceed the threshold: queue is compacted
+            assertEquals(2, Simulator.getInstance().getEventQueueSize());
+            assertEquals(0, Simulator.getInstance().getCancelledEvents());
+
+            Simulator.getInstance().run();
+            assertEquals("31", d.totalString);
+            assertFalse(moved.isPending());
+            assertFalse(moved.cancel());
+        }
+    }
+
+    @Test
+    public void testCancelTimers() {
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().enableEventPool();
+        Simulator.getInstance().setCompactionThreshold(0.9);
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+
+        // Timers rearmed many times before expiring, as retransmission timers
+        EventHandle[] timers = new EventHandle[100];
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = Simulator.getInstance().schedule(new Time(1, 0), d::method4);
+        }
+        for (int j = 0; j < 100; j++) {
+            for (int i = 0; i < timers.length; i++) {
+                timers[i] = timers[i].reschedule(new Time(1, j));
+            }
+            assertTrue(Simulator.getInstance().getCancelledEventRatio() <= 0.9);
+        }
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().setCompactionThreshold(0));
+        Simulator.getInstance().run();
+
+        assertEquals(100, d.totalString.length());
+        assertEquals(0, Simulator.getInstance().getCancelledEvents());
+        assertEquals(0, Simulator.getInstance().getEventQueueSize());
+
+        Simulator.getInstance().setCompactionThreshold(0.5);
+        Simulator.getInstance().disableEventPool();
+    }
+
+    @Test
+    public void testPooledHandles() {
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().enableEventPool();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+
+        // The event of the first handle is recycled for the second one
+        EventHandle first = Simulator.getInstance().schedule(new Time(1, 0), d::method1, 1);
+        Simulator.getInstance().schedule(new Time(5, 0), d::method4);
+        Simulator.getInstance().runUntil(new Time(2, 0));
+        EventHandle second = Simulator.getInstance().schedule(new Time(3, 0), d::method1, 2);
+        assertFalse(first.isPending());
+        assertFalse(first.cancel());
+        assertEquals(new Time(1, 0), first.getTime());
+        assertTrue(second.isPending());
+        assertThrows(RuntimeException.class, () -> first.reschedule(new Time(4, 0)));
+
+        // Events created by the user are rescheduled in the current simulator
+        new Event(0, d::method4, 0).reschedule(new Time(6, 0));
+        Simulator.getInstance().run();
+        assertEquals("12!!", d.totalString);
+
+        Simulator.getInstance().disableEventPool();
+    }
+
+    @Test
+    public void testFastLane() {
+        String[] results = new String[2];
+        for (int i = 0; i < 2; i++) {
+            DummyMethods d = new DummyMethods();
+            Simulator.getInstance().reset();
+            if (i == 1) {
+                Simulator.getInstance().disableFastLane();
+            }
+            Simulator.getInstance().setStopTime(new Time(10, 0));
+            Simulator.getInstance().schedule(new Time(1, 0), d::burst, 1);
+            Simulator.getInstance().schedule(new Time(1, 0), d::method1, 5);
+            Simulator.getInstance().schedule(new Time(2, 0), d::burst, 2);
+            EventHandle cancelled = Simulator.getInstance().schedule(new Time(2, 0), d::method1, 7);
+            Simulator.getInstance().schedule(new Time(2, 0), d::method4);
+            assertTrue(cancelled.cancel());
+            Simulator.getInstance().run();
+            results[i] = d.totalString;
+            assertEquals(0, Simulator.getInstance().getEventQueueSize());
+            assertEquals(i == 0 ? 8 : 0, Simulator.getInstance().getFastLaneEvents());
+        }
+        assertEquals("15102100112!20320021", results[0]);
+        assertEquals(results[0], results[1]);
+
+        Simulator.getInstance().enableFastLane();
+    }
+
+    @Test
+    public void testScheduleAll() {
+        for (EventQueueType type : EventQueueType.values()) {
+            // Reference: the same events scheduled one by one
+            DummyMethods reference = new DummyMethods();
+            Simulator.getInstance().reset();
+            Simulator.getInstance().setEventQueueType(type);
+            Simulator.getInstance().setStopTime(new Time(10, 0));
+            Simulator.getInstance().schedule(new Time(1, 0), reference::method1, 0);
+            for (int i = 0; i < 500; i++) {
+                Simulator.getInstance().schedule(new Time(i % 7, 0), reference::method1, i % 10);
+            }
+            Simulator.getInstance().schedule(new Time(1, 0), reference::method4);
+            Simulator.getInstance().run();
+
+            DummyMethods d = new DummyMethods();
+            Simulator.getInstance().reset();
+            Simulator.getInstance().setStopTime(new Time(10, 0));
+            Simulator.getInstance().schedule(new Time(1, 0), d::method1, 0);
+            List<EventEntry> entries = new ArrayList<EventEntry>();
+            for (int i = 0; i < 500; i++) {
+                entries.add(EventEntry.of(new Time(i % 7, 0), d::method1, i % 10));
+            }
+            assertEquals(500, Simulator.getInstance().scheduleAll(entries));
+            assertEquals(501, Simulator.getInstance().getEventQueueSize());
+            Simulator.getInstance().schedule(new Time(1, 0), d::method4);
+            Simulator.getInstance().run();
+
+            assertEquals(reference.totalString, d.totalString);
+            assertEquals(502, Simulator.getInstance().getEventsScheduled());
+        }
+    }
+
+    @Test
+    public void testScheduleAllError() {
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        assertThrows(RuntimeException.class, () -> EventEntry.of(new Time(1, 0), (Runnable) null));
+        assertThrows(RuntimeException.class, () -> EventEntry.of(-1, d::method4));
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().schedule(new Time(2, 0), () -> Simulator.getInstance()
+                .scheduleLazily(IntStream.range(0, 1).mapToObj(i -> EventEntry.of(new Time(3, 0), d::method4))));
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().run());
+
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().scheduleLazily(IntStream.range(0, 3)
+                .mapToObj(i -> EventEntry.of(new Time(2 - i, 0), d::method1, i)));
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().run());
+    }
+
+    @Test
+    public void testScheduleLazily() {
+        DummyMethods reference = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().schedule(new Time(2, 0), reference::burst, 1);
+        Simulator.getInstance().scheduleAll(IntStream.range(0, 100)
+                .mapToObj(i -> EventEntry.of(new Time(i / 10, 0), reference::method1, i % 10)));
+        Simulator.getInstance().schedule(new Time(0, 0), reference::method4);
+        Simulator.getInstance().scheduleAll(IntStream.range(0, 20)
+                .mapToObj(i -> EventEntry.of(new Time(i / 2, 500), reference::method1, i)));
+        Simulator.getInstance().run();
+
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().schedule(new Time(2, 0), d::burst, 1);
+        Simulator.getInstance().scheduleLazily(IntStream.range(0, 100)
+                .mapToObj(i -> EventEntry.of(new Time(i / 10, 0), d::method1, i % 10)));
+        Simulator.getInstance().schedule(new Time(0, 0), d::method4);
+        // Entries are only pulled when the simulation reaches them
+        List<Integer> pulled = new ArrayList<Integer>();
+        Simulator.getInstance().scheduleLazily(IntStream.range(0, 20).peek(pulled::add)
+                .mapToObj(i -> EventEntry.of(new Time(i / 2, 500), d::method1, i)).iterator());
+        assertEquals(1, pulled.size());
+        assertEquals(2, Simulator.getInstance().getEventQueueSize());
+        Simulator.getInstance().run();
+
+        assertEquals(reference.totalString, d.totalString);
+        assertEquals(20, pulled.size());
+        assertEquals(126, Simulator.getInstance().getEventsScheduled());
+    }
+
+    @Test
+    public void testRunUntil() {
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(0, 15000));
+        Simulator.getInstance().schedule(new Time(0, 0), d::chain, 19);
+        Simulator.getInstance().schedule(new Time(0, 5000), d::method4);
+        Simulator.getInstance().runUntil(new Time(0, 4500));
+        assertTrue(Simulator.getInstance().isStarted());
+        assertEquals(5, d.valueInt);
+        assertEquals("", d.totalString);
+        assertEquals(new Time(0, 4500), Simulator.getInstance().getCurrentTime());
+
+        Simulator.getInstance().runFor(new Time(0, 500));
+        assertEquals(6, d.valueInt);
+        assertEquals("!", d.totalString);
+        assertEquals(new Time(0, 5000), Simulator.getInstance().getCurrentTime());
+
+        assertEquals(3, Simulator.getInstance().step(3));
+        assertEquals(9, d.valueInt);
+        assertEquals(new Time(0, 8000), Simulator.getInstance().getCurrentTime());
+
+        // Events after the stop time stay in the queue until the end
+        Simulator.getInstance().runUntil(new Time(0, 12000));
+        assertEquals(13, d.valueInt);
+        assertEquals(1, Simulator.getInstance().getEventQueueSize());
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().runUntil(new Time(0, 11000)));
+
+        Simulator.getInstance().runUntil(new Time(1, 0));
+        assertFalse(Simulator.getInstance().isStarted());
+        assertEquals(16, d.valueInt);
+        assertEquals(0, Simulator.getInstance().getEventQueueSize());
+        assertEquals(new Time(0, 15000), Simulator.getInstance().getCurrentTime());
+        assertEquals(0, Simulator.getInstance().step(1));
+    }
+
+    @Test
+    public void testScheduleBetweenChunks() {
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        StringBuilder order = new StringBuilder();
+        Simulator.getInstance().schedule(new Time(1, 0), () -> {
+            order.append("A");
+            Simulator.getInstance().schedule(new Time(5, 0), () -> order.append("Y"));
+        });
+        Simulator.getInstance().runUntil(new Time(2, 0));
+        // Scheduled after A has run, so after the events A scheduled, as if
+        // the simulation was run at once
+        Simulator.getInstance().schedule(new Time(5, 0), () -> order.append("X"));
+        Simulator.getInstance().runUntil(new Time(4, 0));
+        Simulator.getInstance().schedule(new Time(5, 0), () -> order.append("Z"));
+        Simulator.getInstance().run();
+
+        assertEquals("AYXZ", order.toString());
+    }
+
+    @Test
+    public void testFastLaneBetweenChunks() {
+        for (int i = 0; i < 2; i++) {
+            boolean pause = i == 1;
+            Simulator.getInstance().reset();
+            Simulator.getInstance().setStopTime(new Time(10, 0));
+            StringBuilder order = new StringBuilder();
+            Simulator.getInstance().schedule(new Time(1, 0), () -> {
+                order.append("A");
+                Simulator.getInstance().schedule(new Time(1, 0), () -> order.append("B"));
+                Simulator.getInstance().schedule(new Time(1, 0), () -> {
+                    order.append("C");
+                    Simulator.getInstance().schedule(new Time(1, 0), () -> order.append("E"));
+                });
+                if (pause) {
+                    Simulator.getInstance().pause();
+                }
+            });
+            // B and C are left in the fast lane, and still run before D
+            if (pause) {
+                Simulator.getInstance().run();
+                assertTrue(Simulator.getInstance().isPaused());
+            } else {
+                assertEquals(1, Simulator.getInstance().step(1));
+            }
+            Simulator.getInstance().schedule(new Time(1, 0), () -> order.append("D"));
+            Simulator.getInstance().run();
+
+            assertEquals("ABCDE", order.toString());
+        }
+    }
+
+    @Test
+    public void testPause() {
+        DummyMethods d = new DummyMethods();
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        Simulator.getInstance().schedule(new Time(0, 0), d::chain, 9);
+        Simulator.getInstance().schedule(new Time(0, 3500), Simulator.getInstance()::pause);
+        Simulator.getInstance().schedule(new Time(0, 6500), Simulator.getInstance()::pause);
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().pause());
+
+        Simulator.getInstance().run();
+        assertTrue(Simulator.getInstance().isPaused());
+        assertEquals(4, d.valueInt);
+        assertEquals(new Time(0, 3500), Simulator.getInstance().getCurrentTime());
+
+        Simulator.getInstance().resume();
+        assertTrue(Simulator.getInstance().isPaused());
+        assertEquals(7, d.valueInt);
+
+        Simulator.getInstance().resume();
+        assertFalse(Simulator.getInstance().isPaused());
+        assertFalse(Simulator.getInstance().isStarted());
+        assertEquals(10, d.valueInt);
+        // The logger is closed at the end of the simulation
+        Logger.getInstance().enableLogger();
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().resume());
+    }
+
+    @Test
+    public void testRealTime() {
+        Simulator.getInstance().reset();
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().enableRealTime(0));
+        Simulator.getInstance().enableRealTime(4);
+        Simulator.getInstance().setStopTime(Time.milliSeconds(200));
+        long[] dispatched = new long[21];
+        for (int i = 0; i <= 20; i++) {
+            int index = i;
+            Simulator.getInstance().schedule(Time.milliSeconds(10 * i), () -> dispatched[index] = System.nanoTime());
+        }
+        long start = System.nanoTime();
+        Simulator.getInstance().run();
+
+        // One event every 2.5ms of wall-clock time, never early
+        for (int i = 0; i <= 20; i++) {
+            assertTrue(dispatched[i] - start >= 2500000L * i);
+        }
+        RealTimeClock clock = Simulator.getInstance().getRealTimeClock();
+        assertEquals(21, clock.getEvents());
+        assertTrue(clock.getMaxLag().compareTo(clock.getMeanLag()) >= 0);
+
+        // Speed is kept on reset, statistics are not
+        Simulator.getInstance().reset();
+        assertEquals(4, Simulator.getInstance().getRealTimeClock().getSpeed(), 0);
+        assertEquals(0, Simulator.getInstance().getRealTimeClock().getEvents());
+        Simulator.getInstance().disableRealTime();
+        assertNull(Simulator.getInstance().getRealTimeClock());
+    }
+
+    @Test
+    public void testProfiler() {
+        Simulator.getInstance().reset();
+        Simulator.getInstance().enableProfiler();
+        Simulator.getInstance().setStopTime(Time.milliSeconds(1000));
+        Runnable child = () -> {
+        };
+        Runnable parent = () -> {
+            Time now = Simulator.getInstance().getCurrentTime();
+            Simulator.getInstance().schedule(now.add(Time.milliSeconds(1)), child);
+            Simulator.getInstance().schedule(now.add(Time.milliSeconds(2)), child);
+        };
+        Simulator.getInstance().getProfiler().registerAction("SimulatorTest.parent", parent);
+        for (int i = 0; i < 10; i++) {
+            Simulator.getInstance().schedule(Time.milliSeconds(100 * i), parent);
+        }
+        Simulator.getInstance().run();
+
+        // Most expensive first, the parent scheduling two events each time
+        EventProfiler profiler = Simulator.getInstance().getProfiler();
+        List<ActionProfile> profiles = profiler.getActionProfiles();
+        assertEquals(2, profiles.size());
+        ActionProfile parentProfile = profiles.get(0).getEvents() == 10 ? profiles.get(0) : profiles.get(1);
+        ActionProfile childProfile = profiles.get(0).getEvents() == 10 ? profiles.get(1) : profiles.get(0);
+        assertEquals("SimulatorTest.parent", parentProfile.getName());
+        assertEquals("SimulatorTest", childProfile.getName());
+        assertEquals(10, parentProfile.getEvents());
+        assertEquals(2, parentProfile.getEventsScheduledPerEvent(), 0);
+        assertEquals(20, childProfile.getEvents());
+        assertEquals(0, childProfile.getEventsScheduled());
+        assertTrue(profiles.get(0).getTotalTime() >= profiles.get(1).getTotalTime());
+        assertTrue(parentProfile.getMaxTime() <= parentProfile.getTotalTime());
+
+        // Bins of 50ms: parents left in the queue, plus children
+        assertEquals(10, profiler.getMaxQueueDepth(0));
+        assertEquals(28.0 / 3, profiler.getMeanQueueDepth(0), 1e-9);
+        assertEquals(0, profiler.getMeanQueueDepth(1), 0);
+        assertEquals(9, profiler.getMaxQueueDepth(2));
+        assertTrue(profiler.getReport().contains("SimulatorTest"));
+        assertTrue(profiler.getReport().contains("Queue depth over simulated time:"));
+
+        // Kept on reset, without its statistics
+        Simulator.getInstance().reset();
+        assertEquals(0, Simulator.getInstance().getProfiler().getActionProfiles().size());
+        Simulator.getInstance().setStopTime(Time.milliSeconds(1000));
+        Simulator.getInstance().schedule(Time.milliSeconds(1), parent);
+        Simulator.getInstance().run();
+        profiles = Simulator.getInstance().getProfiler().getActionProfiles();
+        assertEquals("SimulatorTest.parent", profiles.get(0).getName());
+        Simulator.getInstance().disableProfiler();
+        assertNull(Simulator.getInstance().getProfiler());
+    }
+
+    @Test
+    public void testProgressReporter() {
+        Simulator.getInstance().reset();
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().enableProgressReporter(new Time(0, 0)));
+        Simulator.getInstance().enableProgressReporter(Time.milliSeconds(20));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Simulator.getInstance().getProgressReporter().setOutput(new PrintStream(output, true));
+        Simulator.getInstance().setStopTime(Time.milliSeconds(300));
+        for (int i = 0; i < 30; i++) {
+            Simulator.getInstance().schedule(Time.milliSeconds(10 * i), () -> {
+                long end = System.nanoTime() + 5000000L;
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+            });
+        }
+        Simulator.getInstance().run();
+
+        // Reports printed during the run, no event added to the simulation
+        ProgressReporter reporter = Simulator.getInstance().getProgressReporter();
+        assertTrue(reporter.getReports() > 0);
+        assertEquals(30, Simulator.getInstance().getEventsScheduled());
+        String[] lines = output.toString().split(System.lineSeparator());
+        assertEquals(reporter.getReports(), lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("Progress: "));
+            assertTrue(line.contains("events/s") && line.contains("MiB") && line.contains("ETA"));
+        }
+
+        // Kept on reset
+        Simulator.getInstance().reset();
+        assertEquals(Time.milliSeconds(20), Simulator.getInstance().getProgressReporter().getInterval());
+        Simulator.getInstance().disableProgressReporter();
+        assertNull(Simulator.getInstance().getProgressReporter());
+    }
+
+    @Test
+    public void testProgressBar() {
+        // Steps of 200 ms with ticks of 1 s are printed at their exact time
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setTimingWheel(new Time(1, 0), TimingWheel.DEFAULT_NUMBER_SLOTS,
+                TimingWheel.DEFAULT_NUMBER_LEVELS);
+        Simulator.getInstance().enableProgressBar();
+        Simulator.getInstance().setStopTime(new Time(20, 0));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(output, true));
+        try {
+            Simulator.getInstance().run();
+        } finally {
+            System.setOut(out);
+            Simulator.getInstance().disableProgressBar();
+        }
+        String[] lines = output.toString().lines().filter(l -> l.startsWith("Progress: ")).toArray(String[]::new);
+        assertEquals("Progress: 0.2s/20s", lines[0]);
+        assertEquals("Progress: 0.4s/20s", lines[1]);
+
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setTimingWheel(Time.nanoSeconds(TimingWheel.DEFAULT_RESOLUTION),
+                TimingWheel.DEFAULT_NUMBER_SLOTS, TimingWheel.DEFAULT_NUMBER_LEVELS);
+    }
+
+    @Test
+    public void testValidationLevel() {
+        assertEquals(ValidationLevel.OFF, ValidationLevel.parse("off"));
+        assertEquals(ValidationLevel.TOPOLOGY, ValidationLevel.parse("Topology"));
+        assertEquals(ValidationLevel.STRICT, ValidationLevel.parse(null));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(output, true));
+        try {
+            Logger.getInstance().enableLogger();
+            assertEquals(ValidationLevel.STRICT, ValidationLevel.parse("unknown"));
+        } finally {
+            System.setOut(out);
+        }
+        assertTrue(output.toString().contains("Unknown validation level 'unknown', using Strict"));
+
+        // Tests run with all the checks
+        assertEquals(ValidationLevel.STRICT, ValidationLevel.CURRENT);
+        assertTrue(ValidationLevel.CHECK_HOT_PATH && ValidationLevel.CHECK_TOPOLOGY);
+        assertThrows(RuntimeException.class, () -> Time.nanoSeconds(-1));
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(new Time(1, 0));
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().schedule(new Time(0, 0), (Runnable) null));
     }
 }
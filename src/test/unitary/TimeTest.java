@@ -59,6 +59,21 @@ public class TimeTest extends GenericTest {
                 () -> Time.nanoSeconds(-100));
     }
 
+    @Test
+    public void testLongTimes() {
+        Time time = Time.seconds(3000000000L);
+        assertEquals("3000000000s0ns", time.toString());
+        assertEquals(3000000000L * Time.NANOSECONDS_IN_SECOND, time.toNanoSeconds());
+        time = time.add(new Time(Integer.MAX_VALUE, 999999999));
+        assertEquals("5147483647s999999999ns", time.toString());
+        assertEquals("5147483647.999999s", time.toStringWithPrecision(6));
+        assertTrue(time.compareTo(Time.seconds(5147483648L)) < 0);
+        assertEquals(Time.seconds(3000000000L), time.remove(new Time(Integer.MAX_VALUE, 999999999)));
+        assertThrows(
+                RuntimeException.class,
+                () -> Time.seconds(Long.MAX_VALUE));
+    }
+
     @Test
     public void testCompareTo() {
         Time time = new Time(10, 50);
@@ -74,6 +89,9 @@ public class TimeTest extends GenericTest {
         Time time = new Time(10, 50);
         assertTrue(time.add(new Time(2, 4)).equals(new Time(12, 54)));
         assertTrue(time.add(new Time(2, 999999990)).equals(new Time(13, 40)));
+        assertThrows(
+                RuntimeException.class,
+                () -> Time.nanoSeconds(Long.MAX_VALUE).add(Time.nanoSeconds(1)));
     }
 
     @Test
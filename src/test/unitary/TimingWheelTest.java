@@ -0,0 +1,132 @@
+package test.unitary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import model.simulator.Simulator;
+import model.simulator.Time;
+import model.simulator.TimerHandle;
+import model.simulator.TimingWheel;
+
+public class TimingWheelTest extends GenericTest {
+
+    private List<String> fired = new ArrayList<String>();
+
+    private void fire(String name) {
+        this.fired.add(name + "@" + Simulator.getInstance().getCurrentTimeNanoSeconds());
+    }
+
+    @Test
+    public void testExpiration() {
+        Simulator.getInstance().reset();
+        // Horizon of 4 * 4 * 4 ticks of 1ms
+        Simulator.getInstance().setTimingWheel(Time.milliSeconds(1), 4, 3);
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        TimingWheel wheel = Simulator.getInstance().getTimingWheel();
+
+        wheel.schedule(Time.milliSeconds(100), () -> this.fire("a"));
+        wheel.schedule(Time.microSeconds(2500), () -> this.fire("b"));
+        // Timer added for a tick already processed
+        wheel.schedule(Time.milliSeconds(17), () -> {
+            this.fire("c");
+            Simulator.getInstance().schedule(Simulator.getInstance().getCurrentTime(),
+                    () -> wheel.schedule(Simulator.getInstance().getCurrentTime(), () -> this.fire("g")));
+        });
+        wheel.schedule(Time.milliSeconds(3), () -> this.fire("d"));
+        TimerHandle cancelled = wheel.schedule(Time.milliSeconds(40), () -> this.fire("e"));
+        wheel.schedule(Time.milliSeconds(63), () -> this.fire("f"));
+        assertEquals(6, wheel.size());
+        assertEquals(1, Simulator.getInstance().getEventQueueSize());
+        assertEquals(Time.milliSeconds(40), cancelled.getTime());
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertFalse(cancelled.isPending());
+
+        Simulator.getInstance().run();
+        assertEquals("[b@3000000, d@3000000, c@17000000, g@17000000, f@63000000, a@100000000]", this.fired.toString());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testPeriodic() {
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setStopTime(Time.milliSeconds(1000));
+        TimingWheel wheel = Simulator.getInstance().getTimingWheel();
+
+        TimerHandle[] periodic = new TimerHandle[1];
+        periodic[0] = wheel.scheduleEvery(Time.milliSeconds(300), () -> this.fire("p"));
+        wheel.schedule(Time.milliSeconds(700), () -> periodic[0].cancel());
+        Simulator.getInstance().schedule(Time.milliSeconds(50), () -> wheel.scheduleEvery(Time.milliSeconds(400),
+                () -> this.fire("q")));
+        Simulator.getInstance().run();
+
+        assertEquals("[p@300000000, q@450000000, p@600000000, q@850000000]", this.fired.toString());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    public void testSameAsEventQueue() {
+        Random random = new Random(42);
+        Simulator.getInstance().reset();
+        Simulator.getInstance().setTimingWheel(Time.microSeconds(10), 8, 3);
+        Simulator.getInstance().setStopTime(new Time(10, 0));
+        TimingWheel wheel = Simulator.getInstance().getTimingWheel();
+
+        // Timers on ticks, some of them adding other timers, some beyond the
+        // horizon of the wheel
+        List<Long> expected = new ArrayList<Long>();
+        for (int i = 0; i < 2000; i++) {
+            long time = 10000L * random.nextInt(i < 1900 ? 600 : 100000);
+            expected.add(time);
+            if (i % 10 == 0) {
+                long delay = 10000L * random.nextInt(50);
+                expected.add(time + delay);
+                wheel.schedule(Time.nanoSeconds(time), () -> {
+                    this.fire("");
+                    wheel.schedule(Simulator.getInstance().getCurrentTime().add(Time.nanoSeconds(delay)),
+                            () -> this.fire(""));
+                });
+            } else {
+                wheel.schedule(Time.nanoSeconds(time), () -> this.fire(""));
+            }
+        }
+        Simulator.getInstance().run();
+
+        expected.sort(null);
+        List<String> expectedFired = new ArrayList<String>();
+        for (long time : expected) {
+            expectedFired.add("@" + time);
+        }
+        assertEquals(expectedFired, this.fired);
+        assertTrue(Simulator.getInstance().getEventsScheduled() <= 1500);
+    }
+
+    @Test
+    public void testErrors() {
+        Simulator.getInstance().reset();
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().setTimingWheel(Time.milliSeconds(1), 3, 2));
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().setTimingWheel(new Time(), 4, 2));
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().setTimingWheel(Time.milliSeconds(1), 4, 0));
+        Simulator.getInstance().setTimingWheel(Time.milliSeconds(1), 4, 2);
+        TimingWheel wheel = Simulator.getInstance().getTimingWheel();
+        assertThrows(RuntimeException.class, () -> wheel.schedule(Time.milliSeconds(1), null));
+        assertThrows(RuntimeException.class, () -> wheel.scheduleEvery(new Time(), () -> this.fire("")));
+        wheel.schedule(Time.milliSeconds(1), () -> this.fire(""));
+        assertThrows(RuntimeException.class, () -> Simulator.getInstance().setTimingWheel(Time.milliSeconds(1), 8, 2));
+
+        // Configuration is kept on reset
+        Simulator.getInstance().reset();
+        assertEquals(4, Simulator.getInstance().getTimingWheel().getNumberSlots());
+        assertEquals(0, Simulator.getInstance().getTimingWheel().size());
+        Simulator.getInstance().setTimingWheel(Time.nanoSeconds(TimingWheel.DEFAULT_RESOLUTION),
+                TimingWheel.DEFAULT_NUMBER_SLOTS, TimingWheel.DEFAULT_NUMBER_LEVELS);
+    }
+}
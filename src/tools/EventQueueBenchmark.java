@@ -0,0 +1,215 @@
+package tools;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import model.simulator.Event;
+import model.simulator.EventQueue;
+import model.simulator.EventQueueType;
+import model.simulator.EventScheduleRecorder;
+import model.simulator.Time;
+
+/**
+ * Replay an event schedule recorded during a real scenario through each type
+ * of event queue, and report the number of operations per second and the
+ * number of bytes allocated by each queue.
+ * 
+ * The recording is obtained by calling
+ * {@code Simulator.getInstance().recordEventSchedule(path)} before scheduling
+ * the first event of the scenario. The benchmark is then launched using:
+ * 
+ * <pre>
+ * java tools.EventQueueBenchmark path [repetitions]
+ * </pre>
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see EventScheduleRecorder
+ * @see EventQueueType
+ */
+public class EventQueueBenchmark {
+
+    /**
+     * Type of each operation recorded
+     */
+    private byte[] operations;
+
+    /**
+     * Number of operations recorded
+     */
+    private int numberOperations;
+
+    /**
+     * Time in nanoseconds of each event added
+     */
+    private long[] times;
+
+    /**
+     * ID of each event added
+     */
+    private long[] ids;
+
+    /**
+     * Number of events added
+     */
+    private int numberEvents;
+
+    /**
+     * Load a recording
+     * 
+     * @param path Path of the recording
+     * @throws IOException If the recording cannot be read
+     */
+    public EventQueueBenchmark(String path) throws IOException {
+        this.operations = new byte[1024];
+        this.numberOperations = 0;
+        this.times = new long[1024];
+        this.ids = new long[1024];
+        this.numberEvents = 0;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            while (true) {
+                byte operation;
+                try {
+                    operation = input.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (this.numberOperations == this.operations.length) {
+                    this.operations = Arrays.copyOf(this.operations, 2 * this.operations.length);
+                }
+                this.operations[this.numberOperations] = operation;
+                this.numberOperations++;
+
+                if (operation == EventScheduleRecorder.ADD) {
+                    if (this.numberEvents == this.times.length) {
+                        this.times = Arrays.copyOf(this.times, 2 * this.times.length);
+                        this.ids = Arrays.copyOf(this.ids, 2 * this.ids.length);
+                    }
+                    this.times[this.numberEvents] = input.readLong();
+                    this.ids[this.numberEvents] = input.readLong();
+                    this.numberEvents++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of operations recorded
+     * 
+     * @return The number of operations
+     */
+    public int getNumberOperations() {
+        return this.numberOperations;
+    }
+
+    /**
+     * Replay the recording through a queue
+     * 
+     * @param type Type of the event queue to use
+     * @return A pair of values: duration of the replay in nanoseconds, and bytes
+     *         allocated during the replay, or -1 if not measured, see
+     *         {@link #isAllocationMeasured()}
+     */
+    public long[] replay(EventQueueType type) {
+        Event[] events = new Event[this.numberEvents];
+        for (int i = 0; i < this.numberEvents; i++) {
+            events[i] = new Event(this.times[i], null, this.ids[i]);
+        }
+        EventQueue queue = type.createEventQueue();
+
+        long allocatedStart = EventQueueBenchmark.getAllocatedBytes();
+        long start = System.nanoTime();
+
+        int next = 0;
+        for (int i = 0; i < this.numberOperations; i++) {
+            if (this.operations[i] == EventScheduleRecorder.ADD) {
+                queue.add(events[next]);
+                next++;
+            } else {
+                queue.poll();
+            }
+        }
+
+        long duration = System.nanoTime() - start;
+        long allocated = -1;
+        if (EventQueueBenchmark.isAllocationMeasured()) {
+            allocated = EventQueueBenchmark.getAllocatedBytes() - allocatedStart;
+        }
+        queue.clear();
+
+        return new long[] { duration, allocated };
+    }
+
+    /**
+     * Indicates if the JVM measures the bytes allocated by each thread
+     * 
+     * @return True if the allocations are measured
+     */
+    public static boolean isAllocationMeasured() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread since its start
+     * 
+     * @return The number of bytes, or -1 if not measured by the JVM
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java tools.EventQueueBenchmark path [repetitions]");
+            return;
+        }
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        EventQueueBenchmark benchmark = new EventQueueBenchmark(args[0]);
+        System.out.println("Replaying " + benchmark.getNumberOperations() + " operations, " + repetitions
+                + " repetitions");
+        System.out.println(String.format("%-16s %14s %14s", "Queue", "Ops/s", "Bytes/op"));
+
+        EventQueueType fastest = null;
+        double bestRate = 0;
+        for (EventQueueType type : EventQueueType.values()) {
+            // Warm up the JIT before measuring
+            benchmark.replay(type);
+
+            long duration = 0;
+            long allocated = 0;
+            for (int i = 0; i < repetitions; i++) {
+                long[] result = benchmark.replay(type);
+                duration += result[0];
+                allocated += result[1];
+            }
+
+            double operations = 1.0 * benchmark.getNumberOperations() * repetitions;
+            double rate = operations / (duration / (1.0 * Time.NANOSECONDS_IN_SECOND));
+            String bytes = EventQueueBenchmark.isAllocationMeasured() ? String.format("%.2f", allocated / operations)
+                    : "n/a";
+            System.out.println(String.format("%-16s %14.0f %14s", type, rate, bytes));
+
+            if (rate > bestRate) {
+                bestRate = rate;
+                fastest = type;
+            }
+        }
+        System.out.println("Fastest: " + fastest);
+    }
+}
@@ -0,0 +1,189 @@
+package tools;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.io.BinaryTraceWriter;
+import model.io.PacketTracer;
+import model.network.HeaderType;
+import model.network.IpAddress;
+import model.network.MacAddress;
+
+/**
+ * Regenerate the text packet trace from a binary one, written when
+ * {@code Simulator.getInstance().enableBinaryTrace()} is called before running
+ * the scenario. The decoder is launched using:
+ * 
+ * <pre>
+ * java tools.TraceDecoder path [output]
+ * </pre>
+ * 
+ * The text trace is written to the output path if given, else next to the
+ * binary trace, with the extension .log.
+ * 
+ * @author Bastien Tauran
+ * @version 1.0
+ * @see BinaryTraceWriter
+ */
+public class TraceDecoder {
+
+    /**
+     * Initial size of the read buffer, in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    /**
+     * Channel of the binary trace
+     */
+    private FileChannel channel;
+
+    /**
+     * Buffer of the bytes read and not decoded yet
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Payloads defined, by index
+     */
+    private String[] payloads;
+
+    /**
+     * Open a binary trace
+     * 
+     * @param path Path of the binary trace
+     * @throws IOException If the trace cannot be read or has a wrong format
+     */
+    public TraceDecoder(String path) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(TraceDecoder.BUFFER_SIZE);
+        this.buffer.flip();
+        this.payloads = new String[BinaryTraceWriter.MAX_PAYLOADS];
+
+        if (!this.fill(8) || this.buffer.getInt() != BinaryTraceWriter.MAGIC) {
+            throw new IOException(path + " is not a binary packet trace");
+        }
+        int version = this.buffer.getInt();
+        if (version != BinaryTraceWriter.VERSION) {
+            throw new IOException("Unsupported binary packet trace version: " + version);
+        }
+    }
+
+    /**
+     * Decode all the records of the trace and close it
+     * 
+     * @param output Destination of the text trace
+     * @throws IOException If the trace cannot be read or written
+     */
+    public void decode(Writer output) throws IOException {
+        HeaderType[] headerTypes = HeaderType.values();
+        StringBuilder line = new StringBuilder();
+
+        output.write(PacketTracer.HEADER);
+        while (this.fill(1)) {
+            byte type = this.buffer.get();
+            if (type == BinaryTraceWriter.RECORD_PAYLOAD) {
+                this.require(8);
+                int index = this.buffer.getInt();
+                byte[] bytes = new byte[this.buffer.getInt()];
+                this.require(bytes.length);
+                this.buffer.get(bytes);
+                this.payloads[index] = new String(bytes, StandardCharsets.UTF_8);
+                continue;
+            }
+            if (type != BinaryTraceWriter.RECORD_PACKET) {
+                throw new IOException("Unknown record type in binary packet trace: " + type);
+            }
+
+            // Read the whole record, its size depending on its headers
+            int size = BinaryTraceWriter.PACKET_RECORD_SIZE - 1 + 5;
+            this.require(size);
+            int numberHeaders = this.buffer.get(this.buffer.position() + size - 1) & 0xff;
+            for (int i = 0; i < numberHeaders; i++) {
+                this.require(size + 1);
+                if (headerTypes[this.buffer.get(this.buffer.position() + size)] == HeaderType.MAC_HEADER) {
+                    size += 1 + 2 * MacAddress.SIZE_BYTES;
+                } else {
+                    size += 1 + 2 * IpAddress.SIZE_NO_MASK_BYTES;
+                }
+            }
+            this.require(size);
+
+            line.setLength(0);
+            BinaryTraceWriter.decodePacket(this.buffer, this.payloads, line);
+            line.append('\n');
+            output.append(line);
+        }
+        this.channel.close();
+    }
+
+    /**
+     * Make sure the buffer holds a number of bytes, reading them if needed
+     * 
+     * @param size Number of bytes
+     * @return False if the end of the trace is reached before any byte is read
+     * @throws IOException If the trace ends in the middle of the bytes
+     */
+    private boolean fill(int size) throws IOException {
+        if (this.buffer.remaining() >= size) {
+            return true;
+        }
+        if (size > this.buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(size);
+            larger.put(this.buffer);
+            this.buffer = larger;
+        } else {
+            this.buffer.compact();
+        }
+        boolean empty = this.buffer.position() == 0;
+        while (this.buffer.position() < size) {
+            if (this.channel.read(this.buffer) < 0) {
+                if (empty && this.buffer.position() == 0) {
+                    this.buffer.flip();
+                    return false;
+                }
+                throw new IOException("Binary packet trace is truncated");
+            }
+        }
+        this.buffer.flip();
+        return true;
+    }
+
+    /**
+     * Make sure the buffer holds the rest of a record, reading it if needed
+     * 
+     * @param size Number of bytes
+     * @throws IOException If the trace ends in the middle of the record
+     */
+    private void require(int size) throws IOException {
+        if (!this.fill(size)) {
+            throw new IOException("Binary packet trace is truncated");
+        }
+    }
+
+    /**
+     * Launch the decoder
+     * 
+     * @param args Path of the binary trace, and optionally path of the text
+     *             trace
+     * @throws IOException If a trace cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java tools.TraceDecoder path [output]");
+            return;
+        }
+        String output = args.length > 1 ? args[1] : args[0].replaceFirst("(\\.bin)?$", ".log");
+
+        try (Writer writer = new BufferedWriter(new FileWriter(output), 1 << 16)) {
+            new TraceDecoder(args[0]).decode(writer);
+        }
+        System.out.println("Decoded " + args[0] + " to " + output);
+    }
+}